@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.profiling;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.erlei.gdx.graphics.g3d.Model;
+import com.erlei.gdx.graphics.g3d.ModelInstance;
+import com.erlei.gdx.graphics.g3d.model.Animation;
+import com.erlei.gdx.graphics.g3d.model.Node;
+import com.erlei.gdx.graphics.g3d.model.NodeAnimation;
+import com.erlei.gdx.graphics.g3d.model.NodeKeyframe;
+import com.erlei.gdx.graphics.g3d.utils.AnimationController;
+import com.erlei.gdx.graphics.g3d.utils.AnimationUpdater;
+import com.erlei.gdx.math.Quaternion;
+import com.erlei.gdx.math.Vector3;
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.TimeUtils;
+import com.erlei.gdx.utils.async.AsyncExecutor;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Animates instances of a generated skeleton with an {@link AnimationUpdater}, evaluating the keyframes, the baked tracks and
+ * the tracks resampled at the keyframe rate, each on the calling thread and split among a thread per processor, and reports the
+ * time per frame. The model has no meshes, so it runs on any thread, but the node transforms are multiplied by the native
+ * {@link com.erlei.gdx.math.Matrix4} methods, so the natives of the library have to be loaded. Runs on a device as an
+ * instrumented test, the results are logged.
+ */
+@RunWith(AndroidJUnit4.class)
+public class AnimationBenchmark {
+    private static final String TAG = "AnimationBenchmark";
+
+    /**
+     * The results of one setup, values per frame.
+     */
+    public static class Result {
+        public final String setup;
+        public final int threads;
+        public float micros;
+
+        public Result(String setup, int threads) {
+            this.setup = setup;
+            this.threads = threads;
+        }
+
+        @Override
+        public String toString() {
+            return setup + " (" + threads + " threads): " + micros + "us";
+        }
+    }
+
+    @BeforeClass
+    public static void loadNatives() {
+        System.loadLibrary("gdx");
+    }
+
+    @Test
+    public void benchmark() {
+        for (Result result : run(100, 30, 60, 100)) {
+            Log.i(TAG, result.toString());
+            assertTrue(result.micros > 0);
+        }
+    }
+
+    /**
+     * @param instances  the animated instances
+     * @param bones      the nodes of the skeleton, a chain of nodes each the child of the previous one
+     * @param keyframes  the keyframes per channel of every node
+     * @param iterations the measured frames per setup
+     * @return the results of the keyframes, the baked tracks and the resampled tracks, each on one thread and on a thread per
+     * processor
+     */
+    public static Result[] run(int instances, int bones, int keyframes, int iterations) {
+        String[] setups = {"keyframes", "baked", "resampled"};
+        Array<AnimationController>[] controllers = new Array[setups.length];
+        for (int s = 0; s < setups.length; s++) {
+            Model model = createModel(bones, keyframes);
+            // instances share the tracks baked before they are created
+            if (s > 0) model.animations.first().bake(s == 1 ? 0 : Math.max(1, keyframes - 1));
+            controllers[s] = new Array<AnimationController>(instances);
+            for (int i = 0; i < instances; i++) {
+                AnimationController controller = new AnimationController(new ModelInstance(model));
+                controller.setAnimation("animation", -1);
+                controllers[s].add(controller);
+            }
+        }
+
+        int threads = Runtime.getRuntime().availableProcessors();
+        AsyncExecutor executor = new AsyncExecutor(threads);
+        try {
+            Result[] results = new Result[setups.length * 2];
+            for (int i = 0; i < results.length; i++) {
+                Result result = results[i] = new Result(setups[i / 2], i % 2 == 0 ? 1 : threads);
+                AnimationUpdater updater = new AnimationUpdater(i % 2 == 0 ? null : executor);
+                updater.getControllers().addAll(controllers[i / 2]);
+                long nanos = 0;
+                // the first quarter of the iterations warms up
+                for (int n = -(iterations / 4 + 1); n < iterations; n++) {
+                    updater.update(1 / 60f);
+                    if (n >= 0) nanos += updater.getUpdateTime();
+                }
+                result.micros = nanos / 1000f / iterations;
+            }
+            return results;
+        } finally {
+            executor.dispose();
+        }
+    }
+
+    /**
+     * @return a model with a chain of nodes and an animation with id "animation" of one second moving, rotating and scaling all
+     * of them, with the keyframes evenly spaced
+     */
+    public static Model createModel(int bones, int keyframes) {
+        Model model = new Model();
+        Animation animation = new Animation();
+        animation.id = "animation";
+        animation.duration = 1;
+        Node parent = null;
+        for (int i = 0; i < bones; i++) {
+            Node node = new Node();
+            node.id = "bone" + i;
+            node.translation.set(0, 1, 0);
+            if (parent == null)
+                model.nodes.add(node);
+            else
+                parent.addChild(node);
+            parent = node;
+
+            NodeAnimation nodeAnimation = new NodeAnimation();
+            nodeAnimation.node = node;
+            nodeAnimation.translation = new Array<NodeKeyframe<Vector3>>(keyframes);
+            nodeAnimation.rotation = new Array<NodeKeyframe<Quaternion>>(keyframes);
+            nodeAnimation.scaling = new Array<NodeKeyframe<Vector3>>(keyframes);
+            for (int k = 0; k < keyframes; k++) {
+                float time = keyframes == 1 ? 0 : k / (float) (keyframes - 1);
+                float wave = (float) Math.sin(time * Math.PI * 2 + i);
+                nodeAnimation.translation.add(new NodeKeyframe<Vector3>(time, new Vector3(0, 1 + wave * 0.1f, 0)));
+                nodeAnimation.rotation.add(new NodeKeyframe<Quaternion>(time, new Quaternion(Vector3.Z, wave * 30)));
+                nodeAnimation.scaling.add(new NodeKeyframe<Vector3>(time, new Vector3(1, 1, 1).scl(1 + wave * 0.05f)));
+            }
+            animation.nodeAnimations.add(nodeAnimation);
+        }
+        model.animations.add(animation);
+        return model;
+    }
+}
@@ -0,0 +1,120 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.profiling;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.erlei.gdx.graphics.Pixmap.Format;
+import com.erlei.gdx.graphics.glutils.MipMapChain;
+import com.erlei.gdx.utils.BufferUtils;
+import com.erlei.gdx.utils.TimeUtils;
+import com.erlei.gdx.utils.async.AsyncExecutor;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Generates the mipmap chain of the same random image with each {@link MipMapChain.Filter}, on the calling thread and split
+ * among a thread per processor, and reports the time per chain. Nothing is uploaded, so it runs on any thread, but the chain
+ * lives in a native buffer. Runs on a device as an instrumented test, the results are logged.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MipMapBenchmark {
+    private static final String TAG = "MipMapBenchmark";
+
+    /**
+     * The results of one filter and thread setup, values per chain.
+     */
+    public static class Result {
+        public final MipMapChain.Filter filter;
+        public final int threads;
+        public float micros;
+
+        public Result(MipMapChain.Filter filter, int threads) {
+            this.filter = filter;
+            this.threads = threads;
+        }
+
+        @Override
+        public String toString() {
+            return filter + " (" + threads + " threads): " + micros + "us";
+        }
+    }
+
+    @BeforeClass
+    public static void loadNatives() {
+        System.loadLibrary("gdx");
+    }
+
+    @Test
+    public void benchmark() {
+        for (boolean gammaCorrect : new boolean[]{false, true}) {
+            for (Result result : run(1024, 1024, Format.RGBA8888, gammaCorrect, 20)) {
+                Log.i(TAG, (gammaCorrect ? "gamma correct " : "") + result);
+                assertTrue(result.micros > 0);
+            }
+        }
+    }
+
+    /**
+     * @param width        the width of level 0
+     * @param height       the height of level 0
+     * @param format       a format supported by {@link MipMapChain#isSupported(Format)}
+     * @param gammaCorrect whether the color channels are filtered in linear space
+     * @param iterations   the measured chains per setup
+     * @return the results of every filter on one thread and on a thread per processor
+     */
+    public static Result[] run(int width, int height, Format format, boolean gammaCorrect, int iterations) {
+        MipMapChain chain = new MipMapChain(width, height, format);
+        int threads = Runtime.getRuntime().availableProcessors();
+        AsyncExecutor executor = new AsyncExecutor(threads);
+        try {
+            ByteBuffer source = BufferUtils.newByteBuffer(chain.getLevel(0).remaining());
+            Random random = new Random(1);
+            while (source.hasRemaining())
+                source.put((byte) random.nextInt(256));
+            source.flip();
+            chain.setPixels(source);
+
+            MipMapChain.Filter[] filters = MipMapChain.Filter.values();
+            Result[] results = new Result[filters.length * 2];
+            for (int i = 0; i < results.length; i++) {
+                Result result = results[i] = new Result(filters[i / 2], i % 2 == 0 ? 1 : threads);
+                AsyncExecutor used = i % 2 == 0 ? null : executor;
+                long nanos = 0;
+                // the first quarter of the iterations warms up
+                for (int n = -(iterations / 4 + 1); n < iterations; n++) {
+                    long start = TimeUtils.nanoTime();
+                    chain.generate(result.filter, gammaCorrect, used);
+                    if (n >= 0) nanos += TimeUtils.nanoTime() - start;
+                }
+                result.micros = nanos / 1000f / iterations;
+            }
+            return results;
+        } finally {
+            executor.dispose();
+            chain.dispose();
+        }
+    }
+}
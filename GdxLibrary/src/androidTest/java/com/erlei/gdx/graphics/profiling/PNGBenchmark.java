@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.profiling;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.erlei.gdx.graphics.Pixmap;
+import com.erlei.gdx.graphics.PixmapIO;
+import com.erlei.gdx.utils.GdxRuntimeException;
+import com.erlei.gdx.utils.TimeUtils;
+import com.erlei.gdx.utils.async.AsyncExecutor;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Encodes the same pixmap with {@link PixmapIO.PNG} and with {@link PixmapIO.ParallelPNG} on the calling thread and split
+ * among a thread per processor, and reports the time and size per image. Nothing is uploaded, so it runs on any thread, but
+ * the pixmap is native. Runs on a device as an instrumented test, the results are logged.
+ */
+@RunWith(AndroidJUnit4.class)
+public class PNGBenchmark {
+    private static final String TAG = "PNGBenchmark";
+
+    /**
+     * The results of one encoder setup, values per image.
+     */
+    public static class Result {
+        public final String encoder;
+        public final int threads;
+        public float micros;
+        public int bytes;
+
+        public Result(String encoder, int threads) {
+            this.encoder = encoder;
+            this.threads = threads;
+        }
+
+        @Override
+        public String toString() {
+            return encoder + " (" + threads + " threads): " + micros + "us, " + bytes + " bytes";
+        }
+    }
+
+    @BeforeClass
+    public static void loadNatives() {
+        System.loadLibrary("gdx");
+    }
+
+    @Test
+    public void benchmark() {
+        // a smooth gradient with some noise, closer to a screenshot than pure noise
+        Pixmap pixmap = new Pixmap(1024, 768, Pixmap.Format.RGBA8888);
+        try {
+            ByteBuffer pixels = pixmap.getPixels();
+            for (int y = 0; y < pixmap.getHeight(); y++)
+                for (int x = 0; x < pixmap.getWidth(); x++)
+                    pixels.put((byte) x).put((byte) y).put((byte) (x * y % 7)).put((byte) 255);
+            pixels.clear();
+            for (Result result : run(pixmap, 10)) {
+                Log.i(TAG, result.toString());
+                assertTrue(result.bytes > 0);
+            }
+        } finally {
+            pixmap.dispose();
+        }
+    }
+
+    /**
+     * @param pixmap     the image to encode
+     * @param iterations the measured images per setup
+     * @return the results of {@link PixmapIO.PNG}, then {@link PixmapIO.ParallelPNG} with Paeth filtering and with adaptive
+     * filtering, each on one thread and on a thread per processor
+     */
+    public static Result[] run(Pixmap pixmap, int iterations) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AsyncExecutor executor = new AsyncExecutor(threads);
+        PixmapIO.PNG png = new PixmapIO.PNG(pixmap.getWidth() * pixmap.getHeight());
+        PixmapIO.ParallelPNG serial = new PixmapIO.ParallelPNG(null);
+        PixmapIO.ParallelPNG parallel = new PixmapIO.ParallelPNG(executor);
+        ByteArrayOutputStream output = new ByteArrayOutputStream(pixmap.getWidth() * pixmap.getHeight() * 4);
+        try {
+            Result[] results = new Result[5];
+            results[0] = measure(new Result("PNG", 1), png, null, pixmap, output, iterations);
+            for (int i = 0; i < 4; i++) {
+                boolean adaptive = i >= 2;
+                PixmapIO.ParallelPNG encoder = i % 2 == 0 ? serial : parallel;
+                encoder.setAdaptiveFilter(adaptive);
+                Result result = new Result(adaptive ? "ParallelPNG adaptive" : "ParallelPNG paeth", i % 2 == 0 ? 1 : threads);
+                results[i + 1] = measure(result, null, encoder, pixmap, output, iterations);
+            }
+            return results;
+        } catch (IOException ex) {
+            throw new GdxRuntimeException(ex);
+        } finally {
+            png.dispose();
+            serial.dispose();
+            parallel.dispose();
+            executor.dispose();
+        }
+    }
+
+    private static Result measure(Result result, PixmapIO.PNG png, PixmapIO.ParallelPNG parallel, Pixmap pixmap,
+                                  ByteArrayOutputStream output, int iterations) throws IOException {
+        long nanos = 0;
+        // the first quarter of the iterations warms up
+        for (int n = -(iterations / 4 + 1); n < iterations; n++) {
+            output.reset();
+            long start = TimeUtils.nanoTime();
+            if (png != null)
+                png.write(output, pixmap);
+            else
+                parallel.write(output, pixmap);
+            if (n >= 0) nanos += TimeUtils.nanoTime() - start;
+        }
+        result.micros = nanos / 1000f / iterations;
+        result.bytes = output.size();
+        return result;
+    }
+}
@@ -0,0 +1,350 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.profiling;
+
+import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.GL30;
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.IntIntMap;
+import com.erlei.gdx.utils.IntMap;
+import com.erlei.gdx.utils.IntSet;
+import com.erlei.gdx.utils.ObjectIntMap;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.ShortBuffer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A stand-in for the GL that does not render anything but records the calls made to it and the bytes that would be uploaded
+ * to the GPU. Used to compare how much work different rendering code hands to the driver, without a context and without the
+ * timings of a real driver.
+ * <p>
+ * Object names are counted up from 1, shaders always compile and programs always link. The attributes and uniforms of a
+ * program are parsed from the sources of its shaders, so {@link com.erlei.gdx.graphics.glutils.ShaderProgram} finds them.
+ * Mapped buffers are fresh direct buffers.
+ * <p>
+ * Uploaded bytes are the sizes passed to glBufferData, glBufferSubData, glMapBufferRange and the texture image functions. Client
+ * side vertex arrays are counted once per draw with the size of their largest buffer, client side indices are not counted.
+ * <p>
+ * Buffer objects a draw read from are in flight until the next {@link #reset()}. Writing to an in flight buffer with
+ * glBufferSubData or a synchronized glMapBufferRange counts as a stall, since a driver would have to wait for the draw.
+ * Replacing the storage of an in flight buffer with glBufferData or {@link GL30#GL_MAP_INVALIDATE_BUFFER_BIT} counts as a
+ * reallocation instead.
+ */
+public class RecordingGL implements InvocationHandler {
+    private static final Pattern DECLARATION = Pattern.compile("\\b(attribute|in|uniform)\\s+\\w+\\s+\\w+\\s+(\\w+)|\\b(attribute|in|uniform)\\s+\\w+\\s+(\\w+)");
+
+    private final GL30 gl30;
+    private final ObjectIntMap<String> callCounts = new ObjectIntMap<String>();
+    private final IntMap<String> shaderSources = new IntMap<String>();
+    private final IntMap<Array<String>> programShaders = new IntMap<Array<String>>();
+    private final IntMap<Array<String>[]> programs = new IntMap<Array<String>[]>();
+    private final Array<Buffer> clientArrays = new Array<Buffer>();
+    private final IntMap<IntIntMap> vertexArrayBuffers = new IntMap<IntIntMap>();
+    private final IntSet inFlight = new IntSet();
+    private int arrayBuffer, elementBuffer, vertexArray;
+    private int nextName = 1;
+
+    private int calls;
+    private int drawCalls;
+    private long bytesUploaded;
+    private int uploads;
+    private int stalls;
+    private int reallocations;
+
+    public RecordingGL() {
+        gl30 = (GL30) Proxy.newProxyInstance(GL30.class.getClassLoader(), new Class[]{GL30.class}, this);
+    }
+
+    /**
+     * @return the stand-in, also usable where a {@link GL20} is expected
+     */
+    public GL30 getGL30() {
+        return gl30;
+    }
+
+    /**
+     * @return the total gl calls made since the last reset
+     */
+    public int getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return the amount of calls to the given gl function since the last reset, e.g. "glBufferSubData"
+     */
+    public int getCalls(String function) {
+        return callCounts.get(function, 0);
+    }
+
+    /**
+     * @return the glDrawArrays and glDrawElements calls, including the instanced ones, since the last reset
+     */
+    public int getDrawCalls() {
+        return drawCalls;
+    }
+
+    /**
+     * @return the bytes uploaded since the last reset
+     */
+    public long getBytesUploaded() {
+        return bytesUploaded;
+    }
+
+    /**
+     * @return the calls that uploaded data since the last reset
+     */
+    public int getUploads() {
+        return uploads;
+    }
+
+    /**
+     * @return the writes to buffers that were in flight since the last reset
+     */
+    public int getStalls() {
+        return stalls;
+    }
+
+    /**
+     * @return the buffers that were in flight and got new storage since the last reset
+     */
+    public int getReallocations() {
+        return reallocations;
+    }
+
+    /**
+     * Resets the statistics and marks all buffers as no longer in flight, the created objects are kept.
+     */
+    public void reset() {
+        calls = 0;
+        drawCalls = 0;
+        bytesUploaded = 0;
+        uploads = 0;
+        stalls = 0;
+        reallocations = 0;
+        inFlight.clear();
+        callCounts.clear();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+        String name = method.getName();
+        if (method.getDeclaringClass() == Object.class) {
+            if (name.equals("equals")) return proxy == args[0];
+            if (name.equals("hashCode")) return System.identityHashCode(proxy);
+            return "RecordingGL";
+        }
+        calls++;
+        callCounts.getAndIncrement(name, 0, 1);
+
+        if (name.startsWith("glDrawArrays") || name.startsWith("glDrawElements")) {
+            drawCalls++;
+            // the attributes usually are views of the same vertices, count the largest one
+            long bytes = 0;
+            for (Buffer buffer : clientArrays)
+                bytes = Math.max(bytes, buffer.limit() * elementSize(buffer));
+            if (bytes > 0) upload(bytes);
+            IntIntMap buffers = vertexArrayBuffers.get(vertexArray);
+            if (buffers != null) {
+                for (IntIntMap.Entry entry : buffers)
+                    inFlight.add(entry.value);
+            }
+            if (name.startsWith("glDrawElements") && args[3] instanceof Integer && elementBuffer != 0) inFlight.add(elementBuffer);
+            return null;
+        }
+        if (name.equals("glBufferData")) {
+            if (inFlight.remove(boundBuffer((Integer) args[0]))) reallocations++;
+            if (args[2] != null) upload((Integer) args[1]);
+            return null;
+        }
+        if (name.equals("glBufferSubData")) {
+            if (inFlight.contains(boundBuffer((Integer) args[0]))) stalls++;
+            upload((Integer) args[2]);
+            return null;
+        }
+        if (name.equals("glMapBufferRange")) {
+            int access = (Integer) args[3];
+            int buffer = boundBuffer((Integer) args[0]);
+            if ((access & GL30.GL_MAP_INVALIDATE_BUFFER_BIT) != 0) {
+                if (inFlight.remove(buffer)) reallocations++;
+            } else if ((access & GL30.GL_MAP_UNSYNCHRONIZED_BIT) == 0 && inFlight.contains(buffer)) {
+                stalls++;
+            }
+            upload((Integer) args[2]);
+            return ByteBuffer.allocateDirect((Integer) args[2]).order(ByteOrder.nativeOrder());
+        }
+        if (name.startsWith("glTexImage") || name.startsWith("glTexSubImage") || name.startsWith("glCompressedTex")) {
+            Object data = args[args.length - 1];
+            if (data instanceof Buffer) upload(((Buffer) data).remaining() * elementSize((Buffer) data));
+            return null;
+        }
+        if (name.equals("glVertexAttribPointer")) {
+            Object pointer = args[5];
+            if (pointer instanceof Buffer) {
+                if (!clientArrays.contains((Buffer) pointer, true)) clientArrays.add((Buffer) pointer);
+            } else {
+                IntIntMap buffers = vertexArrayBuffers.get(vertexArray);
+                if (buffers == null) vertexArrayBuffers.put(vertexArray, buffers = new IntIntMap());
+                buffers.put((Integer) args[0], arrayBuffer);
+            }
+            return null;
+        }
+        if (name.equals("glDisableVertexAttribArray")) {
+            IntIntMap buffers = vertexArrayBuffers.get(vertexArray);
+            if (buffers != null) buffers.remove((Integer) args[0], 0);
+            return null;
+        }
+        if (name.equals("glBindVertexArray")) {
+            vertexArray = (Integer) args[0];
+            return null;
+        }
+        if (name.equals("glBindBuffer")) {
+            if ((Integer) args[0] == GL20.GL_ARRAY_BUFFER) {
+                arrayBuffer = (Integer) args[1];
+                if (arrayBuffer != 0) clientArrays.clear();
+            } else if ((Integer) args[0] == GL20.GL_ELEMENT_ARRAY_BUFFER) {
+                elementBuffer = (Integer) args[1];
+            }
+            return null;
+        }
+        if (name.equals("glShaderSource")) {
+            shaderSources.put((Integer) args[0], (String) args[1]);
+            return null;
+        }
+        if (name.equals("glAttachShader")) {
+            Array<String> sources = programShaders.get((Integer) args[0]);
+            if (sources == null) programShaders.put((Integer) args[0], sources = new Array<String>());
+            sources.add(shaderSources.get((Integer) args[1]));
+            return null;
+        }
+        if (name.equals("glLinkProgram")) {
+            programs.put((Integer) args[0], parse(programShaders.get((Integer) args[0])));
+            return null;
+        }
+        if (name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) {
+            ((IntBuffer) args[2]).put(0, getParameter((Integer) args[0], (Integer) args[1]));
+            return null;
+        }
+        if (name.equals("glGetIntegerv")) {
+            int pname = (Integer) args[0];
+            int value = pname == GL20.GL_MAX_TEXTURE_IMAGE_UNITS || pname == GL20.GL_MAX_COMBINED_TEXTURE_IMAGE_UNITS ? 16
+                    : pname == GL20.GL_MAX_TEXTURE_SIZE ? 4096 : 0;
+            if (args[1] instanceof IntBuffer) ((IntBuffer) args[1]).put(0, value);
+            return null;
+        }
+        if (name.equals("glGetActiveAttrib") || name.equals("glGetActiveUniform")) {
+            Array<String>[] declared = programs.get((Integer) args[0]);
+            int index = (Integer) args[1];
+            ((IntBuffer) args[2]).put(0, 1);
+            ((IntBuffer) args[3]).put(0, GL20.GL_FLOAT);
+            Array<String> names = declared[name.equals("glGetActiveAttrib") ? 0 : 1];
+            return index < names.size ? names.get(index) : "";
+        }
+        if (name.equals("glGetAttribLocation") || name.equals("glGetUniformLocation")) {
+            Array<String>[] declared = programs.get((Integer) args[0]);
+            if (declared == null) return -1;
+            return declared[name.equals("glGetAttribLocation") ? 0 : 1].indexOf((String) args[1], false);
+        }
+        if (name.equals("glGetString")) return (Integer) args[0] == GL20.GL_VERSION ? "OpenGL ES 3.0 RecordingGL" : "RecordingGL";
+        if (name.equals("glCheckFramebufferStatus")) return GL20.GL_FRAMEBUFFER_COMPLETE;
+        if (name.equals("glFenceSync")) return (long) nextName++;
+        if (name.equals("glClientWaitSync")) return GL30.GL_ALREADY_SIGNALED;
+        if (name.equals("glGetShaderInfoLog") || name.equals("glGetProgramInfoLog")) return "";
+        if (name.startsWith("glGen") || name.startsWith("glCreate")) {
+            if (method.getReturnType() == int.class) return nextName++;
+            if (name.equals("glGenerateMipmap")) return null;
+            // glGenBuffers(n, IntBuffer) or glGenBuffers(n, int[], offset)
+            int n = (Integer) args[0];
+            for (int i = 0; i < n; i++) {
+                if (args[1] instanceof IntBuffer)
+                    ((IntBuffer) args[1]).put(((IntBuffer) args[1]).position() + i, nextName++);
+                else
+                    ((int[]) args[1])[(Integer) args[2] + i] = nextName++;
+            }
+            return null;
+        }
+
+        Class returnType = method.getReturnType();
+        if (returnType == boolean.class) return name.equals("glUnmapBuffer");
+        if (returnType == int.class) return 0;
+        if (returnType == long.class) return 0L;
+        if (returnType == float.class) return 0f;
+        return null;
+    }
+
+    private int getParameter(int object, int pname) {
+        switch (pname) {
+            case GL20.GL_COMPILE_STATUS:
+            case GL20.GL_LINK_STATUS:
+            case GL20.GL_VALIDATE_STATUS:
+                return 1;
+            case GL20.GL_ACTIVE_ATTRIBUTES:
+                return programs.containsKey(object) ? programs.get(object)[0].size : 0;
+            case GL20.GL_ACTIVE_UNIFORMS:
+                return programs.containsKey(object) ? programs.get(object)[1].size : 0;
+            default:
+                return 0;
+        }
+    }
+
+    private Array<String>[] parse(Array<String> sources) {
+        Array<String> attributes = new Array<String>(), uniforms = new Array<String>();
+        if (sources != null) {
+            for (int i = 0; i < sources.size; i++) {
+                String source = sources.get(i);
+                if (source == null) continue;
+                // only the vertex shader declares attributes, inputs of the fragment shader are varyings
+                boolean vertexShader = source.contains("gl_Position");
+                Matcher matcher = DECLARATION.matcher(source);
+                while (matcher.find()) {
+                    String qualifier = matcher.group(1) != null ? matcher.group(1) : matcher.group(3);
+                    String name = matcher.group(2) != null ? matcher.group(2) : matcher.group(4);
+                    Array<String> names = qualifier.equals("uniform") ? uniforms : vertexShader ? attributes : null;
+                    if (names != null && !names.contains(name, false)) names.add(name);
+                }
+            }
+        }
+        return new Array[]{attributes, uniforms};
+    }
+
+    private int boundBuffer(int target) {
+        return target == GL20.GL_ELEMENT_ARRAY_BUFFER ? elementBuffer : target == GL20.GL_ARRAY_BUFFER ? arrayBuffer : 0;
+    }
+
+    private void upload(long bytes) {
+        bytesUploaded += bytes;
+        uploads++;
+    }
+
+    private static int elementSize(Buffer buffer) {
+        if (buffer instanceof ByteBuffer) return 1;
+        if (buffer instanceof ShortBuffer) return 2;
+        if (buffer instanceof IntBuffer || buffer instanceof FloatBuffer) return 4;
+        if (buffer instanceof LongBuffer || buffer instanceof DoubleBuffer) return 8;
+        return 2;
+    }
+}
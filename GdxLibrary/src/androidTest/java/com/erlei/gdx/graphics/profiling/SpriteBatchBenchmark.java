@@ -0,0 +1,142 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.profiling;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.GL30;
+import com.erlei.gdx.graphics.Mesh.VertexDataType;
+import com.erlei.gdx.graphics.Texture;
+import com.erlei.gdx.graphics.g2d.Batch;
+import com.erlei.gdx.graphics.g2d.MultiTextureBatch;
+import com.erlei.gdx.graphics.g2d.SpriteBatch;
+import com.erlei.gdx.graphics.glutils.GLOnlyTextureData;
+import com.erlei.gdx.utils.TimeUtils;
+
+/**
+ * Draws the same sprites with {@link SpriteBatch}es using different {@link VertexDataType}s and with a {@link MultiTextureBatch}
+ * against a {@link RecordingGL} and reports the GL calls, draw calls and uploaded bytes per frame. The real GL is not used, but the benchmark must run on the
+ * rendering thread of a running app since it temporarily replaces {@link Gdx#gl}.
+ */
+public class SpriteBatchBenchmark {
+    /**
+     * The results of one batch, all values per frame.
+     */
+    public static class Result {
+        /** The simple class name of the batch */
+        public final String batch;
+        public final VertexDataType vertexDataType;
+        public float calls;
+        public float drawCalls;
+        public float renderCalls;
+        public float bytesUploaded;
+        public float uploads;
+        /** Uploads that would wait for a previous draw, see {@link RecordingGL#getStalls()} */
+        public float stalls;
+        /** Buffers that got new storage while a previous draw used them, see {@link RecordingGL#getReallocations()} */
+        public float reallocations;
+        /** The CPU time spent in the batch and the stand-in GL, not representative for a real driver */
+        public float millis;
+
+        public Result(String batch, VertexDataType vertexDataType) {
+            this.batch = batch;
+            this.vertexDataType = vertexDataType;
+        }
+
+        @Override
+        public String toString() {
+            return batch + " " + vertexDataType + ": calls: " + calls + ", draw calls: " + drawCalls + ", render calls: " + renderCalls
+                    + ", uploaded: " + (long) bytesUploaded + "b in " + uploads + " uploads, stalls: " + stalls + ", reallocations: "
+                    + reallocations + ", cpu: " + millis + "ms";
+        }
+    }
+
+    /**
+     * @param frames            the frames to draw per vertex data type
+     * @param sprites           the sprites drawn per frame
+     * @param textures          the amount of textures the sprites alternate between
+     * @param spritesPerTexture the sprites drawn in a row with the same texture, each texture switch flushes the batch
+     * @return the results for {@link VertexDataType#VertexArray}, {@link VertexDataType#VertexBufferObjectSubData},
+     * {@link VertexDataType#VertexBufferObjectWithVAO} and {@link VertexDataType#VertexBufferObjectRing}, followed by a
+     * {@link MultiTextureBatch} with {@link VertexDataType#VertexBufferObjectRing}
+     */
+    public static Result[] run(int frames, int sprites, int textures, int spritesPerTexture) {
+        VertexDataType[] types = {VertexDataType.VertexArray, VertexDataType.VertexBufferObjectSubData,
+                VertexDataType.VertexBufferObjectWithVAO, VertexDataType.VertexBufferObjectRing};
+        Result[] results = new Result[types.length + 1];
+
+        GL20 gl = Gdx.gl, gl20 = Gdx.gl20;
+        GL30 gl30 = Gdx.gl30;
+        RecordingGL recorder = new RecordingGL();
+        Gdx.gl = Gdx.gl20 = Gdx.gl30 = recorder.getGL30();
+        try {
+            Texture[] textureArray = new Texture[textures];
+            for (int i = 0; i < textures; i++)
+                textureArray[i] = new Texture(new GLOnlyTextureData(64, 64, 0, GL20.GL_RGBA, GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE));
+
+            for (int t = 0; t < types.length; t++) {
+                SpriteBatch batch = new SpriteBatch(1000, null, types[t]);
+                results[t] = measure(recorder, batch, types[t], textureArray, frames, sprites, spritesPerTexture);
+                batch.dispose();
+            }
+            MultiTextureBatch batch = new MultiTextureBatch(1000, 8, null, VertexDataType.VertexBufferObjectRing);
+            results[types.length] = measure(recorder, batch, VertexDataType.VertexBufferObjectRing, textureArray, frames, sprites,
+                    spritesPerTexture);
+            batch.dispose();
+
+            for (Texture texture : textureArray)
+                texture.dispose();
+        } finally {
+            Gdx.gl = gl;
+            Gdx.gl20 = gl20;
+            Gdx.gl30 = gl30;
+        }
+        return results;
+    }
+
+    private static Result measure(RecordingGL recorder, Batch batch, VertexDataType vertexDataType, Texture[] textures,
+                                  int frames, int sprites, int spritesPerTexture) {
+        drawFrame(batch, textures, sprites, spritesPerTexture);
+        recorder.reset();
+
+        Result result = new Result(batch.getClass().getSimpleName(), vertexDataType);
+        long start = TimeUtils.nanoTime();
+        int renderCalls = 0;
+        for (int f = 0; f < frames; f++) {
+            drawFrame(batch, textures, sprites, spritesPerTexture);
+            renderCalls += batch instanceof SpriteBatch ? ((SpriteBatch) batch).renderCalls : ((MultiTextureBatch) batch).renderCalls;
+        }
+        result.millis = (TimeUtils.nanoTime() - start) / 1000000f / frames;
+        result.calls = recorder.getCalls() / (float) frames;
+        result.drawCalls = recorder.getDrawCalls() / (float) frames;
+        result.renderCalls = renderCalls / (float) frames;
+        result.bytesUploaded = recorder.getBytesUploaded() / (float) frames;
+        result.uploads = recorder.getUploads() / (float) frames;
+        result.stalls = recorder.getStalls() / (float) frames;
+        result.reallocations = recorder.getReallocations() / (float) frames;
+        return result;
+    }
+
+    private static void drawFrame(Batch batch, Texture[] textures, int sprites, int spritesPerTexture) {
+        batch.begin();
+        for (int i = 0; i < sprites; i++) {
+            Texture texture = textures[i / spritesPerTexture % textures.length];
+            batch.draw(texture, i % 64 * 16, i / 64 * 16, 16, 16);
+        }
+        batch.end();
+    }
+}
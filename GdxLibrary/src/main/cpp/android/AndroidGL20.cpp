@@ -1353,13 +1353,24 @@ JNIEXPORT void JNICALL Java_com_erlei_gdx_graphics_AndroidGL20_glPolygonOffset
  * Method:    glReadPixels
  * Signature: (IIIIIILjava/nio/Buffer;)V
  */
-JNIEXPORT void JNICALL Java_com_erlei_gdx_graphics_AndroidGL20_glReadPixels
+JNIEXPORT void JNICALL Java_com_erlei_gdx_graphics_AndroidGL20_glReadPixels__IIIIIILjava_nio_Buffer_2
   (JNIEnv *env, jobject, jint x, jint y, jint width, jint height, jint format, jint type, jobject pixels)
 {
 	void* dataPtr = getDirectBufferPointer( env, pixels );
 	glReadPixels( x, y, width, height, format, type, dataPtr );
 }
 
+/*
+ * Class:     com_erlei_gdx_graphics_AndroidGL20
+ * Method:    glReadPixels
+ * Signature: (IIIIIII)V
+ */
+JNIEXPORT void JNICALL Java_com_erlei_gdx_graphics_AndroidGL20_glReadPixels__IIIIIII
+  (JNIEnv *, jobject, jint x, jint y, jint width, jint height, jint format, jint type, jint offset)
+{
+	glReadPixels( x, y, width, height, format, type, (void*)offset );
+}
+
 /*
  * Class:     com_erlei_gdx_graphics_AndroidGL20
  * Method:    glReleaseShaderCompiler
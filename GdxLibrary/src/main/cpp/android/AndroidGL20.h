@@ -828,9 +828,17 @@ JNIEXPORT void JNICALL Java_com_erlei_gdx_graphics_AndroidGL20_glPolygonOffset
  * Method:    glReadPixels
  * Signature: (IIIIIILjava/nio/Buffer;)V
  */
-JNIEXPORT void JNICALL Java_com_erlei_gdx_graphics_AndroidGL20_glReadPixels
+JNIEXPORT void JNICALL Java_com_erlei_gdx_graphics_AndroidGL20_glReadPixels__IIIIIILjava_nio_Buffer_2
   (JNIEnv *, jobject, jint, jint, jint, jint, jint, jint, jobject);
 
+/*
+ * Class:     com_erlei_gdx_graphics_AndroidGL20
+ * Method:    glReadPixels
+ * Signature: (IIIIIII)V
+ */
+JNIEXPORT void JNICALL Java_com_erlei_gdx_graphics_AndroidGL20_glReadPixels__IIIIIII
+  (JNIEnv *, jobject, jint, jint, jint, jint, jint, jint, jint);
+
 /*
  * Class:     com_erlei_gdx_graphics_AndroidGL20
  * Method:    glReleaseShaderCompiler
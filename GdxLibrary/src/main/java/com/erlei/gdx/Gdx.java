@@ -38,6 +38,7 @@ import com.erlei.gdx.graphics.TextureArray;
 import com.erlei.gdx.graphics.glutils.FrameBuffer;
 import com.erlei.gdx.graphics.glutils.ShaderProgram;
 import com.erlei.gdx.utils.FPSCounter;
+import com.erlei.gdx.utils.FrameScheduler;
 import com.erlei.gdx.utils.SnapshotArray;
 
 
@@ -63,6 +64,7 @@ public abstract class Gdx implements Application, IRenderView.Renderer {
     private IRenderView mRenderView;
     private boolean mPause;
     private FPSCounter mFPSCounter;
+    private FrameScheduler mFrameScheduler;
     private EglSurfaceBase mWindowSurface;
     private Runnable mSwapErrorRunnable;
 
@@ -78,12 +80,24 @@ public abstract class Gdx implements Application, IRenderView.Renderer {
         app = this;
         if (gl != null) setGLES(gl);
         mFPSCounter = initFPSCounter();
+        mFrameScheduler = initFrameScheduler();
     }
 
     protected FPSCounter initFPSCounter() {
         return new FPSCounter(new FPSCounter.FPSCounter2());
     }
 
+    /**
+     * Override to configure the target frame rate, pacing or the clock of the frame scheduler
+     */
+    protected FrameScheduler initFrameScheduler() {
+        return new FrameScheduler();
+    }
+
+    public FrameScheduler getFrameScheduler() {
+        return mFrameScheduler;
+    }
+
     public void setGLES(GL20 gles) {
         gl = gles;
         gl20 = gles;
@@ -146,6 +160,13 @@ public abstract class Gdx implements Application, IRenderView.Renderer {
         mRenderView.queueEvent(runnable);
     }
 
+    /**
+     * Posts a runnable to the GL thread, replacing a runnable posted with the same key that has not run yet.
+     */
+    public void postRunnable(Object key, Runnable runnable) {
+        mRenderView.queueEvent(key, runnable);
+    }
+
     @Override
     public boolean supportsExtension(String extension) {
         if (extensions == null) extensions = gl.glGetString(GLES10.GL_EXTENSIONS);
@@ -207,6 +228,7 @@ public abstract class Gdx implements Application, IRenderView.Renderer {
     @Override
     public void render(EglSurfaceBase windowSurface, Runnable swapErrorRunnable) {
         mFPSCounter.update();
+        mFrameScheduler.beginFrame();
         mWindowSurface = windowSurface;
         mSwapErrorRunnable = swapErrorRunnable;
 
@@ -251,14 +273,31 @@ public abstract class Gdx implements Application, IRenderView.Renderer {
         gl.glClear(GLES20.GL_DEPTH_BUFFER_BIT);
     }
 
+    /**
+     * @return the smoothed time span between the current frame and the last frame in seconds
+     */
     public float getDeltaTime() {
-        return mFPSCounter.getFPS();
+        return mFrameScheduler.getSmoothedDeltaTime();
+    }
+
+    /**
+     * @return the time span between the current frame and the last frame in seconds, without smoothing
+     */
+    public float getRawDeltaTime() {
+        return mFrameScheduler.getDeltaTime();
     }
 
+    public float getFramesPerSecond() {
+        return mFPSCounter.getFPS();
+    }
 
+    /**
+     * 交换缓冲区，然后在剩余的帧预算内执行 {@link FrameScheduler#defer(Runnable)} 推迟的任务
+     */
     protected void renderEnd() {
         boolean swapResult = mWindowSurface.swapBuffers();
         if (!swapResult) mSwapErrorRunnable.run();
+        mFrameScheduler.endFrame();
     }
 
     @Override
@@ -273,6 +312,7 @@ public abstract class Gdx implements Application, IRenderView.Renderer {
     @Override
     public void resume() {
         mPause = false;
+        mFrameScheduler.reset();
     }
 
     @Override
@@ -16,12 +16,13 @@
 
 package com.erlei.gdx.android;
 
-import android.graphics.Bitmap;
 import android.opengl.EGL14;
 import android.opengl.EGLSurface;
 import android.opengl.GLES20;
 import android.util.Log;
 
+import com.erlei.gdx.graphics.PixmapIO;
+
 import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
@@ -36,6 +37,10 @@ import java.nio.ByteOrder;
  */
 public class EglSurfaceBase {
     private static final String TAG = "EglSurfaceBase";
+    /**
+     * Encodes the saved frames of all surfaces, created on first use. Its threads are daemons and never stopped.
+     */
+    private static PixmapIO.ParallelPNG sPNG;
 
     // EglCore object we're associated with.  It may be associated with multiple surfaces.
     protected EglCore mEglCore;
@@ -153,7 +158,8 @@ public class EglSurfaceBase {
     /**
      * Saves the EGL surface to a file.
      * <p>
-     * Expects that this object's EGL surface is current.
+     * Expects that this object's EGL surface is current. Reads the pixels synchronously, use
+     * {@link com.erlei.gdx.graphics.glutils.AsyncReadback} to capture frames continuously.
      */
     public void saveFrame(File file) throws IOException {
         if (!mEglCore.isCurrent(mEGLSurface)) {
@@ -161,12 +167,8 @@ public class EglSurfaceBase {
         }
 
         // glReadPixels fills in a "direct" ByteBuffer with what is essentially big-endian RGBA
-        // data (i.e. a byte of red, followed by a byte of green...).  While the Bitmap
-        // constructor that takes an int[] wants little-endian ARGB (blue/red swapped), the
-        // Bitmap "copy pixels" method wants the same format GL provides.
-        //
-        // Ideally we'd have some way to re-use the ByteBuffer, especially if we're calling
-        // here often.
+        // data (i.e. a byte of red, followed by a byte of green...), which is what the PNG
+        // encoder wants.
         //
         // Making this even more interesting is the upside-down nature of GL, which means
         // our output will look upside down relative to what appears on screen if the
@@ -183,14 +185,17 @@ public class EglSurfaceBase {
         buf.rewind();
 
         BufferedOutputStream bos = null;
-        try {
-            bos = new BufferedOutputStream(new FileOutputStream(filename));
-            Bitmap bmp = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
-            bmp.copyPixelsFromBuffer(buf);
-            bmp.compress(Bitmap.CompressFormat.PNG, 100, bos);
-            bmp.recycle();
-        } finally {
-            if (bos != null) bos.close();
+        synchronized (EglSurfaceBase.class) {
+            if (sPNG == null) {
+                sPNG = new PixmapIO.ParallelPNG();
+                sPNG.setFlipY(false);
+            }
+            try {
+                bos = new BufferedOutputStream(new FileOutputStream(filename));
+                sPNG.write(bos, buf, width, height);
+            } finally {
+                if (bos != null) bos.close();
+            }
         }
         Log.d(TAG, "Saved " + width + "x" + height + " frame as '" + filename + "'");
     }
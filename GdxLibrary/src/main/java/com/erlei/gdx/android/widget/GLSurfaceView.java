@@ -6,6 +6,7 @@ import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
 import com.erlei.gdx.utils.Logger;
+import com.erlei.gdx.utils.RunnableQueue;
 
 
 public class GLSurfaceView extends SurfaceView implements IRenderView, SurfaceHolder.Callback2 {
@@ -173,6 +174,16 @@ public class GLSurfaceView extends SurfaceView implements IRenderView, SurfaceHo
         mGLThread.queueEvent(r);
     }
 
+    @Override
+    public void queueEvent(Object key, Runnable r) {
+        mGLThread.queueEvent(key, r);
+    }
+
+    @Override
+    public RunnableQueue getEventQueue() {
+        return mGLThread.getEventQueue();
+    }
+
     @Override
     public int getSurfaceWidth() {
         return getHolder().getSurfaceFrame().width();
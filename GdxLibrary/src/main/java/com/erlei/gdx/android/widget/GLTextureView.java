@@ -6,6 +6,7 @@ import android.util.AttributeSet;
 import android.view.TextureView;
 
 import com.erlei.gdx.utils.Logger;
+import com.erlei.gdx.utils.RunnableQueue;
 
 
 public class GLTextureView extends TextureView implements IRenderView, TextureView.SurfaceTextureListener {
@@ -132,6 +133,16 @@ public class GLTextureView extends TextureView implements IRenderView, TextureVi
         mGLThread.queueEvent(r);
     }
 
+    @Override
+    public void queueEvent(Object key, Runnable r) {
+        mGLThread.queueEvent(key, r);
+    }
+
+    @Override
+    public RunnableQueue getEventQueue() {
+        return mGLThread.getEventQueue();
+    }
+
     @Override
     public int getSurfaceWidth() {
         return getWidth();
@@ -8,9 +8,9 @@ import com.erlei.gdx.android.EglCore;
 import com.erlei.gdx.android.EglSurfaceBase;
 import com.erlei.gdx.utils.Logger;
 import com.erlei.gdx.android.WindowSurface;
+import com.erlei.gdx.utils.RunnableQueue;
 
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
 
 public interface IRenderView {
 
@@ -119,6 +119,22 @@ public interface IRenderView {
      */
     void queueEvent(Runnable r);
 
+    /**
+     * Queue a runnable to be run on the GL rendering thread, replacing a runnable queued
+     * with the same key that has not run yet.
+     * Must not be called before a renderer has been set.
+     *
+     * @param key identifies runnables that supersede each other, e.g. the latest camera frame
+     * @param r   the runnable to be run on the GL rendering thread.
+     */
+    void queueEvent(Object key, Runnable r);
+
+    /**
+     * Must not be called before a renderer has been set.
+     *
+     * @return the queue holding the events of {@link #queueEvent(Runnable)}, for its counters
+     */
+    RunnableQueue getEventQueue();
 
     int getSurfaceWidth();
 
@@ -232,6 +248,7 @@ public interface IRenderView {
      */
     class GLThread extends Thread {
         private static final String TAG = "GLThread";
+        private static final int EVENT_QUEUE_CAPACITY = 1024;
 
         // Once the thread is started, all accesses to the following member
         // variables are protected by the sGLThreadManager monitor
@@ -253,7 +270,12 @@ public interface IRenderView {
         private boolean mRequestRender;
         private boolean mWantRenderNotification;
         private boolean mRenderComplete;
-        private ArrayList<Runnable> mEventQueue = new ArrayList<Runnable>();
+        private final RunnableQueue mEventQueue = new RunnableQueue(EVENT_QUEUE_CAPACITY, RunnableQueue.OverflowPolicy.BLOCK);
+        /**
+         * Set while the thread may wait on sGLThreadManager, so producers only take the
+         * monitor to wake it up when it is actually idle.
+         */
+        private volatile boolean mWaitingForEvents;
         private boolean mSizeChanged = true;
         private Runnable mFinishDrawingRunnable = null;
 
@@ -362,7 +384,7 @@ public interface IRenderView {
                 boolean askedToReleaseEglContext = false;
                 int w = 0;
                 int h = 0;
-                Runnable event = null;
+                boolean drainEvents = false;
                 Runnable finishDrawingRunnable = null;
 
                 while (true) {
@@ -372,8 +394,10 @@ public interface IRenderView {
                                 return;
                             }
 
+                            // Must be set before the queue is checked, see queueEvent
+                            mWaitingForEvents = true;
                             if (!mEventQueue.isEmpty()) {
-                                event = mEventQueue.remove(0);
+                                drainEvents = true;
                                 break;
                             }
 
@@ -531,10 +555,12 @@ public interface IRenderView {
                             sGLThreadManager.wait();
                         }
                     } // end of synchronized(sGLThreadManager)
+                    mWaitingForEvents = false;
 
-                    if (event != null) {
-                        event.run();
-                        event = null;
+                    if (drainEvents) {
+                        // Only the events queued so far, so producers cannot hold off the next frame
+                        mEventQueue.drain();
+                        drainEvents = false;
                         continue;
                     }
 
@@ -803,12 +829,45 @@ public interface IRenderView {
             if (r == null) {
                 throw new IllegalArgumentException("r must not be null");
             }
-            synchronized (sGLThreadManager) {
-                mEventQueue.add(r);
-                sGLThreadManager.notifyAll();
+            if (!mEventQueue.post(r)) {
+                Logger.error(TAG, "event queue full, event rejected tid=" + getId());
+                return;
+            }
+            wakeForEvents();
+        }
+
+        /**
+         * Queue an "event" to be run on the GL rendering thread. A pending event queued
+         * with the same key is replaced by this one.
+         *
+         * @param key the key identifying superseded events
+         * @param r   the runnable to be run on the GL rendering thread.
+         */
+        public void queueEvent(Object key, Runnable r) {
+            if (key == null || r == null) {
+                throw new IllegalArgumentException("key and r must not be null");
+            }
+            if (!mEventQueue.post(key, r)) {
+                Logger.error(TAG, "event queue full, event rejected tid=" + getId());
+                return;
+            }
+            wakeForEvents();
+        }
+
+        private void wakeForEvents() {
+            // The render thread sets mWaitingForEvents before it checks the queue, so either it
+            // sees the new event or we see the flag and wake it up.
+            if (mWaitingForEvents) {
+                synchronized (sGLThreadManager) {
+                    sGLThreadManager.notifyAll();
+                }
             }
         }
 
+        public RunnableQueue getEventQueue() {
+            return mEventQueue;
+        }
+
 
         public int getGLESVersion() {
             return mEglCore.getGLVersion();
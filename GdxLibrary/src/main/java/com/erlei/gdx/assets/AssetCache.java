@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.assets;
+
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.ObjectSet;
+import com.erlei.gdx.utils.OrderedMap;
+
+/** The assets an {@link AssetManager} keeps loaded after their reference count dropped to zero, ordered from the least to the
+ * most recently unloaded. A cached asset still holds the references to its dependencies. */
+class AssetCache {
+	final OrderedMap<String, Entry> entries = new OrderedMap();
+	final ObjectSet<String> pinned = new ObjectSet();
+	long bytes;
+	int hits, misses, evictions;
+	long evictedBytes;
+
+	void put (String fileName, Class type, RefCountedContainer container) {
+		entries.remove(fileName);
+		entries.put(fileName, new Entry(type, container));
+		bytes += container.size;
+	}
+
+	Entry remove (String fileName) {
+		Entry entry = entries.remove(fileName);
+		if (entry != null) bytes -= entry.container.size;
+		return entry;
+	}
+
+	/** @return the least recently unloaded asset that is not pinned, or null */
+	String eldest () {
+		Array<String> keys = entries.orderedKeys();
+		for (int i = 0; i < keys.size; i++)
+			if (!pinned.contains(keys.get(i))) return keys.get(i);
+		return null;
+	}
+
+	void resetStats () {
+		hits = 0;
+		misses = 0;
+		evictions = 0;
+		evictedBytes = 0;
+	}
+
+	static class Entry {
+		final Class type;
+		final RefCountedContainer container;
+
+		Entry (Class type, RefCountedContainer container) {
+			this.type = type;
+			this.container = container;
+		}
+	}
+}
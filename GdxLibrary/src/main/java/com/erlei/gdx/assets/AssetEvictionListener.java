@@ -0,0 +1,25 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.assets;
+
+/** Notified by the {@link AssetManager} before an unreferenced asset is evicted from its cache and disposed, see
+ * {@link AssetManager#setMemoryBudget(long)}. */
+public interface AssetEvictionListener {
+	/** @param asset the asset, still usable until this method returns
+	 * @param bytes the estimated memory the asset held */
+	public void evicted (String fileName, Class type, Object asset, long bytes);
+}
@@ -0,0 +1,75 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.assets;
+
+import com.erlei.gdx.utils.reflect.ClassReflection;
+
+/** Timings and sizes of loading a single asset, collected by the {@link AssetManager}. Times are in nanoseconds.
+ * <p>
+ * Loaders read their files themselves, so the time spent reading is part of {@link #dependenciesNanos} and {@link #asyncNanos}
+ * depending on where the loader reads the file. */
+public class AssetLoadMetrics {
+	public final String fileName;
+	public final Class type;
+	public final Class loaderType;
+	/** Whether the asset was loaded as a dependency of another asset instead of from the load queue */
+	public final boolean dependency;
+	/** Time from being queued until the manager started to work on the asset */
+	public long queueNanos;
+	/** Time spent in {@link com.erlei.gdx.assets.loaders.AssetLoader#getDependencies} */
+	public long dependenciesNanos;
+	/** Time spent in {@link com.erlei.gdx.assets.loaders.AsynchronousAssetLoader#loadAsync} on a loading thread */
+	public long asyncNanos;
+	/** Time spent on the rendering thread in {@link com.erlei.gdx.assets.loaders.AsynchronousAssetLoader#loadSync} or
+	 * {@link com.erlei.gdx.assets.loaders.SynchronousAssetLoader#load} */
+	public long syncNanos;
+	/** Time from being queued until the asset was loaded, including the time waiting for dependencies */
+	public long totalNanos;
+	/** The size of the file of the asset, 0 if the file does not exist */
+	public long fileBytes;
+	/** The estimated memory the loaded asset holds, see {@link AssetSizeEstimator} */
+	public long memoryBytes;
+
+	public AssetLoadMetrics (String fileName, Class type, Class loaderType, boolean dependency) {
+		this.fileName = fileName;
+		this.type = type;
+		this.loaderType = loaderType;
+		this.dependency = dependency;
+	}
+
+	/** @return the time the manager actually worked on the asset */
+	public long getWorkNanos () {
+		return dependenciesNanos + asyncNanos + syncNanos;
+	}
+
+	/** @return the file bytes per second of work time */
+	public float getBytesPerSecond () {
+		long work = getWorkNanos();
+		return work == 0 ? 0 : fileBytes * 1000000000f / work;
+	}
+
+	@Override
+	public String toString () {
+		return fileName + ", " + ClassReflection.getSimpleName(loaderType) + ", total: " + millis(totalNanos) + "ms, queue: "
+			+ millis(queueNanos) + "ms, dependencies: " + millis(dependenciesNanos) + "ms, async: " + millis(asyncNanos)
+			+ "ms, sync: " + millis(syncNanos) + "ms, file: " + fileBytes + "b, memory: " + memoryBytes + "b";
+	}
+
+	static float millis (long nanos) {
+		return nanos / 1000000f;
+	}
+}
@@ -29,6 +29,9 @@ import com.erlei.gdx.utils.async.AsyncResult;
 import com.erlei.gdx.utils.async.AsyncTask;
 
 /** Responsible for loading an asset through an {@link AssetLoader} based on an {@link AssetDescriptor}.
+ * <p>
+ * The {@link AssetManager} updates several tasks per frame. A task only continues once all the dependencies it requested are
+ * loaded, so independent dependencies load in parallel on the executor.
  * 
  * @author mzechner */
 class AssetLoadingTask implements AsyncTask<Void> {
@@ -37,6 +40,10 @@ class AssetLoadingTask implements AsyncTask<Void> {
 	final AssetLoader loader;
 	final AsyncExecutor executor;
 	final long startTime;
+	/** The task that requested this asset as a dependency, null if the asset came from the load queue */
+	final AssetLoadingTask parent;
+	/** The task from the load queue this task belongs to */
+	final AssetLoadingTask root;
 
 	volatile boolean asyncDone = false;
 	volatile boolean dependenciesLoaded = false;
@@ -48,12 +55,35 @@ class AssetLoadingTask implements AsyncTask<Void> {
 	int ticks = 0;
 	volatile boolean cancel = false;
 
+	/** The amount of times the asset was requested as a dependency while this task was loading it */
+	int dependencyRefs;
+	/** The tasks that requested the asset as a dependency, the parent and the tasks sharing this one. Guarded by the manager. */
+	final Array<AssetLoadingTask> requesters = new Array<AssetLoadingTask>(false, 1);
+	/** Load requests from the load queue for the asset that came in while this task was loading it */
+	final Array<AssetDescriptor> queuedRefs = new Array<AssetDescriptor>(false, 0);
+	/** Whether the last {@link #update(boolean)} did work on the rendering thread and how long it took */
+	boolean synced;
+	long syncNanos;
+	/** The time the asset was queued or requested as a dependency */
+	final long queuedTime;
+	final AssetLoadMetrics metrics;
+
 	public AssetLoadingTask (AssetManager manager, AssetDescriptor assetDesc, AssetLoader loader, AsyncExecutor threadPool) {
+		this(manager, assetDesc, loader, threadPool, null);
+	}
+
+	public AssetLoadingTask (AssetManager manager, AssetDescriptor assetDesc, AssetLoader loader, AsyncExecutor threadPool,
+		AssetLoadingTask parent) {
 		this.manager = manager;
 		this.assetDesc = assetDesc;
 		this.loader = loader;
 		this.executor = threadPool;
+		this.parent = parent;
+		this.root = parent == null ? this : parent.root;
+		if (parent != null) requesters.add(parent);
 		startTime = manager.log.getLevel() == Logger.DEBUG ? TimeUtils.nanoTime() : 0;
+		queuedTime = assetDesc.queuedTime != 0 && parent == null ? assetDesc.queuedTime : TimeUtils.nanoTime();
+		metrics = new AssetLoadMetrics(assetDesc.fileName, assetDesc.type, loader.getClass(), parent != null);
 	}
 
 	/** Loads parts of the asset asynchronously if the loader is an {@link AsynchronousAssetLoader}. */
@@ -61,17 +91,19 @@ class AssetLoadingTask implements AsyncTask<Void> {
 	public Void call () throws Exception {
 		AsynchronousAssetLoader asyncLoader = (AsynchronousAssetLoader)loader;
 		if (!dependenciesLoaded) {
+			long start = TimeUtils.nanoTime();
 			dependencies = asyncLoader.getDependencies(assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+			metrics.dependenciesNanos += TimeUtils.nanoTime() - start;
 			if (dependencies != null) {
 				removeDuplicates(dependencies);
-				manager.injectDependencies(assetDesc.fileName, dependencies);
+				manager.injectDependencies(this, dependencies);
 			} else {
 				// if we have no dependencies, we load the async part of the task immediately.
-				asyncLoader.loadAsync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+				loadAsync(asyncLoader);
 				asyncDone = true;
 			}
 		} else {
-			asyncLoader.loadAsync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+			loadAsync(asyncLoader);
 		}
 		return null;
 	}
@@ -80,36 +112,40 @@ class AssetLoadingTask implements AsyncTask<Void> {
 	 * {@link AsynchronousAssetLoader#loadAsync(AssetManager, String, FileHandle, AssetLoaderParameters)} method is first called on
 	 * a worker thread. Once this method returns, the rest of the asset is loaded on the rendering thread via
 	 * {@link AsynchronousAssetLoader#loadSync(AssetManager, String, FileHandle, AssetLoaderParameters)}.
+	 * @param allowSync whether the part of the asset that is loaded on the rendering thread may be loaded in this update
 	 * @return true in case the asset was fully loaded, false otherwise
 	 * @throws GdxRuntimeException */
-	public boolean update () {
-		ticks++;
+	public boolean update (boolean allowSync) {
+		if (ticks++ == 0) metrics.queueNanos = TimeUtils.nanoTime() - queuedTime;
+		synced = false;
+		syncNanos = 0;
 		if (loader instanceof SynchronousAssetLoader) {
-			handleSyncLoader();
+			handleSyncLoader(allowSync);
 		} else {
-			handleAsyncLoader();
+			handleAsyncLoader(allowSync);
 		}
 		return asset != null;
 	}
 
-	private void handleSyncLoader () {
+	private void handleSyncLoader (boolean allowSync) {
 		SynchronousAssetLoader syncLoader = (SynchronousAssetLoader)loader;
 		if (!dependenciesLoaded) {
 			dependenciesLoaded = true;
+			long start = TimeUtils.nanoTime();
 			dependencies = syncLoader.getDependencies(assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+			metrics.dependenciesNanos += TimeUtils.nanoTime() - start;
 			if (dependencies == null) {
-				asset = syncLoader.load(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+				if (allowSync) load(syncLoader);
 				return;
 			}
 			removeDuplicates(dependencies);
-			manager.injectDependencies(assetDesc.fileName, dependencies);
-		} else {
-			asset = syncLoader.load(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+			manager.injectDependencies(this, dependencies);
+		} else if (allowSync && !isWaitingForDependencies()) {
+			load(syncLoader);
 		}
 	}
 
-	private void handleAsyncLoader () {
-		AsynchronousAssetLoader asyncLoader = (AsynchronousAssetLoader)loader;
+	private void handleAsyncLoader (boolean allowSync) {
 		if (!dependenciesLoaded) {
 			if (depsFuture == null) {
 				depsFuture = executor.submit(this);
@@ -121,29 +157,84 @@ class AssetLoadingTask implements AsyncTask<Void> {
 						throw new GdxRuntimeException("Couldn't load dependencies of asset: " + assetDesc.fileName, e);
 					}
 					dependenciesLoaded = true;
-					if (asyncDone) {
-						asset = asyncLoader.loadSync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+					if (asyncDone && allowSync) {
+						loadSync();
 					}
 				}
 			}
-		} else {
+		} else if (!isWaitingForDependencies()) {
 			if (loadFuture == null && !asyncDone) {
 				loadFuture = executor.submit(this);
-			} else {
+			} else if (allowSync) {
 				if (asyncDone) {
-					asset = asyncLoader.loadSync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+					loadSync();
 				} else if (loadFuture.isDone()) {
 					try {
 						loadFuture.get();
 					} catch (Exception e) {
 						throw new GdxRuntimeException("Couldn't load asset: " + assetDesc.fileName, e);
 					}
-					asset = asyncLoader.loadSync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+					loadSync();
 				}
 			}
 		}
 	}
 
+	private void loadAsync (AsynchronousAssetLoader asyncLoader) {
+		long start = TimeUtils.nanoTime();
+		asyncLoader.loadAsync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+		metrics.asyncNanos += TimeUtils.nanoTime() - start;
+	}
+
+	private void load (SynchronousAssetLoader syncLoader) {
+		long start = TimeUtils.nanoTime();
+		asset = syncLoader.load(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+		syncNanos += TimeUtils.nanoTime() - start;
+		metrics.syncNanos += syncNanos;
+		synced = true;
+	}
+
+	private void loadSync () {
+		AsynchronousAssetLoader asyncLoader = (AsynchronousAssetLoader)loader;
+		long start = TimeUtils.nanoTime();
+		asset = asyncLoader.loadSync(manager, assetDesc.fileName, resolve(loader, assetDesc), assetDesc.params);
+		syncNanos += TimeUtils.nanoTime() - start;
+		metrics.syncNanos += syncNanos;
+		synced = true;
+	}
+
+	/** Completes the metrics of the loaded asset.
+	 * @param estimator used for the memory size of the asset */
+	AssetLoadMetrics finishMetrics (AssetSizeEstimator estimator) {
+		metrics.totalNanos = TimeUtils.nanoTime() - queuedTime;
+		FileHandle file = assetDesc.file;
+		try {
+			metrics.fileBytes = file != null && file.exists() ? file.length() : 0;
+		} catch (RuntimeException ignored) {
+			// e.g. a file inside an archive that cannot be accessed directly
+		}
+		metrics.memoryBytes = asset == null ? 0 : estimator.estimate(asset);
+		return metrics;
+	}
+
+	/** @return whether a dependency requested by the loader is still loading. Dependencies that are neither loaded nor loading
+	 *         (e.g. because their loading failed) do not block the task, the loader reports the missing asset instead. */
+	boolean isWaitingForDependencies () {
+		Array<AssetDescriptor> dependencies = this.dependencies;
+		if (dependencies == null) return false;
+		for (int i = 0; i < dependencies.size; i++) {
+			String fileName = dependencies.get(i).fileName;
+			if (!manager.isLoaded(fileName) && manager.isLoading(fileName)) return true;
+		}
+		return false;
+	}
+
+	/** @return whether a worker thread is currently working on this task */
+	boolean isWorking () {
+		AsyncResult<Void> depsFuture = this.depsFuture, loadFuture = this.loadFuture;
+		return (depsFuture != null && !depsFuture.isDone()) || (loadFuture != null && !loadFuture.isDone());
+	}
+
 	private FileHandle resolve (AssetLoader loader, AssetDescriptor assetDesc) {
 		if (assetDesc.file == null) assetDesc.file = loader.resolve(assetDesc.fileName);
 		return assetDesc.file;
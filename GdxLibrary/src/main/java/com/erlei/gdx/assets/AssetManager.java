@@ -30,6 +30,7 @@ import com.erlei.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
 import com.erlei.gdx.graphics.Cubemap;
 import com.erlei.gdx.graphics.Pixmap;
 import com.erlei.gdx.graphics.Texture;
+import com.erlei.gdx.graphics.TextureStreamer;
 import com.erlei.gdx.graphics.g2d.BitmapFont;
 import com.erlei.gdx.graphics.g2d.ParticleEffect;
 import com.erlei.gdx.graphics.g2d.PolygonRegion;
@@ -54,10 +55,16 @@ import com.erlei.gdx.utils.async.AsyncExecutor;
 import com.erlei.gdx.utils.async.ThreadUtils;
 import com.erlei.gdx.utils.reflect.ClassReflection;
 
-import java.util.Stack;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Loads and stores assets like textures, bitmapfonts, tile maps, sounds, music and so on.
+ * <p>
+ * The asynchronous part of loading runs on a pool of loading threads. Assets whose loader
+ * {@link AssetLoader#isConcurrent() is concurrent} and independent dependencies load in parallel, other loaders are used by one
+ * asset at a time in the order of the load queue. {@link #get(String)}, {@link #isLoaded(String)} and {@link #contains(String)}
+ * for loaded assets do not wait for the loading to finish an update.
  *
  * @author mzechner
  */
@@ -69,10 +76,31 @@ public class AssetManager implements Disposable {
 
     final ObjectMap<Class, ObjectMap<String, AssetLoader>> loaders = new ObjectMap();
     final Array<AssetDescriptor> loadQueue = new Array();
+    /**
+     * Loaded assets by file name, readable without holding the lock of the manager
+     */
+    final ConcurrentHashMap<String, RefCountedContainer> loadedAssets = new ConcurrentHashMap<String, RefCountedContainer>();
     final AsyncExecutor executor;
+    final int loadingThreads;
 
-    final Stack<AssetLoadingTask> tasks = new Stack();
+    /**
+     * The loading tasks in the order they were added, dependencies after the tasks requiring them
+     */
+    final Array<AssetLoadingTask> tasks = new Array();
+    private final Array<AssetLoadingTask> updatingTasks = new Array();
+    private final ObjectSet<AssetLoadingTask> failedTasks = new ObjectSet();
+    private AssetLoadingTask currentTask;
+    long syncBudgetNanos = 0;
+    final TextureStreamer textureStreamer = new TextureStreamer();
     AssetErrorListener listener = null;
+    AssetLoadListener loadListener = null;
+    boolean metricsEnabled = false;
+    final Array<AssetLoadMetrics> loadMetrics = new Array();
+    AssetSizeEstimator sizeEstimator = new AssetSizeEstimator();
+    final AssetCache cache = new AssetCache();
+    AssetEvictionListener evictionListener = null;
+    long memoryBudget = 0;
+    long memoryUsage = 0;
     int loaded = 0;
     int toLoad = 0;
     int peakTasks = 0;
@@ -102,7 +130,21 @@ public class AssetManager implements Disposable {
      * @param defaultLoaders whether to add the default loaders
      */
     public AssetManager(FileHandleResolver resolver, boolean defaultLoaders) {
+        this(resolver, defaultLoaders, 1);
+    }
+
+    /**
+     * Creates a new AssetManager with optionally all default loaders. If you don't add the default loaders then you do have to
+     * manually add the loaders you need, including any loaders they might depend on.
+     *
+     * @param defaultLoaders whether to add the default loaders
+     * @param loadingThreads the amount of threads running the asynchronous part of loading, this is also the amount of assets
+     *                       from the load queue that are loaded at the same time
+     */
+    public AssetManager(FileHandleResolver resolver, boolean defaultLoaders, int loadingThreads) {
+        if (loadingThreads < 1) throw new IllegalArgumentException("loadingThreads must be >= 1: " + loadingThreads);
         this.resolver = resolver;
+        this.loadingThreads = loadingThreads;
         if (defaultLoaders) {
             setLoader(BitmapFont.class, new BitmapFontLoader(resolver));
             setLoader(Pixmap.class, new PixmapLoader(resolver));
@@ -117,7 +159,7 @@ public class AssetManager implements Disposable {
             setLoader(ShaderProgram.class, new ShaderProgramLoader(resolver));
             setLoader(Cubemap.class, new CubemapLoader(resolver));
         }
-        executor = new AsyncExecutor(1);
+        executor = new AsyncExecutor(loadingThreads);
     }
 
     /**
@@ -133,14 +175,10 @@ public class AssetManager implements Disposable {
      * @param fileName the asset file name
      * @return the asset
      */
-    public synchronized <T> T get(String fileName) {
-        Class<T> type = assetTypes.get(fileName);
-        if (type == null) throw new GdxRuntimeException("Asset not loaded: " + fileName);
-        ObjectMap<String, RefCountedContainer> assetsByType = assets.get(type);
-        if (assetsByType == null) throw new GdxRuntimeException("Asset not loaded: " + fileName);
-        RefCountedContainer assetContainer = assetsByType.get(fileName);
+    public <T> T get(String fileName) {
+        RefCountedContainer assetContainer = loadedAssets.get(fileName);
         if (assetContainer == null) throw new GdxRuntimeException("Asset not loaded: " + fileName);
-        T asset = assetContainer.getObject(type);
+        T asset = (T) assetContainer.getObject(Object.class);
         if (asset == null) throw new GdxRuntimeException("Asset not loaded: " + fileName);
         return asset;
     }
@@ -150,13 +188,12 @@ public class AssetManager implements Disposable {
      * @param type     the asset type
      * @return the asset
      */
-    public synchronized <T> T get(String fileName, Class<T> type) {
-        ObjectMap<String, RefCountedContainer> assetsByType = assets.get(type);
-        if (assetsByType == null) throw new GdxRuntimeException("Asset not loaded: " + fileName);
-        RefCountedContainer assetContainer = assetsByType.get(fileName);
+    public <T> T get(String fileName, Class<T> type) {
+        RefCountedContainer assetContainer = loadedAssets.get(fileName);
         if (assetContainer == null) throw new GdxRuntimeException("Asset not loaded: " + fileName);
         T asset = assetContainer.getObject(type);
-        if (asset == null) throw new GdxRuntimeException("Asset not loaded: " + fileName);
+        if (!ClassReflection.isInstance(type, asset))
+            throw new GdxRuntimeException("Asset not loaded: " + fileName);
         return asset;
     }
 
@@ -178,55 +215,89 @@ public class AssetManager implements Disposable {
      * @param assetDescriptor the asset descriptor
      * @return the asset
      */
-    public synchronized <T> T get(AssetDescriptor<T> assetDescriptor) {
+    public <T> T get(AssetDescriptor<T> assetDescriptor) {
         return get(assetDescriptor.fileName, assetDescriptor.type);
     }
 
     /**
      * Returns true if an asset with the specified name is loading, queued to be loaded, or has been loaded.
      */
-    public synchronized boolean contains(String fileName) {
-        if (tasks.size() > 0 && tasks.firstElement().assetDesc.fileName.equals(fileName))
-            return true;
-
-        for (int i = 0; i < loadQueue.size; i++)
-            if (loadQueue.get(i).fileName.equals(fileName)) return true;
+    public boolean contains(String fileName) {
+        if (isLoaded(fileName)) return true;
+        synchronized (this) {
+            if (isLoading(fileName)) return true;
 
+            for (int i = 0; i < loadQueue.size; i++)
+                if (loadQueue.get(i).fileName.equals(fileName)) return true;
+        }
         return isLoaded(fileName);
     }
 
     /**
      * Returns true if an asset with the specified name and type is loading, queued to be loaded, or has been loaded.
      */
-    public synchronized boolean contains(String fileName, Class type) {
-        if (tasks.size() > 0) {
-            AssetDescriptor assetDesc = tasks.firstElement().assetDesc;
-            if (assetDesc.type == type && assetDesc.fileName.equals(fileName)) return true;
-        }
+    public boolean contains(String fileName, Class type) {
+        if (isLoaded(fileName, type)) return true;
+        synchronized (this) {
+            for (int i = 0; i < tasks.size; i++) {
+                AssetDescriptor assetDesc = tasks.get(i).assetDesc;
+                if (assetDesc.type == type && assetDesc.fileName.equals(fileName)) return true;
+            }
 
-        for (int i = 0; i < loadQueue.size; i++) {
-            AssetDescriptor assetDesc = loadQueue.get(i);
-            if (assetDesc.type == type && assetDesc.fileName.equals(fileName)) return true;
+            for (int i = 0; i < loadQueue.size; i++) {
+                AssetDescriptor assetDesc = loadQueue.get(i);
+                if (assetDesc.type == type && assetDesc.fileName.equals(fileName)) return true;
+            }
         }
-
         return isLoaded(fileName, type);
     }
 
+    /**
+     * @return whether a task is currently loading the asset, either for the load queue or as a dependency
+     */
+    synchronized boolean isLoading(String fileName) {
+        return findTask(fileName) != null;
+    }
+
+    private AssetLoadingTask findTask(String fileName) {
+        for (int i = 0; i < tasks.size; i++) {
+            AssetLoadingTask task = tasks.get(i);
+            if (!task.cancel && task.assetDesc.fileName.equals(fileName)) return task;
+        }
+        return null;
+    }
+
     /**
      * Removes the asset and all its dependencies, if they are not used by other assets.
      *
      * @param fileName the file name
      */
     public synchronized void unload(String fileName) {
-        // check if it's currently processed (and the first element in the stack, thus not a dependency)
+        unload(fileName, memoryBudget > 0);
+        if (memoryBudget > 0) trimCache();
+    }
+
+    /**
+     * @param keepCached whether to keep the asset in the cache instead of disposing it if it is no longer referenced
+     */
+    private void unload(String fileName, boolean keepCached) {
+        // check if it's currently processed (and loaded for the load queue, thus not a dependency)
         // and cancel if necessary
-        if (tasks.size() > 0) {
-            AssetLoadingTask currAsset = tasks.firstElement();
-            if (currAsset.assetDesc.fileName.equals(fileName)) {
+        for (int i = 0; i < tasks.size; i++) {
+            AssetLoadingTask currAsset = tasks.get(i);
+            if (currAsset.parent != null || currAsset.cancel || !currAsset.assetDesc.fileName.equals(fileName)) continue;
+            if (currAsset.queuedRefs.size > 0) {
+                // a later load request for the same asset keeps it loading
+                currAsset.queuedRefs.pop();
+                toLoad--;
+            } else if (currAsset.dependencyRefs > 0) {
+                // other assets still wait for it as a dependency
+                currAsset.dependencyRefs--;
+            } else {
                 currAsset.cancel = true;
-                log.info("Unload (from tasks): " + fileName);
-                return;
             }
+            log.info("Unload (from tasks): " + fileName);
+            return;
         }
 
         // check if it's in the queue
@@ -253,15 +324,23 @@ public class AssetManager implements Disposable {
         // if it is reference counted, decrement ref count and check if we can really get rid of it.
         assetRef.decRefCount();
         if (assetRef.getRefCount() <= 0) {
+            // remove the asset from the manager.
+            loadedAssets.remove(fileName);
+            assetTypes.remove(fileName);
+            assets.get(type).remove(fileName);
+
+            if (keepCached) {
+                // the asset keeps its dependencies referenced until it is evicted
+                log.info("Unload (cache): " + fileName);
+                cache.put(fileName, type, assetRef);
+                return;
+            }
             log.info("Unload (dispose): " + fileName);
 
             // if it is disposable dispose it
             if (assetRef.getObject(Object.class) instanceof Disposable)
                 ((Disposable) assetRef.getObject(Object.class)).dispose();
-
-            // remove the asset from the manager.
-            assetTypes.remove(fileName);
-            assets.get(type).remove(fileName);
+            memoryUsage -= assetRef.size;
         } else {
             log.info("Unload (decrement): " + fileName);
         }
@@ -270,7 +349,7 @@ public class AssetManager implements Disposable {
         Array<String> dependencies = assetDependencies.get(fileName);
         if (dependencies != null) {
             for (String dependency : dependencies) {
-                if (isLoaded(dependency)) unload(dependency);
+                if (isLoaded(dependency)) unload(dependency, keepCached);
             }
         }
         // remove dependencies if ref count < 0
@@ -312,7 +391,7 @@ public class AssetManager implements Disposable {
      * @param assetDesc the AssetDescriptor of the asset
      * @return whether the asset is loaded
      */
-    public synchronized boolean isLoaded(AssetDescriptor assetDesc) {
+    public boolean isLoaded(AssetDescriptor assetDesc) {
         return isLoaded(assetDesc.fileName);
     }
 
@@ -320,21 +399,20 @@ public class AssetManager implements Disposable {
      * @param fileName the file name of the asset
      * @return whether the asset is loaded
      */
-    public synchronized boolean isLoaded(String fileName) {
+    public boolean isLoaded(String fileName) {
         if (fileName == null) return false;
-        return assetTypes.containsKey(fileName);
+        return loadedAssets.containsKey(fileName);
     }
 
     /**
      * @param fileName the file name of the asset
      * @return whether the asset is loaded
      */
-    public synchronized boolean isLoaded(String fileName, Class type) {
-        ObjectMap<String, RefCountedContainer> assetsByType = assets.get(type);
-        if (assetsByType == null) return false;
-        RefCountedContainer assetContainer = assetsByType.get(fileName);
+    public boolean isLoaded(String fileName, Class type) {
+        if (fileName == null) return false;
+        RefCountedContainer assetContainer = loadedAssets.get(fileName);
         if (assetContainer == null) return false;
-        return assetContainer.getObject(type) != null;
+        return ClassReflection.isInstance(type, assetContainer.getObject(type));
     }
 
     /**
@@ -411,7 +489,7 @@ public class AssetManager implements Disposable {
         }
 
         // check task list
-        for (int i = 0; i < tasks.size(); i++) {
+        for (int i = 0; i < tasks.size; i++) {
             AssetDescriptor desc = tasks.get(i).assetDesc;
             if (desc.fileName.equals(fileName) && !desc.type.equals(type))
                 throw new GdxRuntimeException(
@@ -419,6 +497,10 @@ public class AssetManager implements Disposable {
                                 + ClassReflection.getSimpleName(type) + ", found: " + ClassReflection.getSimpleName(desc.type) + ")");
         }
 
+        // a cached asset with a different type is replaced
+        AssetCache.Entry cached = cache.entries.get(fileName);
+        if (cached != null && !cached.type.equals(type)) evict(fileName);
+
         // check loaded assets
         Class otherType = assetTypes.get(fileName);
         if (otherType != null && !otherType.equals(type))
@@ -427,6 +509,7 @@ public class AssetManager implements Disposable {
 
         toLoad++;
         AssetDescriptor assetDesc = new AssetDescriptor(fileName, type, parameter);
+        assetDesc.queuedTime = TimeUtils.nanoTime();
         loadQueue.add(assetDesc);
         log.debug("Queued: " + assetDesc);
     }
@@ -447,18 +530,18 @@ public class AssetManager implements Disposable {
      */
     public synchronized boolean update() {
         try {
-            if (tasks.size() == 0) {
-                // loop until we have a new task ready to be processed
-                while (loadQueue.size != 0 && tasks.size() == 0) {
-                    nextTask();
-                }
-                // have we not found a task? We are done!
-                if (tasks.size() == 0) return true;
+            // loop until as many assets from the queue are loading as there are loading threads
+            while (loadQueue.size != 0 && getRootTaskCount() < loadingThreads) {
+                nextTask();
             }
-            return updateTask() && loadQueue.size == 0 && tasks.size() == 0;
+            boolean streamed = textureStreamer.update();
+            // have we not found a task? We are done!
+            if (tasks.size == 0) return streamed;
+            updateTasks();
+            return loadQueue.size == 0 && tasks.size == 0 && textureStreamer.isFinished();
         } catch (Throwable t) {
             handleTaskError(t);
-            return loadQueue.size == 0;
+            return loadQueue.size == 0 && textureStreamer.isFinished();
         }
     }
 
@@ -482,7 +565,33 @@ public class AssetManager implements Disposable {
      * Returns true when all assets are loaded. Can be called from any thread.
      */
     public synchronized boolean isFinished() {
-        return loadQueue.size == 0 && tasks.size() == 0;
+        return loadQueue.size == 0 && tasks.size == 0 && textureStreamer.isFinished();
+    }
+
+    /**
+     * Sets how much time a single {@link #update()} may spend loading the parts of assets that have to be loaded on the rendering
+     * thread, like uploading textures. At least one asset is processed per update, so the default of 0 processes exactly one.
+     *
+     * @param millis the time budget in milliseconds
+     */
+    public synchronized void setSyncLoadBudget(float millis) {
+        syncBudgetNanos = (long) (millis * 1000000);
+    }
+
+    /**
+     * @return the {@link TextureStreamer} uploading the textures loaded with
+     * {@link TextureLoader.TextureParameter#streamed} set, each {@link #update()} uploads
+     * {@link TextureStreamer#getBytesPerFrame()} of their pixels
+     */
+    public TextureStreamer getTextureStreamer() {
+        return textureStreamer;
+    }
+
+    /**
+     * @return the amount of threads running the asynchronous part of loading
+     */
+    public int getLoadingThreads() {
+        return loadingThreads;
     }
 
     /**
@@ -518,18 +627,19 @@ public class AssetManager implements Disposable {
         log.debug("Asset loaded: " + fileName);
     }
 
-    synchronized void injectDependencies(String parentAssetFilename, Array<AssetDescriptor> dependendAssetDescs) {
+    synchronized void injectDependencies(AssetLoadingTask parentTask, Array<AssetDescriptor> dependendAssetDescs) {
         ObjectSet<String> injected = this.injected;
         for (AssetDescriptor desc : dependendAssetDescs) {
             if (injected.contains(desc.fileName))
                 continue; // Ignore subsequent dependencies if there are duplicates.
             injected.add(desc.fileName);
-            injectDependency(parentAssetFilename, desc);
+            injectDependency(parentTask, desc);
         }
         injected.clear();
     }
 
-    private synchronized void injectDependency(String parentAssetFilename, AssetDescriptor dependendAssetDesc) {
+    private synchronized void injectDependency(AssetLoadingTask parentTask, AssetDescriptor dependendAssetDesc) {
+        String parentAssetFilename = parentTask.assetDesc.fileName;
         // add the asset as a dependency of the parent asset
         Array<String> dependencies = assetDependencies.get(parentAssetFilename);
         if (dependencies == null) {
@@ -546,10 +656,21 @@ public class AssetManager implements Disposable {
             assetRef.incRefCount();
             incrementRefCountedDependencies(dependendAssetDesc.fileName);
         }
+        // else take it back from the cache
+        else if (restoreCached(dependendAssetDesc)) {
+            log.debug("Dependency restored from cache: " + dependendAssetDesc);
+        }
+        // else share a task that is already loading the asset
+        else if (findTask(dependendAssetDesc.fileName) != null) {
+            log.debug("Dependency already loading: " + dependendAssetDesc);
+            AssetLoadingTask task = findTask(dependendAssetDesc.fileName);
+            task.dependencyRefs++;
+            task.requesters.add(parentTask);
+        }
         // else add a new task for the asset.
         else {
             log.info("Loading dependency: " + dependendAssetDesc);
-            addTask(dependendAssetDesc);
+            addTask(dependendAssetDesc, parentTask);
         }
     }
 
@@ -571,24 +692,113 @@ public class AssetManager implements Disposable {
                 assetDesc.params.loadedCallback.finishedLoading(this, assetDesc.fileName, assetDesc.type);
             }
             loaded++;
+        } else if (restoreCached(assetDesc)) {
+            log.debug("Restored from cache: " + assetDesc);
+            if (assetDesc.params != null && assetDesc.params.loadedCallback != null) {
+                assetDesc.params.loadedCallback.finishedLoading(this, assetDesc.fileName, assetDesc.type);
+            }
+            loaded++;
+        } else if (findTask(assetDesc.fileName) != null) {
+            // the asset is already loading, count this request once it is loaded
+            log.debug("Already loading: " + assetDesc);
+            findTask(assetDesc.fileName).queuedRefs.add(assetDesc);
         } else {
             // else add a new task for the asset.
             log.info("Loading: " + assetDesc);
-            addTask(assetDesc);
+            addTask(assetDesc, null);
         }
     }
 
     /**
-     * Adds a {@link AssetLoadingTask} to the task stack for the given asset.
+     * Adds a {@link AssetLoadingTask} to the task list for the given asset.
      *
      * @param assetDesc
+     * @param parentTask the task requiring the asset as a dependency or null
      */
-    private void addTask(AssetDescriptor assetDesc) {
+    private void addTask(AssetDescriptor assetDesc, AssetLoadingTask parentTask) {
         AssetLoader loader = getLoader(assetDesc.type, assetDesc.fileName);
         if (loader == null)
             throw new GdxRuntimeException("No loader for type: " + ClassReflection.getSimpleName(assetDesc.type));
-        tasks.push(new AssetLoadingTask(this, assetDesc, loader, executor));
+        tasks.add(new AssetLoadingTask(this, assetDesc, loader, executor, parentTask));
         peakTasks++;
+        if (memoryBudget > 0) cache.misses++;
+    }
+
+    /**
+     * Moves a cached asset back into the manager with a reference count of one. Its dependencies are still referenced by it.
+     *
+     * @return false if the asset is not cached
+     */
+    private boolean restoreCached(AssetDescriptor assetDesc) {
+        AssetCache.Entry entry = cache.entries.get(assetDesc.fileName);
+        if (entry == null) return false;
+        if (!entry.type.equals(assetDesc.type)) {
+            evict(assetDesc.fileName);
+            return false;
+        }
+        cache.remove(assetDesc.fileName);
+        cache.hits++;
+
+        RefCountedContainer assetRef = entry.container;
+        assetRef.setRefCount(1);
+        assetTypes.put(assetDesc.fileName, entry.type);
+        ObjectMap<String, RefCountedContainer> typeToAssets = assets.get(entry.type);
+        if (typeToAssets == null) {
+            typeToAssets = new ObjectMap<String, RefCountedContainer>();
+            assets.put(entry.type, typeToAssets);
+        }
+        typeToAssets.put(assetDesc.fileName, assetRef);
+        loadedAssets.put(assetDesc.fileName, assetRef);
+        return true;
+    }
+
+    /**
+     * Disposes a cached asset and releases its dependencies, which may end up in the cache themselves.
+     */
+    private void evict(String fileName) {
+        AssetCache.Entry entry = cache.remove(fileName);
+        RefCountedContainer assetRef = entry.container;
+        cache.evictions++;
+        cache.evictedBytes += assetRef.size;
+        log.info("Unload (evict): " + fileName);
+
+        Object asset = assetRef.getObject(Object.class);
+        if (evictionListener != null) evictionListener.evicted(fileName, entry.type, asset, assetRef.size);
+        if (asset instanceof Disposable) ((Disposable) asset).dispose();
+        memoryUsage -= assetRef.size;
+
+        Array<String> dependencies = assetDependencies.remove(fileName);
+        if (dependencies != null) {
+            for (String dependency : dependencies) {
+                if (isLoaded(dependency)) unload(dependency, memoryBudget > 0);
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently unloaded assets until the memory usage is within the budget or only pinned assets are cached.
+     */
+    private void trimCache() {
+        while (memoryUsage > memoryBudget) {
+            String eldest = cache.eldest();
+            if (eldest == null) break;
+            evict(eldest);
+        }
+    }
+
+    private void evictAll(boolean pinned) {
+        while (cache.entries.size > 0) {
+            String eldest = pinned ? cache.entries.orderedKeys().first() : cache.eldest();
+            if (eldest == null) break;
+            evict(eldest);
+        }
+    }
+
+    private int getRootTaskCount() {
+        int count = 0;
+        for (int i = 0; i < tasks.size; i++)
+            if (tasks.get(i).parent == null) count++;
+        return count;
     }
 
     /**
@@ -604,20 +814,75 @@ public class AssetManager implements Disposable {
             typeToAssets = new ObjectMap<String, RefCountedContainer>();
             assets.put(type, typeToAssets);
         }
-        typeToAssets.put(fileName, new RefCountedContainer(asset));
+        RefCountedContainer container = new RefCountedContainer(asset);
+        container.size = sizeEstimator.estimate(asset);
+        memoryUsage += container.size;
+        typeToAssets.put(fileName, container);
+        loadedAssets.put(fileName, container);
+    }
+
+    /**
+     * Updates all tasks that can make progress, newest first so dependencies are loaded before the assets requiring them.
+     * Tasks of loaders that are not {@link AssetLoader#isConcurrent() concurrent} keep their state in the loader, so only
+     * the newest of them that belongs to the oldest asset from the load queue is updated, like a stack. A dependency shared
+     * with another asset belongs to every asset requesting it.
+     */
+    private void updateTasks() {
+        AssetLoadingTask serialRoot = null;
+        for (int i = 0; i < tasks.size; i++) {
+            if (tasks.get(i).parent == null) {
+                serialRoot = tasks.get(i);
+                break;
+            }
+        }
+
+        Array<AssetLoadingTask> updating = updatingTasks;
+        updating.addAll(tasks);
+        try {
+            boolean serialTaskUpdated = false;
+            boolean synced = false;
+            long syncNanos = 0;
+            for (int i = updating.size - 1; i >= 0; i--) {
+                AssetLoadingTask task = updating.get(i);
+                if (!task.cancel && !task.loader.isConcurrent()) {
+                    if (serialTaskUpdated || !belongsTo(task, serialRoot)) continue;
+                    serialTaskUpdated = true;
+                }
+                currentTask = task;
+                updateTask(task, !synced || syncNanos < syncBudgetNanos);
+                if (task.synced) {
+                    synced = true;
+                    syncNanos += task.syncNanos;
+                }
+            }
+            currentTask = null;
+        } finally {
+            updating.clear();
+        }
+    }
+
+    /**
+     * @return whether the task loads the given task from the load queue or one of its dependencies, including dependencies
+     * shared with a task created for another asset
+     */
+    private static boolean belongsTo(AssetLoadingTask task, AssetLoadingTask root) {
+        if (task.root == root) return true;
+        for (int i = 0; i < task.requesters.size; i++)
+            if (belongsTo(task.requesters.get(i), root)) return true;
+        return false;
     }
 
     /**
-     * Updates the current task on the top of the task stack.
+     * Updates the given task and adds the asset to the manager once it is loaded.
      *
+     * @param allowSync whether the task may load the part of the asset that is loaded on the rendering thread
      * @return true if the asset is loaded or the task was cancelled.
      */
-    private boolean updateTask() {
-        AssetLoadingTask task = tasks.peek();
-
+    private boolean updateTask(AssetLoadingTask task, boolean allowSync) {
         boolean complete = true;
         try {
-            complete = task.cancel || task.update();
+            // a cancelled task is kept until the loading thread is done with it, the loader may still be in use
+            complete = task.cancel ? !task.isWorking() : task.update(allowSync);
         } catch (RuntimeException ex) {
             task.cancel = true;
             taskFailed(task.assetDesc, ex);
@@ -625,22 +890,45 @@ public class AssetManager implements Disposable {
 
         // if the task has been cancelled or has finished loading
         if (complete) {
-            // increase the number of loaded assets and pop the task from the stack
-            if (tasks.size() == 1) {
-                loaded++;
-                peakTasks = 0;
-            }
-            tasks.pop();
+            // increase the number of loaded assets and remove the task
+            tasks.removeValue(task, true);
+            if (task.parent == null) loaded++;
+            if (tasks.size == 0) peakTasks = 0;
 
             if (task.cancel) return true;
 
-            addAsset(task.assetDesc.fileName, task.assetDesc.type, task.getAsset());
+            String fileName = task.assetDesc.fileName;
+            addAsset(fileName, task.assetDesc.type, task.getAsset());
+
+            // count the requests that came in while the asset was loading
+            RefCountedContainer assetRef = loadedAssets.get(fileName);
+            for (int i = 0; i < task.dependencyRefs; i++) {
+                assetRef.incRefCount();
+                incrementRefCountedDependencies(fileName);
+            }
 
             // otherwise, if a listener was found in the parameter invoke it
             if (task.assetDesc.params != null && task.assetDesc.params.loadedCallback != null) {
-                task.assetDesc.params.loadedCallback.finishedLoading(this, task.assetDesc.fileName, task.assetDesc.type);
+                task.assetDesc.params.loadedCallback.finishedLoading(this, fileName, task.assetDesc.type);
             }
 
+            for (AssetDescriptor assetDesc : task.queuedRefs) {
+                assetRef.incRefCount();
+                incrementRefCountedDependencies(fileName);
+                if (assetDesc.params != null && assetDesc.params.loadedCallback != null) {
+                    assetDesc.params.loadedCallback.finishedLoading(this, fileName, assetDesc.type);
+                }
+                loaded++;
+            }
+
+            if (metricsEnabled || loadListener != null) {
+                AssetLoadMetrics metrics = task.finishMetrics(sizeEstimator);
+                if (metricsEnabled) loadMetrics.add(metrics);
+                if (loadListener != null) loadListener.loaded(metrics);
+            }
+
+            if (memoryBudget > 0) trimCache();
+
             long endTime = TimeUtils.nanoTime();
             log.debug("Loaded: " + (endTime - task.startTime) / 1000000f + "ms " + task.assetDesc);
 
@@ -677,21 +965,52 @@ public class AssetManager implements Disposable {
     private void handleTaskError(Throwable t) {
         log.error("Error loading asset.", t);
 
-        if (tasks.isEmpty()) throw new GdxRuntimeException(t);
+        AssetLoadingTask task = currentTask;
+        currentTask = null;
+        if (task == null || tasks.isEmpty()) throw new GdxRuntimeException(t);
 
-        // pop the faulty task from the stack
-        AssetLoadingTask task = tasks.pop();
+        // remove the faulty task
+        tasks.removeValue(task, true);
         AssetDescriptor assetDesc = task.assetDesc;
 
         // remove all dependencies
         if (task.dependenciesLoaded && task.dependencies != null) {
             for (AssetDescriptor desc : task.dependencies) {
-                unload(desc.fileName);
+                if (isLoaded(desc.fileName)) unload(desc.fileName);
             }
         }
 
-        // clear the rest of the stack
-        tasks.clear();
+        // clear the tasks needing the asset and the dependencies that no other task needs anymore
+        ObjectSet<AssetLoadingTask> failed = failedTasks;
+        failed.add(task);
+        for (boolean changed = true; changed; ) {
+            changed = false;
+            for (int i = 0; i < tasks.size; i++) {
+                AssetLoadingTask other = tasks.get(i);
+                if (!failed.contains(other) && isFailed(other, failed)) {
+                    failed.add(other);
+                    changed = true;
+                }
+            }
+        }
+        for (int i = tasks.size - 1; i >= 0; i--) {
+            AssetLoadingTask other = tasks.get(i);
+            if (failed.contains(other)) {
+                // still running tasks finish in the background, the loader may be in use
+                other.cancel = true;
+                if (!other.isWorking()) tasks.removeIndex(i);
+                continue;
+            }
+            // a surviving dependency is not referenced by the failed tasks that requested it
+            for (int r = other.requesters.size - 1; r >= 0; r--) {
+                if (failed.contains(other.requesters.get(r))) {
+                    other.requesters.removeIndex(r);
+                    other.dependencyRefs--;
+                }
+            }
+        }
+        failed.clear();
+        if (tasks.size == 0) peakTasks = 0;
 
         // inform the listener that something bad happened
         if (listener != null) {
@@ -701,6 +1020,19 @@ public class AssetManager implements Disposable {
         }
     }
 
+    /**
+     * @return whether the task requested one of the failed tasks, or is a dependency only requested by failed tasks and not
+     * from the load queue
+     */
+    private static boolean isFailed(AssetLoadingTask task, ObjectSet<AssetLoadingTask> failed) {
+        for (AssetLoadingTask other : failed)
+            if (other.requesters.contains(task, true)) return true;
+        if (task.parent == null || task.queuedRefs.size > 0) return false;
+        for (AssetLoadingTask requester : task.requesters)
+            if (!failed.contains(requester)) return false;
+        return true;
+    }
+
     /**
      * Sets a new {@link AssetLoader} for the given type.
      *
@@ -739,7 +1071,7 @@ public class AssetManager implements Disposable {
      * @return the number of currently queued assets
      */
     public synchronized int getQueuedAssets() {
-        return loadQueue.size + tasks.size();
+        return loadQueue.size + tasks.size;
     }
 
     /**
@@ -749,7 +1081,7 @@ public class AssetManager implements Disposable {
         if (toLoad == 0) return 1;
         float fractionalLoaded = (float) loaded;
         if (peakTasks > 0) {
-            fractionalLoaded += ((peakTasks - tasks.size()) / (float) peakTasks);
+            fractionalLoaded += ((peakTasks - tasks.size) / (float) peakTasks);
         }
         return Math.min(1, fractionalLoaded / (float) toLoad);
     }
@@ -763,6 +1095,209 @@ public class AssetManager implements Disposable {
         this.listener = listener;
     }
 
+    /**
+     * Sets an {@link AssetLoadListener} to be invoked with the {@link AssetLoadMetrics} of every loaded asset, including
+     * dependencies.
+     *
+     * @param loadListener the listener or null
+     */
+    public synchronized void setLoadListener(AssetLoadListener loadListener) {
+        this.loadListener = loadListener;
+    }
+
+    /**
+     * Sets whether the {@link AssetLoadMetrics} of loaded assets are kept for {@link #getLoadMetrics()} and
+     * {@link #getLoadReport(int)}. Disabled by default.
+     */
+    public synchronized void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    /**
+     * Sets the estimator used for {@link AssetLoadMetrics#memoryBytes}.
+     */
+    public synchronized void setSizeEstimator(AssetSizeEstimator sizeEstimator) {
+        if (sizeEstimator == null) throw new IllegalArgumentException("sizeEstimator cannot be null.");
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    public synchronized AssetSizeEstimator getSizeEstimator() {
+        return sizeEstimator;
+    }
+
+    /**
+     * Sets how much memory the assets of the manager may use, as estimated by the {@link #getSizeEstimator() size estimator}.
+     * With a budget, assets whose reference count drops to zero are not disposed but cached. Loading a cached asset again takes
+     * it back without loading it. When the loaded and cached assets exceed the budget, the least recently unloaded cached assets
+     * are evicted and disposed. Referenced assets are never evicted, so the budget only bounds the cache.
+     *
+     * @param bytes the budget in bytes, 0 disables the cache and evicts all cached assets
+     */
+    public synchronized void setMemoryBudget(long bytes) {
+        memoryBudget = Math.max(0, bytes);
+        if (memoryBudget == 0)
+            evictAll(true);
+        else
+            trimCache();
+    }
+
+    public synchronized long getMemoryBudget() {
+        return memoryBudget;
+    }
+
+    /**
+     * @return the estimated memory of all loaded and cached assets in bytes.
+     */
+    public synchronized long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * @return the estimated memory of the cached assets in bytes.
+     */
+    public synchronized long getCachedMemory() {
+        return cache.bytes;
+    }
+
+    /**
+     * @return whether the asset is unreferenced but kept in the cache. Cached assets are not {@link #isLoaded(String) loaded}.
+     */
+    public synchronized boolean isCached(String fileName) {
+        return cache.entries.containsKey(fileName);
+    }
+
+    /**
+     * @return the file names of the cached assets, from the least to the most recently unloaded.
+     */
+    public synchronized Array<String> getCachedAssetNames() {
+        return new Array(cache.entries.orderedKeys());
+    }
+
+    /**
+     * Keeps the asset in the cache when it is no longer referenced, it is only evicted by {@link #setMemoryBudget(long)
+     * disabling} the cache or {@link #clear()}. Has no effect while no memory budget is set. The asset does not need to be loaded
+     * yet.
+     */
+    public synchronized void pin(String fileName) {
+        cache.pinned.add(fileName);
+    }
+
+    public synchronized void unpin(String fileName) {
+        if (cache.pinned.remove(fileName) && memoryBudget > 0) trimCache();
+    }
+
+    public synchronized boolean isPinned(String fileName) {
+        return cache.pinned.contains(fileName);
+    }
+
+    /**
+     * Evicts all cached assets that are not pinned.
+     */
+    public synchronized void evictCache() {
+        evictAll(false);
+    }
+
+    /**
+     * Sets an {@link AssetEvictionListener} to be invoked before a cached asset is evicted.
+     *
+     * @param evictionListener the listener or null
+     */
+    public synchronized void setEvictionListener(AssetEvictionListener evictionListener) {
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * @return how often a requested asset was taken back from the cache.
+     */
+    public synchronized int getCacheHits() {
+        return cache.hits;
+    }
+
+    /**
+     * @return how often a requested asset had to be loaded while a memory budget was set.
+     */
+    public synchronized int getCacheMisses() {
+        return cache.misses;
+    }
+
+    /**
+     * @return how many cached assets were evicted.
+     */
+    public synchronized int getCacheEvictions() {
+        return cache.evictions;
+    }
+
+    /**
+     * @return the estimated memory of the evicted assets in bytes.
+     */
+    public synchronized long getEvictedMemory() {
+        return cache.evictedBytes;
+    }
+
+    public synchronized void resetCacheStats() {
+        cache.resetStats();
+    }
+
+    /**
+     * @return the metrics of the assets loaded since metrics were enabled or last cleared, in the order they finished loading.
+     */
+    public synchronized Array<AssetLoadMetrics> getLoadMetrics() {
+        return new Array(loadMetrics);
+    }
+
+    public synchronized void clearLoadMetrics() {
+        loadMetrics.clear();
+    }
+
+    /**
+     * @param slowest the amount of assets with the longest work time to list
+     * @return a string containing the totals per loader and the slowest assets of the kept {@link AssetLoadMetrics}.
+     */
+    public synchronized String getLoadReport(int slowest) {
+        StringBuilder sb = new StringBuilder();
+        long work = 0, fileBytes = 0, memoryBytes = 0;
+        ObjectMap<Class, long[]> loaderTotals = new ObjectMap();
+        for (AssetLoadMetrics metrics : loadMetrics) {
+            work += metrics.getWorkNanos();
+            fileBytes += metrics.fileBytes;
+            memoryBytes += metrics.memoryBytes;
+            long[] totals = loaderTotals.get(metrics.loaderType);
+            if (totals == null) loaderTotals.put(metrics.loaderType, totals = new long[5]);
+            totals[0]++;
+            totals[1] += metrics.asyncNanos + metrics.dependenciesNanos;
+            totals[2] += metrics.syncNanos;
+            totals[3] += metrics.fileBytes;
+            totals[4] += metrics.memoryBytes;
+        }
+        sb.append("assets: ").append(loadMetrics.size);
+        sb.append(", work: ").append(AssetLoadMetrics.millis(work)).append("ms");
+        sb.append(", file: ").append(fileBytes).append("b");
+        sb.append(", memory: ").append(memoryBytes).append("b");
+        sb.append(", throughput: ").append(work == 0 ? 0 : (long) (fileBytes * 1000000000d / work)).append("b/s\n");
+
+        for (ObjectMap.Entry<Class, long[]> entry : loaderTotals) {
+            long[] totals = entry.value;
+            sb.append(ClassReflection.getSimpleName(entry.key));
+            sb.append(", assets: ").append(totals[0]);
+            sb.append(", async: ").append(AssetLoadMetrics.millis(totals[1])).append("ms");
+            sb.append(", sync: ").append(AssetLoadMetrics.millis(totals[2])).append("ms");
+            sb.append(", file: ").append(totals[3]).append("b");
+            sb.append(", memory: ").append(totals[4]).append("b\n");
+        }
+
+        Array<AssetLoadMetrics> sorted = new Array(loadMetrics);
+        sorted.sort(new Comparator<AssetLoadMetrics>() {
+            @Override
+            public int compare(AssetLoadMetrics a, AssetLoadMetrics b) {
+                long diff = b.getWorkNanos() - a.getWorkNanos();
+                return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+            }
+        });
+        for (int i = 0, n = Math.min(slowest, sorted.size); i < n; i++)
+            sb.append(sorted.get(i)).append("\n");
+        return sb.toString();
+    }
+
     /**
      * Disposes all assets in the manager and stops all asynchronous loading.
      */
@@ -778,8 +1313,10 @@ public class AssetManager implements Disposable {
      */
     public synchronized void clear() {
         loadQueue.clear();
+        textureStreamer.clear();
         while (!update())
             ;
+        evictAll(true);
 
         ObjectIntMap<String> dependencyCount = new ObjectIntMap<String>();
         while (assetTypes.size > 0) {
@@ -803,14 +1340,16 @@ public class AssetManager implements Disposable {
             // only dispose of assets that are root assets (not referenced)
             for (String asset : assets) {
                 if (dependencyCount.get(asset, 0) == 0) {
-                    unload(asset);
+                    unload(asset, false);
                 }
             }
         }
 
         this.assets.clear();
+        this.loadedAssets.clear();
         this.assetTypes.clear();
         this.assetDependencies.clear();
+        this.memoryUsage = 0;
         this.loaded = 0;
         this.toLoad = 0;
         this.peakTasks = 0;
@@ -879,6 +1418,16 @@ public class AssetManager implements Disposable {
             }
             sb.append("\n");
         }
+        for (ObjectMap.Entry<String, AssetCache.Entry> entry : cache.entries) {
+            sb.append(entry.key);
+            sb.append(", ");
+            sb.append(ClassReflection.getSimpleName(entry.value.type));
+            sb.append(", cached: ");
+            sb.append(entry.value.container.size);
+            sb.append("b");
+            if (cache.pinned.contains(entry.key)) sb.append(", pinned");
+            sb.append("\n");
+        }
         return sb.toString();
     }
 
@@ -0,0 +1,90 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.assets;
+
+import com.erlei.gdx.graphics.Cubemap;
+import com.erlei.gdx.graphics.GLTexture;
+import com.erlei.gdx.graphics.Mesh;
+import com.erlei.gdx.graphics.Pixmap;
+import com.erlei.gdx.graphics.Pixmap.Format;
+import com.erlei.gdx.graphics.Texture;
+import com.erlei.gdx.graphics.TextureArray;
+import com.erlei.gdx.graphics.g3d.Model;
+
+/** Estimates the memory an asset holds, for the metrics and the cache of the {@link AssetManager}. Only memory owned by the asset
+ * itself is counted, e.g. a {@link com.erlei.gdx.graphics.g2d.TextureAtlas} reports 0 since its textures are separate assets.
+ * Subclass to support custom asset types. */
+public class AssetSizeEstimator {
+	/** @return the estimated size of the asset in bytes, 0 if unknown */
+	public long estimate (Object asset) {
+		if (asset instanceof Pixmap) return ((Pixmap)asset).getPixels().capacity();
+		if (asset instanceof Texture) {
+			Texture texture = (Texture)asset;
+			boolean mipMaps = texture.getTextureData() != null && texture.getTextureData().useMipMaps();
+			Format format = texture.getTextureData() == null ? null : texture.getTextureData().getFormat();
+			return textureSize(texture.getWidth(), texture.getHeight(), 1, format, mipMaps);
+		}
+		if (asset instanceof Cubemap) {
+			Cubemap cubemap = (Cubemap)asset;
+			return textureSize(cubemap.getWidth(), cubemap.getHeight(), 6, null, false);
+		}
+		if (asset instanceof TextureArray) {
+			TextureArray array = (TextureArray)asset;
+			return textureSize(array.getWidth(), array.getHeight(), array.getDepth(), null, false);
+		}
+		if (asset instanceof GLTexture) {
+			GLTexture texture = (GLTexture)asset;
+			return textureSize(texture.getWidth(), texture.getHeight(), Math.max(1, texture.getDepth()), null, false);
+		}
+		if (asset instanceof Mesh) return meshSize((Mesh)asset);
+		if (asset instanceof Model) {
+			long size = 0;
+			Model model = (Model)asset;
+			for (int i = 0; i < model.meshes.size; i++)
+				size += meshSize(model.meshes.get(i));
+			return size;
+		}
+		return 0;
+	}
+
+	/** @param format the format or null to assume {@link Format#RGBA8888} */
+	public static long textureSize (int width, int height, int depth, Format format, boolean mipMaps) {
+		long size = (long)width * height * depth * bytesPerPixel(format == null ? Format.RGBA8888 : format);
+		// a full mipmap chain adds a third
+		return mipMaps ? size * 4 / 3 : size;
+	}
+
+	public static long meshSize (Mesh mesh) {
+		return (long)mesh.getNumVertices() * mesh.getVertexSize() + (long)mesh.getNumIndices() * 2;
+	}
+
+	public static int bytesPerPixel (Format format) {
+		switch (format) {
+		case Alpha:
+		case Intensity:
+			return 1;
+		case LuminanceAlpha:
+		case RGB565:
+		case RGBA4444:
+			return 2;
+		case RGB888:
+			return 3;
+		default:
+			return 4;
+		}
+	}
+}
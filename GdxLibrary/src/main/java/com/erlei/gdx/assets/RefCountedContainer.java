@@ -19,6 +19,8 @@ package com.erlei.gdx.assets;
 public class RefCountedContainer {
 	Object object;
 	int refCount = 1;
+	/** The estimated memory of the object, see {@link AssetSizeEstimator} */
+	long size;
 
 	public RefCountedContainer (Object object) {
 		if (object == null) throw new IllegalArgumentException("Object must not be null");
@@ -48,4 +50,8 @@ public class RefCountedContainer {
 	public void setObject (Object asset) {
 		this.object = asset;
 	}
+
+	public long getSize () {
+		return size;
+	}
 }
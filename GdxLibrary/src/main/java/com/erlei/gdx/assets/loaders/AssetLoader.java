@@ -18,6 +18,7 @@ package com.erlei.gdx.assets.loaders;
 
 import com.erlei.gdx.assets.AssetDescriptor;
 import com.erlei.gdx.assets.AssetLoaderParameters;
+import com.erlei.gdx.assets.AssetManager;
 import com.erlei.gdx.files.FileHandle;
 import com.erlei.gdx.utils.Array;
 
@@ -48,4 +49,13 @@ public abstract class AssetLoader<T, P extends AssetLoaderParameters<T>> {
 	 * @param parameter parameters for loading the asset
 	 * @return other assets that the asset depends on and need to be loaded first or null if there are no dependencies. */
 	public abstract Array<AssetDescriptor> getDependencies (String fileName, FileHandle file, P parameter);
+
+	/** Returns whether this loader can load several assets at the same time. Most loaders keep the asset being loaded in fields
+	 * between {@link #getDependencies(String, FileHandle, AssetLoaderParameters)} and the final load call, so the
+	 * {@link AssetManager} only loads one asset at a time with them. Loaders that keep their state per file name can return true
+	 * to load in parallel on the loading threads.
+	 * @return false by default */
+	public boolean isConcurrent () {
+		return false;
+	}
 }
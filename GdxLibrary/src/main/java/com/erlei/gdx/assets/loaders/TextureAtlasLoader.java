@@ -29,7 +29,8 @@ import com.erlei.gdx.utils.Array;
 
 /** {@link AssetLoader} to load {@link TextureAtlas} instances. Passing a {@link TextureAtlasParameter} to
  * {@link AssetManager#load(String, Class, AssetLoaderParameters)} allows to specify whether the atlas regions should be flipped
- * on the y-axis or not.
+ * on the y-axis or not. Pack files in the text format and in the binary format of
+ * {@link TextureAtlasData#writeBinary(FileHandle, FileHandle)} are both accepted, the format is detected from the content.
  * @author mzechner */
 public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, TextureAtlasLoader.TextureAtlasParameter> {
 	public TextureAtlasLoader (FileHandleResolver resolver) {
@@ -67,6 +68,7 @@ public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, Tex
 			params.genMipMaps = page.useMipMaps;
 			params.minFilter = page.minFilter;
 			params.magFilter = page.magFilter;
+			params.streamed = parameter != null && parameter.streamed;
 			dependencies.add(new AssetDescriptor(page.textureFile, Texture.class, params));
 		}
 		return dependencies;
@@ -75,6 +77,8 @@ public class TextureAtlasLoader extends SynchronousAssetLoader<TextureAtlas, Tex
 	static public class TextureAtlasParameter extends AssetLoaderParameters<TextureAtlas> {
 		/** whether to flip the texture atlas vertically **/
 		public boolean flip = false;
+		/** whether to stream the page textures, see {@link TextureParameter#streamed} **/
+		public boolean streamed = false;
 
 		public TextureAtlasParameter () {
 		}
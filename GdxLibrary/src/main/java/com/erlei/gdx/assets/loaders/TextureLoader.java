@@ -28,10 +28,12 @@ import com.erlei.gdx.graphics.Texture;
 import com.erlei.gdx.graphics.Texture.TextureFilter;
 import com.erlei.gdx.graphics.Texture.TextureWrap;
 import com.erlei.gdx.graphics.TextureData;
+import com.erlei.gdx.graphics.TextureStreamer;
 import com.erlei.gdx.graphics.glutils.ETC1TextureData;
 import com.erlei.gdx.graphics.glutils.FileTextureData;
 import com.erlei.gdx.graphics.glutils.KTXTextureData;
 import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.ObjectMap;
 
 /** {@link AssetLoader} for {@link Texture} instances. The pixel data is loaded asynchronously. The texture is then created on the
  * rendering thread, synchronously. Passing a {@link TextureParameter} to
@@ -43,9 +45,10 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
 		String filename;
 		TextureData data;
 		Texture texture;
+		TextureStreamer.Upload upload;
 	};
 
-	TextureLoaderInfo info = new TextureLoaderInfo();
+	final ObjectMap<String, TextureLoaderInfo> infos = new ObjectMap<String, TextureLoaderInfo>();
 
 	public TextureLoader (FileHandleResolver resolver) {
 		super(resolver);
@@ -53,6 +56,7 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
 
 	@Override
 	public void loadAsync (AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+		TextureLoaderInfo info = new TextureLoaderInfo();
 		info.filename = fileName;
 		if (parameter == null || parameter.textureData == null) {
 			Pixmap pixmap = null;
@@ -71,15 +75,26 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
 			info.data = parameter.textureData;
 			info.texture = parameter.texture;
 		}
-		if (!info.data.isPrepared()) info.data.prepare();
+		if (parameter != null && parameter.streamed && info.texture == null)
+			info.upload = manager.getTextureStreamer().prepare(info.data);
+		else if (!info.data.isPrepared()) info.data.prepare();
+		synchronized (infos) {
+			infos.put(fileName, info);
+		}
 	}
 
 	@Override
 	public Texture loadSync (AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+		TextureLoaderInfo info;
+		synchronized (infos) {
+			info = infos.remove(fileName);
+		}
 		if (info == null) return null;
 		Texture texture = info.texture;
 		if (texture != null) {
 			texture.load(info.data);
+		} else if (info.upload != null) {
+			texture = manager.getTextureStreamer().start(info.upload, parameter.uploadListener);
 		} else {
 			texture = new Texture(info.data);
 		}
@@ -95,6 +110,11 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
 		return null;
 	}
 
+	@Override
+	public boolean isConcurrent () {
+		return true;
+	}
+
 	static public class TextureParameter extends AssetLoaderParameters<Texture> {
 		/** the format of the final Texture. Uses the source images format if null **/
 		public Format format = null;
@@ -108,5 +128,11 @@ public class TextureLoader extends AsynchronousAssetLoader<Texture, TextureLoade
 		public TextureFilter magFilter = TextureFilter.Nearest;
 		public TextureWrap wrapU = TextureWrap.ClampToEdge;
 		public TextureWrap wrapV = TextureWrap.ClampToEdge;
+		/** whether to upload the pixels over several updates of the {@link AssetManager#getTextureStreamer() TextureStreamer}.
+		 * The texture is loaded as soon as its storage is allocated, see {@link TextureStreamer}. Ignored if {@link #texture} is
+		 * set. **/
+		public boolean streamed = false;
+		/** notified once all pixels of a streamed texture are uploaded, optional **/
+		public TextureStreamer.UploadListener uploadListener = null;
 	}
 }
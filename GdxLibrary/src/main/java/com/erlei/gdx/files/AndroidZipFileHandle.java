@@ -28,6 +28,7 @@ import java.io.FileFilter;
 import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 /**
  * @author sarkanyi
@@ -78,6 +79,18 @@ public class AndroidZipFileHandle extends AndroidFileHandle {
         return input;
     }
 
+    @Override
+    public ByteBuffer readByteBuffer() {
+        ByteBuffer buffer;
+        try {
+            buffer = expansionFile.getByteBuffer(getPath());
+        } catch (IOException ex) {
+            throw new GdxRuntimeException("Error reading file: " + file + " (ZipResourceFile)", ex);
+        }
+        if (buffer == null) throw new GdxRuntimeException("File not found: " + file + " (ZipResourceFile)");
+        return buffer;
+    }
+
     @Override
     public FileHandle child(String name) {
         if (file.getPath().length() == 0)
@@ -262,6 +262,27 @@ public class FileHandle {
 		return position - offset;
 	}
 
+	/** Files at least this large are memory mapped by {@link #readByteBuffer()}, smaller ones are cheaper to read. */
+	public static int mapThreshold = 64 * 1024;
+
+	/** Returns the entire file as a big endian ByteBuffer without copying it to the heap if possible. Files of
+	 * {@link #mapThreshold} bytes or more are memory mapped if they can be, which works for everything except
+	 * {@link FileType#Classpath} files and compressed Android assets. Otherwise the file is read into a heap buffer. The buffer
+	 * must not be written to.
+	 * @throws GdxRuntimeException if the file handle represents a directory, doesn't exist, or could not be read. */
+	public ByteBuffer readByteBuffer () {
+		if (type != FileType.Classpath && length() >= mapThreshold) {
+			try {
+				ByteBuffer buffer = map();
+				buffer.order(ByteOrder.BIG_ENDIAN);
+				return buffer;
+			} catch (GdxRuntimeException ignored) {
+				// not a plain file, read it instead
+			}
+		}
+		return ByteBuffer.wrap(readBytes());
+	}
+
 	/** Attempts to memory map this file in READ_ONLY mode. Android files must not be compressed.
 	 * @throws GdxRuntimeException if this file handle represents a directory, doesn't exist, or could not be read, or memory mapping fails, or is a {@link FileType#Classpath} file. */
 	public ByteBuffer map () {
@@ -274,6 +295,7 @@ public class FileHandle {
 		if (type == FileType.Classpath) throw new GdxRuntimeException("Cannot map a classpath file: " + this);
 		RandomAccessFile raf = null;
 		try {
+			File file = file();
 			raf = new RandomAccessFile(file, mode == MapMode.READ_ONLY ? "r" : "rw");
 			FileChannel fileChannel = raf.getChannel();
 			ByteBuffer map = fileChannel.map(mode, 0, file.length());
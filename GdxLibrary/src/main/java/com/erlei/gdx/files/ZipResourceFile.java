@@ -259,6 +259,45 @@ public class ZipResourceFile {
 		return null;
 	}
 
+	/**
+	 * getByteBuffer returns the entire asset as a ByteBuffer. Stored
+	 * (non-compressed) files are memory mapped straight from the Zip file at
+	 * their known offset, compressed ones are inflated into a buffer of their
+	 * uncompressed length.
+	 * 
+	 * @param assetPath
+	 * @return a big endian buffer holding the asset, or null if not found
+	 * @throws IOException
+	 */
+	public ByteBuffer getByteBuffer(String assetPath) throws IOException {
+		ZipEntryRO entry = mHashMap.get(assetPath);
+		if (null == entry)
+			return null;
+		if (entry.isUncompressed()) {
+			RandomAccessFile f = new RandomAccessFile(entry.getZipFile(), "r");
+			try {
+				return f.getChannel().map(FileChannel.MapMode.READ_ONLY,
+						entry.getOffset(), entry.mUncompressedLength);
+			} finally {
+				f.close();
+			}
+		}
+		byte[] bytes = new byte[(int) entry.mUncompressedLength];
+		InputStream input = getInputStream(assetPath);
+		try {
+			int position = 0;
+			while (position < bytes.length) {
+				int count = input.read(bytes, position, bytes.length - position);
+				if (count < 0)
+					throw new EOFException();
+				position += count;
+			}
+		} finally {
+			input.close();
+		}
+		return ByteBuffer.wrap(bytes);
+	}
+
 	ByteBuffer mLEByteBuffer = ByteBuffer.allocate(4);
 
 	static private int read4LE(RandomAccessFile f) throws EOFException,
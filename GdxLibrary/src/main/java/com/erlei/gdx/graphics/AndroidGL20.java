@@ -229,6 +229,12 @@ public class AndroidGL20 implements GL20 {
 
     public native void glReadPixels(int x, int y, int width, int height, int format, int type, Buffer pixels);
 
+    /**
+     * Reads into the buffer bound to GL_PIXEL_PACK_BUFFER, only with OpenGL ES 3.0. Implemented here because
+     * GLES30 has no such method before API level 24.
+     */
+    public native void glReadPixels(int x, int y, int width, int height, int format, int type, int offset);
+
     public native void glReleaseShaderCompiler();
 
     public native void glRenderbufferStorage(int target, int internalformat, int width, int height);
@@ -243,10 +243,10 @@ public class AndroidGL30 extends AndroidGL20 implements GL30 {
 		GLES30.glFramebufferTextureLayer(target, attachment, texture, level, layer);
 	}
 
-// @Override
-// public java.nio.Buffer glMapBufferRange(int target, int offset, int length, int access) {
-// return GLES30.glMapBufferRange(target, offset, length, access);
-// }
+	@Override
+	public java.nio.Buffer glMapBufferRange (int target, int offset, int length, int access) {
+		return GLES30.glMapBufferRange(target, offset, length, access);
+	}
 
 	@Override
 	public void glFlushMappedBufferRange (int target, int offset, int length) {
@@ -595,25 +595,25 @@ public class AndroidGL30 extends AndroidGL20 implements GL30 {
 		GLES30.glDrawElementsInstanced(mode, count, type, indicesOffset, instanceCount);
 	}
 
-// @Override
-// public long glFenceSync(int condition, int flags) {
-// return GLES30.glFenceSync(condition, flags);
-// }
-//
+	@Override
+	public long glFenceSync (int condition, int flags) {
+		return GLES30.glFenceSync(condition, flags);
+	}
+
 // @Override
 // public boolean glIsSync(long sync) {
 // return GLES30.glIsSync(sync);
 // }
-//
-// @Override
-// public void glDeleteSync(long sync) {
-// GLES30.glDeleteSync(sync);
-// }
-//
-// @Override
-// public int glClientWaitSync(long sync, int flags, long timeout) {
-// return GLES30.glClientWaitSync(sync, flags, timeout);
-// }
+
+	@Override
+	public void glDeleteSync (long sync) {
+		GLES30.glDeleteSync(sync);
+	}
+
+	@Override
+	public int glClientWaitSync (long sync, int flags, long timeout) {
+		return GLES30.glClientWaitSync(sync, flags, timeout);
+	}
 
 // @Override
 // public void glWaitSync(long sync, int flags, long timeout) {
@@ -793,16 +793,16 @@ public class AndroidGL30 extends AndroidGL20 implements GL30 {
 // GLES30.glGetProgramBinary(program, bufSize, length, lengthOffset, binaryFormat, binaryFormatOffset, binary);
 // }
 //
-// @Override
-// public void glGetProgramBinary(int program, int bufSize, java.nio.IntBuffer length, java.nio.IntBuffer binaryFormat,
-// java.nio.Buffer binary) {
-// GLES30.glGetProgramBinary(program, bufSize, length, binaryFormat, binary);
-// }
+	@Override
+	public void glGetProgramBinary (int program, int bufSize, java.nio.IntBuffer length, java.nio.IntBuffer binaryFormat,
+		java.nio.Buffer binary) {
+		GLES30.glGetProgramBinary(program, bufSize, length, binaryFormat, binary);
+	}
 
-// @Override
-// public void glProgramBinary(int program, int binaryFormat, java.nio.Buffer binary, int length) {
-// GLES30.glProgramBinary(program, binaryFormat, binary, length);
-// }
+	@Override
+	public void glProgramBinary (int program, int binaryFormat, java.nio.Buffer binary, int length) {
+		GLES30.glProgramBinary(program, binaryFormat, binary, length);
+	}
 
 	@Override
 	public void glProgramParameteri (int program, int pname, int value) {
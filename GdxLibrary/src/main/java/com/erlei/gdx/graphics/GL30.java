@@ -335,6 +335,10 @@ public interface GL30 extends GL20 {
 
 	void glReadBuffer(int mode);
 
+	// C function void glReadPixels ( GLint x, GLint y, GLsizei width, GLsizei height, GLenum format, GLenum type, GLint offset )
+
+	void glReadPixels(int x, int y, int width, int height, int format, int type, int offset);
+
 	// C function void glDrawRangeElements ( GLenum mode, GLuint start, GLuint end, GLsizei count, GLenum type, const GLvoid
 // *indices )
 
@@ -611,14 +615,9 @@ public interface GL30 extends GL20 {
 
 	void glFramebufferTextureLayer(int target, int attachment, int texture, int level, int layer);
 
-// // C function GLvoid * glMapBufferRange ( GLenum target, GLintptr offset, GLsizeiptr length, GLbitfield access )
-//
-// public java.nio.Buffer glMapBufferRange(
-// int target,
-// int offset,
-// int length,
-// int access
-// );
+	// C function GLvoid * glMapBufferRange ( GLenum target, GLintptr offset, GLsizeiptr length, GLbitfield access )
+
+	java.nio.Buffer glMapBufferRange(int target, int offset, int length, int access);
 
 	// C function void glFlushMappedBufferRange ( GLenum target, GLintptr offset, GLsizeiptr length )
 
@@ -1065,33 +1064,24 @@ public interface GL30 extends GL20 {
 
 	void glDrawElementsInstanced(int mode, int count, int type, int indicesOffset, int instanceCount);
 
-// // C function GLsync glFenceSync ( GLenum condition, GLbitfield flags )
-//
-// public long glFenceSync(
-// int condition,
-// int flags
-// );
-//
+	// C function GLsync glFenceSync ( GLenum condition, GLbitfield flags )
+
+	long glFenceSync(int condition, int flags);
+
 // // C function GLboolean glIsSync ( GLsync sync )
 //
 // public boolean glIsSync(
 // long sync
 // );
-//
-// // C function void glDeleteSync ( GLsync sync )
-//
-// public void glDeleteSync(
-// long sync
-// );
-//
-// // C function GLenum glClientWaitSync ( GLsync sync, GLbitfield flags, GLuint64 timeout )
-//
-// public int glClientWaitSync(
-// long sync,
-// int flags,
-// long timeout
-// );
-//
+
+	// C function void glDeleteSync ( GLsync sync )
+
+	void glDeleteSync(long sync);
+
+	// C function GLenum glClientWaitSync ( GLsync sync, GLbitfield flags, GLuint64 timeout )
+
+	int glClientWaitSync(long sync, int flags, long timeout);
+
 // // C function void glWaitSync ( GLsync sync, GLbitfield flags, GLuint64 timeout )
 //
 // public void glWaitSync(
@@ -1296,26 +1286,15 @@ public interface GL30 extends GL20 {
 // int binaryFormatOffset,
 // java.nio.Buffer binary
 // );
-//
-// // C function void glGetProgramBinary ( GLuint program, GLsizei bufSize, GLsizei *length, GLenum *binaryFormat, GLvoid *binary
-// )
-//
-// public void glGetProgramBinary(
-// int program,
-// int bufSize,
-// java.nio.IntBuffer length,
-// java.nio.IntBuffer binaryFormat,
-// java.nio.Buffer binary
-// );
-//
-// // C function void glProgramBinary ( GLuint program, GLenum binaryFormat, const GLvoid *binary, GLsizei length )
-//
-// public void glProgramBinary(
-// int program,
-// int binaryFormat,
-// java.nio.Buffer binary,
-// int length
-// );
+
+	// C function void glGetProgramBinary ( GLuint program, GLsizei bufSize, GLsizei *length, GLenum *binaryFormat, GLvoid *binary
+	// )
+
+	void glGetProgramBinary(int program, int bufSize, java.nio.IntBuffer length, java.nio.IntBuffer binaryFormat, java.nio.Buffer binary);
+
+	// C function void glProgramBinary ( GLuint program, GLenum binaryFormat, const GLvoid *binary, GLsizei length )
+
+	void glProgramBinary(int program, int binaryFormat, java.nio.Buffer binary, int length);
 
 	// C function void glProgramParameteri ( GLuint program, GLenum pname, GLint value )
 
@@ -31,6 +31,7 @@ import com.erlei.gdx.graphics.glutils.IndexData;
 import com.erlei.gdx.graphics.glutils.ShaderProgram;
 import com.erlei.gdx.graphics.glutils.VertexArray;
 import com.erlei.gdx.graphics.glutils.VertexBufferObject;
+import com.erlei.gdx.graphics.glutils.VertexBufferObjectRing;
 import com.erlei.gdx.graphics.glutils.VertexBufferObjectSubData;
 import com.erlei.gdx.graphics.glutils.VertexBufferObjectWithVAO;
 import com.erlei.gdx.graphics.glutils.VertexData;
@@ -66,9 +67,16 @@ import com.erlei.gdx.utils.GdxRuntimeException;
  * @author mzechner, Dave Clayton <contact@redskyforge.com>, Xoppa */
 public class Mesh implements Disposable {
 	public enum VertexDataType {
-		VertexArray, VertexBufferObject, VertexBufferObjectSubData, VertexBufferObjectWithVAO
+		VertexArray, VertexBufferObject, VertexBufferObjectSubData, VertexBufferObjectWithVAO,
+		/** A {@link VertexBufferObjectRing} for vertices that are replaced before every render, see
+		 * {@link Mesh#DEFAULT_RING_SEGMENTS}. */
+		VertexBufferObjectRing
 	}
 
+	/** The amount of renders a {@link VertexDataType#VertexBufferObjectRing} mesh holds before its buffer is orphaned, unless
+	 * given to {@link #Mesh(VertexDataType, boolean, int, int, int, VertexAttributes)} */
+	public static final int DEFAULT_RING_SEGMENTS = 3;
+
 	/** list of all meshes **/
 	static final Map<Application, Array<Mesh>> meshes = new HashMap<Application, Array<Mesh>>();
 
@@ -161,6 +169,20 @@ public class Mesh implements Disposable {
 	 * @param maxIndices the maximum number of indices this mesh can hold
 	 * @param attributes the {@link VertexAttributes}. */
 	public Mesh (VertexDataType type, boolean isStatic, int maxVertices, int maxIndices, VertexAttributes attributes) {
+		this(type, isStatic, maxVertices, maxIndices, DEFAULT_RING_SEGMENTS, attributes);
+	}
+
+	/** Creates a new Mesh with the given attributes. This is an expert method with no error checking. Use at your own risk.
+	 * 
+	 * @param type the {@link VertexDataType} to be used, VBO or VA.
+	 * @param isStatic whether this mesh is static or not. Allows for internal optimizations.
+	 * @param maxVertices the maximum number of vertices this mesh can hold
+	 * @param maxIndices the maximum number of indices this mesh can hold
+	 * @param ringSegments the amount of renders a {@link VertexDataType#VertexBufferObjectRing} mesh holds before its buffer is
+	 *           orphaned, ignored by the other types
+	 * @param attributes the {@link VertexAttributes}. */
+	public Mesh (VertexDataType type, boolean isStatic, int maxVertices, int maxIndices, int ringSegments,
+		VertexAttributes attributes) {
 		switch (type) {
 		case VertexBufferObject:
 			vertices = new VertexBufferObject(isStatic, maxVertices, attributes);
@@ -177,6 +199,11 @@ public class Mesh implements Disposable {
 			indices = new IndexBufferObjectSubData(isStatic, maxIndices);
 			isVertexArray = false;
 			break;
+		case VertexBufferObjectRing:
+			vertices = new VertexBufferObjectRing(maxVertices, ringSegments, attributes);
+			indices = new IndexBufferObjectSubData(isStatic, maxIndices);
+			isVertexArray = false;
+			break;
 		case VertexArray:
 		default:
 			vertices = new VertexArray(maxVertices, attributes);
@@ -518,6 +545,43 @@ public class Mesh implements Disposable {
 		if (autoBind) unbind(shader);
 	}
 
+	/** Renders the mesh like {@link #render(ShaderProgram, int, int, int, boolean)}, but draws it instanceCount times with a single
+	 * draw call. The per instance attributes have to be bound with a {@link GL30#glVertexAttribDivisor(int, int)} beforehand.
+	 * Requires OpenGL ES 3.0 and a Mesh that keeps its vertices and indices in buffer objects.
+	 * 
+	 * @param shader the shader to be used
+	 * @param primitiveType the primitive type
+	 * @param offset the offset into the vertex or index buffer
+	 * @param count number of vertices or indices to use
+	 * @param instanceCount the number of instances to draw
+	 * @param autoBind overrides the autoBind member of this Mesh */
+	public void renderInstanced (ShaderProgram shader, int primitiveType, int offset, int count, int instanceCount,
+		boolean autoBind) {
+		if (count == 0 || instanceCount == 0) return;
+		if (Gdx.gl30 == null) throw new GdxRuntimeException("Instanced rendering requires OpenGL ES 3.0");
+		if (isVertexArray) throw new GdxRuntimeException("Instanced rendering requires a Mesh using buffer objects");
+
+		if (autoBind) bind(shader);
+
+		if (indices.getNumIndices() > 0) {
+			if (count + offset > indices.getNumMaxIndices()) {
+				throw new GdxRuntimeException("Mesh attempting to access memory outside of the index buffer (count: "
+					+ count + ", offset: " + offset + ", max: " + indices.getNumMaxIndices() + ")");
+			}
+
+			Gdx.gl30.glDrawElementsInstanced(primitiveType, count, GL20.GL_UNSIGNED_SHORT, offset * 2, instanceCount);
+		} else {
+			Gdx.gl30.glDrawArraysInstanced(primitiveType, offset, count, instanceCount);
+		}
+
+		if (autoBind) unbind(shader);
+	}
+
+	/** @return whether the vertices are kept in client memory, in which case {@link #renderInstanced} is not available */
+	public boolean isVertexArray () {
+		return isVertexArray;
+	}
+
 	/** Frees all resources associated with this Mesh */
 	public void dispose () {
 		if (meshes.get(Gdx.app) != null) meshes.get(Gdx.app).removeValue(this, true);
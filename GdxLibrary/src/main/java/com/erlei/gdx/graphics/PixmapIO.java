@@ -23,6 +23,7 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.util.zip.Adler32;
 import java.util.zip.CRC32;
 import java.util.zip.CheckedOutputStream;
 import java.util.zip.Deflater;
@@ -31,10 +32,14 @@ import java.util.zip.InflaterInputStream;
 
 import com.erlei.gdx.files.FileHandle;
 import com.erlei.gdx.graphics.Pixmap.Format;
+import com.erlei.gdx.utils.Array;
 import com.erlei.gdx.utils.ByteArray;
 import com.erlei.gdx.utils.Disposable;
 import com.erlei.gdx.utils.GdxRuntimeException;
 import com.erlei.gdx.utils.StreamUtils;
+import com.erlei.gdx.utils.async.AsyncExecutor;
+import com.erlei.gdx.utils.async.AsyncResult;
+import com.erlei.gdx.utils.async.AsyncTask;
 
 /** Writes Pixmaps to various formats.
  * @author mzechner
@@ -341,4 +346,500 @@ public class PixmapIO {
 			}
 		}
 	}
+
+	/** PNG encoder that filters and deflates the image on several threads, like pigz. The filtered scanlines are split into
+	 * chunks of {@link #setChunkSize(int)} bytes that are deflated concurrently, each primed with the last 32 KiB of the chunk
+	 * before it so the ratio stays close to a single deflate stream. The chunks are written to the stream in order as they
+	 * complete, each as its own IDAT chunk. Every row uses the filter that minimizes the sum of its absolute differences, as
+	 * recommended by the PNG specification, unless {@link #setAdaptiveFilter(boolean)} selects Paeth for all rows like {@link PNG}.
+	 * <p>
+	 * Where {@link Deflater} has no flush mode, before Android API 19, the rows are still filtered concurrently but deflated as a
+	 * single stream.
+	 * <p>
+	 * Deflaters and buffers are pooled, so an instance can be reused to encode multiple PNGs with minimal allocation. An instance
+	 * must not be used by several threads at the same time. */
+	static public class ParallelPNG implements Disposable {
+		static private final byte[] SIGNATURE = {(byte)137, 80, 78, 71, 13, 10, 26, 10};
+		static private final int IHDR = 0x49484452, IDAT = 0x49444154, IEND = 0x49454E44;
+		static private final byte COLOR_ARGB = 6;
+		static private final byte COMPRESSION_DEFLATE = 0;
+		static private final byte FILTER_NONE = 0;
+		static private final byte INTERLACE_NONE = 0;
+		static private final byte NONE = 0, SUB = 1, UP = 2, AVERAGE = 3, PAETH = 4;
+		static private final int DICTIONARY_SIZE = 32 * 1024;
+		/** Whether {@link Deflater#deflate(byte[], int, int, int)} exists, needed to split the stream into chunks. */
+		static private final boolean SYNC_FLUSH = hasSyncFlush();
+
+		private final AsyncExecutor executor;
+		private final boolean ownsExecutor;
+		private final Array<Deflater> deflaters = new Array<Deflater>();
+		private final Array<ByteArray> buffers = new Array<ByteArray>();
+		private final Array<AsyncTask<Chunk>> tasks = new Array<AsyncTask<Chunk>>();
+		private final Array<AsyncResult<Chunk>> results = new Array<AsyncResult<Chunk>>();
+		private final ByteArray filtered = new ByteArray();
+		private final CRC32 crc = new CRC32();
+		private boolean flipY = true;
+		private boolean adaptiveFilter = true;
+		private int compression = Deflater.DEFAULT_COMPRESSION;
+		private int chunkSize = 128 * 1024;
+
+		/** Creates an encoder using a thread per processor, which are stopped by {@link #dispose()}. */
+		public ParallelPNG () {
+			this(new AsyncExecutor(Math.max(1, Runtime.getRuntime().availableProcessors())), true);
+		}
+
+		/** @param executor the executor to encode on, not disposed by this encoder. If null, everything is encoded on the calling
+		 *           thread. The calling thread must not belong to the executor. */
+		public ParallelPNG (AsyncExecutor executor) {
+			this(executor, false);
+		}
+
+		private ParallelPNG (AsyncExecutor executor, boolean ownsExecutor) {
+			this.executor = executor;
+			this.ownsExecutor = ownsExecutor;
+		}
+
+		/** If true, the resulting PNG is flipped vertically. Default is true. */
+		public void setFlipY (boolean flipY) {
+			this.flipY = flipY;
+		}
+
+		/** If true, each row uses the filter that fits it best, otherwise all rows use Paeth. Default is true. */
+		public void setAdaptiveFilter (boolean adaptiveFilter) {
+			this.adaptiveFilter = adaptiveFilter;
+		}
+
+		/** Sets the deflate compression level. Default is {@link Deflater#DEFAULT_COMPRESSION}. */
+		public void setCompression (int level) {
+			if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION)
+				throw new IllegalArgumentException("Invalid compression level: " + level);
+			compression = level;
+		}
+
+		/** Sets the amount of filtered bytes deflated by one task. Smaller chunks spread better among the threads but compress a
+		 * little worse. Default is 128 KiB. */
+		public void setChunkSize (int chunkSize) {
+			if (chunkSize < DICTIONARY_SIZE) throw new IllegalArgumentException("chunkSize must be >= " + DICTIONARY_SIZE);
+			this.chunkSize = chunkSize;
+		}
+
+		public void write (FileHandle file, Pixmap pixmap) throws IOException {
+			OutputStream output = file.write(false);
+			try {
+				write(output, pixmap);
+			} finally {
+				StreamUtils.closeQuietly(output);
+			}
+		}
+
+		/** Writes the pixmap to the stream without closing the stream. */
+		public void write (OutputStream output, Pixmap pixmap) throws IOException {
+			if (pixmap.getFormat() == Format.RGBA8888)
+				write(output, pixmap.getPixels(), null, pixmap.getWidth(), pixmap.getHeight());
+			else
+				write(output, null, pixmap, pixmap.getWidth(), pixmap.getHeight());
+		}
+
+		/** Writes RGBA8888 pixels, for example read with glReadPixels, to the stream without closing the stream.
+		 * @param pixels the rows from the top, or from the bottom when flipping, starting at the position of the buffer. The
+		 *           position is not changed. */
+		public void write (OutputStream output, ByteBuffer pixels, int width, int height) throws IOException {
+			if (pixels.remaining() < width * height * 4) throw new IllegalArgumentException("Not enough pixels for " + width + "x" + height);
+			write(output, pixels, null, width, height);
+		}
+
+		private void write (OutputStream output, ByteBuffer pixels, Pixmap pixmap, int width, int height) throws IOException {
+			DataOutputStream dataOutput = new DataOutputStream(output);
+			dataOutput.write(SIGNATURE);
+
+			ByteArray header = obtainBuffer();
+			byte[] bytes = header.setSize(13);
+			putInt(bytes, 0, width);
+			putInt(bytes, 4, height);
+			bytes[8] = 8; // 8 bits per component.
+			bytes[9] = COLOR_ARGB;
+			bytes[10] = COMPRESSION_DEFLATE;
+			bytes[11] = FILTER_NONE;
+			bytes[12] = INTERLACE_NONE;
+			writeChunk(dataOutput, IHDR, bytes, 0, 13);
+
+			int lineLen = width * 4, stride = lineLen + 1;
+			int total = stride * height;
+			byte[] filtered = this.filtered.setSize(total);
+
+			// Filter bands of rows, then deflate chunks of the filtered rows. A chunk needs the end of the chunk before it.
+			int bandRows = Math.max(1, chunkSize / stride);
+			for (int y = 0; y < height; y += bandRows)
+				tasks.add(new FilterTask(pixels, pixmap, width, height, y, Math.min(height, y + bandRows)));
+			try {
+				submitAll();
+				for (int i = 0; i < tasks.size; i++)
+					result(i);
+			} catch (GdxRuntimeException ex) {
+				throw new IOException("Error filtering PNG rows", ex);
+			} finally {
+				waitForAll();
+			}
+
+			int adler = 1;
+			int deflateSize = SYNC_FLUSH ? chunkSize : Math.max(total, 1);
+			for (int start = 0; start < total; start += deflateSize)
+				tasks.add(new DeflateTask(filtered, start, Math.min(total, start + deflateSize), total));
+			try {
+				submitAll();
+				// zlib header, without a preset dictionary
+				bytes[0] = 0x78;
+				bytes[1] = (byte)zlibFlags(compression);
+				writeChunk(dataOutput, IDAT, bytes, 0, 2);
+				for (int i = 0; i < tasks.size; i++) {
+					Chunk chunk;
+					try {
+						chunk = result(i);
+					} catch (GdxRuntimeException ex) {
+						throw new IOException("Error deflating PNG", ex);
+					}
+					writeChunk(dataOutput, chunk.data.items, 0, chunk.data.size, chunk.crc);
+					adler = adler32Combine(adler, chunk.adler, chunk.length);
+					freeBuffer(chunk.data);
+				}
+				putInt(bytes, 0, adler);
+				writeChunk(dataOutput, IDAT, bytes, 0, 4);
+				writeChunk(dataOutput, IEND, bytes, 0, 0);
+			} finally {
+				waitForAll();
+				freeBuffer(header);
+			}
+			dataOutput.flush();
+		}
+
+		/** Submits the {@link #tasks} to the executor, without an executor they run in {@link #result(int)}. */
+		private void submitAll () {
+			if (executor == null) return;
+			for (AsyncTask<Chunk> task : tasks)
+				results.add(executor.submit(task));
+		}
+
+		/** Waits for the task at the index to complete. The result is not returned by {@link #waitForAll()} anymore.
+		 * @throws GdxRuntimeException if the task failed */
+		private Chunk result (int index) {
+			if (executor != null) {
+				AsyncResult<Chunk> result = results.get(index);
+				results.set(index, null);
+				return result.get();
+			}
+			try {
+				return tasks.get(index).call();
+			} catch (GdxRuntimeException ex) {
+				throw ex;
+			} catch (Exception ex) {
+				throw new GdxRuntimeException(ex);
+			}
+		}
+
+		/** Waits for all submitted tasks whose result was not taken and frees their buffers, errors are ignored. */
+		private void waitForAll () {
+			for (int i = 0; i < results.size; i++) {
+				AsyncResult<Chunk> result = results.get(i);
+				if (result == null) continue;
+				try {
+					Chunk chunk = result.get();
+					if (chunk != null) freeBuffer(chunk.data);
+				} catch (GdxRuntimeException ignored) {
+				}
+			}
+			results.clear();
+			tasks.clear();
+		}
+
+		private void writeChunk (DataOutputStream output, int type, byte[] data, int offset, int length) throws IOException {
+			crc.reset();
+			crc.update(type >>> 24);
+			crc.update(type >>> 16);
+			crc.update(type >>> 8);
+			crc.update(type);
+			crc.update(data, offset, length);
+			output.writeInt(length);
+			output.writeInt(type);
+			output.write(data, offset, length);
+			output.writeInt((int)crc.getValue());
+		}
+
+		/** Writes a chunk whose data starts with its type and whose CRC is computed. */
+		private void writeChunk (DataOutputStream output, byte[] data, int offset, int length, int crc) throws IOException {
+			output.writeInt(length - 4);
+			output.write(data, offset, length);
+			output.writeInt(crc);
+		}
+
+		Deflater obtainDeflater () {
+			Deflater deflater;
+			synchronized (deflaters) {
+				deflater = deflaters.size > 0 ? deflaters.pop() : null;
+			}
+			if (deflater == null) deflater = new Deflater(compression, true);
+			deflater.setLevel(compression);
+			return deflater;
+		}
+
+		void freeDeflater (Deflater deflater) {
+			deflater.reset();
+			synchronized (deflaters) {
+				deflaters.add(deflater);
+			}
+		}
+
+		ByteArray obtainBuffer () {
+			synchronized (buffers) {
+				if (buffers.size > 0) return buffers.pop();
+			}
+			return new ByteArray();
+		}
+
+		void freeBuffer (ByteArray buffer) {
+			buffer.clear();
+			synchronized (buffers) {
+				buffers.add(buffer);
+			}
+		}
+
+		/** Disposal will happen automatically in {@link #finalize()} but can be done explicitly if desired. */
+		@SuppressWarnings("javadoc")
+		public void dispose () {
+			synchronized (deflaters) {
+				for (Deflater deflater : deflaters)
+					deflater.end();
+				deflaters.clear();
+			}
+			if (ownsExecutor) executor.dispose();
+		}
+
+		static private boolean hasSyncFlush () {
+			try {
+				Deflater.class.getMethod("deflate", byte[].class, int.class, int.class, int.class);
+				return true;
+			} catch (NoSuchMethodException ex) {
+				return false;
+			}
+		}
+
+		static private void putInt (byte[] bytes, int offset, int value) {
+			bytes[offset] = (byte)(value >>> 24);
+			bytes[offset + 1] = (byte)(value >>> 16);
+			bytes[offset + 2] = (byte)(value >>> 8);
+			bytes[offset + 3] = (byte)value;
+		}
+
+		/** @return the FLG byte of the zlib header, telling the level and making the header a multiple of 31 */
+		static private int zlibFlags (int compression) {
+			int level = compression == Deflater.DEFAULT_COMPRESSION ? 6 : compression;
+			int flags = (level < 2 ? 0 : level < 6 ? 1 : level == 6 ? 2 : 3) << 6;
+			return flags + 31 - ((0x78 << 8) + flags) % 31;
+		}
+
+		/** @return the Adler-32 of two concatenated sequences from the Adler-32 of each and the length of the second, like zlib's
+		 *         adler32_combine() */
+		static int adler32Combine (int adler1, int adler2, long length2) {
+			final long base = 65521;
+			long rem = length2 % base;
+			long sum1 = adler1 & 0xffff;
+			long sum2 = rem * sum1 % base;
+			sum1 += (adler2 & 0xffff) + base - 1;
+			sum2 += ((adler1 >>> 16) & 0xffff) + ((adler2 >>> 16) & 0xffff) + base - rem;
+			if (sum1 >= base) sum1 -= base;
+			if (sum1 >= base) sum1 -= base;
+			if (sum2 >= base << 1) sum2 -= base << 1;
+			if (sum2 >= base) sum2 -= base;
+			return (int)(sum1 | sum2 << 16);
+		}
+
+		/** A deflated part of the filtered rows, preceded by the IDAT type. */
+		static private class Chunk {
+			ByteArray data;
+			int crc;
+			int adler;
+			int length;
+		}
+
+		/** Filters rows into {@link ParallelPNG#filtered}, each preceded by its filter type. */
+		private class FilterTask implements AsyncTask<Chunk> {
+			final ByteBuffer pixels;
+			final Pixmap pixmap;
+			final int width, height, startRow, endRow;
+
+			FilterTask (ByteBuffer pixels, Pixmap pixmap, int width, int height, int startRow, int endRow) {
+				this.pixels = pixels != null ? pixels.duplicate() : null;
+				this.pixmap = pixmap;
+				this.width = width;
+				this.height = height;
+				this.startRow = startRow;
+				this.endRow = endRow;
+			}
+
+			@Override
+			public Chunk call () throws Exception {
+				int lineLen = width * 4;
+				byte[] curLine = new byte[lineLen], prevLine = new byte[lineLen];
+				if (startRow > 0) readRow(startRow - 1, prevLine);
+				byte[] filtered = ParallelPNG.this.filtered.items;
+				for (int y = startRow; y < endRow; y++) {
+					readRow(y, curLine);
+					int offset = y * (lineLen + 1);
+					byte filter = adaptiveFilter ? selectFilter(curLine, prevLine, lineLen) : PAETH;
+					filtered[offset] = filter;
+					filterRow(filter, curLine, prevLine, lineLen, filtered, offset + 1);
+					byte[] temp = curLine;
+					curLine = prevLine;
+					prevLine = temp;
+				}
+				return null;
+			}
+
+			private void readRow (int y, byte[] line) {
+				int py = flipY ? (height - y - 1) : y;
+				if (pixels != null) {
+					int start = pixels.position();
+					pixels.position(start + py * line.length);
+					pixels.get(line);
+					pixels.position(start);
+				} else {
+					for (int px = 0, x = 0; px < width; px++) {
+						int pixel = pixmap.getPixel(px, py);
+						line[x++] = (byte)((pixel >> 24) & 0xff);
+						line[x++] = (byte)((pixel >> 16) & 0xff);
+						line[x++] = (byte)((pixel >> 8) & 0xff);
+						line[x++] = (byte)(pixel & 0xff);
+					}
+				}
+			}
+		}
+
+		/** @return the filter whose output has the smallest sum of absolute values as signed bytes */
+		static byte selectFilter (byte[] curLine, byte[] prevLine, int lineLen) {
+			int none = 0, sub = 0, up = 0, average = 0, paeth = 0;
+			for (int x = 0; x < lineLen; x++) {
+				int cur = curLine[x] & 0xff;
+				int a = x < 4 ? 0 : curLine[x - 4] & 0xff;
+				int b = prevLine[x] & 0xff;
+				int c = x < 4 ? 0 : prevLine[x - 4] & 0xff;
+				none += abs((byte)cur);
+				sub += abs((byte)(cur - a));
+				up += abs((byte)(cur - b));
+				average += abs((byte)(cur - ((a + b) >> 1)));
+				paeth += abs((byte)(cur - paethPredictor(a, b, c)));
+			}
+			byte filter = NONE;
+			int best = none;
+			if (sub < best) {
+				best = sub;
+				filter = SUB;
+			}
+			if (up < best) {
+				best = up;
+				filter = UP;
+			}
+			if (average < best) {
+				best = average;
+				filter = AVERAGE;
+			}
+			if (paeth < best) filter = PAETH;
+			return filter;
+		}
+
+		static void filterRow (byte filter, byte[] curLine, byte[] prevLine, int lineLen, byte[] out, int offset) {
+			switch (filter) {
+			case NONE:
+				System.arraycopy(curLine, 0, out, offset, lineLen);
+				break;
+			case SUB:
+				for (int x = 0; x < lineLen; x++)
+					out[offset + x] = (byte)(curLine[x] - (x < 4 ? 0 : curLine[x - 4]));
+				break;
+			case UP:
+				for (int x = 0; x < lineLen; x++)
+					out[offset + x] = (byte)(curLine[x] - prevLine[x]);
+				break;
+			case AVERAGE:
+				for (int x = 0; x < lineLen; x++) {
+					int a = x < 4 ? 0 : curLine[x - 4] & 0xff;
+					out[offset + x] = (byte)(curLine[x] - ((a + (prevLine[x] & 0xff)) >> 1));
+				}
+				break;
+			default:
+				for (int x = 0; x < lineLen; x++) {
+					int a = x < 4 ? 0 : curLine[x - 4] & 0xff;
+					int c = x < 4 ? 0 : prevLine[x - 4] & 0xff;
+					out[offset + x] = (byte)(curLine[x] - paethPredictor(a, prevLine[x] & 0xff, c));
+				}
+			}
+		}
+
+		static private int paethPredictor (int a, int b, int c) {
+			int p = a + b - c;
+			int pa = p - a;
+			if (pa < 0) pa = -pa;
+			int pb = p - b;
+			if (pb < 0) pb = -pb;
+			int pc = p - c;
+			if (pc < 0) pc = -pc;
+			if (pa <= pb && pa <= pc) return a;
+			if (pb <= pc) return b;
+			return c;
+		}
+
+		static private int abs (byte value) {
+			return value < 0 ? -value : value;
+		}
+
+		/** Deflates a part of {@link ParallelPNG#filtered}. All but the last part end with a sync flush, so the parts can be
+		 * concatenated to one deflate stream. */
+		private class DeflateTask implements AsyncTask<Chunk> {
+			final byte[] filtered;
+			final int start, end, total;
+
+			DeflateTask (byte[] filtered, int start, int end, int total) {
+				this.filtered = filtered;
+				this.start = start;
+				this.end = end;
+				this.total = total;
+			}
+
+			@Override
+			public Chunk call () throws Exception {
+				Chunk chunk = new Chunk();
+				chunk.length = end - start;
+				Adler32 adler = new Adler32();
+				adler.update(filtered, start, chunk.length);
+				chunk.adler = (int)adler.getValue();
+
+				ByteArray data = chunk.data = obtainBuffer();
+				byte[] out = data.setSize(4);
+				putInt(out, 0, IDAT);
+				Deflater deflater = obtainDeflater();
+				try {
+					if (start > 0) {
+						int dictionary = Math.min(start, DICTIONARY_SIZE);
+						deflater.setDictionary(filtered, start - dictionary, dictionary);
+					}
+					deflater.setInput(filtered, start, chunk.length);
+					boolean last = end == total;
+					if (last) deflater.finish();
+					while (true) {
+						out = data.ensureCapacity(Math.max(4096, chunk.length >> 2));
+						int space = out.length - data.size;
+						// the last part needs no flush mode, so a single part is deflated without it
+						int written = last ? deflater.deflate(out, data.size, space)
+							: deflater.deflate(out, data.size, space, Deflater.SYNC_FLUSH);
+						data.size += written;
+						if (last ? deflater.finished() : written < space) break;
+					}
+				} finally {
+					freeDeflater(deflater);
+				}
+				CRC32 crc = new CRC32();
+				crc.update(data.items, 0, data.size);
+				chunk.crc = (int)crc.getValue();
+				return chunk;
+			}
+		}
+	}
 }
@@ -147,6 +147,18 @@ public class Texture extends GLTexture {
 		if (data.isManaged()) addManagedTexture(Gdx.app, this);
 	}
 
+	private Texture (int glHandle, TextureData data) {
+		super(GL20.GL_TEXTURE_2D, glHandle);
+		this.data = data;
+		if (data.isManaged()) addManagedTexture(Gdx.app, this);
+	}
+
+	/** Creates the texture for the data without uploading anything, the {@link TextureStreamer} allocates the storage and
+	 * uploads the pixels. */
+	static Texture createUnloaded (TextureData data) {
+		return new Texture(Gdx.gl.glGenTexture(), data);
+	}
+
 	public void load (TextureData data) {
 		if (this.data != null && data.isManaged() != this.data.isManaged())
 			throw new GdxRuntimeException("New data must have the same managed status as the old data");
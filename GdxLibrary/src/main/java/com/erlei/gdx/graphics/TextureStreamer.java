@@ -0,0 +1,298 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics;
+
+import java.nio.ByteBuffer;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.graphics.Pixmap.Blending;
+import com.erlei.gdx.graphics.Pixmap.Format;
+import com.erlei.gdx.graphics.TextureData.TextureDataType;
+import com.erlei.gdx.graphics.glutils.MipMapChain;
+import com.erlei.gdx.graphics.glutils.MipMapGenerator;
+import com.erlei.gdx.utils.Array;
+
+/** Uploads the pixels of {@link Texture}s over several frames instead of all at once. {@link #start(Upload, UploadListener)}
+ * allocates the storage of the texture and returns it right away, every {@link #update()} then uploads rows of it with
+ * glTexSubImage2D until the byte budget per update is used up. An {@link UploadListener} is notified once a texture is complete.
+ * <p>
+ * Mipmapped textures with 8 bit channels are streamed level by level starting at the smallest one when OpenGL ES 3.0 is
+ * available, their mipmaps are computed by {@link #prepare(TextureData)}. The levels of up to 64x64 pixels are uploaded by
+ * {@link #start(Upload, UploadListener)} already and GL_TEXTURE_BASE_LEVEL is moved to each completed level, so the texture can
+ * be drawn immediately at a low resolution and gets sharper while it streams. All other textures are undefined (usually black)
+ * until complete, mipmaps are generated with glGenerateMipmap() at the end. {@link TextureDataType#Custom} data, like KTX, is
+ * uploaded at once.
+ * <p>
+ * Streamed textures that are disposed are dropped, managed ones that are reloaded after a context loss are uploaded completely by
+ * the reload. The {@link com.erlei.gdx.assets.AssetManager} streams the textures loaded with
+ * {@link com.erlei.gdx.assets.loaders.TextureLoader.TextureParameter#streamed} set during its updates. */
+public class TextureStreamer {
+	/** The default budget of {@link #update()}, 1 MiB. */
+	public static final int DEFAULT_BYTES_PER_FRAME = 1024 * 1024;
+	/** Levels of up to this width and height are uploaded by {@link #start(Upload, UploadListener)} already. */
+	private static final int PREVIEW_SIZE = 64;
+
+	/** Notified on the rendering thread once all pixels of a streamed texture are uploaded. */
+	public interface UploadListener {
+		public void uploaded (Texture texture);
+	}
+
+	/** The pixels of a texture to stream, see {@link TextureStreamer#prepare(TextureData)}. */
+	public static class Upload {
+		final TextureData data;
+		Pixmap pixmap;
+		boolean disposePixmap;
+		MipMapChain chain;
+		Texture texture;
+		int handle;
+		UploadListener listener;
+		/** the level being uploaded and its next row */
+		int level;
+		int row;
+		long uploadedBytes;
+		long totalBytes;
+		boolean done;
+
+		Upload (TextureData data) {
+			this.data = data;
+		}
+
+		/** @return the texture, null before {@link TextureStreamer#start(Upload, UploadListener)} */
+		public Texture getTexture () {
+			return texture;
+		}
+
+		/** @return whether all pixels are uploaded */
+		public boolean isDone () {
+			return done;
+		}
+
+		/** @return the uploaded part of the pixels, 0 to 1 */
+		public float getProgress () {
+			return totalBytes == 0 ? (done ? 1 : 0) : uploadedBytes / (float)totalBytes;
+		}
+	}
+
+	private final Array<Upload> uploads = new Array<Upload>();
+	private volatile int pending;
+	private int bytesPerFrame;
+
+	public TextureStreamer () {
+		this(DEFAULT_BYTES_PER_FRAME);
+	}
+
+	/** @param bytesPerFrame the bytes uploaded by each {@link #update()} */
+	public TextureStreamer (int bytesPerFrame) {
+		setBytesPerFrame(bytesPerFrame);
+	}
+
+	public void setBytesPerFrame (int bytesPerFrame) {
+		if (bytesPerFrame <= 0) throw new IllegalArgumentException("bytesPerFrame must be > 0: " + bytesPerFrame);
+		this.bytesPerFrame = bytesPerFrame;
+	}
+
+	public int getBytesPerFrame () {
+		return bytesPerFrame;
+	}
+
+	/** Prepares the data and takes its pixmap, converted to the format of the data. Computes the mipmaps if they are streamed
+	 * level by level, with the filter set by {@link MipMapGenerator#setCPUMipMapFilter(MipMapChain.Filter, boolean)}. Does not use OpenGL, so it can and should run on a loading thread. */
+	public Upload prepare (TextureData data) {
+		if (!data.isPrepared()) data.prepare();
+		Upload upload = new Upload(data);
+		if (data.getType() == TextureDataType.Custom) return upload;
+
+		Pixmap pixmap = data.consumePixmap();
+		boolean disposePixmap = data.disposePixmap();
+		if (data.getFormat() != pixmap.getFormat()) {
+			Pixmap tmp = new Pixmap(pixmap.getWidth(), pixmap.getHeight(), data.getFormat());
+			tmp.setBlending(Blending.None);
+			tmp.drawPixmap(pixmap, 0, 0, 0, 0, pixmap.getWidth(), pixmap.getHeight());
+			if (disposePixmap) pixmap.dispose();
+			pixmap = tmp;
+			disposePixmap = true;
+		}
+
+		if (data.useMipMaps() && Gdx.gl30 != null && MipMapChain.isSupported(pixmap.getFormat())) {
+			MipMapChain chain = new MipMapChain(pixmap.getWidth(), pixmap.getHeight(), pixmap.getFormat());
+			chain.setPixels(pixmap.getPixels());
+			chain.generate(MipMapGenerator.getCPUMipMapFilter(), MipMapGenerator.isCPUMipMapGammaCorrect(), null);
+			if (disposePixmap) pixmap.dispose();
+			upload.chain = chain;
+			for (int level = 0; level < chain.getLevels(); level++)
+				upload.totalBytes += chain.getLevel(level).remaining();
+		} else {
+			upload.pixmap = pixmap;
+			upload.disposePixmap = disposePixmap;
+			upload.totalBytes = pixmap.getPixels().remaining();
+		}
+		return upload;
+	}
+
+	/** Creates the texture and allocates its storage. Its pixels are uploaded by the following updates. Must be called on the
+	 * rendering thread.
+	 * @param listener notified once the texture is complete, may be null
+	 * @return the texture */
+	public Texture start (Upload upload, UploadListener listener) {
+		if (upload.texture != null) throw new IllegalArgumentException("Upload already started");
+		upload.listener = listener;
+		if (upload.pixmap == null && upload.chain == null) {
+			upload.texture = new Texture(upload.data);
+			finish(upload);
+			return upload.texture;
+		}
+
+		Texture texture = upload.texture = Texture.createUnloaded(upload.data);
+		upload.handle = texture.getTextureObjectHandle();
+		Format format = upload.data.getFormat();
+		int glFormat = Format.toGlFormat(format), glType = Format.toGlType(format);
+		int levels = upload.chain != null ? upload.chain.getLevels() : 1;
+
+		texture.bind();
+		Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+		for (int level = 0; level < levels; level++) {
+			int width = Math.max(1, texture.getWidth() >> level), height = Math.max(1, texture.getHeight() >> level);
+			Gdx.gl.glTexImage2D(texture.glTarget, level, glFormat, width, height, 0, glFormat, glType, null);
+		}
+		texture.unsafeSetFilter(texture.minFilter, texture.magFilter, true);
+		texture.unsafeSetWrap(texture.uWrap, texture.vWrap, true);
+
+		upload.level = levels - 1;
+		upload.row = 0;
+		if (upload.chain != null) {
+			// the smallest level is always part of the preview, so GL_TEXTURE_BASE_LEVEL is set before the texture is returned
+			while (!upload.done && upload.chain.getWidth(upload.level) <= PREVIEW_SIZE
+				&& upload.chain.getHeight(upload.level) <= PREVIEW_SIZE)
+				uploadRows(upload, Integer.MAX_VALUE, true);
+		}
+		Gdx.gl.glBindTexture(texture.glTarget, 0);
+
+		if (!upload.done) {
+			uploads.add(upload);
+			pending = uploads.size;
+		}
+		return texture;
+	}
+
+	/** Shorthand for {@link #start(Upload, UploadListener)} with {@link #prepare(TextureData)}, prepares on the calling thread. */
+	public Texture load (TextureData data, UploadListener listener) {
+		return start(prepare(data), listener);
+	}
+
+	/** Uploads up to {@link #getBytesPerFrame()} bytes. Must be called on the rendering thread.
+	 * @return whether all textures are complete */
+	public boolean update () {
+		return update(bytesPerFrame);
+	}
+
+	/** Uploads up to the given bytes, at least one row. Must be called on the rendering thread.
+	 * @return whether all textures are complete */
+	public boolean update (int bytes) {
+		boolean first = true;
+		while (uploads.size > 0) {
+			Upload upload = uploads.first();
+			Texture texture = upload.texture;
+			if (texture.getTextureObjectHandle() != upload.handle) {
+				// disposed, or reloaded completely after a context loss
+				cancel(upload);
+				continue;
+			}
+			texture.bind();
+			Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+			int uploaded = 1;
+			while (!upload.done && uploaded > 0) {
+				uploaded = uploadRows(upload, bytes, first);
+				bytes -= uploaded;
+				first = false;
+			}
+			Gdx.gl.glBindTexture(texture.glTarget, 0);
+			if (uploaded == 0) break;
+		}
+		return uploads.size == 0;
+	}
+
+	/** @return whether all textures are complete. Can be called from any thread. */
+	public boolean isFinished () {
+		return pending == 0;
+	}
+
+	/** @return the amount of textures still streaming */
+	public int getPending () {
+		return pending;
+	}
+
+	/** Stops streaming all textures, they stay incomplete. */
+	public void clear () {
+		while (uploads.size > 0)
+			cancel(uploads.first());
+	}
+
+	/** Uploads as many rows of the current level of the bound texture as fit into the bytes.
+	 * @param force whether to upload one row if none fits
+	 * @return the uploaded bytes, 0 if no row fits */
+	private int uploadRows (Upload upload, int bytes, boolean force) {
+		Texture texture = upload.texture;
+		int level = upload.level;
+		int width = Math.max(1, texture.getWidth() >> level), height = Math.max(1, texture.getHeight() >> level);
+		ByteBuffer pixels = upload.chain != null ? upload.chain.getLevel(level) : upload.pixmap.getPixels().duplicate();
+		int start = pixels.position();
+		int rowBytes = (pixels.limit() - start) / height;
+		int rows = Math.min(Math.max(0, bytes) / rowBytes, height - upload.row);
+		if (rows == 0) {
+			if (!force) return 0;
+			rows = 1;
+		}
+
+		pixels.limit(start + (upload.row + rows) * rowBytes);
+		pixels.position(start + upload.row * rowBytes);
+		Format format = upload.data.getFormat();
+		Gdx.gl.glTexSubImage2D(texture.glTarget, level, 0, upload.row, width, rows, Format.toGlFormat(format),
+			Format.toGlType(format), pixels);
+		upload.row += rows;
+		upload.uploadedBytes += rows * rowBytes;
+
+		if (upload.row == height) {
+			if (upload.chain != null) Gdx.gl.glTexParameteri(texture.glTarget, GL30.GL_TEXTURE_BASE_LEVEL, level);
+			upload.row = 0;
+			upload.level--;
+			if (upload.level < 0) {
+				if (upload.chain == null && upload.data.useMipMaps()) Gdx.gl.glGenerateMipmap(texture.glTarget);
+				finish(upload);
+			}
+		}
+		return rows * rowBytes;
+	}
+
+	private void finish (Upload upload) {
+		release(upload);
+		if (upload.listener != null) upload.listener.uploaded(upload.texture);
+	}
+
+	private void cancel (Upload upload) {
+		release(upload);
+	}
+
+	private void release (Upload upload) {
+		upload.done = true;
+		if (upload.pixmap != null && upload.disposePixmap) upload.pixmap.dispose();
+		upload.pixmap = null;
+		if (upload.chain != null) upload.chain.dispose();
+		upload.chain = null;
+		uploads.removeValue(upload, true);
+		pending = uploads.size;
+	}
+}
@@ -186,39 +186,35 @@ public class BitmapFont implements Disposable {
 	}
 
 	/** Draws text at the specified position.
-	 * @see BitmapFontCache#addText(CharSequence, float, float) */
+	 * @see BitmapFontCache#setText(CharSequence, float, float) */
 	public GlyphLayout draw (Batch batch, CharSequence str, float x, float y) {
-		cache.clear();
-		GlyphLayout layout = cache.addText(str, x, y);
+		GlyphLayout layout = cache.setText(str, x, y);
 		cache.draw(batch);
 		return layout;
 	}
 
 	/** Draws text at the specified position.
-	 * @see BitmapFontCache#addText(CharSequence, float, float, int, int, float, int, boolean, String) */
+	 * @see BitmapFontCache#setText(CharSequence, float, float, int, int, float, int, boolean, String) */
 	public GlyphLayout draw (Batch batch, CharSequence str, float x, float y, float targetWidth, int halign, boolean wrap) {
-		cache.clear();
-		GlyphLayout layout = cache.addText(str, x, y, targetWidth, halign, wrap);
+		GlyphLayout layout = cache.setText(str, x, y, targetWidth, halign, wrap);
 		cache.draw(batch);
 		return layout;
 	}
 
 	/** Draws text at the specified position.
-	 * @see BitmapFontCache#addText(CharSequence, float, float, int, int, float, int, boolean, String) */
+	 * @see BitmapFontCache#setText(CharSequence, float, float, int, int, float, int, boolean, String) */
 	public GlyphLayout draw (Batch batch, CharSequence str, float x, float y, int start, int end, float targetWidth, int halign,
 		boolean wrap) {
-		cache.clear();
-		GlyphLayout layout = cache.addText(str, x, y, start, end, targetWidth, halign, wrap);
+		GlyphLayout layout = cache.setText(str, x, y, start, end, targetWidth, halign, wrap);
 		cache.draw(batch);
 		return layout;
 	}
 
 	/** Draws text at the specified position.
-	 * @see BitmapFontCache#addText(CharSequence, float, float, int, int, float, int, boolean, String) */
+	 * @see BitmapFontCache#setText(CharSequence, float, float, int, int, float, int, boolean, String) */
 	public GlyphLayout draw (Batch batch, CharSequence str, float x, float y, int start, int end, float targetWidth, int halign,
 		boolean wrap, String truncate) {
-		cache.clear();
-		GlyphLayout layout = cache.addText(str, x, y, start, end, targetWidth, halign, wrap, truncate);
+		GlyphLayout layout = cache.setText(str, x, y, start, end, targetWidth, halign, wrap, truncate);
 		cache.draw(batch);
 		return layout;
 	}
@@ -349,7 +345,8 @@ public class BitmapFont implements Disposable {
 	}
 
 	/** For expert usage -- returns the BitmapFontCache used by this font, for rendering to a sprite batch. This can be used, for
-	 * example, to manipulate glyph colors within a specific index.
+	 * example, to manipulate glyph colors within a specific index, or to set a {@link GlyphLayoutCache} for the text drawn by this
+	 * font.
 	 * @return the bitmap font cache used by this font */
 	public BitmapFontCache getCache () {
 		return cache;
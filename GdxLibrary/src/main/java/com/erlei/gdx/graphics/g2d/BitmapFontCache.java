@@ -28,7 +28,8 @@ import com.erlei.gdx.utils.NumberUtils;
 import com.erlei.gdx.utils.Pools;
 
 /** Caches glyph geometry for a BitmapFont, providing a fast way to render static text. This saves needing to compute the glyph
- * geometry each frame.
+ * geometry each frame. Setting the same text again only moves and recolors the cached glyphs, and a {@link GlyphLayoutCache}
+ * can be shared to reuse the layouts of texts that are set over and over.
  * @author Nathan Sweet
  * @author davebaol
  * @author Alexander Dorokhov */
@@ -54,6 +55,15 @@ public class BitmapFontCache {
 	/** Used internally to ensure a correct capacity for multi-page font vertex data. */
 	private int[] tempGlyphCount;
 
+	private GlyphLayoutCache layoutCache;
+	/** The layout and the arguments of the last setText, while the cache holds nothing else and its vertices are unchanged. */
+	private GlyphLayout lastLayout;
+	private final StringBuilder lastText = new StringBuilder();
+	private float lastX, lastY, lastTargetWidth, lastScaleX, lastScaleY;
+	private int lastColor, lastHalign;
+	private boolean lastWrap, lastMarkupEnabled, lastInteger;
+	private String lastTruncate;
+
 	public BitmapFontCache (BitmapFont font) {
 		this(font, font.usesIntegerPositions());
 	}
@@ -111,6 +121,7 @@ public class BitmapFontCache {
 		float newTint = tint.toFloatBits();
 		if (currentTint == newTint) return;
 		currentTint = newTint;
+		lastLayout = null;
 
 		int[] tempGlyphCount = this.tempGlyphCount;
 		for (int i = 0, n = tempGlyphCount.length; i < n; i++)
@@ -137,6 +148,7 @@ public class BitmapFontCache {
 
 	/** Sets the alpha component of all text currently in the cache. Does not affect subsequently added text. */
 	public void setAlphas (float alpha) {
+		lastLayout = null;
 		int alphaBits = ((int)(254 * alpha)) << 24;
 		float prev = 0, newColor = 0;
 		for (int j = 0, length = pageVertices.length; j < length; j++) {
@@ -158,6 +170,7 @@ public class BitmapFontCache {
 
 	/** Sets the color of all text currently in the cache. Does not affect subsequently added text. */
 	public void setColors (float color) {
+		lastLayout = null;
 		for (int j = 0, length = pageVertices.length; j < length; j++) {
 			float[] vertices = pageVertices[j];
 			for (int i = 2, n = idx[j]; i < n; i += 5)
@@ -185,6 +198,7 @@ public class BitmapFontCache {
 	/** Sets the color of the specified characters. This may only be called after {@link #setText(CharSequence, float, float)} and
 	 * is reset every time setText is called. */
 	public void setColors (float color, int start, int end) {
+		lastLayout = null;
 		if (pageVertices.length == 1) { // One page.
 			float[] vertices = pageVertices[0];
 			for (int i = start * 20 + 2, n = end * 20; i < n; i += 5)
@@ -294,6 +308,7 @@ public class BitmapFontCache {
 		Pools.freeAll(pooledLayouts, true);
 		pooledLayouts.clear();
 		layouts.clear();
+		lastLayout = null;
 		for (int i = 0, n = idx.length; i < n; i++) {
 			if (pageGlyphIndices != null) pageGlyphIndices[i].clear();
 			idx[i] = 0;
@@ -431,33 +446,96 @@ public class BitmapFontCache {
 	}
 
 	/** Clears any cached glyphs and adds glyphs for the specified text.
-	 * @see #addText(CharSequence, float, float, int, int, float, int, boolean, String) */
+	 * @see #setText(CharSequence, float, float, int, int, float, int, boolean, String) */
 	public GlyphLayout setText (CharSequence str, float x, float y) {
-		clear();
-		return addText(str, x, y, 0, str.length(), 0, Align.left, false);
+		return setText(str, x, y, 0, str.length(), 0, Align.left, false, null);
 	}
 
 	/** Clears any cached glyphs and adds glyphs for the specified text.
-	 * @see #addText(CharSequence, float, float, int, int, float, int, boolean, String) */
+	 * @see #setText(CharSequence, float, float, int, int, float, int, boolean, String) */
 	public GlyphLayout setText (CharSequence str, float x, float y, float targetWidth, int halign, boolean wrap) {
-		clear();
-		return addText(str, x, y, 0, str.length(), targetWidth, halign, wrap);
+		return setText(str, x, y, 0, str.length(), targetWidth, halign, wrap, null);
 	}
 
 	/** Clears any cached glyphs and adds glyphs for the specified text.
-	 * @see #addText(CharSequence, float, float, int, int, float, int, boolean, String) */
+	 * @see #setText(CharSequence, float, float, int, int, float, int, boolean, String) */
 	public GlyphLayout setText (CharSequence str, float x, float y, int start, int end, float targetWidth, int halign,
 		boolean wrap) {
-		clear();
-		return addText(str, x, y, start, end, targetWidth, halign, wrap);
+		return setText(str, x, y, start, end, targetWidth, halign, wrap, null);
 	}
 
-	/** Clears any cached glyphs and adds glyphs for the specified text.
+	/** Clears any cached glyphs and adds glyphs for the specified text. If the cache holds only the text of the previous call and
+	 * it is laid out the same way, the existing glyphs are moved instead. When only the {@link #getColor() color} changed, glyphs
+	 * without color markup are recolored.
 	 * @see #addText(CharSequence, float, float, int, int, float, int, boolean, String) */
 	public GlyphLayout setText (CharSequence str, float x, float y, int start, int end, float targetWidth, int halign,
 		boolean wrap, String truncate) {
+		if (updateText(str, x, y, start, end, targetWidth, halign, wrap, truncate)) return lastLayout;
 		clear();
-		return addText(str, x, y, start, end, targetWidth, halign, wrap, truncate);
+		GlyphLayout layout = addText(str, x, y, start, end, targetWidth, halign, wrap, truncate);
+
+		BitmapFontData data = font.data;
+		lastLayout = layout;
+		lastText.setLength(0);
+		lastText.append(str, start, end);
+		lastX = x;
+		lastY = y;
+		lastTargetWidth = targetWidth;
+		lastHalign = halign;
+		lastWrap = wrap;
+		lastTruncate = truncate;
+		lastColor = Color.rgba8888(color);
+		lastScaleX = data.scaleX;
+		lastScaleY = data.scaleY;
+		lastMarkupEnabled = data.markupEnabled;
+		lastInteger = integer;
+		return layout;
+	}
+
+	/** Moves and recolors the glyphs of the last setText if it was called with the same text and layout arguments.
+	 * @return whether the glyphs were updated, false if the text has to be laid out */
+	private boolean updateText (CharSequence str, float x, float y, int start, int end, float targetWidth, int halign,
+		boolean wrap, String truncate) {
+		GlyphLayout layout = lastLayout;
+		if (layout == null || layouts.size != 1 || layouts.first() != layout) return false;
+		BitmapFontData data = font.data;
+		if (targetWidth != lastTargetWidth || halign != lastHalign || wrap != lastWrap || data.scaleX != lastScaleX
+			|| data.scaleY != lastScaleY || data.markupEnabled != lastMarkupEnabled || integer != lastInteger) return false;
+		if (truncate == null ? lastTruncate != null : !truncate.equals(lastTruncate)) return false;
+		StringBuilder lastText = this.lastText;
+		if (end - start != lastText.length()) return false;
+		for (int i = 0, n = end - start; i < n; i++)
+			if (str.charAt(start + i) != lastText.charAt(i)) return false;
+
+		// The glyphs were placed at lastX, lastY and moved by translate since.
+		float xAmount = x - lastX - this.x, yAmount = y - lastY - this.y;
+		if (integer && (xAmount != (int)xAmount || yAmount != (int)yAmount)) return false; // Would round differently.
+
+		int color = Color.rgba8888(this.color);
+		if (color != lastColor) {
+			// Layouts of a layout cache are shared and markup colors can't be told apart from the default color afterwards.
+			if (pooledLayouts.size != 1) return false;
+			Array<GlyphRun> runs = layout.runs;
+			for (int i = 0, n = runs.size; i < n; i++)
+				if (Color.rgba8888(runs.get(i).color) != lastColor) return false;
+			for (int i = 0, n = runs.size; i < n; i++)
+				runs.get(i).color.set(this.color);
+			float colorFloat = this.color.toFloatBits();
+			for (int i = 0, n = pageVertices.length; i < n; i++) {
+				float[] vertices = pageVertices[i];
+				for (int ii = 2, nn = idx[i]; ii < nn; ii += 5)
+					vertices[ii] = colorFloat;
+			}
+			currentTint = Color.WHITE_FLOAT_BITS;
+			lastColor = color;
+		}
+
+		translate(xAmount, yAmount);
+		this.x = 0;
+		this.y = 0;
+		lastX = x;
+		lastY = y;
+		return true;
 	}
 
 	/** Clears any cached glyphs and adds the specified glyphs.
@@ -496,12 +574,18 @@ public class BitmapFontCache {
 	 * @param wrap If true, the text will be wrapped within targetWidth.
 	 * @param truncate If not null, the text will be truncated within targetWidth with this string appended. May be an empty
 	 *           string.
-	 * @return The glyph layout for the cached string (the layout's height is the distance from y to the baseline). */
+	 * @return The glyph layout for the cached string (the layout's height is the distance from y to the baseline). It belongs to
+	 *         the {@link #setLayoutCache(GlyphLayoutCache) layout cache} if one is set and must not be changed. */
 	public GlyphLayout addText (CharSequence str, float x, float y, int start, int end, float targetWidth, int halign,
 		boolean wrap, String truncate) {
-		GlyphLayout layout = Pools.obtain(GlyphLayout.class);
-		pooledLayouts.add(layout);
-		layout.setText(font, str, start, end, color, targetWidth, halign, wrap, truncate);
+		GlyphLayout layout;
+		if (layoutCache != null)
+			layout = layoutCache.obtain(font, str, start, end, color, targetWidth, halign, wrap, truncate);
+		else {
+			layout = Pools.obtain(GlyphLayout.class);
+			pooledLayouts.add(layout);
+			layout.setText(font, str, start, end, color, targetWidth, halign, wrap, truncate);
+		}
 		addText(layout, x, y);
 		return layout;
 	}
@@ -551,4 +635,15 @@ public class BitmapFontCache {
 	public Array<GlyphLayout> getLayouts () {
 		return layouts;
 	}
+
+	/** Sets the cache that text added by string is laid out through, so texts that are added again skip the layout. The layouts
+	 * of the cached text are then shared, {@link #tint(Color)} needs them to be still cached. May be null, the default.
+	 * @param layoutCache may be shared by the caches of several fonts */
+	public void setLayoutCache (GlyphLayoutCache layoutCache) {
+		this.layoutCache = layoutCache;
+	}
+
+	public GlyphLayoutCache getLayoutCache () {
+		return layoutCache;
+	}
 }
@@ -29,7 +29,8 @@ import com.erlei.gdx.utils.Array;
 
 /** Renders bitmap fonts using distance field textures, see the <a
  * href="https://github.com/libgdx/libgdx/wiki/Distance-field-fonts">Distance Field Fonts wiki article</a> for usage. Initialize
- * the SpriteBatch with the {@link #createDistanceFieldShader()} shader.
+ * the SpriteBatch with the {@link #createDistanceFieldShader()} shader. The pages can also be generated at runtime from bitmap
+ * font pages by a {@link DistanceFieldGenerator}.
  * <p>
  * Attention: The batch is flushed before and after each string is rendered.
  * @author Florian Falkner */
@@ -0,0 +1,303 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g2d;
+
+import java.nio.ByteBuffer;
+
+import com.erlei.gdx.graphics.Pixmap;
+import com.erlei.gdx.graphics.Pixmap.Format;
+import com.erlei.gdx.graphics.g2d.PixmapPacker.Page;
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.async.AsyncExecutor;
+import com.erlei.gdx.utils.async.AsyncResult;
+import com.erlei.gdx.utils.async.AsyncTask;
+
+/** Converts the alpha channel of a {@link Pixmap}, like a glyph page of a {@link BitmapFont} or a page of a {@link PixmapPacker},
+ * into a signed distance field for a {@link DistanceFieldFont}. Rendered large at a high resolution and downscaled, one distance
+ * field page replaces the pages of several font sizes.
+ * <p>
+ * Pixels with an alpha of at least the threshold are inside. The exact euclidean distance of every pixel to the nearest pixel on
+ * the other side is computed with the separable transform of Felzenszwalb and Huttenlocher, first for every column and then for
+ * every row, each split among the threads of an {@link AsyncExecutor}. The output alpha is 0.5 on the edge, 1 at spread pixels
+ * inside and 0 at spread pixels outside, the color channels are white.
+ * <p>
+ * Glyphs need to be packed with a padding of at least spread times downscale source pixels, so their fields don't overlap. The
+ * glyph rectangles of the output are those of the source divided by downscale. Not thread safe, a generator reuses its buffers.
+ * @see DistanceFieldFont#createDistanceFieldShader() */
+public class DistanceFieldGenerator {
+	static private final float INF = 1e20f;
+	/** Columns or rows a task computes at least. */
+	static private final int MIN_LINES_PER_TASK = 16;
+
+	private final AsyncExecutor executor;
+	private final Array<AsyncResult<Void>> results = new Array<AsyncResult<Void>>();
+	private float spread = 4;
+	private int downscale = 1;
+	private int threshold = 128;
+	/** Squared distances to the nearest inside and outside pixel, for every source pixel. */
+	private float[] outside, inside;
+
+	/** Creates a generator computing on the calling thread. */
+	public DistanceFieldGenerator () {
+		this(null);
+	}
+
+	/** @param executor executor to split the computation among, computes on the calling thread if null. Must not be an executor
+	 *           the calling thread belongs to. */
+	public DistanceFieldGenerator (AsyncExecutor executor) {
+		this.executor = executor;
+	}
+
+	/** @param spread the distance in output pixels from the edge to the pixels with an alpha of 0 and 1, 4 by default */
+	public void setSpread (float spread) {
+		if (spread <= 0) throw new IllegalArgumentException("spread must be > 0: " + spread);
+		this.spread = spread;
+	}
+
+	public float getSpread () {
+		return spread;
+	}
+
+	/** @param downscale the source pixels per output pixel in each direction, 1 by default */
+	public void setDownscale (int downscale) {
+		if (downscale < 1) throw new IllegalArgumentException("downscale must be > 0: " + downscale);
+		this.downscale = downscale;
+	}
+
+	public int getDownscale () {
+		return downscale;
+	}
+
+	/** @param threshold the alpha from 1 to 255 from which on a source pixel is inside, 128 by default */
+	public void setThreshold (int threshold) {
+		if (threshold < 1 || threshold > 255) throw new IllegalArgumentException("threshold must be 1 to 255: " + threshold);
+		this.threshold = threshold;
+	}
+
+	public int getThreshold () {
+		return threshold;
+	}
+
+	/** @return a new {@link Format#Alpha} pixmap with the distance field of the source */
+	public Pixmap generate (Pixmap source) {
+		return generate(source, Format.Alpha);
+	}
+
+	/** @param format {@link Format#Alpha}, {@link Format#LuminanceAlpha} or {@link Format#RGBA8888}
+	 * @return a new pixmap with the distance field of the source */
+	public Pixmap generate (Pixmap source, Format format) {
+		Pixmap target = new Pixmap(Math.max(1, source.getWidth() / downscale), Math.max(1, source.getHeight() / downscale), format);
+		try {
+			generate(source, target);
+		} catch (RuntimeException ex) {
+			target.dispose();
+			throw ex;
+		}
+		return target;
+	}
+
+	/** @return the distance fields of all pages of the packer, in the order of {@link PixmapPacker#getPages()}
+	 * @see #generate(Pixmap, Format) */
+	public Array<Pixmap> generate (PixmapPacker packer, Format format) {
+		Array<Pixmap> pixmaps = new Array<Pixmap>(packer.getPages().size);
+		try {
+			for (Page page : packer.getPages())
+				pixmaps.add(generate(page.getPixmap(), format));
+		} catch (RuntimeException ex) {
+			for (Pixmap pixmap : pixmaps)
+				pixmap.dispose();
+			throw ex;
+		}
+		return pixmaps;
+	}
+
+	/** Writes the distance field of the source into the target.
+	 * @param target a pixmap of the source size divided by the downscale, in a format supported by
+	 *           {@link #generate(Pixmap, Format)} */
+	public void generate (Pixmap source, final Pixmap target) {
+		final int width = source.getWidth(), height = source.getHeight();
+		final int targetWidth = target.getWidth(), targetHeight = target.getHeight();
+		if (targetWidth != Math.max(1, width / downscale) || targetHeight != Math.max(1, height / downscale))
+			throw new IllegalArgumentException("target must be " + Math.max(1, width / downscale) + "x"
+				+ Math.max(1, height / downscale) + ": " + targetWidth + "x" + targetHeight);
+		final int channels = getChannels(target.getFormat());
+
+		int size = width * height;
+		if (outside == null || outside.length < size) {
+			outside = new float[size];
+			inside = new float[size];
+		}
+		final float[] outside = this.outside, inside = this.inside;
+		readAlpha(source, outside, inside);
+
+		parallel(width, new Lines() {
+			public void run (int x0, int x1) {
+				float[] line = new float[height], distances = new float[height], z = new float[height + 1];
+				int[] v = new int[height];
+				for (int x = x0; x < x1; x++) {
+					transformColumn(outside, x, width, height, line, distances, v, z);
+					transformColumn(inside, x, width, height, line, distances, v, z);
+				}
+			}
+		});
+
+		final ByteBuffer pixels = target.getPixels();
+		final int downscale = this.downscale;
+		final float scale = 1 / (2 * spread * downscale);
+		parallel(targetHeight, new Lines() {
+			public void run (int y0, int y1) {
+				float[] outsideRow = new float[width], insideRow = new float[width], z = new float[width + 1];
+				int[] v = new int[width];
+				for (int y = y0; y < y1; y++) {
+					int offset = Math.min(y * downscale + downscale / 2, height - 1) * width;
+					transform(outside, offset, width, outsideRow, v, z);
+					transform(inside, offset, width, insideRow, v, z);
+					int index = y * targetWidth * channels;
+					for (int x = 0; x < targetWidth; x++) {
+						int sourceX = Math.min(x * downscale + downscale / 2, width - 1);
+						// The edge lies halfway between the last pixel inside and the first one outside.
+						float distance = insideRow[sourceX] > 0 ? 0.5f - (float)Math.sqrt(insideRow[sourceX])
+							: (float)Math.sqrt(outsideRow[sourceX]) - 0.5f;
+						float alpha = 0.5f - distance * scale;
+						byte value = alpha <= 0 ? 0 : alpha >= 1 ? (byte)255 : (byte)(int)(alpha * 255 + 0.5f);
+						for (int c = 1; c < channels; c++)
+							pixels.put(index++, (byte)255);
+						pixels.put(index++, value);
+					}
+				}
+			}
+		});
+	}
+
+	/** Sets the squared distances of inside pixels to 0 in outside and of outside pixels to 0 in inside, the others to infinity. */
+	private void readAlpha (Pixmap source, float[] outside, float[] inside) {
+		int width = source.getWidth(), height = source.getHeight();
+		int channels, alphaChannel;
+		switch (source.getFormat()) {
+		case Alpha:
+		case Intensity:
+			channels = 1;
+			alphaChannel = 0;
+			break;
+		case LuminanceAlpha:
+			channels = 2;
+			alphaChannel = 1;
+			break;
+		case RGBA8888:
+			channels = 4;
+			alphaChannel = 3;
+			break;
+		default:
+			channels = 0;
+			alphaChannel = 0;
+		}
+
+		ByteBuffer pixels = source.getPixels();
+		int threshold = this.threshold;
+		for (int y = 0, i = 0; y < height; y++) {
+			for (int x = 0; x < width; x++, i++) {
+				int alpha = channels != 0 ? pixels.get(i * channels + alphaChannel) & 0xff : source.getPixel(x, y) & 0xff;
+				boolean in = alpha >= threshold;
+				outside[i] = in ? 0 : INF;
+				inside[i] = in ? INF : 0;
+			}
+		}
+	}
+
+	static private void transformColumn (float[] values, int x, int width, int height, float[] line, float[] distances, int[] v,
+		float[] z) {
+		for (int y = 0, i = x; y < height; y++, i += width)
+			line[y] = values[i];
+		transform(line, 0, height, distances, v, z);
+		for (int y = 0, i = x; y < height; y++, i += width)
+			values[i] = distances[y];
+	}
+
+	/** The one dimensional squared distance transform: the lower envelope of the parabolas rooted at every sample.
+	 * @param v the samples of the parabolas of the envelope
+	 * @param z the boundaries between the parabolas of the envelope */
+	static private void transform (float[] f, int offset, int n, float[] distances, int[] v, float[] z) {
+		int k = 0;
+		v[0] = 0;
+		z[0] = -INF;
+		z[1] = INF;
+		for (int q = 1; q < n; q++) {
+			float fq = f[offset + q] + q * q;
+			float s;
+			while (true) {
+				int p = v[k];
+				s = (fq - (f[offset + p] + p * p)) / (2 * q - 2 * p);
+				if (s > z[k] || k == 0) break;
+				k--;
+			}
+			k++;
+			v[k] = q;
+			z[k] = s;
+			z[k + 1] = INF;
+		}
+		k = 0;
+		for (int q = 0; q < n; q++) {
+			while (z[k + 1] < q)
+				k++;
+			int p = v[k];
+			distances[q] = (q - p) * (q - p) + f[offset + p];
+		}
+	}
+
+	static private int getChannels (Format format) {
+		switch (format) {
+		case Alpha:
+			return 1;
+		case LuminanceAlpha:
+			return 2;
+		case RGBA8888:
+			return 4;
+		default:
+			throw new IllegalArgumentException("Unsupported distance field format: " + format);
+		}
+	}
+
+	/** Runs the lines in bands on the executor, the calling thread takes the last band, and waits for all of them. */
+	private void parallel (int lines, final Lines task) {
+		int bands = executor == null ? 1 : Math.min(Runtime.getRuntime().availableProcessors(), lines / MIN_LINES_PER_TASK);
+		if (bands <= 1) {
+			task.run(0, lines);
+			return;
+		}
+		results.clear();
+		for (int i = 0; i < bands - 1; i++) {
+			final int start = lines * i / bands, end = lines * (i + 1) / bands;
+			results.add(executor.submit(new AsyncTask<Void>() {
+				public Void call () throws Exception {
+					task.run(start, end);
+					return null;
+				}
+			}));
+		}
+		try {
+			task.run(lines * (bands - 1) / bands, lines);
+		} finally {
+			for (int i = 0; i < results.size; i++)
+				results.get(i).get();
+			results.clear();
+		}
+	}
+
+	private interface Lines {
+		void run (int start, int end);
+	}
+}
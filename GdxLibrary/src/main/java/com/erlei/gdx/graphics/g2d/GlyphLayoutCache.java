@@ -0,0 +1,206 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g2d;
+
+import com.erlei.gdx.graphics.Color;
+import com.erlei.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.erlei.gdx.utils.Align;
+import com.erlei.gdx.utils.ObjectMap;
+
+/** Caches {@link GlyphLayout}s by font, text, color and layout parameters, so text that is laid out again the same way, like the
+ * labels of a HUD drawn every frame, skips glyph lookup, kerning, wrapping and alignment. Once the capacity is reached the least
+ * recently used layout is dropped and the next text is laid out into a new one.
+ * <p>
+ * The layouts belong to the cache and must not be changed. A dropped layout is never reused, so it stays valid for the
+ * {@link BitmapFontCache} still drawing it, but it is laid out again when its text comes back. The capacity should therefore be
+ * at least the amount of distinct texts per frame. The key includes the scale and the markup
+ * setting of the font but not its glyphs, {@link #clear()} has to be called after changing them. Not thread safe.
+ * @see BitmapFontCache#setLayoutCache(GlyphLayoutCache) */
+public class GlyphLayoutCache {
+	private final ObjectMap<Key, Entry> entries;
+	private final Key lookup = new Key();
+	private final int capacity;
+	/** The most and the least recently used entries. */
+	private Entry head, tail;
+	private int hits, misses;
+
+	/** @param capacity the amount of layouts kept */
+	public GlyphLayoutCache (int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be > 0: " + capacity);
+		this.capacity = capacity;
+		entries = new ObjectMap(capacity);
+	}
+
+	/** @see #obtain(BitmapFont, CharSequence, int, int, Color, float, int, boolean, String) */
+	public GlyphLayout obtain (BitmapFont font, CharSequence str) {
+		return obtain(font, str, 0, str.length(), font.getColor(), 0, Align.left, false, null);
+	}
+
+	/** @see #obtain(BitmapFont, CharSequence, int, int, Color, float, int, boolean, String) */
+	public GlyphLayout obtain (BitmapFont font, CharSequence str, Color color, float targetWidth, int halign, boolean wrap) {
+		return obtain(font, str, 0, str.length(), color, targetWidth, halign, wrap, null);
+	}
+
+	/** Returns the layout of the text, laid out by
+	 * {@link GlyphLayout#setText(BitmapFont, CharSequence, int, int, Color, float, int, boolean, String)} if it is not cached.
+	 * @return the cached layout, must not be changed */
+	public GlyphLayout obtain (BitmapFont font, CharSequence str, int start, int end, Color color, float targetWidth, int halign,
+		boolean wrap, String truncate) {
+		Key key = lookup.set(font, str, start, end, color, targetWidth, halign, wrap, truncate);
+		Entry entry = entries.get(key);
+		key.text = null;
+		if (entry != null) {
+			hits++;
+			if (entry != head) {
+				unlink(entry);
+				link(entry);
+			}
+			return entry.layout;
+		}
+
+		misses++;
+		if (entries.size < capacity)
+			entry = new Entry();
+		else {
+			entry = tail;
+			unlink(entry);
+			entries.remove(entry.key);
+			// the dropped layout may still be referenced
+			entry.layout = new GlyphLayout();
+		}
+		entry.key.set(font, str.subSequence(start, end).toString(), 0, end - start, color, targetWidth, halign, wrap, truncate);
+		entry.layout.setText(font, str, start, end, color, targetWidth, halign, wrap, truncate);
+		entries.put(entry.key, entry);
+		link(entry);
+		return entry.layout;
+	}
+
+	private void link (Entry entry) {
+		entry.previous = null;
+		entry.next = head;
+		if (head != null) head.previous = entry;
+		head = entry;
+		if (tail == null) tail = entry;
+	}
+
+	private void unlink (Entry entry) {
+		if (entry.previous != null)
+			entry.previous.next = entry.next;
+		else
+			head = entry.next;
+		if (entry.next != null)
+			entry.next.previous = entry.previous;
+		else
+			tail = entry.previous;
+		entry.previous = entry.next = null;
+	}
+
+	/** Drops all layouts. */
+	public void clear () {
+		entries.clear();
+		head = tail = null;
+	}
+
+	/** @return the amount of cached layouts */
+	public int getSize () {
+		return entries.size;
+	}
+
+	public int getCapacity () {
+		return capacity;
+	}
+
+	/** @return the calls to obtain that returned a cached layout since the last {@link #resetStatistics()} */
+	public int getHits () {
+		return hits;
+	}
+
+	/** @return the calls to obtain that laid out the text since the last {@link #resetStatistics()} */
+	public int getMisses () {
+		return misses;
+	}
+
+	public void resetStatistics () {
+		hits = 0;
+		misses = 0;
+	}
+
+	static private class Entry {
+		final Key key = new Key();
+		GlyphLayout layout = new GlyphLayout();
+		Entry previous, next;
+	}
+
+	static private class Key {
+		BitmapFont font;
+		CharSequence text;
+		int start, end;
+		int color;
+		float targetWidth;
+		int halign;
+		boolean wrap;
+		String truncate;
+		float scaleX, scaleY;
+		boolean markupEnabled;
+		int hashCode;
+
+		Key set (BitmapFont font, CharSequence text, int start, int end, Color color, float targetWidth, int halign, boolean wrap,
+			String truncate) {
+			BitmapFontData data = font.getData();
+			this.font = font;
+			this.text = text;
+			this.start = start;
+			this.end = end;
+			this.color = Color.rgba8888(color);
+			this.targetWidth = targetWidth;
+			this.halign = halign;
+			this.wrap = wrap;
+			this.truncate = truncate;
+			scaleX = data.scaleX;
+			scaleY = data.scaleY;
+			markupEnabled = data.markupEnabled;
+
+			int h = System.identityHashCode(font);
+			for (int i = start; i < end; i++)
+				h = 31 * h + text.charAt(i);
+			h = 31 * h + this.color;
+			h = 31 * h + Float.floatToIntBits(targetWidth);
+			h = 31 * h + halign;
+			hashCode = h;
+			return this;
+		}
+
+		public int hashCode () {
+			return hashCode;
+		}
+
+		public boolean equals (Object object) {
+			if (this == object) return true;
+			if (!(object instanceof Key)) return false;
+			Key other = (Key)object;
+			if (hashCode != other.hashCode || font != other.font || color != other.color || targetWidth != other.targetWidth
+				|| halign != other.halign || wrap != other.wrap || scaleX != other.scaleX || scaleY != other.scaleY
+				|| markupEnabled != other.markupEnabled) return false;
+			if (truncate == null ? other.truncate != null : !truncate.equals(other.truncate)) return false;
+			int length = end - start;
+			if (length != other.end - other.start) return false;
+			for (int i = 0; i < length; i++)
+				if (text.charAt(start + i) != other.text.charAt(other.start + i)) return false;
+			return true;
+		}
+	}
+}
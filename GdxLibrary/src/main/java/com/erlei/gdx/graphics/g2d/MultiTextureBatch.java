@@ -0,0 +1,1214 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g2d;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.graphics.Color;
+import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.Mesh;
+import com.erlei.gdx.graphics.Mesh.VertexDataType;
+import com.erlei.gdx.graphics.Texture;
+import com.erlei.gdx.graphics.VertexAttribute;
+import com.erlei.gdx.graphics.VertexAttributes.Usage;
+import com.erlei.gdx.graphics.glutils.ShaderProgram;
+import com.erlei.gdx.math.Affine2;
+import com.erlei.gdx.math.MathUtils;
+import com.erlei.gdx.math.Matrix4;
+import com.erlei.gdx.utils.BufferUtils;
+import com.erlei.gdx.utils.NumberUtils;
+
+import java.nio.IntBuffer;
+
+/** A {@link Batch} that binds up to {@link #getMaxTextures()} textures to separate texture units at once. Each vertex carries the
+ * index of the unit its texture is bound to, so drawing with another texture only flushes when all units are taken, instead of on
+ * every texture switch like {@link SpriteBatch}. It can be used as a drop-in replacement for a SpriteBatch.
+ * <p>
+ * A custom shader set via {@link #setShader(ShaderProgram)} has to declare the {@link #TEXTURE_INDEX_ATTRIBUTE} attribute and a
+ * <code>uniform sampler2D u_textures[]</code> array, see {@link #createDefaultShader(int)}.
+ * @see SpriteBatch */
+public class MultiTextureBatch implements Batch {
+	/** The alias of the vertex attribute holding the texture unit of a vertex. */
+	public static final String TEXTURE_INDEX_ATTRIBUTE = "a_texIndex";
+	/** The floats per vertex: position, packed color, texture coordinates and texture index. */
+	public static final int VERTEX_SIZE = 2 + 1 + 2 + 1;
+	/** The floats per sprite. */
+	public static final int SPRITE_SIZE = 4 * VERTEX_SIZE;
+
+	private Mesh mesh;
+
+	final float[] vertices;
+	int idx = 0;
+	Texture lastTexture = null;
+	float lastTextureIndex = 0;
+	float invTexWidth = 0, invTexHeight = 0;
+
+	private final Texture[] textures;
+	private int textureCount = 0;
+	private final IntBuffer textureUnits;
+
+	boolean drawing = false;
+
+	private final Matrix4 transformMatrix = new Matrix4();
+	private final Matrix4 projectionMatrix = new Matrix4();
+	private final Matrix4 combinedMatrix = new Matrix4();
+
+	private boolean blendingDisabled = false;
+	private int blendSrcFunc = GL20.GL_SRC_ALPHA;
+	private int blendDstFunc = GL20.GL_ONE_MINUS_SRC_ALPHA;
+	private int blendSrcFuncAlpha = GL20.GL_SRC_ALPHA;
+	private int blendDstFuncAlpha = GL20.GL_ONE_MINUS_SRC_ALPHA;
+
+	private final ShaderProgram shader;
+	private ShaderProgram customShader = null;
+	private boolean ownsShader;
+
+	float color = Color.WHITE_FLOAT_BITS;
+	private Color tempColor = new Color(1, 1, 1, 1);
+
+	/** Number of render calls since the last {@link #begin()}. **/
+	public int renderCalls = 0;
+
+	/** Number of rendering calls, ever. Will not be reset unless set manually. **/
+	public int totalRenderCalls = 0;
+
+	/** The maximum number of sprites rendered in one batch so far. **/
+	public int maxSpritesInBatch = 0;
+
+	/** The maximum number of textures rendered in one batch so far. **/
+	public int maxTexturesInBatch = 0;
+
+	/** Number of texture switches since the last {@link #begin()}, each of them would have flushed a {@link SpriteBatch}. **/
+	public int textureSwitches = 0;
+
+	/** Number of texture switches since the last {@link #begin()} that did not need a flush because the texture was already bound
+	 * or a texture unit was free. **/
+	public int flushesAvoided = 0;
+
+	/** Number of texture switches that did not need a flush, ever. Will not be reset unless set manually. **/
+	public int totalFlushesAvoided = 0;
+
+	/** Constructs a new MultiTextureBatch with a size of 1000, up to 8 textures per batch and the default shader.
+	 * @see MultiTextureBatch#MultiTextureBatch(int, int, ShaderProgram) */
+	public MultiTextureBatch () {
+		this(1000, 8, null);
+	}
+
+	/** Constructs a MultiTextureBatch with up to 8 textures per batch and the default shader.
+	 * @see MultiTextureBatch#MultiTextureBatch(int, int, ShaderProgram) */
+	public MultiTextureBatch (int size) {
+		this(size, 8, null);
+	}
+
+	/** Constructs a new MultiTextureBatch, see {@link SpriteBatch#SpriteBatch(int, ShaderProgram)}.
+	 * @param size The max number of sprites in a single batch. Max of 8191.
+	 * @param maxTextures The max number of textures in a single batch, limited by {@link GL20#GL_MAX_TEXTURE_IMAGE_UNITS}.
+	 * @param defaultShader The default shader to use, it has to sample at least maxTextures textures. This is not owned by the
+	 *           MultiTextureBatch and must be disposed separately. */
+	public MultiTextureBatch (int size, int maxTextures, ShaderProgram defaultShader) {
+		this(size, maxTextures, defaultShader, (Gdx.gl30 != null) ? VertexDataType.VertexBufferObjectRing
+			: SpriteBatch.defaultVertexDataType);
+	}
+
+	/** Constructs a new MultiTextureBatch that stores its vertices in the given {@link VertexDataType}.
+	 * @see MultiTextureBatch#MultiTextureBatch(int, int, ShaderProgram) */
+	public MultiTextureBatch (int size, int maxTextures, ShaderProgram defaultShader, VertexDataType vertexDataType) {
+		// 32767 is max vertex index, so 32767 / 4 vertices per sprite = 8191 sprites max.
+		if (size > 8191) throw new IllegalArgumentException("Can't have more than 8191 sprites per batch: " + size);
+		if (maxTextures < 1) throw new IllegalArgumentException("maxTextures must be at least 1: " + maxTextures);
+
+		IntBuffer max = BufferUtils.newIntBuffer(16);
+		Gdx.gl.glGetIntegerv(GL20.GL_MAX_TEXTURE_IMAGE_UNITS, max);
+		// GLES 2 guarantees at least 8 units in the fragment shader
+		maxTextures = Math.min(maxTextures, Math.max(max.get(0), 8));
+
+		mesh = new Mesh(vertexDataType, false, size * 4, size * 6,
+			new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
+			new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
+			new VertexAttribute(Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"),
+			new VertexAttribute(Usage.Generic, 1, TEXTURE_INDEX_ATTRIBUTE));
+
+		projectionMatrix.setToOrtho2D(0, 0, Gdx.app.getWidth(), Gdx.app.getHeight());
+
+		vertices = new float[size * SPRITE_SIZE];
+		textures = new Texture[maxTextures];
+		textureUnits = BufferUtils.newIntBuffer(maxTextures);
+		for (int i = 0; i < maxTextures; i++)
+			textureUnits.put(i, i);
+
+		int len = size * 6;
+		short[] indices = new short[len];
+		short j = 0;
+		for (int i = 0; i < len; i += 6, j += 4) {
+			indices[i] = j;
+			indices[i + 1] = (short)(j + 1);
+			indices[i + 2] = (short)(j + 2);
+			indices[i + 3] = (short)(j + 2);
+			indices[i + 4] = (short)(j + 3);
+			indices[i + 5] = j;
+		}
+		mesh.setIndices(indices);
+
+		if (defaultShader == null) {
+			shader = createDefaultShader(maxTextures);
+			ownsShader = true;
+		} else
+			shader = defaultShader;
+	}
+
+	/** Returns a new instance of the default shader used by MultiTextureBatch when no shader is specified. The fragment shader
+	 * selects the sampler with a chain of comparisons, since GLSL ES does not allow indexing a sampler array with a varying.
+	 * @param maxTextures the size of the <code>u_textures</code> sampler array */
+	static public ShaderProgram createDefaultShader (int maxTextures) {
+		String vertexShader = "attribute vec4 " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+			+ "attribute vec4 " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+			+ "attribute vec2 " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n" //
+			+ "attribute float " + TEXTURE_INDEX_ATTRIBUTE + ";\n" //
+			+ "uniform mat4 u_projTrans;\n" //
+			+ "varying vec4 v_color;\n" //
+			+ "varying vec2 v_texCoords;\n" //
+			+ "varying float v_texIndex;\n" //
+			+ "\n" //
+			+ "void main()\n" //
+			+ "{\n" //
+			+ "   v_color = " + ShaderProgram.COLOR_ATTRIBUTE + ";\n" //
+			+ "   v_color.a = v_color.a * (255.0/254.0);\n" //
+			+ "   v_texCoords = " + ShaderProgram.TEXCOORD_ATTRIBUTE + "0;\n" //
+			+ "   v_texIndex = " + TEXTURE_INDEX_ATTRIBUTE + ";\n" //
+			+ "   gl_Position =  u_projTrans * " + ShaderProgram.POSITION_ATTRIBUTE + ";\n" //
+			+ "}\n";
+		StringBuilder fragmentShader = new StringBuilder("#ifdef GL_ES\n" //
+			+ "#define LOWP lowp\n" //
+			+ "precision mediump float;\n" //
+			+ "#else\n" //
+			+ "#define LOWP \n" //
+			+ "#endif\n" //
+			+ "varying LOWP vec4 v_color;\n" //
+			+ "varying vec2 v_texCoords;\n" //
+			+ "varying float v_texIndex;\n" //
+			+ "uniform sampler2D u_textures[" + maxTextures + "];\n" //
+			+ "void main()\n"//
+			+ "{\n" //
+			+ "  vec4 texel;\n");
+		for (int i = 0; i < maxTextures - 1; i++)
+			fragmentShader.append(i == 0 ? "  " : "  else ").append("if (v_texIndex < ").append(i).append(".5) texel = texture2D(u_textures[")
+				.append(i).append("], v_texCoords);\n");
+		fragmentShader.append(maxTextures == 1 ? "  " : "  else ").append("texel = texture2D(u_textures[").append(maxTextures - 1)
+			.append("], v_texCoords);\n");
+		fragmentShader.append("  gl_FragColor = v_color * texel;\n" //
+			+ "}");
+
+		ShaderProgram shader = new ShaderProgram(vertexShader, fragmentShader.toString());
+		if (!shader.isCompiled()) throw new IllegalArgumentException("Error compiling shader: " + shader.getLog());
+		return shader;
+	}
+
+	@Override
+	public void begin () {
+		if (drawing) throw new IllegalStateException("MultiTextureBatch.end must be called before begin.");
+		renderCalls = 0;
+		textureSwitches = 0;
+		flushesAvoided = 0;
+
+		Gdx.gl.glDepthMask(false);
+		if (customShader != null)
+			customShader.begin();
+		else
+			shader.begin();
+		setupMatrices();
+
+		drawing = true;
+	}
+
+	@Override
+	public void end () {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before end.");
+		if (idx > 0) flush();
+		clearTextures();
+		drawing = false;
+
+		GL20 gl = Gdx.gl;
+		gl.glDepthMask(true);
+		if (isBlendingEnabled()) gl.glDisable(GL20.GL_BLEND);
+
+		if (customShader != null)
+			customShader.end();
+		else
+			shader.end();
+	}
+
+	@Override
+	public void setColor (Color tint) {
+		color = tint.toFloatBits();
+	}
+
+	@Override
+	public void setColor (float r, float g, float b, float a) {
+		int intBits = (int)(255 * a) << 24 | (int)(255 * b) << 16 | (int)(255 * g) << 8 | (int)(255 * r);
+		color = NumberUtils.intToFloatColor(intBits);
+	}
+
+	@Override
+	public void setColor (float color) {
+		this.color = color;
+	}
+
+	@Override
+	public Color getColor () {
+		int intBits = NumberUtils.floatToIntColor(color);
+		Color color = tempColor;
+		color.r = (intBits & 0xff) / 255f;
+		color.g = ((intBits >>> 8) & 0xff) / 255f;
+		color.b = ((intBits >>> 16) & 0xff) / 255f;
+		color.a = ((intBits >>> 24) & 0xff) / 255f;
+		return color;
+	}
+
+	@Override
+	public float getPackedColor () {
+		return color;
+	}
+
+	@Override
+	public void draw (Texture texture, float x, float y, float originX, float originY, float width, float height, float scaleX,
+		float scaleY, float rotation, int srcX, int srcY, int srcWidth, int srcHeight, boolean flipX, boolean flipY) {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before draw.");
+
+		float[] vertices = this.vertices;
+
+		final float textureIndex = activateTexture(texture);
+
+		// bottom left and top right corner points relative to origin
+		final float worldOriginX = x + originX;
+		final float worldOriginY = y + originY;
+		float fx = -originX;
+		float fy = -originY;
+		float fx2 = width - originX;
+		float fy2 = height - originY;
+
+		// scale
+		if (scaleX != 1 || scaleY != 1) {
+			fx *= scaleX;
+			fy *= scaleY;
+			fx2 *= scaleX;
+			fy2 *= scaleY;
+		}
+
+		// construct corner points, start from top left and go counter clockwise
+		final float p1x = fx;
+		final float p1y = fy;
+		final float p2x = fx;
+		final float p2y = fy2;
+		final float p3x = fx2;
+		final float p3y = fy2;
+		final float p4x = fx2;
+		final float p4y = fy;
+
+		float x1;
+		float y1;
+		float x2;
+		float y2;
+		float x3;
+		float y3;
+		float x4;
+		float y4;
+
+		// rotate
+		if (rotation != 0) {
+			final float cos = MathUtils.cosDeg(rotation);
+			final float sin = MathUtils.sinDeg(rotation);
+
+			x1 = cos * p1x - sin * p1y;
+			y1 = sin * p1x + cos * p1y;
+
+			x2 = cos * p2x - sin * p2y;
+			y2 = sin * p2x + cos * p2y;
+
+			x3 = cos * p3x - sin * p3y;
+			y3 = sin * p3x + cos * p3y;
+
+			x4 = x1 + (x3 - x2);
+			y4 = y3 - (y2 - y1);
+		} else {
+			x1 = p1x;
+			y1 = p1y;
+
+			x2 = p2x;
+			y2 = p2y;
+
+			x3 = p3x;
+			y3 = p3y;
+
+			x4 = p4x;
+			y4 = p4y;
+		}
+
+		x1 += worldOriginX;
+		y1 += worldOriginY;
+		x2 += worldOriginX;
+		y2 += worldOriginY;
+		x3 += worldOriginX;
+		y3 += worldOriginY;
+		x4 += worldOriginX;
+		y4 += worldOriginY;
+
+		float u = srcX * invTexWidth;
+		float v = (srcY + srcHeight) * invTexHeight;
+		float u2 = (srcX + srcWidth) * invTexWidth;
+		float v2 = srcY * invTexHeight;
+
+		if (flipX) {
+			float tmp = u;
+			u = u2;
+			u2 = tmp;
+		}
+
+		if (flipY) {
+			float tmp = v;
+			v = v2;
+			v2 = tmp;
+		}
+
+		float color = this.color;
+		int idx = this.idx;
+		vertices[idx] = x1;
+		vertices[idx + 1] = y1;
+		vertices[idx + 2] = color;
+		vertices[idx + 3] = u;
+		vertices[idx + 4] = v;
+		vertices[idx + 5] = textureIndex;
+
+		vertices[idx + 6] = x2;
+		vertices[idx + 7] = y2;
+		vertices[idx + 8] = color;
+		vertices[idx + 9] = u;
+		vertices[idx + 10] = v2;
+		vertices[idx + 11] = textureIndex;
+
+		vertices[idx + 12] = x3;
+		vertices[idx + 13] = y3;
+		vertices[idx + 14] = color;
+		vertices[idx + 15] = u2;
+		vertices[idx + 16] = v2;
+		vertices[idx + 17] = textureIndex;
+
+		vertices[idx + 18] = x4;
+		vertices[idx + 19] = y4;
+		vertices[idx + 20] = color;
+		vertices[idx + 21] = u2;
+		vertices[idx + 22] = v;
+		vertices[idx + 23] = textureIndex;
+		this.idx = idx + SPRITE_SIZE;
+	}
+
+	@Override
+	public void draw (Texture texture, float x, float y, float width, float height, int srcX, int srcY, int srcWidth,
+		int srcHeight, boolean flipX, boolean flipY) {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before draw.");
+
+		float[] vertices = this.vertices;
+
+		final float textureIndex = activateTexture(texture);
+
+		float u = srcX * invTexWidth;
+		float v = (srcY + srcHeight) * invTexHeight;
+		float u2 = (srcX + srcWidth) * invTexWidth;
+		float v2 = srcY * invTexHeight;
+		final float fx2 = x + width;
+		final float fy2 = y + height;
+
+		if (flipX) {
+			float tmp = u;
+			u = u2;
+			u2 = tmp;
+		}
+
+		if (flipY) {
+			float tmp = v;
+			v = v2;
+			v2 = tmp;
+		}
+
+		float color = this.color;
+		int idx = this.idx;
+		vertices[idx] = x;
+		vertices[idx + 1] = y;
+		vertices[idx + 2] = color;
+		vertices[idx + 3] = u;
+		vertices[idx + 4] = v;
+		vertices[idx + 5] = textureIndex;
+
+		vertices[idx + 6] = x;
+		vertices[idx + 7] = fy2;
+		vertices[idx + 8] = color;
+		vertices[idx + 9] = u;
+		vertices[idx + 10] = v2;
+		vertices[idx + 11] = textureIndex;
+
+		vertices[idx + 12] = fx2;
+		vertices[idx + 13] = fy2;
+		vertices[idx + 14] = color;
+		vertices[idx + 15] = u2;
+		vertices[idx + 16] = v2;
+		vertices[idx + 17] = textureIndex;
+
+		vertices[idx + 18] = fx2;
+		vertices[idx + 19] = y;
+		vertices[idx + 20] = color;
+		vertices[idx + 21] = u2;
+		vertices[idx + 22] = v;
+		vertices[idx + 23] = textureIndex;
+		this.idx = idx + SPRITE_SIZE;
+	}
+
+	@Override
+	public void draw (Texture texture, float x, float y, int srcX, int srcY, int srcWidth, int srcHeight) {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before draw.");
+
+		float[] vertices = this.vertices;
+
+		final float textureIndex = activateTexture(texture);
+
+		final float u = srcX * invTexWidth;
+		final float v = (srcY + srcHeight) * invTexHeight;
+		final float u2 = (srcX + srcWidth) * invTexWidth;
+		final float v2 = srcY * invTexHeight;
+		final float fx2 = x + srcWidth;
+		final float fy2 = y + srcHeight;
+
+		float color = this.color;
+		int idx = this.idx;
+		vertices[idx] = x;
+		vertices[idx + 1] = y;
+		vertices[idx + 2] = color;
+		vertices[idx + 3] = u;
+		vertices[idx + 4] = v;
+		vertices[idx + 5] = textureIndex;
+
+		vertices[idx + 6] = x;
+		vertices[idx + 7] = fy2;
+		vertices[idx + 8] = color;
+		vertices[idx + 9] = u;
+		vertices[idx + 10] = v2;
+		vertices[idx + 11] = textureIndex;
+
+		vertices[idx + 12] = fx2;
+		vertices[idx + 13] = fy2;
+		vertices[idx + 14] = color;
+		vertices[idx + 15] = u2;
+		vertices[idx + 16] = v2;
+		vertices[idx + 17] = textureIndex;
+
+		vertices[idx + 18] = fx2;
+		vertices[idx + 19] = y;
+		vertices[idx + 20] = color;
+		vertices[idx + 21] = u2;
+		vertices[idx + 22] = v;
+		vertices[idx + 23] = textureIndex;
+		this.idx = idx + SPRITE_SIZE;
+	}
+
+	@Override
+	public void draw (Texture texture, float x, float y, float width, float height, float u, float v, float u2, float v2) {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before draw.");
+
+		float[] vertices = this.vertices;
+
+		final float textureIndex = activateTexture(texture);
+
+		final float fx2 = x + width;
+		final float fy2 = y + height;
+
+		float color = this.color;
+		int idx = this.idx;
+		vertices[idx] = x;
+		vertices[idx + 1] = y;
+		vertices[idx + 2] = color;
+		vertices[idx + 3] = u;
+		vertices[idx + 4] = v;
+		vertices[idx + 5] = textureIndex;
+
+		vertices[idx + 6] = x;
+		vertices[idx + 7] = fy2;
+		vertices[idx + 8] = color;
+		vertices[idx + 9] = u;
+		vertices[idx + 10] = v2;
+		vertices[idx + 11] = textureIndex;
+
+		vertices[idx + 12] = fx2;
+		vertices[idx + 13] = fy2;
+		vertices[idx + 14] = color;
+		vertices[idx + 15] = u2;
+		vertices[idx + 16] = v2;
+		vertices[idx + 17] = textureIndex;
+
+		vertices[idx + 18] = fx2;
+		vertices[idx + 19] = y;
+		vertices[idx + 20] = color;
+		vertices[idx + 21] = u2;
+		vertices[idx + 22] = v;
+		vertices[idx + 23] = textureIndex;
+		this.idx = idx + SPRITE_SIZE;
+	}
+
+	@Override
+	public void draw (Texture texture, float x, float y) {
+		draw(texture, x, y, texture.getWidth(), texture.getHeight());
+	}
+
+	@Override
+	public void draw (Texture texture, float x, float y, float width, float height) {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before draw.");
+
+		float[] vertices = this.vertices;
+
+		final float textureIndex = activateTexture(texture);
+
+		final float fx2 = x + width;
+		final float fy2 = y + height;
+		final float u = 0;
+		final float v = 1;
+		final float u2 = 1;
+		final float v2 = 0;
+
+		float color = this.color;
+		int idx = this.idx;
+		vertices[idx] = x;
+		vertices[idx + 1] = y;
+		vertices[idx + 2] = color;
+		vertices[idx + 3] = u;
+		vertices[idx + 4] = v;
+		vertices[idx + 5] = textureIndex;
+
+		vertices[idx + 6] = x;
+		vertices[idx + 7] = fy2;
+		vertices[idx + 8] = color;
+		vertices[idx + 9] = u;
+		vertices[idx + 10] = v2;
+		vertices[idx + 11] = textureIndex;
+
+		vertices[idx + 12] = fx2;
+		vertices[idx + 13] = fy2;
+		vertices[idx + 14] = color;
+		vertices[idx + 15] = u2;
+		vertices[idx + 16] = v2;
+		vertices[idx + 17] = textureIndex;
+
+		vertices[idx + 18] = fx2;
+		vertices[idx + 19] = y;
+		vertices[idx + 20] = color;
+		vertices[idx + 21] = u2;
+		vertices[idx + 22] = v;
+		vertices[idx + 23] = textureIndex;
+		this.idx = idx + SPRITE_SIZE;
+	}
+
+	@Override
+	public void draw (Texture texture, float[] spriteVertices, int offset, int count) {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before draw.");
+
+		final float textureIndex = activateTexture(texture);
+
+		// the given vertices have no texture index, so they are copied vertex by vertex
+		float[] vertices = this.vertices;
+		int verticesLength = vertices.length;
+		int idx = this.idx;
+		for (int end = offset + count; offset < end; offset += Sprite.VERTEX_SIZE) {
+			if (idx == verticesLength) {
+				this.idx = idx;
+				flush();
+				idx = 0;
+			}
+			vertices[idx] = spriteVertices[offset];
+			vertices[idx + 1] = spriteVertices[offset + 1];
+			vertices[idx + 2] = spriteVertices[offset + 2];
+			vertices[idx + 3] = spriteVertices[offset + 3];
+			vertices[idx + 4] = spriteVertices[offset + 4];
+			vertices[idx + 5] = textureIndex;
+			idx += VERTEX_SIZE;
+		}
+		this.idx = idx;
+	}
+
+	@Override
+	public void draw (TextureRegion region, float x, float y) {
+		draw(region, x, y, region.getRegionWidth(), region.getRegionHeight());
+	}
+
+	@Override
+	public void draw (TextureRegion region, float x, float y, float width, float height) {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before draw.");
+
+		float[] vertices = this.vertices;
+
+		Texture texture = region.texture;
+		final float textureIndex = activateTexture(texture);
+
+		final float fx2 = x + width;
+		final float fy2 = y + height;
+		final float u = region.u;
+		final float v = region.v2;
+		final float u2 = region.u2;
+		final float v2 = region.v;
+
+		float color = this.color;
+		int idx = this.idx;
+		vertices[idx] = x;
+		vertices[idx + 1] = y;
+		vertices[idx + 2] = color;
+		vertices[idx + 3] = u;
+		vertices[idx + 4] = v;
+		vertices[idx + 5] = textureIndex;
+
+		vertices[idx + 6] = x;
+		vertices[idx + 7] = fy2;
+		vertices[idx + 8] = color;
+		vertices[idx + 9] = u;
+		vertices[idx + 10] = v2;
+		vertices[idx + 11] = textureIndex;
+
+		vertices[idx + 12] = fx2;
+		vertices[idx + 13] = fy2;
+		vertices[idx + 14] = color;
+		vertices[idx + 15] = u2;
+		vertices[idx + 16] = v2;
+		vertices[idx + 17] = textureIndex;
+
+		vertices[idx + 18] = fx2;
+		vertices[idx + 19] = y;
+		vertices[idx + 20] = color;
+		vertices[idx + 21] = u2;
+		vertices[idx + 22] = v;
+		vertices[idx + 23] = textureIndex;
+		this.idx = idx + SPRITE_SIZE;
+	}
+
+	@Override
+	public void draw (TextureRegion region, float x, float y, float originX, float originY, float width, float height,
+		float scaleX, float scaleY, float rotation) {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before draw.");
+
+		float[] vertices = this.vertices;
+
+		Texture texture = region.texture;
+		final float textureIndex = activateTexture(texture);
+
+		// bottom left and top right corner points relative to origin
+		final float worldOriginX = x + originX;
+		final float worldOriginY = y + originY;
+		float fx = -originX;
+		float fy = -originY;
+		float fx2 = width - originX;
+		float fy2 = height - originY;
+
+		// scale
+		if (scaleX != 1 || scaleY != 1) {
+			fx *= scaleX;
+			fy *= scaleY;
+			fx2 *= scaleX;
+			fy2 *= scaleY;
+		}
+
+		// construct corner points, start from top left and go counter clockwise
+		final float p1x = fx;
+		final float p1y = fy;
+		final float p2x = fx;
+		final float p2y = fy2;
+		final float p3x = fx2;
+		final float p3y = fy2;
+		final float p4x = fx2;
+		final float p4y = fy;
+
+		float x1;
+		float y1;
+		float x2;
+		float y2;
+		float x3;
+		float y3;
+		float x4;
+		float y4;
+
+		// rotate
+		if (rotation != 0) {
+			final float cos = MathUtils.cosDeg(rotation);
+			final float sin = MathUtils.sinDeg(rotation);
+
+			x1 = cos * p1x - sin * p1y;
+			y1 = sin * p1x + cos * p1y;
+
+			x2 = cos * p2x - sin * p2y;
+			y2 = sin * p2x + cos * p2y;
+
+			x3 = cos * p3x - sin * p3y;
+			y3 = sin * p3x + cos * p3y;
+
+			x4 = x1 + (x3 - x2);
+			y4 = y3 - (y2 - y1);
+		} else {
+			x1 = p1x;
+			y1 = p1y;
+
+			x2 = p2x;
+			y2 = p2y;
+
+			x3 = p3x;
+			y3 = p3y;
+
+			x4 = p4x;
+			y4 = p4y;
+		}
+
+		x1 += worldOriginX;
+		y1 += worldOriginY;
+		x2 += worldOriginX;
+		y2 += worldOriginY;
+		x3 += worldOriginX;
+		y3 += worldOriginY;
+		x4 += worldOriginX;
+		y4 += worldOriginY;
+
+		final float u = region.u;
+		final float v = region.v2;
+		final float u2 = region.u2;
+		final float v2 = region.v;
+
+		float color = this.color;
+		int idx = this.idx;
+		vertices[idx] = x1;
+		vertices[idx + 1] = y1;
+		vertices[idx + 2] = color;
+		vertices[idx + 3] = u;
+		vertices[idx + 4] = v;
+		vertices[idx + 5] = textureIndex;
+
+		vertices[idx + 6] = x2;
+		vertices[idx + 7] = y2;
+		vertices[idx + 8] = color;
+		vertices[idx + 9] = u;
+		vertices[idx + 10] = v2;
+		vertices[idx + 11] = textureIndex;
+
+		vertices[idx + 12] = x3;
+		vertices[idx + 13] = y3;
+		vertices[idx + 14] = color;
+		vertices[idx + 15] = u2;
+		vertices[idx + 16] = v2;
+		vertices[idx + 17] = textureIndex;
+
+		vertices[idx + 18] = x4;
+		vertices[idx + 19] = y4;
+		vertices[idx + 20] = color;
+		vertices[idx + 21] = u2;
+		vertices[idx + 22] = v;
+		vertices[idx + 23] = textureIndex;
+		this.idx = idx + SPRITE_SIZE;
+	}
+
+	@Override
+	public void draw (TextureRegion region, float x, float y, float originX, float originY, float width, float height,
+		float scaleX, float scaleY, float rotation, boolean clockwise) {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before draw.");
+
+		float[] vertices = this.vertices;
+
+		Texture texture = region.texture;
+		final float textureIndex = activateTexture(texture);
+
+		// bottom left and top right corner points relative to origin
+		final float worldOriginX = x + originX;
+		final float worldOriginY = y + originY;
+		float fx = -originX;
+		float fy = -originY;
+		float fx2 = width - originX;
+		float fy2 = height - originY;
+
+		// scale
+		if (scaleX != 1 || scaleY != 1) {
+			fx *= scaleX;
+			fy *= scaleY;
+			fx2 *= scaleX;
+			fy2 *= scaleY;
+		}
+
+		// construct corner points, start from top left and go counter clockwise
+		final float p1x = fx;
+		final float p1y = fy;
+		final float p2x = fx;
+		final float p2y = fy2;
+		final float p3x = fx2;
+		final float p3y = fy2;
+		final float p4x = fx2;
+		final float p4y = fy;
+
+		float x1;
+		float y1;
+		float x2;
+		float y2;
+		float x3;
+		float y3;
+		float x4;
+		float y4;
+
+		// rotate
+		if (rotation != 0) {
+			final float cos = MathUtils.cosDeg(rotation);
+			final float sin = MathUtils.sinDeg(rotation);
+
+			x1 = cos * p1x - sin * p1y;
+			y1 = sin * p1x + cos * p1y;
+
+			x2 = cos * p2x - sin * p2y;
+			y2 = sin * p2x + cos * p2y;
+
+			x3 = cos * p3x - sin * p3y;
+			y3 = sin * p3x + cos * p3y;
+
+			x4 = x1 + (x3 - x2);
+			y4 = y3 - (y2 - y1);
+		} else {
+			x1 = p1x;
+			y1 = p1y;
+
+			x2 = p2x;
+			y2 = p2y;
+
+			x3 = p3x;
+			y3 = p3y;
+
+			x4 = p4x;
+			y4 = p4y;
+		}
+
+		x1 += worldOriginX;
+		y1 += worldOriginY;
+		x2 += worldOriginX;
+		y2 += worldOriginY;
+		x3 += worldOriginX;
+		y3 += worldOriginY;
+		x4 += worldOriginX;
+		y4 += worldOriginY;
+
+		float u1, v1, u2, v2, u3, v3, u4, v4;
+		if (clockwise) {
+			u1 = region.u2;
+			v1 = region.v2;
+			u2 = region.u;
+			v2 = region.v2;
+			u3 = region.u;
+			v3 = region.v;
+			u4 = region.u2;
+			v4 = region.v;
+		} else {
+			u1 = region.u;
+			v1 = region.v;
+			u2 = region.u2;
+			v2 = region.v;
+			u3 = region.u2;
+			v3 = region.v2;
+			u4 = region.u;
+			v4 = region.v2;
+		}
+
+		float color = this.color;
+		int idx = this.idx;
+		vertices[idx] = x1;
+		vertices[idx + 1] = y1;
+		vertices[idx + 2] = color;
+		vertices[idx + 3] = u1;
+		vertices[idx + 4] = v1;
+		vertices[idx + 5] = textureIndex;
+
+		vertices[idx + 6] = x2;
+		vertices[idx + 7] = y2;
+		vertices[idx + 8] = color;
+		vertices[idx + 9] = u2;
+		vertices[idx + 10] = v2;
+		vertices[idx + 11] = textureIndex;
+
+		vertices[idx + 12] = x3;
+		vertices[idx + 13] = y3;
+		vertices[idx + 14] = color;
+		vertices[idx + 15] = u3;
+		vertices[idx + 16] = v3;
+		vertices[idx + 17] = textureIndex;
+
+		vertices[idx + 18] = x4;
+		vertices[idx + 19] = y4;
+		vertices[idx + 20] = color;
+		vertices[idx + 21] = u4;
+		vertices[idx + 22] = v4;
+		vertices[idx + 23] = textureIndex;
+		this.idx = idx + SPRITE_SIZE;
+	}
+
+	@Override
+	public void draw (TextureRegion region, float width, float height, Affine2 transform) {
+		if (!drawing) throw new IllegalStateException("MultiTextureBatch.begin must be called before draw.");
+
+		float[] vertices = this.vertices;
+
+		Texture texture = region.texture;
+		final float textureIndex = activateTexture(texture);
+
+		// construct corner points
+		float x1 = transform.m02;
+		float y1 = transform.m12;
+		float x2 = transform.m01 * height + transform.m02;
+		float y2 = transform.m11 * height + transform.m12;
+		float x3 = transform.m00 * width + transform.m01 * height + transform.m02;
+		float y3 = transform.m10 * width + transform.m11 * height + transform.m12;
+		float x4 = transform.m00 * width + transform.m02;
+		float y4 = transform.m10 * width + transform.m12;
+
+		float u = region.u;
+		float v = region.v2;
+		float u2 = region.u2;
+		float v2 = region.v;
+
+		float color = this.color;
+		int idx = this.idx;
+		vertices[idx] = x1;
+		vertices[idx + 1] = y1;
+		vertices[idx + 2] = color;
+		vertices[idx + 3] = u;
+		vertices[idx + 4] = v;
+		vertices[idx + 5] = textureIndex;
+
+		vertices[idx + 6] = x2;
+		vertices[idx + 7] = y2;
+		vertices[idx + 8] = color;
+		vertices[idx + 9] = u;
+		vertices[idx + 10] = v2;
+		vertices[idx + 11] = textureIndex;
+
+		vertices[idx + 12] = x3;
+		vertices[idx + 13] = y3;
+		vertices[idx + 14] = color;
+		vertices[idx + 15] = u2;
+		vertices[idx + 16] = v2;
+		vertices[idx + 17] = textureIndex;
+
+		vertices[idx + 18] = x4;
+		vertices[idx + 19] = y4;
+		vertices[idx + 20] = color;
+		vertices[idx + 21] = u2;
+		vertices[idx + 22] = v;
+		vertices[idx + 23] = textureIndex;
+		this.idx = idx + SPRITE_SIZE;
+	}
+
+	@Override
+	public void flush () {
+		if (idx == 0) return;
+
+		renderCalls++;
+		totalRenderCalls++;
+		int spritesInBatch = idx / SPRITE_SIZE;
+		if (spritesInBatch > maxSpritesInBatch) maxSpritesInBatch = spritesInBatch;
+		if (textureCount > maxTexturesInBatch) maxTexturesInBatch = textureCount;
+		int count = spritesInBatch * 6;
+
+		// bind the last unit first, so unit 0 is the active one afterwards
+		for (int i = textureCount - 1; i >= 0; i--)
+			textures[i].bind(i);
+		Mesh mesh = this.mesh;
+		mesh.setVertices(vertices, 0, idx);
+
+		if (blendingDisabled) {
+			Gdx.gl.glDisable(GL20.GL_BLEND);
+		} else {
+			Gdx.gl.glEnable(GL20.GL_BLEND);
+			if (blendSrcFunc != -1) Gdx.gl.glBlendFuncSeparate(blendSrcFunc, blendDstFunc, blendSrcFuncAlpha, blendDstFuncAlpha);
+		}
+
+		mesh.render(customShader != null ? customShader : shader, GL20.GL_TRIANGLES, 0, count);
+
+		idx = 0;
+	}
+
+	@Override
+	public void disableBlending () {
+		if (blendingDisabled) return;
+		flush();
+		blendingDisabled = true;
+	}
+
+	@Override
+	public void enableBlending () {
+		if (!blendingDisabled) return;
+		flush();
+		blendingDisabled = false;
+	}
+
+	@Override
+	public void setBlendFunction (int srcFunc, int dstFunc) {
+		setBlendFunctionSeparate(srcFunc, dstFunc, srcFunc, dstFunc);
+	}
+
+	@Override
+	public void setBlendFunctionSeparate(int srcFuncColor, int dstFuncColor, int srcFuncAlpha, int dstFuncAlpha) {
+		if (blendSrcFunc == srcFuncColor && blendDstFunc == dstFuncColor && blendSrcFuncAlpha == srcFuncAlpha && blendDstFuncAlpha == dstFuncAlpha) return;
+		flush();
+		blendSrcFunc = srcFuncColor;
+		blendDstFunc = dstFuncColor;
+		blendSrcFuncAlpha = srcFuncAlpha;
+		blendDstFuncAlpha = dstFuncAlpha;
+	}
+
+	@Override
+	public int getBlendSrcFunc () {
+		return blendSrcFunc;
+	}
+
+	@Override
+	public int getBlendDstFunc () {
+		return blendDstFunc;
+	}
+
+	@Override
+	public int getBlendSrcFuncAlpha() {
+		return blendSrcFuncAlpha;
+	}
+
+	@Override
+	public int getBlendDstFuncAlpha() {
+		return blendDstFuncAlpha;
+	}
+
+	@Override
+	public void dispose () {
+		mesh.dispose();
+		if (ownsShader && shader != null) shader.dispose();
+	}
+
+	@Override
+	public Matrix4 getProjectionMatrix () {
+		return projectionMatrix;
+	}
+
+	@Override
+	public Matrix4 getTransformMatrix () {
+		return transformMatrix;
+	}
+
+	@Override
+	public void setProjectionMatrix (Matrix4 projection) {
+		if (drawing) flush();
+		projectionMatrix.set(projection);
+		if (drawing) setupMatrices();
+	}
+
+	@Override
+	public void setTransformMatrix (Matrix4 transform) {
+		if (drawing) flush();
+		transformMatrix.set(transform);
+		if (drawing) setupMatrices();
+	}
+
+	private void setupMatrices () {
+		combinedMatrix.set(projectionMatrix).mul(transformMatrix);
+		ShaderProgram shader = customShader != null ? customShader : this.shader;
+		shader.setUniformMatrix("u_projTrans", combinedMatrix);
+		// sampler i reads unit i, a smaller array in a custom shader ignores the excess units
+		int location = shader.fetchUniformLocation("u_textures", false);
+		if (location != -1) Gdx.gl20.glUniform1iv(location, textures.length, textureUnits);
+	}
+
+	/** Returns the texture unit the given texture is bound to at the next flush as a vertex attribute value. A texture not bound
+	 * yet takes the next free unit, when there is none the batch is flushed and all units are released. Also flushes when the
+	 * vertices are full. */
+	protected float activateTexture (Texture texture) {
+		if (idx == vertices.length) flush();
+		if (texture == lastTexture) return lastTextureIndex;
+
+		textureSwitches++;
+		Texture[] textures = this.textures;
+		int index = -1;
+		for (int i = 0; i < textureCount; i++) {
+			if (textures[i] == texture) {
+				index = i;
+				break;
+			}
+		}
+		if (index == -1) {
+			if (textureCount == textures.length) {
+				flush();
+				clearTextures();
+			}
+			index = textureCount++;
+			textures[index] = texture;
+		}
+		// a SpriteBatch would have flushed the pending sprites here
+		if (idx > 0) {
+			flushesAvoided++;
+			totalFlushesAvoided++;
+		}
+
+		lastTexture = texture;
+		lastTextureIndex = index;
+		invTexWidth = 1.0f / texture.getWidth();
+		invTexHeight = 1.0f / texture.getHeight();
+		return lastTextureIndex;
+	}
+
+	private void clearTextures () {
+		for (int i = 0; i < textureCount; i++)
+			textures[i] = null;
+		textureCount = 0;
+		lastTexture = null;
+	}
+
+	@Override
+	public void setShader (ShaderProgram shader) {
+		if (drawing) {
+			flush();
+			if (customShader != null)
+				customShader.end();
+			else
+				this.shader.end();
+		}
+		customShader = shader;
+		if (drawing) {
+			if (customShader != null)
+				customShader.begin();
+			else
+				this.shader.begin();
+			setupMatrices();
+		}
+	}
+
+	@Override
+	public ShaderProgram getShader () {
+		if (customShader == null) {
+			return shader;
+		}
+		return customShader;
+	}
+
+	@Override
+	public boolean isBlendingEnabled () {
+		return !blendingDisabled;
+	}
+
+	public boolean isDrawing () {
+		return drawing;
+	}
+
+	/** @return the max number of textures in a single batch */
+	public int getMaxTextures () {
+		return textures.length;
+	}
+}
@@ -31,12 +31,21 @@ import com.erlei.gdx.math.Rectangle;
 import com.erlei.gdx.utils.Array;
 import com.erlei.gdx.utils.Disposable;
 import com.erlei.gdx.utils.GdxRuntimeException;
+import com.erlei.gdx.utils.IntArray;
+import com.erlei.gdx.utils.ObjectMap;
+import com.erlei.gdx.utils.ObjectSet;
 import com.erlei.gdx.utils.OrderedMap;
+import com.erlei.gdx.utils.TimeUtils;
+import com.erlei.gdx.utils.async.AsyncExecutor;
+import com.erlei.gdx.utils.async.AsyncResult;
+import com.erlei.gdx.utils.async.AsyncTask;
 
 /** Packs {@link Pixmap pixmaps} into one or more {@link Page pages} to generate an atlas of pixmap instances. Provides means to
  * directly convert the pixmap atlas to a {@link TextureAtlas}. The packer supports padding and border pixel duplication,
  * specified during construction. The packer supports incremental inserts and updates of TextureAtlases generated with this class.
- * How bin packing is performed can be customized via {@link PackStrategy}.
+ * How bin packing is performed can be customized via {@link PackStrategy}, {@link MaxRectsStrategy} produces the fullest pages.
+ * {@link #packAll(Array, Array, AsyncExecutor)} packs many pixmaps at once, choosing all places first and drawing the pixmaps into
+ * the pages in parallel.
  * <p>
  * All methods can be called from any thread unless otherwise noted.
  * <p>
@@ -104,6 +113,8 @@ public class PixmapPacker implements Disposable {
 	Color transparentColor = new Color(0f, 0f, 0f, 0f);
 	final Array<Page> pages = new Array();
 	PackStrategy packStrategy;
+	long packNanos;
+	int packCount;
 
 	/** Uses {@link GuillotineStrategy}.
 	 * @see PixmapPacker#PixmapPacker(int, int, Format, int, boolean, PackStrategy) */
@@ -148,6 +159,7 @@ public class PixmapPacker implements Disposable {
 		if (disposed) return null;
 		if (name != null && getRect(name) != null)
 			throw new GdxRuntimeException("Pixmap has already been packed with name: " + name);
+		long start = TimeUtils.nanoTime();
 
 		boolean isPatch = name != null && name.endsWith(".9");
 
@@ -164,16 +176,9 @@ public class PixmapPacker implements Disposable {
 			rect = new PixmapPackerRectangle(0, 0, image.getWidth(), image.getHeight());
 		}
 
-		if (rect.getWidth() > pageWidth || rect.getHeight() > pageHeight) {
-			if (name == null) throw new GdxRuntimeException("Page size too small for pixmap.");
-			throw new GdxRuntimeException("Page size too small for pixmap: " + name);
-		}
+		checkSize(name, rect);
 
-		Page page = packStrategy.pack(this, name, rect);
-		if (name != null) {
-			page.rects.put(name, rect);
-			page.addedRects.add(name);
-		}
+		Page page = place(name, rect);
 
 		int rectX = (int)rect.x, rectY = (int)rect.y, rectWidth = (int)rect.width, rectHeight = (int)rect.height;
 
@@ -186,6 +191,173 @@ public class PixmapPacker implements Disposable {
 
 		page.image.setBlending(Blending.None);
 
+		draw(page, image, rect);
+
+		if (pixmapToDispose != null) {
+			pixmapToDispose.dispose();
+		}
+
+		packNanos += TimeUtils.nanoTime() - start;
+		packCount++;
+		return rect;
+	}
+
+	/** Inserts many pixmaps at once. The places of all pixmaps are chosen first, in the order of {@link #sort(Array)}, then the
+	 * pixmaps are drawn into the pages, split among the threads of the executor. The pages are marked for a complete upload,
+	 * {@link #setPackToTexture(boolean)} is ignored. Nothing is packed if a pixmap is too large or a name is a duplicate.
+	 * @param names the names of the images, may be null or contain nulls. Images without a name cannot be looked up by name.
+	 * @param executor the executor to draw on, may be null to draw on the calling thread. The calling thread must not belong to
+	 *           it.
+	 * @return the rectangles describing the areas the pixmaps were rendered to, in the order of the images
+	 * @throws GdxRuntimeException in case an image did not fit due to the page size being too small or providing a duplicate
+	 *            name. */
+	public synchronized Array<Rectangle> packAll (Array<String> names, Array<Pixmap> images, AsyncExecutor executor) {
+		if (disposed) return null;
+		if (names != null && names.size != images.size) throw new IllegalArgumentException("names must have the size of images.");
+		long start = TimeUtils.nanoTime();
+
+		// Validate everything before anything is placed.
+		int count = images.size;
+		String[] packNames = new String[count];
+		PixmapPackerRectangle[] rects = new PixmapPackerRectangle[count];
+		ObjectSet<String> batchNames = new ObjectSet<String>();
+		for (int i = 0; i < count; i++) {
+			String name = names != null ? names.get(i) : null;
+			Pixmap image = images.get(i);
+			boolean isPatch = name != null && name.endsWith(".9");
+			if (isPatch) name = name.split("\\.")[0];
+			if (name != null && (getRect(name) != null || !batchNames.add(name)))
+				throw new GdxRuntimeException("Pixmap has already been packed with name: " + name);
+			int border = isPatch ? 2 : 0;
+			rects[i] = new PixmapPackerRectangle(0, 0, image.getWidth() - border, image.getHeight() - border);
+			checkSize(name, rects[i]);
+			packNames[i] = name;
+		}
+
+		// Choose the places in the order of the strategy.
+		Array<Pixmap> sorted = new Array<Pixmap>(images);
+		packStrategy.sort(sorted);
+		ObjectMap<Pixmap, IntArray> indices = new ObjectMap<Pixmap, IntArray>();
+		for (int i = 0; i < count; i++) {
+			IntArray imageIndices = indices.get(images.get(i));
+			if (imageIndices == null) indices.put(images.get(i), imageIndices = new IntArray());
+			imageIndices.add(i);
+		}
+		Array<Blit> blits = new Array<Blit>(count);
+		for (int i = 0; i < count; i++) {
+			int index = indices.get(sorted.get(i)).removeIndex(0);
+			Pixmap image = images.get(index);
+			PixmapPackerRectangle rect = rects[index];
+			Blit blit = new Blit();
+			if (rect.width != image.getWidth()) {
+				rect.splits = getSplits(image);
+				blit.dispose = true;
+			}
+			blit.image = image;
+			blit.rect = rect;
+			blit.page = place(packNames[index], rect);
+			blit.page.dirty = true;
+			blit.page.image.setBlending(Blending.None);
+			blits.add(blit);
+		}
+
+		drawAll(blits, executor);
+
+		packNanos += TimeUtils.nanoTime() - start;
+		packCount += count;
+		return new Array<Rectangle>(rects);
+	}
+
+	/** Draws the blits, in batches of about the same amount of pixels. Batches only share pages if the duplicated borders of
+	 * neighbouring images can not touch. */
+	private void drawAll (Array<Blit> blits, AsyncExecutor executor) {
+		final boolean sharePages = !duplicateBorder || padding >= 2;
+		Array<Array<Blit>> batches = new Array<Array<Blit>>();
+		ObjectMap<Page, Array<Blit>> pageBatches = new ObjectMap<Page, Array<Blit>>();
+		Array<Blit> batch = null;
+		int batchPixels = 0;
+		for (Blit blit : blits) {
+			if (sharePages) {
+				if (batch == null || batchPixels >= 64 * 1024) {
+					batches.add(batch = new Array<Blit>());
+					batchPixels = 0;
+				}
+				batchPixels += (int)(blit.rect.width * blit.rect.height);
+			} else {
+				batch = pageBatches.get(blit.page);
+				if (batch == null) {
+					pageBatches.put(blit.page, batch = new Array<Blit>());
+					batches.add(batch);
+				}
+			}
+			batch.add(blit);
+		}
+
+		if (executor == null || batches.size == 1) {
+			for (Array<Blit> pageBlits : batches)
+				drawBatch(pageBlits);
+			return;
+		}
+		Array<AsyncResult<Void>> results = new Array<AsyncResult<Void>>(batches.size);
+		for (final Array<Blit> pageBlits : batches) {
+			results.add(executor.submit(new AsyncTask<Void>() {
+				@Override
+				public Void call () throws Exception {
+					drawBatch(pageBlits);
+					return null;
+				}
+			}));
+		}
+		GdxRuntimeException error = null;
+		for (AsyncResult<Void> result : results) {
+			try {
+				result.get();
+			} catch (GdxRuntimeException ex) {
+				if (error == null) error = ex;
+			}
+		}
+		if (error != null) throw error;
+	}
+
+	void drawBatch (Array<Blit> blits) {
+		for (Blit blit : blits) {
+			Pixmap image = blit.image;
+			if (blit.dispose) {
+				// Strip the 1 pixel border of a ninepatch.
+				Pixmap stripped = new Pixmap(image.getWidth() - 2, image.getHeight() - 2, image.getFormat());
+				stripped.setBlending(Blending.None);
+				stripped.drawPixmap(image, 0, 0, 1, 1, image.getWidth() - 1, image.getHeight() - 1);
+				image = stripped;
+			}
+			draw(blit.page, image, blit.rect);
+			if (blit.dispose) image.dispose();
+		}
+	}
+
+	/** Lets the strategy place the rectangle and adds it to the page. */
+	private Page place (String name, PixmapPackerRectangle rect) {
+		Page page = packStrategy.pack(this, name, rect);
+		if (name != null) {
+			page.rects.put(name, rect);
+			page.addedRects.add(name);
+		}
+		page.usedArea += (long)rect.width * (long)rect.height;
+		return page;
+	}
+
+	/** Checks that the rectangle fits into an empty page. The strategies keep the padding to the page borders and pad the
+	 * rectangle, so it needs three times the padding in addition to its size. */
+	private void checkSize (String name, Rectangle rect) {
+		if (rect.getWidth() + padding * 3 > pageWidth || rect.getHeight() + padding * 3 > pageHeight) {
+			if (name == null) throw new GdxRuntimeException("Page size too small for pixmap.");
+			throw new GdxRuntimeException("Page size too small for pixmap: " + name);
+		}
+	}
+
+	/** Draws the image into the page at the rectangle, duplicating its border if enabled. The page must have blending disabled. */
+	void draw (Page page, Pixmap image, Rectangle rect) {
+		int rectX = (int)rect.x, rectY = (int)rect.y, rectWidth = (int)rect.width, rectHeight = (int)rect.height;
+
 		page.image.drawPixmap(image, rectX, rectY);
 
 		if (duplicateBorder) {
@@ -201,12 +373,41 @@ public class PixmapPacker implements Disposable {
 			page.image.drawPixmap(image, 0, 0, 1, imageHeight, rectX - 1, rectY, 1, rectHeight);
 			page.image.drawPixmap(image, imageWidth - 1, 0, 1, imageHeight, rectX + rectWidth, rectY, 1, rectHeight);
 		}
+	}
 
-		if (pixmapToDispose != null) {
-			pixmapToDispose.dispose();
-		}
+	/** A pixmap placed by {@link PixmapPacker#packAll(Array, Array, AsyncExecutor)} and not drawn yet. */
+	static class Blit {
+		Page page;
+		Pixmap image;
+		PixmapPackerRectangle rect;
+		/** whether the image is a ninepatch whose border has to be stripped */
+		boolean dispose;
+	}
 
-		return rect;
+	/** @return the time spent in {@link #pack(String, Pixmap)} and {@link #packAll(Array, Array, AsyncExecutor)} so far, in
+	 *         nanoseconds */
+	public long getPackTime () {
+		return packNanos;
+	}
+
+	/** @return the number of pixmaps packed so far */
+	public int getPackCount () {
+		return packCount;
+	}
+
+	/** @return the packed pixels of all pages divided by the pixels of all pages, 0 without pages */
+	public synchronized float getOccupancy () {
+		if (pages.size == 0) return 0;
+		long used = 0;
+		for (Page page : pages)
+			used += page.usedArea;
+		return used / ((float)pageWidth * pageHeight * pages.size);
+	}
+
+	/** Resets the time and count of {@link #getPackTime()} and {@link #getPackCount()}. */
+	public synchronized void resetStatistics () {
+		packNanos = 0;
+		packCount = 0;
 	}
 
 	/** @return the {@link Page} instances created so far. If multiple threads are accessing the packer, iterating over the pages
@@ -368,6 +569,7 @@ public class PixmapPacker implements Disposable {
 		Texture texture;
 		final Array<String> addedRects = new Array();
 		boolean dirty;
+		long usedArea;
 
 		/** Creates a new page filled with the color provided by the {@link PixmapPacker#getTransparentColor()} */
 		public Page (PixmapPacker packer) {
@@ -385,6 +587,11 @@ public class PixmapPacker implements Disposable {
 			return rects;
 		}
 
+		/** @return the pixels covered by packed pixmaps divided by all pixels of the page, padding not counted as covered */
+		public float getOccupancy () {
+			return usedArea / ((float)image.getWidth() * image.getHeight());
+		}
+
 		/** Returns the texture for this page, or null if the texture has not been created.
 		 * @see #updateTexture(TextureFilter, TextureFilter, boolean) */
 		public Texture getTexture () {
@@ -609,6 +816,212 @@ public class PixmapPacker implements Disposable {
 		}
 	}
 
+	/** Does bin packing by keeping all maximal free rectangles of each page and choosing the free rectangle that fits best according
+	 * to a {@link Heuristic}. This packs arbitrarily sized images more densely than the other strategies, at a higher cost per
+	 * image. Pages are filled in order, an image is placed into the first page it fits in.
+	 * @see <a href="http://clb.demon.fi/files/RectangleBinPack.pdf">A Thousand Ways to Pack the Bin</a> */
+	static public class MaxRectsStrategy implements PackStrategy {
+		/** How the free rectangle for an image is chosen. */
+		static public enum Heuristic {
+			/** The free rectangle whose shorter leftover side is the smallest. */
+			BestShortSideFit,
+			/** The free rectangle whose longer leftover side is the smallest. */
+			BestLongSideFit,
+			/** The smallest free rectangle. */
+			BestAreaFit,
+			/** The place whose bottom edge is the lowest, Tetris style. */
+			BottomLeftRule,
+			/** The place that touches the most edges of the page and of placed images. */
+			ContactPointRule
+		}
+
+		final Heuristic heuristic;
+		Comparator<Pixmap> comparator;
+
+		/** Uses {@link Heuristic#BestShortSideFit}. */
+		public MaxRectsStrategy () {
+			this(Heuristic.BestShortSideFit);
+		}
+
+		public MaxRectsStrategy (Heuristic heuristic) {
+			if (heuristic == null) throw new IllegalArgumentException("heuristic cannot be null.");
+			this.heuristic = heuristic;
+		}
+
+		/** Sorts by descending area, larger images are placed first. */
+		public void sort (Array<Pixmap> images) {
+			if (comparator == null) {
+				comparator = new Comparator<Pixmap>() {
+					public int compare (Pixmap o1, Pixmap o2) {
+						int area1 = o1.getWidth() * o1.getHeight(), area2 = o2.getWidth() * o2.getHeight();
+						if (area1 != area2) return area2 - area1;
+						return Math.max(o2.getWidth(), o2.getHeight()) - Math.max(o1.getWidth(), o1.getHeight());
+					}
+				};
+			}
+			images.sort(comparator);
+		}
+
+		public Page pack (PixmapPacker packer, String name, Rectangle rect) {
+			int padding = packer.padding;
+			int width = (int)rect.width + padding, height = (int)rect.height + padding;
+			for (int i = 0, n = packer.pages.size; i < n; i++) {
+				MaxRectsPage page = (MaxRectsPage)packer.pages.get(i);
+				if (page.insert(heuristic, width, height, rect)) return page;
+			}
+			// Fit in new page, which must not be added if the rectangle does not fit.
+			if (width > packer.pageWidth - padding * 2 || height > packer.pageHeight - padding * 2)
+				throw new GdxRuntimeException("Page size too small for pixmap: " + name);
+			MaxRectsPage page = new MaxRectsPage(packer);
+			packer.pages.add(page);
+			page.insert(heuristic, width, height, rect);
+			return page;
+		}
+
+		static class MaxRectsPage extends Page {
+			final Array<Area> free = new Array();
+			final Array<Area> used = new Array();
+			final int left, bottom, right, top;
+			/** The score of the best place found by {@link #find(Heuristic, int, int)}, lower is better. */
+			private int bestScore1, bestScore2, bestX, bestY;
+
+			public MaxRectsPage (PixmapPacker packer) {
+				super(packer);
+				left = packer.padding;
+				bottom = packer.padding;
+				right = packer.pageWidth - packer.padding;
+				top = packer.pageHeight - packer.padding;
+				free.add(new Area(left, bottom, right - left, top - bottom));
+			}
+
+			/** Places a padded width x height area in the page and sets the position of the rectangle.
+			 * @return false if the area does not fit */
+			boolean insert (Heuristic heuristic, int width, int height, Rectangle rect) {
+				if (!find(heuristic, width, height)) return false;
+				Area placed = new Area(bestX, bestY, width, height);
+				for (int i = free.size - 1; i >= 0; i--) {
+					Area area = free.get(i);
+					if (placed.intersects(area)) {
+						free.removeIndex(i);
+						split(area, placed);
+					}
+				}
+				prune();
+				used.add(placed);
+				rect.x = bestX;
+				rect.y = bestY;
+				return true;
+			}
+
+			private boolean find (Heuristic heuristic, int width, int height) {
+				bestScore1 = Integer.MAX_VALUE;
+				bestScore2 = Integer.MAX_VALUE;
+				boolean found = false;
+				Object[] items = free.items;
+				for (int i = 0, n = free.size; i < n; i++) {
+					Area area = (Area)items[i];
+					if (area.width < width || area.height < height) continue;
+					int score1, score2;
+					int leftoverX = area.width - width, leftoverY = area.height - height;
+					switch (heuristic) {
+					case BestShortSideFit:
+						score1 = Math.min(leftoverX, leftoverY);
+						score2 = Math.max(leftoverX, leftoverY);
+						break;
+					case BestLongSideFit:
+						score1 = Math.max(leftoverX, leftoverY);
+						score2 = Math.min(leftoverX, leftoverY);
+						break;
+					case BestAreaFit:
+						score1 = area.width * area.height - width * height;
+						score2 = Math.min(leftoverX, leftoverY);
+						break;
+					case BottomLeftRule:
+						score1 = area.y + height;
+						score2 = area.x;
+						break;
+					default:
+						score1 = -contactPoints(area.x, area.y, width, height);
+						score2 = 0;
+					}
+					if (score1 < bestScore1 || (score1 == bestScore1 && score2 < bestScore2)) {
+						bestScore1 = score1;
+						bestScore2 = score2;
+						bestX = area.x;
+						bestY = area.y;
+						found = true;
+					}
+				}
+				return found;
+			}
+
+			/** @return the length of the edges of the area touching the page border or a placed area */
+			private int contactPoints (int x, int y, int width, int height) {
+				int score = 0;
+				if (x == left || x + width == right) score += height;
+				if (y == bottom || y + height == top) score += width;
+				Object[] items = used.items;
+				for (int i = 0, n = used.size; i < n; i++) {
+					Area area = (Area)items[i];
+					if (area.x == x + width || area.x + area.width == x)
+						score += overlap(area.y, area.y + area.height, y, y + height);
+					if (area.y == y + height || area.y + area.height == y)
+						score += overlap(area.x, area.x + area.width, x, x + width);
+				}
+				return score;
+			}
+
+			private static int overlap (int start1, int end1, int start2, int end2) {
+				if (end1 < start2 || end2 < start1) return 0;
+				return Math.min(end1, end2) - Math.max(start1, start2);
+			}
+
+			/** Adds the parts of the free area not covered by the placed area. */
+			private void split (Area area, Area placed) {
+				if (placed.x > area.x) free.add(new Area(area.x, area.y, placed.x - area.x, area.height));
+				if (placed.x + placed.width < area.x + area.width)
+					free.add(new Area(placed.x + placed.width, area.y, area.x + area.width - placed.x - placed.width, area.height));
+				if (placed.y > area.y) free.add(new Area(area.x, area.y, area.width, placed.y - area.y));
+				if (placed.y + placed.height < area.y + area.height)
+					free.add(new Area(area.x, placed.y + placed.height, area.width, area.y + area.height - placed.y - placed.height));
+			}
+
+			/** Removes free areas contained in other free areas. */
+			private void prune () {
+				for (int i = 0; i < free.size; i++) {
+					Area a = free.get(i);
+					for (int j = i + 1; j < free.size; j++) {
+						Area b = free.get(j);
+						if (b.contains(a)) {
+							free.removeIndex(i--);
+							break;
+						}
+						if (a.contains(b)) free.removeIndex(j--);
+					}
+				}
+			}
+
+			static class Area {
+				final int x, y, width, height;
+
+				Area (int x, int y, int width, int height) {
+					this.x = x;
+					this.y = y;
+					this.width = width;
+					this.height = height;
+				}
+
+				boolean intersects (Area other) {
+					return x < other.x + other.width && x + width > other.x && y < other.y + other.height && y + height > other.y;
+				}
+
+				boolean contains (Area other) {
+					return other.x >= x && other.y >= y && other.x + other.width <= x + width && other.y + other.height <= y + height;
+				}
+			}
+		}
+	}
+
 	/** @see PixmapPacker#setTransparentColor(Color color) */
 	public Color getTransparentColor () {
 		return this.transparentColor;
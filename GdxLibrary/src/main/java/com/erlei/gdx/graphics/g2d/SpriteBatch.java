@@ -36,7 +36,8 @@ import com.erlei.gdx.utils.NumberUtils;
  * @author Nathan Sweet */
 public class SpriteBatch implements Batch {
 	/** @deprecated Do not use, this field is for testing only and is likely to be removed. Sets the {@link VertexDataType} to be
-	 *             used when gles 3 is not available, defaults to {@link VertexDataType#VertexArray}. */
+	 *             used when gles 3 is not available, defaults to {@link VertexDataType#VertexArray}.
+	 *             {@link VertexDataType#VertexBufferObjectRing} streams the vertices with buffer orphaning instead. */
 	@Deprecated public static VertexDataType defaultVertexDataType = VertexDataType.VertexArray;
 
 	private Mesh mesh;
@@ -95,11 +96,17 @@ public class SpriteBatch implements Batch {
 	 * @param size The max number of sprites in a single batch. Max of 8191.
 	 * @param defaultShader The default shader to use. This is not owned by the SpriteBatch and must be disposed separately. */
 	public SpriteBatch (int size, ShaderProgram defaultShader) {
+		this(size, defaultShader, (Gdx.gl30 != null) ? VertexDataType.VertexBufferObjectRing : defaultVertexDataType);
+	}
+
+	/** Constructs a new SpriteBatch that stores its vertices in the given {@link VertexDataType}. By default
+	 * {@link VertexDataType#VertexBufferObjectRing} is used with GL30, which streams the vertices of each flush behind the ones
+	 * of the previous flush, so the upload does not wait for the previous draw.
+	 * @see SpriteBatch#SpriteBatch(int, ShaderProgram) */
+	public SpriteBatch (int size, ShaderProgram defaultShader, VertexDataType vertexDataType) {
 		// 32767 is max vertex index, so 32767 / 4 vertices per sprite = 8191 sprites max.
 		if (size > 8191) throw new IllegalArgumentException("Can't have more than 8191 sprites per batch: " + size);
 
-		VertexDataType vertexDataType = (Gdx.gl30 != null) ? VertexDataType.VertexBufferObjectWithVAO : defaultVertexDataType;
-
 		mesh = new Mesh(vertexDataType, false, size * 4, size * 6,
 			new VertexAttribute(Usage.Position, 2, ShaderProgram.POSITION_ATTRIBUTE),
 			new VertexAttribute(Usage.ColorPacked, 4, ShaderProgram.COLOR_ATTRIBUTE),
@@ -964,8 +971,6 @@ public class SpriteBatch implements Batch {
 		lastTexture.bind();
 		Mesh mesh = this.mesh;
 		mesh.setVertices(vertices, 0, idx);
-		mesh.getIndicesBuffer().position(0);
-		mesh.getIndicesBuffer().limit(count);
 
 		if (blendingDisabled) {
 			Gdx.gl.glDisable(GL20.GL_BLEND);
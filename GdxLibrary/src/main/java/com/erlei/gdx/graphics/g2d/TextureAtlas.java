@@ -31,16 +31,25 @@ import com.erlei.gdx.graphics.g2d.TextureAtlas.TextureAtlasData.Region;
 import com.erlei.gdx.utils.Array;
 import com.erlei.gdx.utils.Disposable;
 import com.erlei.gdx.utils.GdxRuntimeException;
+import com.erlei.gdx.utils.ObjectIntMap;
 import com.erlei.gdx.utils.ObjectMap;
 import com.erlei.gdx.utils.ObjectSet;
 import com.erlei.gdx.utils.StreamUtils;
 
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.util.Comparator;
 
 /** Loads images from texture atlases created by TexturePacker.<br>
+ * <br>
+ * Besides the text format written by TexturePacker, atlases can be stored in a compact binary format written by
+ * {@link TextureAtlasData#writeBinary(FileHandle, FileHandle)}, which loads with a single read. The format is detected from the
+ * content of the pack file. Regions are looked up by name through a hash index.<br>
  * <br>
  * A TextureAtlas must be disposed to free up the resources consumed by the backing textures.
  * @author Nathan Sweet */
@@ -49,6 +58,9 @@ public class TextureAtlas implements Disposable {
 
 	private final ObjectSet<Texture> textures = new ObjectSet(4);
 	private final Array<AtlasRegion> regions = new Array();
+	/** The regions by name in the order of {@link #regions}, for the first {@link #indexedSize} regions. */
+	private final ObjectMap<String, Array<AtlasRegion>> regionsByName = new ObjectMap();
+	private int indexedSize;
 
 	public static class TextureAtlasData {
 		public static class Page {
@@ -97,7 +109,16 @@ public class TextureAtlas implements Disposable {
 		final Array<Page> pages = new Array();
 		final Array<Region> regions = new Array();
 
+		/** Reads a pack file in the text or in the binary format. */
 		public TextureAtlasData (FileHandle packFile, FileHandle imagesDir, boolean flip) {
+			if (isBinary(packFile))
+				readBinary(packFile, imagesDir, flip);
+			else
+				readText(packFile, imagesDir, flip);
+			regions.sort(indexComparator);
+		}
+
+		private void readText (FileHandle packFile, FileHandle imagesDir, boolean flip) {
 			BufferedReader reader = new BufferedReader(new InputStreamReader(packFile.read()), 64);
 			try {
 				Page pageImage = null;
@@ -186,8 +207,145 @@ public class TextureAtlas implements Disposable {
 			} finally {
 				StreamUtils.closeQuietly(reader);
 			}
+		}
 
-			regions.sort(indexComparator);
+		private void readBinary (FileHandle packFile, FileHandle imagesDir, boolean flip) {
+			ByteBuffer buffer = packFile.readByteBuffer();
+			try {
+				buffer.getInt(); // magic
+				int version = buffer.get();
+				if (version != BINARY_VERSION) throw new GdxRuntimeException("Unsupported binary atlas version: " + version);
+
+				// Every distinct string is stored once, regions with the same name share the instance.
+				String[] strings = new String[readVarInt(buffer)];
+				byte[] bytes = new byte[64];
+				for (int i = 0; i < strings.length; i++) {
+					int length = readVarInt(buffer);
+					if (bytes.length < length) bytes = new byte[length];
+					buffer.get(bytes, 0, length);
+					strings[i] = new String(bytes, 0, length, "UTF-8");
+				}
+
+				Page[] pages = new Page[readVarInt(buffer)];
+				for (int i = 0; i < pages.length; i++) {
+					FileHandle file = imagesDir.child(strings[readVarInt(buffer)]);
+					int width = readVarInt(buffer), height = readVarInt(buffer);
+					Format format = Format.valueOf(strings[readVarInt(buffer)]);
+					TextureFilter min = TextureFilter.valueOf(strings[readVarInt(buffer)]);
+					TextureFilter max = TextureFilter.valueOf(strings[readVarInt(buffer)]);
+					int repeat = buffer.get();
+					pages[i] = new Page(file, width, height, min.isMipMap(), format, min, max, (repeat & 1) != 0 ? Repeat : ClampToEdge,
+						(repeat & 2) != 0 ? Repeat : ClampToEdge);
+					this.pages.add(pages[i]);
+				}
+
+				int count = readVarInt(buffer);
+				regions.ensureCapacity(count);
+				for (int i = 0; i < count; i++) {
+					Region region = new Region();
+					region.page = pages[readVarInt(buffer)];
+					region.name = strings[readVarInt(buffer)];
+					region.index = readVarInt(buffer);
+					region.left = readVarInt(buffer);
+					region.top = readVarInt(buffer);
+					region.width = readVarInt(buffer);
+					region.height = readVarInt(buffer);
+					region.originalWidth = readVarInt(buffer);
+					region.originalHeight = readVarInt(buffer);
+					region.offsetX = buffer.getFloat();
+					region.offsetY = buffer.getFloat();
+					int flags = buffer.get();
+					region.rotate = (flags & 1) != 0;
+					if ((flags & 2) != 0) region.splits = new int[] {readVarInt(buffer), readVarInt(buffer), readVarInt(buffer),
+						readVarInt(buffer)};
+					if ((flags & 4) != 0)
+						region.pads = new int[] {readVarInt(buffer), readVarInt(buffer), readVarInt(buffer), readVarInt(buffer)};
+					if (flip) region.flip = true;
+					regions.add(region);
+				}
+			} catch (IOException ex) {
+				throw new GdxRuntimeException("Error reading pack file: " + packFile, ex);
+			} catch (RuntimeException ex) {
+				throw new GdxRuntimeException("Error reading pack file: " + packFile, ex);
+			}
+		}
+
+		/** Writes the pages and regions in the binary format, which {@link #TextureAtlasData(FileHandle, FileHandle, boolean)}
+		 * reads faster than the text format. Use it to convert atlases written by TexturePacker at build time.
+		 * @param imagesDir the directory the page images are stored relative to */
+		public void writeBinary (FileHandle file, FileHandle imagesDir) {
+			ObjectIntMap<String> stringIndices = new ObjectIntMap<String>();
+			Array<String> strings = new Array<String>();
+			String dir = imagesDir.path().replace('\\', '/');
+			if (dir.length() > 0 && !dir.endsWith("/")) dir += "/";
+			String[] pageFiles = new String[pages.size];
+			for (int i = 0; i < pages.size; i++) {
+				Page page = pages.get(i);
+				String path = page.textureFile.path().replace('\\', '/');
+				pageFiles[i] = dir.length() > 0 && path.startsWith(dir) ? path.substring(dir.length()) : page.textureFile.name();
+				addString(pageFiles[i], strings, stringIndices);
+				addString(page.format.name(), strings, stringIndices);
+				addString(page.minFilter.name(), strings, stringIndices);
+				addString(page.magFilter.name(), strings, stringIndices);
+			}
+			for (Region region : regions)
+				addString(region.name, strings, stringIndices);
+
+			DataOutputStream output = new DataOutputStream(file.write(false, 8192));
+			try {
+				output.writeInt(BINARY_MAGIC);
+				output.writeByte(BINARY_VERSION);
+				writeVarInt(output, strings.size);
+				for (String string : strings) {
+					byte[] bytes = string.getBytes("UTF-8");
+					writeVarInt(output, bytes.length);
+					output.write(bytes);
+				}
+
+				ObjectIntMap<Page> pageIndices = new ObjectIntMap<Page>();
+				writeVarInt(output, pages.size);
+				for (int i = 0; i < pages.size; i++) {
+					Page page = pages.get(i);
+					pageIndices.put(page, i);
+					writeVarInt(output, stringIndices.get(pageFiles[i], 0));
+					writeVarInt(output, (int)page.width);
+					writeVarInt(output, (int)page.height);
+					writeVarInt(output, stringIndices.get(page.format.name(), 0));
+					writeVarInt(output, stringIndices.get(page.minFilter.name(), 0));
+					writeVarInt(output, stringIndices.get(page.magFilter.name(), 0));
+					output.writeByte((page.uWrap == Repeat ? 1 : 0) | (page.vWrap == Repeat ? 2 : 0));
+				}
+
+				writeVarInt(output, regions.size);
+				for (Region region : regions) {
+					writeVarInt(output, pageIndices.get(region.page, 0));
+					writeVarInt(output, stringIndices.get(region.name, 0));
+					writeVarInt(output, region.index);
+					writeVarInt(output, region.left);
+					writeVarInt(output, region.top);
+					writeVarInt(output, region.width);
+					writeVarInt(output, region.height);
+					writeVarInt(output, region.originalWidth);
+					writeVarInt(output, region.originalHeight);
+					output.writeFloat(region.offsetX);
+					output.writeFloat(region.offsetY);
+					output.writeByte((region.rotate ? 1 : 0) | (region.splits != null ? 2 : 0) | (region.pads != null ? 4 : 0));
+					if (region.splits != null) for (int value : region.splits)
+						writeVarInt(output, value);
+					if (region.pads != null) for (int value : region.pads)
+						writeVarInt(output, value);
+				}
+			} catch (IOException ex) {
+				throw new GdxRuntimeException("Error writing pack file: " + file, ex);
+			} finally {
+				StreamUtils.closeQuietly(output);
+			}
+		}
+
+		private static void addString (String string, Array<String> strings, ObjectIntMap<String> stringIndices) {
+			if (stringIndices.containsKey(string)) return;
+			stringIndices.put(string, strings.size);
+			strings.add(string);
 		}
 
 		public Array<Page> getPages () {
@@ -288,40 +446,61 @@ public class TextureAtlas implements Disposable {
 			textureRegion.getRegionWidth(), textureRegion.getRegionHeight());
 	}
 
-	/** Returns all regions in the atlas. */
+	/** Returns all regions in the atlas. Regions added to the array are found by name, after removing or renaming regions
+	 * {@link #invalidateIndex()} has to be called. */
 	public Array<AtlasRegion> getRegions () {
 		return regions;
 	}
 
-	/** Returns the first region found with the specified name. This method uses string comparison to find the region, so the result
-	 * should be cached rather than calling this method multiple times.
+	/** Rebuilds the name index on the next lookup. Only needed after regions were removed from, replaced in or renamed in
+	 * {@link #getRegions()}. */
+	public void invalidateIndex () {
+		regionsByName.clear();
+		indexedSize = 0;
+	}
+
+	/** @return the regions with the name in the order of {@link #getRegions()}, or null */
+	private Array<AtlasRegion> indexed (String name) {
+		if (regions.size < indexedSize) invalidateIndex();
+		Object[] items = regions.items;
+		for (int n = regions.size; indexedSize < n; indexedSize++) {
+			AtlasRegion region = (AtlasRegion)items[indexedSize];
+			Array<AtlasRegion> named = regionsByName.get(region.name);
+			if (named == null) regionsByName.put(region.name, named = new Array(true, 1, AtlasRegion.class));
+			named.add(region);
+		}
+		return regionsByName.get(name);
+	}
+
+	/** Returns the first region found with the specified name. This method uses a hash lookup, the result may still be cached
+	 * rather than calling this method multiple times.
 	 * @return The region, or null. */
 	public AtlasRegion findRegion (String name) {
-		for (int i = 0, n = regions.size; i < n; i++)
-			if (regions.get(i).name.equals(name)) return regions.get(i);
-		return null;
+		Array<AtlasRegion> named = indexed(name);
+		return named != null ? named.first() : null;
 	}
 
-	/** Returns the first region found with the specified name and index. This method uses string comparison to find the region, so
-	 * the result should be cached rather than calling this method multiple times.
+	/** Returns the first region found with the specified name and index. This method uses a hash lookup, the result may still be
+	 * cached rather than calling this method multiple times.
 	 * @return The region, or null. */
 	public AtlasRegion findRegion (String name, int index) {
-		for (int i = 0, n = regions.size; i < n; i++) {
-			AtlasRegion region = regions.get(i);
-			if (!region.name.equals(name)) continue;
-			if (region.index != index) continue;
-			return region;
+		Array<AtlasRegion> named = indexed(name);
+		if (named == null) return null;
+		for (int i = 0, n = named.size; i < n; i++) {
+			AtlasRegion region = named.get(i);
+			if (region.index == index) return region;
 		}
 		return null;
 	}
 
 	/** Returns all regions with the specified name, ordered by smallest to largest {@link AtlasRegion#index index}. This method
-	 * uses string comparison to find the regions, so the result should be cached rather than calling this method multiple times. */
+	 * uses a hash lookup and copies the regions, so the result should be cached rather than calling this method multiple times. */
 	public Array<AtlasRegion> findRegions (String name) {
-		Array<AtlasRegion> matched = new Array(AtlasRegion.class);
-		for (int i = 0, n = regions.size; i < n; i++) {
-			AtlasRegion region = regions.get(i);
-			if (region.name.equals(name)) matched.add(new AtlasRegion(region));
+		Array<AtlasRegion> named = indexed(name);
+		Array<AtlasRegion> matched = new Array(true, named != null ? named.size : 0, AtlasRegion.class);
+		if (named != null) {
+			for (int i = 0, n = named.size; i < n; i++)
+				matched.add(new AtlasRegion(named.get(i)));
 		}
 		return matched;
 	}
@@ -337,38 +516,32 @@ public class TextureAtlas implements Disposable {
 	}
 
 	/** Returns the first region found with the specified name as a sprite. If whitespace was stripped from the region when it was
-	 * packed, the sprite is automatically positioned as if whitespace had not been stripped. This method uses string comparison to
-	 * find the region and constructs a new sprite, so the result should be cached rather than calling this method multiple times.
+	 * packed, the sprite is automatically positioned as if whitespace had not been stripped. This method constructs a new sprite,
+	 * so the result should be cached rather than calling this method multiple times.
 	 * @return The sprite, or null. */
 	public Sprite createSprite (String name) {
-		for (int i = 0, n = regions.size; i < n; i++)
-			if (regions.get(i).name.equals(name)) return newSprite(regions.get(i));
-		return null;
+		AtlasRegion region = findRegion(name);
+		return region != null ? newSprite(region) : null;
 	}
 
-	/** Returns the first region found with the specified name and index as a sprite. This method uses string comparison to find the
-	 * region and constructs a new sprite, so the result should be cached rather than calling this method multiple times.
+	/** Returns the first region found with the specified name and index as a sprite. This method constructs a new sprite, so the
+	 * result should be cached rather than calling this method multiple times.
 	 * @return The sprite, or null.
 	 * @see #createSprite(String) */
 	public Sprite createSprite (String name, int index) {
-		for (int i = 0, n = regions.size; i < n; i++) {
-			AtlasRegion region = regions.get(i);
-			if (!region.name.equals(name)) continue;
-			if (region.index != index) continue;
-			return newSprite(regions.get(i));
-		}
-		return null;
+		AtlasRegion region = findRegion(name, index);
+		return region != null ? newSprite(region) : null;
 	}
 
 	/** Returns all regions with the specified name as sprites, ordered by smallest to largest {@link AtlasRegion#index index}. This
-	 * method uses string comparison to find the regions and constructs new sprites, so the result should be cached rather than
-	 * calling this method multiple times.
+	 * method constructs new sprites, so the result should be cached rather than calling this method multiple times.
 	 * @see #createSprite(String) */
 	public Array<Sprite> createSprites (String name) {
-		Array<Sprite> matched = new Array(Sprite.class);
-		for (int i = 0, n = regions.size; i < n; i++) {
-			AtlasRegion region = regions.get(i);
-			if (region.name.equals(name)) matched.add(newSprite(region));
+		Array<AtlasRegion> named = indexed(name);
+		Array<Sprite> matched = new Array(true, named != null ? named.size : 0, Sprite.class);
+		if (named != null) {
+			for (int i = 0, n = named.size; i < n; i++)
+				matched.add(newSprite(named.get(i)));
 		}
 		return matched;
 	}
@@ -387,21 +560,17 @@ public class TextureAtlas implements Disposable {
 	}
 
 	/** Returns the first region found with the specified name as a {@link NinePatch}. The region must have been packed with
-	 * ninepatch splits. This method uses string comparison to find the region and constructs a new ninepatch, so the result should
-	 * be cached rather than calling this method multiple times.
+	 * ninepatch splits. This method constructs a new ninepatch, so the result should be cached rather than calling this method
+	 * multiple times.
 	 * @return The ninepatch, or null. */
 	public NinePatch createPatch (String name) {
-		for (int i = 0, n = regions.size; i < n; i++) {
-			AtlasRegion region = regions.get(i);
-			if (region.name.equals(name)) {
-				int[] splits = region.splits;
-				if (splits == null) throw new IllegalArgumentException("Region does not have ninepatch splits: " + name);
-				NinePatch patch = new NinePatch(region, splits[0], splits[1], splits[2], splits[3]);
-				if (region.pads != null) patch.setPadding(region.pads[0], region.pads[1], region.pads[2], region.pads[3]);
-				return patch;
-			}
-		}
-		return null;
+		AtlasRegion region = findRegion(name);
+		if (region == null) return null;
+		int[] splits = region.splits;
+		if (splits == null) throw new IllegalArgumentException("Region does not have ninepatch splits: " + name);
+		NinePatch patch = new NinePatch(region, splits[0], splits[1], splits[2], splits[3]);
+		if (region.pads != null) patch.setPadding(region.pads[0], region.pads[1], region.pads[2], region.pads[3]);
+		return patch;
 	}
 
 	/** @return the textures of the pages, unordered */
@@ -427,6 +596,50 @@ public class TextureAtlas implements Disposable {
 		}
 	};
 
+	/** The first bytes of a pack file in the binary format. The first byte is not ASCII, so no text pack file starts like this. */
+	static final int BINARY_MAGIC = 0x89415441;
+	static final byte BINARY_VERSION = 1;
+
+	/** @return whether the pack file starts with {@link #BINARY_MAGIC} */
+	static boolean isBinary (FileHandle packFile) {
+		InputStream input = packFile.read();
+		try {
+			int magic = 0;
+			for (int i = 0; i < 4; i++) {
+				int b = input.read();
+				if (b == -1) return false;
+				magic = magic << 8 | b;
+			}
+			return magic == BINARY_MAGIC;
+		} catch (IOException ex) {
+			throw new GdxRuntimeException("Error reading pack file: " + packFile, ex);
+		} finally {
+			StreamUtils.closeQuietly(input);
+		}
+	}
+
+	/** Reads a zigzag encoded variable length int. */
+	static int readVarInt (ByteBuffer buffer) {
+		int result = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = buffer.get();
+			result |= (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) break;
+			if (shift >= 28) throw new GdxRuntimeException("Malformed variable length int.");
+		}
+		return (result >>> 1) ^ -(result & 1);
+	}
+
+	/** Writes a zigzag encoded variable length int, 1 byte for values from -64 to 63. */
+	static void writeVarInt (DataOutputStream output, int value) throws IOException {
+		value = (value << 1) ^ (value >> 31);
+		while ((value & ~0x7f) != 0) {
+			output.writeByte((value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		output.writeByte(value);
+	}
+
 	static String readValue (BufferedReader reader) throws IOException {
 		String line = reader.readLine();
 		int colon = line.indexOf(':');
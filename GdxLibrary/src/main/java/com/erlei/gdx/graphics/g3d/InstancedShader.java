@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g3d;
+
+import com.erlei.gdx.graphics.Camera;
+import com.erlei.gdx.graphics.g3d.utils.RenderContext;
+import com.erlei.gdx.utils.Array;
+
+/** A {@link Shader} that can render several {@link Renderable}s sharing the same mesh part, material and environment with one
+ * instanced draw call. {@link ModelBatch} groups such renderables when their shader implements this interface.
+ * @see com.erlei.gdx.graphics.g3d.shaders.InstancedDefaultShader */
+public interface InstancedShader extends Shader {
+	/** Checks whether the {@link Renderable} may be drawn together with others sharing its mesh part, material and environment.
+	 * Renderables which depend on their render order, e.g. blended ones, should not be instanced. This is expected to be a fast,
+	 * non-blocking method.
+	 * @param renderable The renderable to check, {@link #canRender(Renderable)} returned true for it.
+	 * @return true if the renderable can be instanced. */
+	boolean canInstance(Renderable renderable);
+
+	/** Renders the {@link Renderable}s with as few draw calls as possible, must be called between
+	 * {@link #begin(Camera, RenderContext)} and {@link #end()}. Only the world transform of each renderable is used, all other
+	 * values are taken from the first one.
+	 * @param instances The renderables to render, they share the same mesh part, material and environment and
+	 *           {@link #canInstance(Renderable)} returned true for each of them. */
+	void render(final Array<Renderable> instances);
+}
@@ -16,6 +16,8 @@
 
 package com.erlei.gdx.graphics.g3d;
 
+import java.nio.FloatBuffer;
+
 import com.erlei.gdx.assets.loaders.ModelLoader;
 import com.erlei.gdx.graphics.GL20;
 import com.erlei.gdx.graphics.Mesh;
@@ -235,16 +237,24 @@ public class Model implements Disposable {
 	protected void convertMesh (ModelMesh modelMesh) {
 		int numIndices = 0;
 		for (ModelMeshPart part : modelMesh.parts) {
-			numIndices += part.indices.length;
+			numIndices += part.indexBuffer != null ? part.indexBuffer.limit() : part.indices.length;
 		}
 		VertexAttributes attributes = new VertexAttributes(modelMesh.attributes);
-		int numVertices = modelMesh.vertices.length / (attributes.vertexSize / 4);
+		int numFloats = modelMesh.vertexBuffer != null ? modelMesh.vertexBuffer.limit() : modelMesh.vertices.length;
+		int numVertices = numFloats / (attributes.vertexSize / 4);
 
 		Mesh mesh = new Mesh(true, numVertices, numIndices, attributes);
 		meshes.add(mesh);
 		disposables.add(mesh);
 
-		BufferUtils.copy(modelMesh.vertices, mesh.getVerticesBuffer(), modelMesh.vertices.length, 0);
+		if (modelMesh.vertexBuffer != null) {
+			// both buffers are direct and native ordered, so this is a plain memory copy
+			FloatBuffer vertices = mesh.getVerticesBuffer();
+			vertices.clear();
+			vertices.put(modelMesh.vertexBuffer.duplicate());
+			vertices.flip();
+		} else
+			BufferUtils.copy(modelMesh.vertices, mesh.getVerticesBuffer(), modelMesh.vertices.length, 0);
 		int offset = 0;
 		mesh.getIndicesBuffer().clear();
 		for (ModelMeshPart part : modelMesh.parts) {
@@ -252,9 +262,14 @@ public class Model implements Disposable {
 			meshPart.id = part.id;
 			meshPart.primitiveType = part.primitiveType;
 			meshPart.offset = offset;
-			meshPart.size = part.indices.length;
 			meshPart.mesh = mesh;
-			mesh.getIndicesBuffer().put(part.indices);
+			if (part.indexBuffer != null) {
+				meshPart.size = part.indexBuffer.limit();
+				mesh.getIndicesBuffer().put(part.indexBuffer.duplicate());
+			} else {
+				meshPart.size = part.indices.length;
+				mesh.getIndicesBuffer().put(part.indices);
+			}
 			offset += meshPart.size;
 			meshParts.add(meshPart);
 		}
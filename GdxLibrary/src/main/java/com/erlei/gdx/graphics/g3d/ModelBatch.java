@@ -18,10 +18,13 @@ package com.erlei.gdx.graphics.g3d;
 
 import com.erlei.gdx.files.FileHandle;
 import com.erlei.gdx.graphics.Camera;
+import com.erlei.gdx.graphics.g3d.model.MeshPart;
 import com.erlei.gdx.graphics.g3d.shaders.DefaultShader;
+import com.erlei.gdx.graphics.g3d.shaders.InstancedDefaultShader;
 import com.erlei.gdx.graphics.g3d.utils.DefaultRenderableSorter;
 import com.erlei.gdx.graphics.g3d.utils.DefaultShaderProvider;
 import com.erlei.gdx.graphics.g3d.utils.DefaultTextureBinder;
+import com.erlei.gdx.graphics.g3d.utils.InstancedShaderProvider;
 import com.erlei.gdx.graphics.g3d.utils.RenderContext;
 import com.erlei.gdx.graphics.g3d.utils.RenderableSorter;
 import com.erlei.gdx.graphics.g3d.utils.ShaderProvider;
@@ -29,7 +32,9 @@ import com.erlei.gdx.utils.Array;
 import com.erlei.gdx.utils.Disposable;
 import com.erlei.gdx.utils.FlushablePool;
 import com.erlei.gdx.utils.GdxRuntimeException;
+import com.erlei.gdx.utils.ObjectMap;
 import com.erlei.gdx.utils.Pool;
+import com.erlei.gdx.utils.Pool.Poolable;
 
 /** Batches {@link Renderable} instances, fetches {@link Shader}s for them, sorts them and then renders them. Fetching the shaders
  * is done using a {@link ShaderProvider}, which defaults to {@link DefaultShaderProvider}. Sorting the renderables is done using
@@ -39,6 +44,10 @@ import com.erlei.gdx.utils.Pool;
  * 
  * To provide multiple {@link Renderable}s at once a {@link RenderableProvider} can be used, e.g. a {@link ModelInstance}.
  * 
+ * Renderables whose shader is an {@link InstancedShader} are grouped by shader, mesh part, material and environment and each
+ * group is rendered with one instanced draw call. Use an {@link InstancedShaderProvider} to render with
+ * {@link InstancedDefaultShader}s on OpenGL ES 3.0.
+ * 
  * @author xoppa, badlogic */
 public class ModelBatch implements Disposable {
 	protected static class RenderablePool extends FlushablePool<Renderable> {
@@ -59,6 +68,50 @@ public class ModelBatch implements Disposable {
 		}
 	}
 
+	/** Identifies the renderables an {@link InstancedShader} can render with one draw call. */
+	protected static class InstanceKey implements Poolable {
+		public Shader shader;
+		public MeshPart meshPart;
+		public Material material;
+		public Environment environment;
+
+		public InstanceKey set (final Renderable renderable) {
+			shader = renderable.shader;
+			meshPart = renderable.meshPart;
+			material = renderable.material;
+			environment = renderable.environment;
+			return this;
+		}
+
+		@Override
+		public void reset () {
+			shader = null;
+			meshPart = null;
+			material = null;
+			environment = null;
+		}
+
+		@Override
+		public int hashCode () {
+			int result = System.identityHashCode(shader);
+			result = 31 * result + System.identityHashCode(meshPart.mesh);
+			result = 31 * result + meshPart.offset;
+			result = 31 * result + meshPart.size;
+			result = 31 * result + meshPart.primitiveType;
+			// equal materials have the same id, this avoids hashing all attributes
+			result = 31 * result + (material == null ? 0 : material.id.hashCode());
+			return 31 * result + System.identityHashCode(environment);
+		}
+
+		@Override
+		public boolean equals (final Object obj) {
+			if (!(obj instanceof InstanceKey)) return false;
+			final InstanceKey other = (InstanceKey)obj;
+			return shader == other.shader && environment == other.environment && meshPart.equals(other.meshPart)
+				&& (material == other.material || (material != null && material.equals(other.material)));
+		}
+	}
+
 	protected Camera camera;
 	protected final RenderablePool renderablesPool = new RenderablePool();
 	/** list of Renderables to be rendered in the current batch **/
@@ -70,6 +123,22 @@ public class ModelBatch implements Disposable {
 	protected final ShaderProvider shaderProvider;
 	/** the {@link RenderableSorter} **/
 	protected final RenderableSorter sorter;
+	/** for each of the {@link #renderables} the group it is rendered with, null if it isn't instanced **/
+	protected final Array<Array<Renderable>> instanceGroups = new Array<Array<Renderable>>();
+	private final ObjectMap<InstanceKey, Array<Renderable>> instances = new ObjectMap<InstanceKey, Array<Renderable>>();
+	private final InstanceKey tmpKey = new InstanceKey();
+	private final Pool<InstanceKey> keyPool = new Pool<InstanceKey>() {
+		@Override
+		protected InstanceKey newObject () {
+			return new InstanceKey();
+		}
+	};
+	private final Pool<Array<Renderable>> groupPool = new Pool<Array<Renderable>>() {
+		@Override
+		protected Array<Renderable> newObject () {
+			return new Array<Renderable>(false, 16, Renderable.class);
+		}
+	};
 
 	/** Construct a ModelBatch, using this constructor makes you responsible for calling context.begin() and context.end() yourself.
 	 * @param context The {@link RenderContext} to use.
@@ -195,6 +264,7 @@ public class ModelBatch implements Disposable {
 	 * {@link #begin(Camera)} and before the call to {@link #end()}. */
 	public void flush () {
 		sorter.sort(camera, renderables);
+		groupInstances();
 		Shader currentShader = null;
 		for (int i = 0; i < renderables.size; i++) {
 			final Renderable renderable = renderables.get(i);
@@ -203,13 +273,54 @@ public class ModelBatch implements Disposable {
 				currentShader = renderable.shader;
 				currentShader.begin(camera, context);
 			}
-			currentShader.render(renderable);
+			final Array<Renderable> group = instanceGroups.get(i);
+			if (group != null && group.size > 1)
+				((InstancedShader)currentShader).render(group);
+			else
+				currentShader.render(renderable);
 		}
 		if (currentShader != null) currentShader.end();
+		clearInstances();
 		renderablesPool.flush();
 		renderables.clear();
 	}
 
+	/** Groups the sorted {@link #renderables} which an {@link InstancedShader} can render together. Each group takes the place of
+	 * its first renderable, the others are removed from the renderables. The order of renderables which can't be instanced is
+	 * kept, see {@link InstancedShader#canInstance(Renderable)}. Fills {@link #instanceGroups}. */
+	protected void groupInstances () {
+		final Array<Renderable> renderables = this.renderables;
+		int n = 0;
+		for (int i = 0; i < renderables.size; i++) {
+			final Renderable renderable = renderables.get(i);
+			Array<Renderable> group = null;
+			if (renderable.shader instanceof InstancedShader && ((InstancedShader)renderable.shader).canInstance(renderable)) {
+				group = instances.get(tmpKey.set(renderable));
+				if (group != null) {
+					group.add(renderable);
+					continue;
+				}
+				group = groupPool.obtain();
+				group.add(renderable);
+				instances.put(keyPool.obtain().set(renderable), group);
+			}
+			renderables.set(n++, renderable);
+			instanceGroups.add(group);
+		}
+		renderables.truncate(n);
+		tmpKey.reset();
+	}
+
+	private void clearInstances () {
+		for (ObjectMap.Entry<InstanceKey, Array<Renderable>> entry : instances) {
+			keyPool.free(entry.key);
+			entry.value.clear();
+			groupPool.free(entry.value);
+		}
+		instances.clear();
+		instanceGroups.clear();
+	}
+
 	/** End rendering one or more {@link Renderable}s. Must be called after a call to {@link #begin(Camera)}. This will flush the
 	 * batch, causing any renderables provided using one of the render() methods to be rendered. After a call to this method the
 	 * OpenGL context can be altered again. */
@@ -39,7 +39,8 @@ import com.erlei.gdx.utils.Pool;
  * @author badlogic, xoppa */
 public class ModelInstance implements RenderableProvider {
 	/** Whether, by default, {@link NodeKeyframe}'s are shared amongst {@link Model} and ModelInstance. Can be overridden per
-	 * ModelInstance using the constructor argument. */
+	 * ModelInstance using the constructor argument. Baked {@link com.erlei.gdx.graphics.g3d.model.AnimationTrack}s are only
+	 * shared along with the keyframes. */
 	public static boolean defaultShareKeyframes = true;
 
 	/** the materials of the model, used by nodes that have a graphical representation FIXME not sure if superfluous, allows
@@ -298,6 +299,9 @@ public class ModelInstance implements RenderableProvider {
 					nodeAnim.translation = nanim.translation;
 					nodeAnim.rotation = nanim.rotation;
 					nodeAnim.scaling = nanim.scaling;
+					nodeAnim.translationTrack = nanim.translationTrack;
+					nodeAnim.rotationTrack = nanim.rotationTrack;
+					nodeAnim.scalingTrack = nanim.scalingTrack;
 				} else {
 					if (nanim.translation != null) {
 						nodeAnim.translation = new Array<NodeKeyframe<Vector3>>();
@@ -41,11 +41,13 @@ import com.erlei.gdx.utils.ArrayMap;
 import com.erlei.gdx.utils.BaseJsonReader;
 import com.erlei.gdx.utils.GdxRuntimeException;
 import com.erlei.gdx.utils.JsonValue;
+import com.erlei.gdx.utils.TimeUtils;
 
 public class G3dModelLoader extends ModelLoader<ModelLoader.ModelParameters> {
 	public static final short VERSION_HI = 0;
 	public static final short VERSION_LO = 1;
 	protected final BaseJsonReader reader;
+	private long parseTime, parseSize;
 
 	public G3dModelLoader (final BaseJsonReader reader) {
 		this(reader, null);
@@ -61,9 +63,16 @@ public class G3dModelLoader extends ModelLoader<ModelLoader.ModelParameters> {
 		return parseModel(fileHandle);
 	}
 
+	/** Parses the model. If the reader is a {@link G3dbReader} the meshes are streamed into {@link ModelMesh#vertexBuffer} and
+	 * {@link ModelMeshPart#indexBuffer} instead of {@link ModelMesh#vertices} and {@link ModelMeshPart#indices}. */
 	public ModelData parseModel (FileHandle handle) {
-		JsonValue json = reader.parse(handle);
+		long start = TimeUtils.nanoTime();
 		ModelData model = new ModelData();
+		JsonValue json;
+		if (reader instanceof G3dbReader)
+			json = ((G3dbReader)reader).parse(handle, model);
+		else
+			json = reader.parse(handle);
 		JsonValue version = json.require("version");
 		model.version[0] = version.getShort(0);
 		model.version[1] = version.getShort(1);
@@ -75,9 +84,26 @@ public class G3dModelLoader extends ModelLoader<ModelLoader.ModelParameters> {
 		parseMaterials(model, json, handle.parent().path());
 		parseNodes(model, json);
 		parseAnimations(model, json);
+		parseTime = TimeUtils.nanoTime() - start;
+		parseSize = handle.length();
 		return model;
 	}
 
+	/** @return the duration of the last {@link #parseModel(FileHandle)} in nanoseconds */
+	public long getParseTime () {
+		return parseTime;
+	}
+
+	/** @return the size of the file parsed last in bytes */
+	public long getParseSize () {
+		return parseSize;
+	}
+
+	/** @return the bytes parsed per second by the last {@link #parseModel(FileHandle)} */
+	public float getParseThroughput () {
+		return parseTime == 0 ? 0 : parseSize * 1000000000f / parseTime;
+	}
+
 	private void parseMeshes (ModelData model, JsonValue json) {
 		JsonValue meshes = json.get("meshes");
 		if (meshes != null) {
@@ -123,7 +149,7 @@ public class G3dModelLoader extends ModelLoader<ModelLoader.ModelParameters> {
 		}
 	}
 
-	private int parseType (String type) {
+	static int parseType (String type) {
 		if (type.equals("TRIANGLES")) {
 			return GL20.GL_TRIANGLES;
 		} else if (type.equals("LINES")) {
@@ -140,7 +166,7 @@ public class G3dModelLoader extends ModelLoader<ModelLoader.ModelParameters> {
 		}
 	}
 
-	private VertexAttribute[] parseAttributes (JsonValue attributes) {
+	static VertexAttribute[] parseAttributes (JsonValue attributes) {
 		Array<VertexAttribute> vertexAttributes = new Array<VertexAttribute>();
 		int unit = 0;
 		int blendWeightCount = 0;
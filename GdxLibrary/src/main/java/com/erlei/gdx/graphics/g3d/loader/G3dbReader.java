@@ -0,0 +1,310 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g3d.loader;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import com.erlei.gdx.files.FileHandle;
+import com.erlei.gdx.graphics.g3d.model.data.ModelData;
+import com.erlei.gdx.graphics.g3d.model.data.ModelMesh;
+import com.erlei.gdx.graphics.g3d.model.data.ModelMeshPart;
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.BufferUtils;
+import com.erlei.gdx.utils.GdxRuntimeException;
+import com.erlei.gdx.utils.JsonValue;
+import com.erlei.gdx.utils.SerializationException;
+import com.erlei.gdx.utils.StreamUtils;
+import com.erlei.gdx.utils.UBJsonReader;
+
+/** Streams the meshes of a G3DB file into {@link ModelMesh#vertexBuffer} and {@link ModelMeshPart#indexBuffer}, direct buffers of
+ * native order, instead of building a {@link JsonValue} per vertex component and index. Typed arrays of floats and shorts are
+ * copied in chunks, the byte order is swapped by the buffer views. Everything but the meshes is small and parsed into a
+ * {@link JsonValue} tree as usual.
+ * <p>
+ * Pass it to a {@link G3dModelLoader} to use it, {@link ModelMesh#vertices} and {@link ModelMeshPart#indices} of the models the
+ * loader loads are then null. Code reading the vertices or indices of the {@link ModelData} has to use the buffers.
+ * @see G3dModelLoader#parseModel(FileHandle) */
+public class G3dbReader extends UBJsonReader {
+	private final byte[] chunk = new byte[8192];
+	private final ByteBuffer chunkBuffer = ByteBuffer.wrap(chunk);
+	private final FloatBuffer chunkFloats = chunkBuffer.asFloatBuffer();
+	private final ShortBuffer chunkShorts = chunkBuffer.asShortBuffer();
+
+	/** Parses the file, adding its meshes to the model.
+	 * @return the root object without the meshes */
+	public JsonValue parse (FileHandle file, ModelData model) {
+		DataInputStream din = null;
+		try {
+			din = new DataInputStream(file.read(8192));
+			if (din.readByte() != '{') throw new GdxRuntimeException("G3DB root must be an object.");
+			JsonValue root = new JsonValue(JsonValue.ValueType.object);
+			JsonValue prev = null;
+			for (Container entries = new Container(din, true); entries.hasNext(); entries.advance(din)) {
+				String key = entries.key(din);
+				byte type = entries.valueType(din);
+				if (key.equals("meshes")) {
+					parseMeshes(din, type, model.meshes);
+					continue;
+				}
+				JsonValue child = parse(din, type);
+				child.setName(key);
+				child.parent = root;
+				if (prev != null) {
+					child.prev = prev;
+					prev.next = child;
+					root.size++;
+				} else {
+					root.child = child;
+					root.size = 1;
+				}
+				prev = child;
+			}
+			return root;
+		} catch (IOException ex) {
+			throw new SerializationException("Error parsing file: " + file, ex);
+		} finally {
+			StreamUtils.closeQuietly(din);
+		}
+	}
+
+	private void parseMeshes (DataInputStream din, byte type, Array<ModelMesh> meshes) throws IOException {
+		if (type != '[') throw new GdxRuntimeException("meshes must be an array");
+		for (Container array = new Container(din, false); array.hasNext(); array.advance(din)) {
+			if (array.next != '{') throw new GdxRuntimeException("A mesh must be an object");
+			ModelMesh mesh = new ModelMesh();
+			mesh.id = "";
+			Array<ModelMeshPart> parts = new Array<ModelMeshPart>();
+			for (Container object = new Container(din, true); object.hasNext(); object.advance(din)) {
+				String key = object.key(din);
+				byte valueType = object.valueType(din);
+				if (key.equals("id"))
+					mesh.id = parseString(din, valueType);
+				else if (key.equals("attributes"))
+					mesh.attributes = G3dModelLoader.parseAttributes(parse(din, valueType));
+				else if (key.equals("vertices"))
+					mesh.vertexBuffer = parseFloats(din, valueType);
+				else if (key.equals("parts"))
+					parseParts(din, valueType, parts);
+				else
+					parse(din, valueType);
+			}
+			if (mesh.attributes == null) throw new GdxRuntimeException("Mesh '" + mesh.id + "' has no attributes");
+			if (mesh.vertexBuffer == null) throw new GdxRuntimeException("Mesh '" + mesh.id + "' has no vertices");
+			mesh.parts = parts.toArray(ModelMeshPart.class);
+			meshes.add(mesh);
+		}
+	}
+
+	private void parseParts (DataInputStream din, byte type, Array<ModelMeshPart> parts) throws IOException {
+		if (type != '[') throw new GdxRuntimeException("parts must be an array");
+		for (Container array = new Container(din, false); array.hasNext(); array.advance(din)) {
+			if (array.next != '{') throw new GdxRuntimeException("A mesh part must be an object");
+			ModelMeshPart part = new ModelMeshPart();
+			String primitiveType = null;
+			for (Container object = new Container(din, true); object.hasNext(); object.advance(din)) {
+				String key = object.key(din);
+				byte valueType = object.valueType(din);
+				if (key.equals("id"))
+					part.id = parseString(din, valueType);
+				else if (key.equals("type"))
+					primitiveType = parseString(din, valueType);
+				else if (key.equals("indices"))
+					part.indexBuffer = parseShorts(din, valueType);
+				else
+					parse(din, valueType);
+			}
+			if (part.id == null) throw new GdxRuntimeException("Not id given for mesh part");
+			for (ModelMeshPart other : parts)
+				if (other.id.equals(part.id))
+					throw new GdxRuntimeException("Mesh part with id '" + part.id + "' already in defined");
+			if (primitiveType == null) throw new GdxRuntimeException("No primitive type given for mesh part '" + part.id + "'");
+			part.primitiveType = G3dModelLoader.parseType(primitiveType);
+			if (part.indexBuffer == null) throw new GdxRuntimeException("Mesh part '" + part.id + "' has no indices");
+			parts.add(part);
+		}
+	}
+
+	/** @return the numbers of the array in a direct buffer, flipped */
+	private FloatBuffer parseFloats (DataInputStream din, byte type) throws IOException {
+		byte dataType;
+		long size;
+		if (type == 'a' || type == 'A') {
+			dataType = din.readByte();
+			size = type == 'A' ? readUInt(din) : readUChar(din);
+		} else if (type == '[') {
+			Container array = new Container(din, false);
+			if (array.valueType == 0 || array.size < 0) {
+				// every value has its own type or the size is unknown
+				FloatBuffer buffer = BufferUtils.newFloatBuffer(array.size > 0 ? (int)array.size : 1024);
+				for (; array.hasNext(); array.advance(din)) {
+					if (!buffer.hasRemaining()) buffer = grow(buffer);
+					buffer.put((float)parseNumber(din, array.next));
+				}
+				buffer.flip();
+				return buffer;
+			}
+			dataType = array.valueType;
+			size = array.size;
+		} else
+			throw new GdxRuntimeException("Number array expected");
+
+		FloatBuffer buffer = BufferUtils.newFloatBuffer((int)size);
+		if (dataType == 'd') {
+			for (int remaining = (int)size; remaining > 0;) {
+				int count = Math.min(remaining, chunk.length / 4);
+				din.readFully(chunk, 0, count * 4);
+				chunkFloats.position(0);
+				chunkFloats.limit(count);
+				buffer.put(chunkFloats);
+				remaining -= count;
+			}
+		} else {
+			for (long i = 0; i < size; i++)
+				buffer.put((float)parseNumber(din, dataType));
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	/** @return the integers of the array in a direct buffer, flipped */
+	private ShortBuffer parseShorts (DataInputStream din, byte type) throws IOException {
+		byte dataType;
+		long size;
+		if (type == 'a' || type == 'A') {
+			dataType = din.readByte();
+			size = type == 'A' ? readUInt(din) : readUChar(din);
+		} else if (type == '[') {
+			Container array = new Container(din, false);
+			if (array.valueType == 0 || array.size < 0) {
+				ShortBuffer buffer = BufferUtils.newShortBuffer(array.size > 0 ? (int)array.size : 1024);
+				for (; array.hasNext(); array.advance(din)) {
+					if (!buffer.hasRemaining()) buffer = grow(buffer);
+					buffer.put((short)parseNumber(din, array.next));
+				}
+				buffer.flip();
+				return buffer;
+			}
+			dataType = array.valueType;
+			size = array.size;
+		} else
+			throw new GdxRuntimeException("Number array expected");
+
+		ShortBuffer buffer = BufferUtils.newShortBuffer((int)size);
+		if ((dataType == 'i' && oldFormat) || (dataType == 'I' && !oldFormat)) {
+			for (int remaining = (int)size; remaining > 0;) {
+				int count = Math.min(remaining, chunk.length / 2);
+				din.readFully(chunk, 0, count * 2);
+				chunkShorts.position(0);
+				chunkShorts.limit(count);
+				buffer.put(chunkShorts);
+				remaining -= count;
+			}
+		} else {
+			for (long i = 0; i < size; i++)
+				buffer.put((short)parseNumber(din, dataType));
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private double parseNumber (DataInputStream din, byte type) throws IOException {
+		switch (type) {
+		case 'd':
+			return din.readFloat();
+		case 'D':
+			return din.readDouble();
+		case 'B':
+		case 'U':
+			return readUChar(din);
+		case 'i':
+			return oldFormat ? din.readShort() : din.readByte();
+		case 'I':
+			return oldFormat ? din.readInt() : din.readShort();
+		case 'l':
+			return din.readInt();
+		case 'L':
+			return din.readLong();
+		default:
+			throw new GdxRuntimeException("Number expected: " + (char)type);
+		}
+	}
+
+	static private FloatBuffer grow (FloatBuffer buffer) {
+		FloatBuffer result = BufferUtils.newFloatBuffer(buffer.capacity() * 2);
+		buffer.flip();
+		result.put(buffer);
+		return result;
+	}
+
+	static private ShortBuffer grow (ShortBuffer buffer) {
+		ShortBuffer result = BufferUtils.newShortBuffer(buffer.capacity() * 2);
+		buffer.flip();
+		result.put(buffer);
+		return result;
+	}
+
+	/** The entries of an array or an object, read after its opening marker. Mirrors the optimized container format handled by
+	 * {@link #parseArray(DataInputStream)} and {@link #parseObject(DataInputStream)}. */
+	private class Container {
+		final boolean object;
+		/** the type of all values, 0 if every value has its own type **/
+		byte valueType;
+		/** the amount of entries, -1 if the container ends with a marker **/
+		long size = -1;
+		long index;
+		/** the type of the next key of an object or of the next value of an array, read ahead **/
+		byte next;
+
+		Container (DataInputStream din, boolean object) throws IOException {
+			this.object = object;
+			byte type = din.readByte();
+			if (type == '$') {
+				valueType = din.readByte();
+				type = din.readByte();
+			}
+			if (type == '#') {
+				size = parseSize(din, false, -1);
+				if (size < 0) throw new GdxRuntimeException("Unrecognized data type");
+				if (size > 0) type = object || valueType == 0 ? din.readByte() : valueType;
+			}
+			next = type;
+		}
+
+		boolean hasNext () {
+			return size >= 0 ? index < size : next != (object ? '}' : ']');
+		}
+
+		/** @return the key of the next entry of an object */
+		String key (DataInputStream din) throws IOException {
+			return parseString(din, true, next);
+		}
+
+		/** @return the type of the value of the next entry of an object, after its {@link #key(DataInputStream)} */
+		byte valueType (DataInputStream din) throws IOException {
+			return valueType == 0 ? din.readByte() : valueType;
+		}
+
+		void advance (DataInputStream din) throws IOException {
+			if (size >= 0 && ++index >= size) return;
+			next = object || valueType == 0 ? din.readByte() : valueType;
+		}
+	}
+}
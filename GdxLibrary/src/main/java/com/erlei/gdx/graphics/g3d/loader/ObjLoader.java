@@ -40,10 +40,17 @@ import com.erlei.gdx.math.Quaternion;
 import com.erlei.gdx.math.Vector3;
 import com.erlei.gdx.utils.Array;
 import com.erlei.gdx.utils.FloatArray;
+import com.erlei.gdx.utils.GdxRuntimeException;
+import com.erlei.gdx.utils.IntArray;
+import com.erlei.gdx.utils.ShortArray;
+import com.erlei.gdx.utils.async.AsyncExecutor;
+import com.erlei.gdx.utils.async.AsyncResult;
+import com.erlei.gdx.utils.async.AsyncTask;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
 
 /**
  * {@link ModelLoader} to load Wavefront OBJ files. Only intended for testing basic models/meshes and educational usage. The
@@ -61,6 +68,12 @@ import java.io.InputStreamReader;
  * materials. In that case the MTL filename (might be case-sensitive) is expected to be located relative to the OBJ file. The MTL
  * file might reference one or more texture files, in which case those filename(s) are expected to be located relative to the MTL
  * file.</p>
+ * <p>
+ * The file is read as bytes, memory mapped if possible, and numbers are parsed in place without creating strings. Large files are
+ * split into chunks of whole lines, which are first counted and then parsed in parallel on the threads of an
+ * {@link AsyncExecutor}, each writing its vertices to its own range of the shared arrays. The faces are merged in file order and
+ * the distinct position, normal and texture coordinate combinations of every group become the vertices of an indexed mesh, split
+ * into several meshes if a group has more than {@link Short#MAX_VALUE} of them.</p>
  *
  * @author mzechner, espitz, xoppa
  */
@@ -71,6 +84,11 @@ public class ObjLoader extends ModelLoader<ObjLoader.ObjLoaderParameters> {
      */
     public static boolean logWarning = false;
 
+    /**
+     * The bytes a chunk parsed by a task has at least.
+     */
+    static final int MIN_CHUNK_SIZE = 1024 * 1024;
+
     public static class ObjLoaderParameters extends ModelLoader.ModelParameters {
         public boolean flipV;
 
@@ -82,17 +100,26 @@ public class ObjLoader extends ModelLoader<ObjLoader.ObjLoaderParameters> {
         }
     }
 
-    final FloatArray verts = new FloatArray(300);
-    final FloatArray norms = new FloatArray(300);
-    final FloatArray uvs = new FloatArray(200);
     final Array<Group> groups = new Array<Group>(10);
+    private final AsyncExecutor executor;
+    private final Array<AsyncResult<Void>> results = new Array<AsyncResult<Void>>();
+    private final VertexMap vertexMap = new VertexMap();
 
     public ObjLoader() {
         this(null);
     }
 
     public ObjLoader(FileHandleResolver resolver) {
+        this(resolver, null);
+    }
+
+    /**
+     * @param executor executor to split large files among, parses them on the calling thread if null. Must not be the executor
+     *                 of the {@link AssetManager} loading the model or any other executor the loading thread belongs to.
+     */
+    public ObjLoader(FileHandleResolver resolver, AsyncExecutor executor) {
         super(resolver);
+        this.executor = executor;
     }
 
     /**
@@ -110,192 +137,233 @@ public class ObjLoader extends ModelLoader<ObjLoader.ObjLoaderParameters> {
     protected ModelData loadModelData(FileHandle file, boolean flipV) {
         if (logWarning)
             Logger.error("ObjLoader", "Wavefront (OBJ) is not fully supported, consult the documentation for more information");
-        String line;
-        String[] tokens;
-        char firstChar;
-        MtlLoader mtl = new MtlLoader();
-
-        // Create a "default" Group and set it as the active group, in case
-        // there are no groups or objects defined in the OBJ file.
-        Group activeGroup = new Group("default");
-        groups.add(activeGroup);
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(file.read()), 4096);
-        int id = 0;
         try {
-            while ((line = reader.readLine()) != null) {
-
-                tokens = line.split("\\s+");
-                if (tokens.length < 1) break;
-
-                if (tokens[0].length() == 0) {
-                    continue;
-                } else if ((firstChar = tokens[0].toLowerCase().charAt(0)) == '#') {
-                    continue;
-                } else if (firstChar == 'v') {
-                    if (tokens[0].length() == 1) {
-                        verts.add(Float.parseFloat(tokens[1]));
-                        verts.add(Float.parseFloat(tokens[2]));
-                        verts.add(Float.parseFloat(tokens[3]));
-                    } else if (tokens[0].charAt(1) == 'n') {
-                        norms.add(Float.parseFloat(tokens[1]));
-                        norms.add(Float.parseFloat(tokens[2]));
-                        norms.add(Float.parseFloat(tokens[3]));
-                    } else if (tokens[0].charAt(1) == 't') {
-                        uvs.add(Float.parseFloat(tokens[1]));
-                        uvs.add((flipV ? 1 - Float.parseFloat(tokens[2]) : Float.parseFloat(tokens[2])));
-                    }
-                } else if (firstChar == 'f') {
-                    String[] parts;
-                    Array<Integer> faces = activeGroup.faces;
-                    for (int i = 1; i < tokens.length - 2; i--) {
-                        parts = tokens[1].split("/");
-                        faces.add(getIndex(parts[0], verts.size));
-                        if (parts.length > 2) {
-                            if (i == 1) activeGroup.hasNorms = true;
-                            faces.add(getIndex(parts[2], norms.size));
-                        }
-                        if (parts.length > 1 && parts[1].length() > 0) {
-                            if (i == 1) activeGroup.hasUVs = true;
-                            faces.add(getIndex(parts[1], uvs.size));
-                        }
-                        parts = tokens[++i].split("/");
-                        faces.add(getIndex(parts[0], verts.size));
-                        if (parts.length > 2) faces.add(getIndex(parts[2], norms.size));
-                        if (parts.length > 1 && parts[1].length() > 0)
-                            faces.add(getIndex(parts[1], uvs.size));
-                        parts = tokens[++i].split("/");
-                        faces.add(getIndex(parts[0], verts.size));
-                        if (parts.length > 2) faces.add(getIndex(parts[2], norms.size));
-                        if (parts.length > 1 && parts[1].length() > 0)
-                            faces.add(getIndex(parts[1], uvs.size));
-                        activeGroup.numFaces++;
+            final Chunk[] chunks = split(file.readByteBuffer());
+            parallel(chunks, false, null, null, null, flipV);
+            int positions = 0, normals = 0, uvs = 0;
+            for (Chunk chunk : chunks) {
+                chunk.positionOffset = positions;
+                chunk.normalOffset = normals;
+                chunk.uvOffset = uvs;
+                positions += chunk.positions;
+                normals += chunk.normals;
+                uvs += chunk.uvs;
+            }
+            final float[] positionData = new float[positions * 3];
+            final float[] normalData = new float[normals * 3];
+            final float[] uvData = new float[uvs * 2];
+            parallel(chunks, true, positionData, normalData, uvData, flipV);
+
+            // Create a "default" Group and set it as the active group, in case
+            // there are no groups or objects defined in the OBJ file.
+            MtlLoader mtl = new MtlLoader();
+            Group activeGroup = new Group("default");
+            groups.add(activeGroup);
+            for (int c = 0; c < chunks.length; c++) {
+                Chunk chunk = chunks[c];
+                int corner = 0;
+                for (Statement statement : chunk.statements) {
+                    activeGroup.addCorners(c, corner, statement.corner);
+                    corner = statement.corner;
+                    if (statement.keyword == GROUP) {
+                        // This implementation only supports single object or group
+                        // definitions. i.e. "o group_a group_b" will set group_a
+                        // as the active group, while group_b will simply be
+                        // ignored.
+                        activeGroup = setActiveGroup(statement.value != null ? statement.value : "default");
+                    } else if (statement.keyword == MTLLIB) {
+                        if (statement.value != null) mtl.load(file.parent().child(statement.value));
+                    } else if (statement.keyword == USEMTL) {
+                        activeGroup.materialName = statement.value != null ? statement.value.replace('.', '_') : "default";
                     }
-                } else if (firstChar == 'o' || firstChar == 'g') {
-                    // This implementation only supports single object or group
-                    // definitions. i.e. "o group_a group_b" will set group_a
-                    // as the active group, while group_b will simply be
-                    // ignored.
-                    if (tokens.length > 1)
-                        activeGroup = setActiveGroup(tokens[1]);
-                    else
-                        activeGroup = setActiveGroup("default");
-                } else if (tokens[0].equals("mtllib")) {
-                    mtl.load(file.parent().child(tokens[1]));
-                } else if (tokens[0].equals("usemtl")) {
-                    if (tokens.length == 1)
-                        activeGroup.materialName = "default";
-                    else
-                        activeGroup.materialName = tokens[1].replace('.', '_');
                 }
+                activeGroup.addCorners(c, corner, chunk.corners.size / 3);
             }
-            reader.close();
-        } catch (IOException e) {
-            return null;
-        }
 
-        // If the "default" group or any others were not used, get rid of them
-        for (int i = 0; i < groups.size; i++) {
-            if (groups.get(i).numFaces < 1) {
-                groups.removeIndex(i);
-                i--;
+            // If the "default" group or any others were not used, get rid of them
+            for (int i = 0; i < groups.size; i++) {
+                if (groups.get(i).numFaces < 1) {
+                    groups.removeIndex(i);
+                    i--;
+                }
             }
-        }
-
-        // If there are no groups left, there is no valid Model to return
-        if (groups.size < 1) return null;
 
-        // Get number of objects/groups remaining after removing empty ones
-        final int numGroups = groups.size;
-
-        final ModelData data = new ModelData();
+            // If there are no groups left, there is no valid Model to return
+            if (groups.size < 1) return null;
+
+            final ModelData data = new ModelData();
+            for (int g = 0, id = 0; g < groups.size; g++) {
+                Group group = groups.get(g);
+                String stringId = Integer.toString(++id);
+                ModelNode node = new ModelNode();
+                node.id = "default".equals(group.name) ? "node" + stringId : group.name;
+                node.scale = new Vector3(1, 1, 1);
+                node.translation = new Vector3();
+                node.rotation = new Quaternion();
+                String meshId = "default".equals(group.name) ? "mesh" + stringId : group.name;
+                String partId = "default".equals(group.name) ? "part" + stringId : group.name;
+                node.meshId = meshId;
+                Array<ModelNodePart> nodeParts = new Array<ModelNodePart>(ModelNodePart.class);
+                buildMeshes(group, chunks, positionData, normalData, uvData, meshId, partId, data, nodeParts);
+                node.parts = nodeParts.toArray();
+                data.nodes.add(node);
+                ModelMaterial mm = mtl.getMaterial(group.materialName);
+                data.materials.add(mm);
+            }
 
-        for (int g = 0; g < numGroups; g++) {
-            Group group = groups.get(g);
-            Array<Integer> faces = group.faces;
-            final int numElements = faces.size;
-            final int numFaces = group.numFaces;
-            final boolean hasNorms = group.hasNorms;
-            final boolean hasUVs = group.hasUVs;
+            return data;
+        } finally {
+            // An instance of ObjLoader can be used to load more than one OBJ.
+            // Clearing the Array cache instead of instantiating new
+            // Arrays should result in slightly faster load times for
+            // subsequent calls to loadObj, also after a file failed to load
+            groups.clear();
+            vertexMap.clear();
+        }
+    }
 
-            final float[] finalVerts = new float[(numFaces * 3) * (3 + (hasNorms ? 3 : 0) + (hasUVs ? 2 : 0))];
+    /**
+     * Splits the bytes into chunks of whole lines, one if there is no executor.
+     */
+    private Chunk[] split(ByteBuffer bytes) {
+        final int size = bytes.limit();
+        int count = executor == null ? 1 : Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() * 2, size / MIN_CHUNK_SIZE));
+        Array<Chunk> chunks = new Array<Chunk>(count);
+        int start = 0;
+        for (int i = 1; i <= count && start < size; i++) {
+            int end = i == count ? size : (int) ((long) size * i / count);
+            while (end < size && bytes.get(end - 1) != '\n')
+                end++;
+            if (end > start) chunks.add(new Chunk(bytes, start, end));
+            start = end;
+        }
+        if (chunks.size == 0) chunks.add(new Chunk(bytes, 0, 0));
+        return chunks.toArray(Chunk.class);
+    }
 
-            for (int i = 0, vi = 0; i < numElements; ) {
-                int vertIndex = faces.get(i++) * 3;
-                finalVerts[vi++] = verts.get(vertIndex++);
-                finalVerts[vi++] = verts.get(vertIndex++);
-                finalVerts[vi++] = verts.get(vertIndex);
-                if (hasNorms) {
-                    int normIndex = faces.get(i++) * 3;
-                    finalVerts[vi++] = norms.get(normIndex++);
-                    finalVerts[vi++] = norms.get(normIndex++);
-                    finalVerts[vi++] = norms.get(normIndex);
-                }
-                if (hasUVs) {
-                    int uvIndex = faces.get(i++) * 2;
-                    finalVerts[vi++] = uvs.get(uvIndex++);
-                    finalVerts[vi++] = uvs.get(uvIndex);
+    /**
+     * Counts or parses the chunks on the executor, the calling thread takes the last chunk, and waits for all of them.
+     */
+    private void parallel(final Chunk[] chunks, final boolean parse, final float[] positions, final float[] normals,
+                          final float[] uvs, final boolean flipV) {
+        results.clear();
+        for (int i = 0; i < chunks.length - 1; i++) {
+            final Chunk chunk = chunks[i];
+            results.add(executor.submit(new AsyncTask<Void>() {
+                public Void call() throws Exception {
+                    if (parse)
+                        chunk.parse(positions, normals, uvs, flipV);
+                    else
+                        chunk.count();
+                    return null;
                 }
+            }));
+        }
+        try {
+            Chunk chunk = chunks[chunks.length - 1];
+            if (parse)
+                chunk.parse(positions, normals, uvs, flipV);
+            else
+                chunk.count();
+        } finally {
+            for (int i = 0; i < results.size; i++)
+                results.get(i).get();
+            results.clear();
+        }
+    }
+
+    /**
+     * Builds the meshes of the group, each with at most {@link Short#MAX_VALUE} distinct vertices, and adds them to the data and
+     * their parts to the node parts.
+     */
+    private void buildMeshes(Group group, Chunk[] chunks, float[] positions, float[] normals, float[] uvs, String meshId,
+                             String partId, ModelData data, Array<ModelNodePart> nodeParts) {
+        final IntArray ranges = group.ranges;
+        boolean hasNorms = false, hasUVs = false;
+        for (int r = 0; r < ranges.size; r += 3) {
+            final int[] corners = chunks[ranges.get(r)].corners.items;
+            for (int i = ranges.get(r + 1) * 3, end = ranges.get(r + 2) * 3; i < end; i += 3) {
+                if (corners[i + 1] >= 0) hasNorms = true;
+                if (corners[i + 2] >= 0) hasUVs = true;
             }
+        }
 
-            final int numIndices = numFaces * 3 >= Short.MAX_VALUE ? 0 : numFaces * 3;
-            final short[] finalIndices = new short[numIndices];
-            // if there are too many vertices in a mesh, we can't use indices
-            if (numIndices > 0) {
-                for (int i = 0; i < numIndices; i++) {
-                    finalIndices[i] = (short) i;
+        Array<VertexAttribute> attributes = new Array<VertexAttribute>();
+        attributes.add(new VertexAttribute(Usage.Position, 3, ShaderProgram.POSITION_ATTRIBUTE));
+        if (hasNorms)
+            attributes.add(new VertexAttribute(Usage.Normal, 3, ShaderProgram.NORMAL_ATTRIBUTE));
+        if (hasUVs)
+            attributes.add(new VertexAttribute(Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"));
+        final VertexAttribute[] vertexAttributes = attributes.toArray(VertexAttribute.class);
+
+        final VertexMap map = vertexMap;
+        map.clear();
+        final FloatArray vertices = new FloatArray((3 + (hasNorms ? 3 : 0) + (hasUVs ? 2 : 0)) * 1024);
+        final ShortArray indices = new ShortArray(3 * 1024);
+        int batch = 0;
+        for (int r = 0; r < ranges.size; r += 3) {
+            final int[] corners = chunks[ranges.get(r)].corners.items;
+            for (int i = ranges.get(r + 1) * 3, end = ranges.get(r + 2) * 3; i < end; i += 9) {
+                if (map.size > Short.MAX_VALUE - 3) {
+                    addMesh(vertexAttributes, vertices, indices, meshId, partId, group.materialName, batch++, data, nodeParts);
+                    map.clear();
+                }
+                for (int c = i; c < i + 9; c += 3) {
+                    final int v = corners[c], n = hasNorms ? corners[c + 1] : -1, t = hasUVs ? corners[c + 2] : -1;
+                    int index = map.get(v, n, t);
+                    if (index < 0) {
+                        index = map.size;
+                        map.put(v, n, t, index);
+                        if (v < 0 || v * 3 + 2 >= positions.length)
+                            throw new GdxRuntimeException("Vertex index out of range: " + (v + 1));
+                        vertices.add(positions[v * 3], positions[v * 3 + 1], positions[v * 3 + 2]);
+                        if (hasNorms) {
+                            if (n >= normals.length / 3)
+                                throw new GdxRuntimeException("Normal index out of range: " + (n + 1));
+                            if (n < 0)
+                                vertices.add(0, 0, 0);
+                            else
+                                vertices.add(normals[n * 3], normals[n * 3 + 1], normals[n * 3 + 2]);
+                        }
+                        if (hasUVs) {
+                            if (t >= uvs.length / 2)
+                                throw new GdxRuntimeException("Texture coordinate index out of range: " + (t + 1));
+                            if (t < 0)
+                                vertices.add(0, 0);
+                            else
+                                vertices.add(uvs[t * 2], uvs[t * 2 + 1]);
+                        }
+                    }
+                    indices.add((short) index);
                 }
             }
+        }
+        addMesh(vertexAttributes, vertices, indices, meshId, partId, group.materialName, batch, data, nodeParts);
+    }
 
-            Array<VertexAttribute> attributes = new Array<VertexAttribute>();
-            attributes.add(new VertexAttribute(Usage.Position, 3, ShaderProgram.POSITION_ATTRIBUTE));
-            if (hasNorms)
-                attributes.add(new VertexAttribute(Usage.Normal, 3, ShaderProgram.NORMAL_ATTRIBUTE));
-            if (hasUVs)
-                attributes.add(new VertexAttribute(Usage.TextureCoordinates, 2, ShaderProgram.TEXCOORD_ATTRIBUTE + "0"));
-
-            String stringId = Integer.toString(++id);
-            String nodeId = "default".equals(group.name) ? "node" + stringId : group.name;
-            String meshId = "default".equals(group.name) ? "mesh" + stringId : group.name;
-            String partId = "default".equals(group.name) ? "part" + stringId : group.name;
-            ModelNode node = new ModelNode();
-            node.id = nodeId;
-            node.meshId = meshId;
-            node.scale = new Vector3(1, 1, 1);
-            node.translation = new Vector3();
-            node.rotation = new Quaternion();
-            ModelNodePart pm = new ModelNodePart();
-            pm.meshPartId = partId;
-            pm.materialId = group.materialName;
-            node.parts = new ModelNodePart[]{pm};
-            ModelMeshPart part = new ModelMeshPart();
-            part.id = partId;
-            part.indices = finalIndices;
-            part.primitiveType = GL20.GL_TRIANGLES;
-            ModelMesh mesh = new ModelMesh();
-            mesh.id = meshId;
-            mesh.attributes = attributes.toArray(VertexAttribute.class);
-            mesh.vertices = finalVerts;
-            mesh.parts = new ModelMeshPart[]{part};
-            data.nodes.add(node);
-            data.meshes.add(mesh);
-            ModelMaterial mm = mtl.getMaterial(group.materialName);
-            data.materials.add(mm);
-        }
-
-        // for (ModelMaterial m : mtl.materials)
-        // data.materials.add(m);
-
-        // An instance of ObjLoader can be used to load more than one OBJ.
-        // Clearing the Array cache instead of instantiating new
-        // Arrays should result in slightly faster load times for
-        // subsequent calls to loadObj
-        if (verts.size > 0) verts.clear();
-        if (norms.size > 0) norms.clear();
-        if (uvs.size > 0) uvs.clear();
-        if (groups.size > 0) groups.clear();
-
-        return data;
+    private void addMesh(VertexAttribute[] attributes, FloatArray vertices, ShortArray indices, String meshId, String partId,
+                         String materialId, int batch, ModelData data, Array<ModelNodePart> nodeParts) {
+        if (batch > 0) {
+            meshId += "_" + batch;
+            partId += "_" + batch;
+        }
+        ModelMeshPart part = new ModelMeshPart();
+        part.id = partId;
+        part.indices = indices.toArray();
+        part.primitiveType = GL20.GL_TRIANGLES;
+        ModelMesh mesh = new ModelMesh();
+        mesh.id = meshId;
+        mesh.attributes = attributes;
+        mesh.vertices = vertices.toArray();
+        mesh.parts = new ModelMeshPart[]{part};
+        data.meshes.add(mesh);
+        ModelNodePart pm = new ModelNodePart();
+        pm.meshPartId = partId;
+        pm.materialId = materialId;
+        nodeParts.add(pm);
+        vertices.clear();
+        indices.clear();
     }
 
     private Group setActiveGroup(String name) {
@@ -309,31 +377,376 @@ public class ObjLoader extends ModelLoader<ObjLoader.ObjLoaderParameters> {
         return group;
     }
 
-    private int getIndex(String index, int size) {
-        if (index == null || index.length() == 0) return 0;
-        final int idx = Integer.parseInt(index);
-        if (idx < 0)
-            return size + idx;
-        else
-            return idx - 1;
+    static final int OTHER = 0, POSITION = 1, NORMAL = 2, UV = 3, FACE = 4, GROUP = 5, MTLLIB = 6, USEMTL = 7;
+
+    /**
+     * A group, material or material library statement, applied before the corner at its index in the chunk.
+     */
+    static class Statement {
+        final int keyword;
+        final int corner;
+        final String value;
+
+        Statement(int keyword, int corner, String value) {
+            this.keyword = keyword;
+            this.corner = corner;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Whole lines of the file. The first pass counts their vertices, the second pass parses them into the ranges of the shared
+     * arrays starting at the offsets and collects the triangulated faces. Numbers are parsed from the bytes directly.
+     */
+    static class Chunk {
+        final ByteBuffer bytes;
+        final int start, end;
+        int positions, normals, uvs;
+        int positionOffset, normalOffset, uvOffset;
+        /**
+         * The position, normal and texture coordinate index of every triangle corner, -1 if there is none.
+         */
+        final IntArray corners = new IntArray();
+        final Array<Statement> statements = new Array<Statement>();
+        private final IntArray face = new IntArray();
+        private int pos;
+
+        Chunk(ByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+        }
+
+        void count() {
+            for (pos = start; pos < end; nextLine()) {
+                switch (keyword()) {
+                    case POSITION:
+                        positions++;
+                        break;
+                    case NORMAL:
+                        normals++;
+                        break;
+                    case UV:
+                        uvs++;
+                        break;
+                }
+            }
+        }
+
+        void parse(float[] positionData, float[] normalData, float[] uvData, boolean flipV) {
+            int positions = 0, normals = 0, uvs = 0;
+            for (pos = start; pos < end; nextLine()) {
+                final int keyword = keyword();
+                switch (keyword) {
+                    case POSITION: {
+                        int i = (positionOffset + positions++) * 3;
+                        positionData[i] = parseFloat();
+                        positionData[i + 1] = parseFloat();
+                        positionData[i + 2] = parseFloat();
+                        break;
+                    }
+                    case NORMAL: {
+                        int i = (normalOffset + normals++) * 3;
+                        normalData[i] = parseFloat();
+                        normalData[i + 1] = parseFloat();
+                        normalData[i + 2] = parseFloat();
+                        break;
+                    }
+                    case UV: {
+                        int i = (uvOffset + uvs++) * 2;
+                        uvData[i] = parseFloat();
+                        float v = parseFloat();
+                        uvData[i + 1] = flipV ? 1 - v : v;
+                        break;
+                    }
+                    case FACE:
+                        parseFace(positionOffset + positions, normalOffset + normals, uvOffset + uvs);
+                        break;
+                    case GROUP:
+                    case MTLLIB:
+                    case USEMTL:
+                        statements.add(new Statement(keyword, corners.size / 3, parseName()));
+                        break;
+                }
+            }
+        }
+
+        /**
+         * Reads the corners of the face and adds it as a fan of triangles.
+         */
+        private void parseFace(int positions, int normals, int uvs) {
+            final IntArray face = this.face;
+            face.clear();
+            while (skipSpaces()) {
+                int v = resolve(parseInt(), positions), t = -1, n = -1;
+                if (pos < end && bytes.get(pos) == '/') {
+                    pos++;
+                    if (pos < end && bytes.get(pos) != '/') t = resolve(parseInt(), uvs);
+                    if (pos < end && bytes.get(pos) == '/') {
+                        pos++;
+                        n = resolve(parseInt(), normals);
+                    }
+                }
+                face.add(v, n, t);
+                // skip anything else in the token
+                while (pos < end && !isSpace(bytes.get(pos)))
+                    pos++;
+            }
+            final int[] items = face.items;
+            for (int i = 3; i + 3 < face.size; i += 3) {
+                corners.add(items[0], items[1], items[2]);
+                corners.add(items[i], items[i + 1], items[i + 2]);
+                corners.add(items[i + 3], items[i + 4], items[i + 5]);
+            }
+        }
+
+        /**
+         * @return the index from 0 of the one based or negative relative index, -1 if it is 0 or missing
+         */
+        static private int resolve(int index, int size) {
+            if (index >= 0) return index - 1;
+            if (size + index < 0) throw new GdxRuntimeException("Relative index out of range: " + index);
+            return size + index;
+        }
+
+        /**
+         * @return the keyword of the line, moves past it
+         */
+        int keyword() {
+            if (!skipSpaces()) return OTHER;
+            int start = pos;
+            while (pos < end && !isSpace(bytes.get(pos)))
+                pos++;
+            int length = pos - start;
+            int c0 = bytes.get(start) | 0x20;
+            if (length == 1) {
+                if (c0 == 'v') return POSITION;
+                if (c0 == 'f') return FACE;
+                if (c0 == 'o' || c0 == 'g') return GROUP;
+            } else if (length == 2 && c0 == 'v') {
+                int c1 = bytes.get(start + 1) | 0x20;
+                if (c1 == 'n') return NORMAL;
+                if (c1 == 't') return UV;
+            } else if (length == 6) {
+                if (matches(start, "mtllib")) return MTLLIB;
+                if (matches(start, "usemtl")) return USEMTL;
+            }
+            return OTHER;
+        }
+
+        private boolean matches(int start, String keyword) {
+            for (int i = 0; i < keyword.length(); i++)
+                if (bytes.get(start + i) != keyword.charAt(i)) return false;
+            return true;
+        }
+
+        /**
+         * @return the next token of the line, null if there is none
+         */
+        private String parseName() {
+            if (!skipSpaces()) return null;
+            int start = pos;
+            while (pos < end && !isSpace(bytes.get(pos)))
+                pos++;
+            byte[] chars = new byte[pos - start];
+            for (int i = 0; i < chars.length; i++)
+                chars[i] = bytes.get(start + i);
+            try {
+                return new String(chars, "UTF-8");
+            } catch (java.io.UnsupportedEncodingException ex) {
+                throw new GdxRuntimeException(ex);
+            }
+        }
+
+        private void nextLine() {
+            while (pos < end && bytes.get(pos++) != '\n') ;
+        }
+
+        /**
+         * Skips spaces and tabs.
+         *
+         * @return false if the line ended
+         */
+        private boolean skipSpaces() {
+            while (pos < end) {
+                byte c = bytes.get(pos);
+                if (c == '\n' || c == '\r') return false;
+                if (c != ' ' && c != '\t') return true;
+                pos++;
+            }
+            return false;
+        }
+
+        static private boolean isSpace(byte c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+        }
+
+        private int parseInt() {
+            boolean negative = false;
+            if (pos < end && bytes.get(pos) == '-') {
+                negative = true;
+                pos++;
+            }
+            int value = 0;
+            while (pos < end) {
+                int digit = bytes.get(pos) - '0';
+                if (digit < 0 || digit > 9) break;
+                value = value * 10 + digit;
+                pos++;
+            }
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses the next number of the line, 0 if there is none. Falls back to {@link Float#parseFloat(String)} for anything but
+         * plain decimal numbers.
+         */
+        float parseFloat() {
+            if (!skipSpaces()) return 0;
+            final int start = pos;
+            boolean negative = false;
+            byte c = bytes.get(pos);
+            if (c == '-' || c == '+') {
+                negative = c == '-';
+                pos++;
+            }
+            long mantissa = 0;
+            int exponent = 0, digits = 0;
+            boolean any = false;
+            for (boolean fraction = false; pos < end; pos++) {
+                c = bytes.get(pos);
+                if (c == '.' && !fraction) {
+                    fraction = true;
+                    continue;
+                }
+                int digit = c - '0';
+                if (digit < 0 || digit > 9) break;
+                any = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + digit;
+                    if (mantissa != 0) digits++;
+                    if (fraction) exponent--;
+                } else if (!fraction)
+                    exponent++;
+            }
+            if (any && pos < end && (c == 'e' || c == 'E')) {
+                pos++;
+                boolean negativeExponent = false;
+                if (pos < end && (bytes.get(pos) == '-' || bytes.get(pos) == '+'))
+                    negativeExponent = bytes.get(pos++) == '-';
+                int value = 0;
+                while (pos < end) {
+                    int digit = bytes.get(pos) - '0';
+                    if (digit < 0 || digit > 9) break;
+                    if (value < 10000) value = value * 10 + digit;
+                    pos++;
+                }
+                exponent += negativeExponent ? -value : value;
+            }
+            if (!any || (pos < end && !isSpace(bytes.get(pos)))) {
+                // not a plain decimal number, like nan or inf
+                while (pos < end && !isSpace(bytes.get(pos)))
+                    pos++;
+                byte[] chars = new byte[pos - start];
+                for (int i = 0; i < chars.length; i++)
+                    chars[i] = bytes.get(start + i);
+                try {
+                    return Float.parseFloat(new String(chars, "ISO-8859-1"));
+                } catch (Exception ex) {
+                    throw new GdxRuntimeException("Invalid number: " + new String(chars), ex);
+                }
+            }
+            double value = mantissa;
+            if (exponent < 0)
+                value = -exponent < POW10.length ? value / POW10[-exponent] : value / Math.pow(10, -exponent);
+            else if (exponent > 0)
+                value = exponent < POW10.length ? value * POW10[exponent] : value * Math.pow(10, exponent);
+            return (float) (negative ? -value : value);
+        }
+
+        /**
+         * The powers of ten exactly representable as doubles.
+         */
+        static private final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14,
+                1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    }
+
+    /**
+     * Maps position, normal and texture coordinate index triplets to vertex indices, with open addressing in primitive arrays.
+     */
+    static class VertexMap {
+        int[] keys = new int[3 * 1024];
+        int[] values = new int[1024];
+        int size;
+        private int mask = 1023;
+
+        /**
+         * @return the vertex index of the triplet, -1 if it has none
+         */
+        int get(int v, int n, int t) {
+            for (int i = hash(v, n, t) & mask; ; i = (i + 1) & mask) {
+                int value = values[i];
+                if (value < 0) return -1;
+                if (keys[i * 3] == v && keys[i * 3 + 1] == n && keys[i * 3 + 2] == t) return value;
+            }
+        }
+
+        /**
+         * Adds the triplet, which must not be in the map yet.
+         */
+        void put(int v, int n, int t, int value) {
+            if (size * 2 >= values.length) resize(values.length * 2);
+            int i = hash(v, n, t) & mask;
+            while (values[i] >= 0)
+                i = (i + 1) & mask;
+            keys[i * 3] = v;
+            keys[i * 3 + 1] = n;
+            keys[i * 3 + 2] = t;
+            values[i] = value;
+            size++;
+        }
+
+        void clear() {
+            java.util.Arrays.fill(values, -1);
+            size = 0;
+        }
+
+        private void resize(int capacity) {
+            int[] oldKeys = keys, oldValues = values;
+            keys = new int[capacity * 3];
+            values = new int[capacity];
+            java.util.Arrays.fill(values, -1);
+            mask = capacity - 1;
+            size = 0;
+            for (int i = 0; i < oldValues.length; i++)
+                if (oldValues[i] >= 0) put(oldKeys[i * 3], oldKeys[i * 3 + 1], oldKeys[i * 3 + 2], oldValues[i]);
+        }
+
+        static private int hash(int v, int n, int t) {
+            int h = v * 0x9E3779B1 + n * 0x85EBCA77 + t * 0xC2B2AE3D;
+            return h ^ (h >>> 16);
+        }
     }
 
     private class Group {
         final String name;
         String materialName;
-        Array<Integer> faces;
+        /**
+         * The chunk index, first and end triangle corner of every range of faces of the group.
+         */
+        final IntArray ranges = new IntArray();
         int numFaces;
-        boolean hasNorms;
-        boolean hasUVs;
-        Material mat;
 
         Group(String name) {
             this.name = name;
-            this.faces = new Array<Integer>(200);
-            this.numFaces = 0;
-            this.mat = new Material("");
             this.materialName = "default";
         }
+
+        void addCorners(int chunk, int first, int end) {
+            if (end <= first) return;
+            ranges.add(chunk, first, end);
+            numFaces += (end - first) / 3;
+        }
     }
 }
 
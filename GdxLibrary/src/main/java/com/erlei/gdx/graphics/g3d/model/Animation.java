@@ -31,4 +31,11 @@ public class Animation {
 	public float duration;
 	/** the animation curves for individual nodes **/
 	public Array<NodeAnimation> nodeAnimations = new Array<NodeAnimation>();
+
+	/** Bakes the keyframes of all node animations, see {@link NodeAnimation#bake(float)}.
+	 * @param rate the keyframes per second to resample the tracks at, 0 to keep the keyframes */
+	public void bake (float rate) {
+		for (NodeAnimation nodeAnimation : nodeAnimations)
+			nodeAnimation.bake(rate);
+	}
 }
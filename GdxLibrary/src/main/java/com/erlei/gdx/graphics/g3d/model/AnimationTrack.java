@@ -0,0 +1,186 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g3d.model;
+
+import com.erlei.gdx.math.Quaternion;
+import com.erlei.gdx.math.Vector3;
+import com.erlei.gdx.utils.Array;
+
+/** The keyframes of one channel of a {@link NodeAnimation} baked into flat arrays, so evaluating them reads two arrays instead of
+ * a keyframe and a vector or quaternion object per key. The keyframe at a time is found by a binary search, which first tries the
+ * keyframe found last and the one after it, so monotonic playback finds it in constant time. Tracks
+ * {@link #resample(float) resampled} at a fixed rate find it by a division.
+ * <p>
+ * Tracks are immutable and shared by the instances of a model, see {@link NodeAnimation#bake(float)}. Vectors are interpolated
+ * linearly and quaternions spherically, the same way as the keyframes. */
+public class AnimationTrack {
+	/** the values per keyframe, 3 for vectors and 4 for quaternions (x, y, z, w) **/
+	public final int components;
+	/** the keyframe times, ascending **/
+	public final float[] times;
+	/** the keyframe values, {@link #components} per keyframe **/
+	public final float[] values;
+	/** the keyframes per second if they are evenly spaced from the first keyframe time, 0 otherwise **/
+	public final float rate;
+
+	public AnimationTrack (int components, float[] times, float[] values, float rate) {
+		if (components != 3 && components != 4) throw new IllegalArgumentException("components must be 3 or 4: " + components);
+		if (times.length == 0) throw new IllegalArgumentException("A track needs at least one keyframe.");
+		if (values.length != times.length * components)
+			throw new IllegalArgumentException("values must have " + times.length * components + " entries: " + values.length);
+		this.components = components;
+		this.times = times;
+		this.values = values;
+		this.rate = rate;
+	}
+
+	/** @param keyframes the translation or scaling keyframes, sorted by time ascending */
+	public static AnimationTrack vectors (Array<NodeKeyframe<Vector3>> keyframes) {
+		float[] times = new float[keyframes.size], values = new float[keyframes.size * 3];
+		for (int i = 0, v = 0; i < keyframes.size; i++) {
+			NodeKeyframe<Vector3> keyframe = keyframes.get(i);
+			times[i] = keyframe.keytime;
+			values[v++] = keyframe.value.x;
+			values[v++] = keyframe.value.y;
+			values[v++] = keyframe.value.z;
+		}
+		return new AnimationTrack(3, times, values, 0);
+	}
+
+	/** @param keyframes the rotation keyframes, sorted by time ascending */
+	public static AnimationTrack quaternions (Array<NodeKeyframe<Quaternion>> keyframes) {
+		float[] times = new float[keyframes.size], values = new float[keyframes.size * 4];
+		for (int i = 0, v = 0; i < keyframes.size; i++) {
+			NodeKeyframe<Quaternion> keyframe = keyframes.get(i);
+			times[i] = keyframe.keytime;
+			values[v++] = keyframe.value.x;
+			values[v++] = keyframe.value.y;
+			values[v++] = keyframe.value.z;
+			values[v++] = keyframe.value.w;
+		}
+		return new AnimationTrack(4, times, values, 0);
+	}
+
+	/** Samples this track at a fixed rate from the first to past the last keyframe time. Between the samples the values are
+	 * interpolated again, so fast changes are smoothed at low rates.
+	 * @param rate the keyframes per second
+	 * @return a new track */
+	public AnimationTrack resample (float rate) {
+		if (rate <= 0) throw new IllegalArgumentException("rate must be > 0: " + rate);
+		int last = times.length - 1;
+		float start = times[0];
+		int count = (int)Math.ceil((times[last] - start) * rate - 0.0001f) + 1;
+		float[] sampleTimes = new float[count], sampleValues = new float[count * components];
+		Vector3 vector = new Vector3();
+		Quaternion quaternion = new Quaternion();
+		for (int i = 0, index = 0, v = 0; i < count; i++) {
+			float time = sampleTimes[i] = start + i / rate;
+			float clamped = Math.min(time, times[last]);
+			index = indexOf(clamped, index);
+			if (components == 3) {
+				getVector(clamped, index, vector);
+				sampleValues[v++] = vector.x;
+				sampleValues[v++] = vector.y;
+				sampleValues[v++] = vector.z;
+			} else {
+				getQuaternion(clamped, index, quaternion);
+				sampleValues[v++] = quaternion.x;
+				sampleValues[v++] = quaternion.y;
+				sampleValues[v++] = quaternion.z;
+				sampleValues[v++] = quaternion.w;
+			}
+		}
+		return new AnimationTrack(components, sampleTimes, sampleValues, rate);
+	}
+
+	/** @return the amount of keyframes */
+	public int size () {
+		return times.length;
+	}
+
+	/** @param cursor the index returned for the previous time, tried first. Any value is allowed.
+	 * @return the index of the first keyframe whose next keyframe is at or after the time, 0 if the time is outside of the
+	 *         keyframes */
+	public int indexOf (float time, int cursor) {
+		final float[] times = this.times;
+		final int last = times.length - 1;
+		if (last <= 0 || time < times[0] || time > times[last]) return 0;
+		if (rate > 0) return Math.max(0, Math.min((int)((time - times[0]) * rate), last - 1));
+
+		// the cursor is the first such keyframe only if the time is after it, keyframes may share a time
+		if (cursor >= 0 && cursor < last && (cursor == 0 || time > times[cursor])) {
+			if (time <= times[cursor + 1]) return cursor;
+			if (cursor + 1 < last && time <= times[cursor + 2]) return cursor + 1;
+		}
+		int low = 0, high = last - 1;
+		while (low < high) {
+			int i = (low + high) >>> 1;
+			if (time > times[i + 1])
+				low = i + 1;
+			else
+				high = i;
+		}
+		return low;
+	}
+
+	/** @return the position of the time between the keyframe at the index and the next one, 0 if they are at the same time */
+	private float alpha (float time, int index) {
+		final float duration = times[index + 1] - times[index];
+		return duration > 0 ? (time - times[index]) / duration : 0;
+	}
+
+	/** Interpolates between the keyframe at the index and the next one.
+	 * @param index the index returned by {@link #indexOf(float, int)} for the time */
+	public Vector3 getVector (float time, int index, Vector3 out) {
+		int i = index * 3;
+		final float[] values = this.values;
+		out.set(values[i], values[i + 1], values[i + 2]);
+		if (index + 1 < times.length) {
+			final float alpha = alpha(time, index);
+			out.x += alpha * (values[i + 3] - out.x);
+			out.y += alpha * (values[i + 4] - out.y);
+			out.z += alpha * (values[i + 5] - out.z);
+		}
+		return out;
+	}
+
+	/** Interpolates between the keyframe at the index and the next one, like {@link Quaternion#slerp(Quaternion, float)}.
+	 * @param index the index returned by {@link #indexOf(float, int)} for the time */
+	public Quaternion getQuaternion (float time, int index, Quaternion out) {
+		int i = index * 4;
+		final float[] values = this.values;
+		out.set(values[i], values[i + 1], values[i + 2], values[i + 3]);
+		if (index + 1 < times.length) {
+			final float alpha = alpha(time, index);
+			final float ex = values[i + 4], ey = values[i + 5], ez = values[i + 6], ew = values[i + 7];
+			final float d = out.x * ex + out.y * ey + out.z * ez + out.w * ew;
+			float absDot = d < 0.f ? -d : d;
+			float scale0 = 1f - alpha;
+			float scale1 = alpha;
+			if ((1 - absDot) > 0.1) {
+				final float angle = (float)Math.acos(absDot);
+				final float invSinTheta = 1f / (float)Math.sin(angle);
+				scale0 = ((float)Math.sin((1f - alpha) * angle) * invSinTheta);
+				scale1 = ((float)Math.sin((alpha * angle)) * invSinTheta);
+			}
+			if (d < 0.f) scale1 = -scale1;
+			out.set(scale0 * out.x + scale1 * ex, scale0 * out.y + scale1 * ey, scale0 * out.z + scale1 * ez,
+				scale0 * out.w + scale1 * ew);
+		}
+		return out;
+	}
+}
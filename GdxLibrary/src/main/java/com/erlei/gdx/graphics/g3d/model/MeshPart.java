@@ -152,6 +152,15 @@ public class MeshPart {
 		mesh.render(shader, primitiveType, offset, size, autoBind);
 	}
 
+	/** Renders the mesh part instanceCount times with one draw call, see
+	 * {@link Mesh#renderInstanced(ShaderProgram, int, int, int, int, boolean)}.
+	 * @param shader the shader to be used
+	 * @param instanceCount the number of instances to draw
+	 * @param autoBind overrides the autoBind member of the Mesh */
+	public void renderInstanced (ShaderProgram shader, int instanceCount, boolean autoBind) {
+		mesh.renderInstanced(shader, primitiveType, offset, size, instanceCount, autoBind);
+	}
+
 	/** Renders the mesh part using the specified shader, must be called in between {@link ShaderProgram#begin()} and
 	 * {@link ShaderProgram#end()}.
 	 * @param shader the shader to be used */
@@ -33,4 +33,27 @@ public class NodeAnimation {
 	public Array<NodeKeyframe<Quaternion>> rotation = null;
 	/** the scaling keyframes if any (might be null), sorted by time ascending **/
 	public Array<NodeKeyframe<Vector3>> scaling = null;
+	/** the baked translation keyframes if any (might be null), evaluated instead of {@link #translation} **/
+	public AnimationTrack translationTrack = null;
+	/** the baked rotation keyframes if any (might be null), evaluated instead of {@link #rotation} **/
+	public AnimationTrack rotationTrack = null;
+	/** the baked scaling keyframes if any (might be null), evaluated instead of {@link #scaling} **/
+	public AnimationTrack scalingTrack = null;
+	/** the keyframe indices found last in the tracks, where the next searches start. Every instance has its own node animations,
+	 * so these are per animated instance. **/
+	public int translationCursor, rotationCursor, scalingCursor;
+
+	/** Bakes the keyframes into {@link AnimationTrack}s. Instances of a model share the tracks baked before they are created. The
+	 * keyframes must be baked again after changing them.
+	 * @param rate the keyframes per second to resample the tracks at, 0 to keep the keyframes */
+	public void bake (float rate) {
+		translationTrack = translation == null || translation.size == 0 ? null : bake(AnimationTrack.vectors(translation), rate);
+		rotationTrack = rotation == null || rotation.size == 0 ? null : bake(AnimationTrack.quaternions(rotation), rate);
+		scalingTrack = scaling == null || scaling.size == 0 ? null : bake(AnimationTrack.vectors(scaling), rate);
+		translationCursor = rotationCursor = scalingCursor = 0;
+	}
+
+	private static AnimationTrack bake (AnimationTrack track, float rate) {
+		return rate > 0 && track.size() > 1 ? track.resample(rate) : track;
+	}
 }
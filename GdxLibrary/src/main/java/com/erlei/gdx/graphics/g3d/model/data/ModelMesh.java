@@ -16,11 +16,16 @@
 
 package com.erlei.gdx.graphics.g3d.model.data;
 
+import java.nio.FloatBuffer;
+
 import com.erlei.gdx.graphics.VertexAttribute;
 
 public class ModelMesh {
 	public String id;
 	public VertexAttribute[] attributes;
+	/** the vertices, null if the mesh was read into {@link #vertexBuffer} **/
 	public float[] vertices;
+	/** the vertices in a direct buffer of native order, used instead of {@link #vertices} if not null **/
+	public FloatBuffer vertexBuffer;
 	public ModelMeshPart[] parts;
 }
@@ -16,8 +16,13 @@
 
 package com.erlei.gdx.graphics.g3d.model.data;
 
+import java.nio.ShortBuffer;
+
 public class ModelMeshPart {
 	public String id;
+	/** the indices, null if the part was read into {@link #indexBuffer} **/
 	public short[] indices;
+	/** the indices in a direct buffer of native order, used instead of {@link #indices} if not null **/
+	public ShortBuffer indexBuffer;
 	public int primitiveType;
 }
@@ -241,6 +241,12 @@ public abstract class BaseShader implements Shader {
 			currentMesh = renderable.meshPart.mesh;
 			currentMesh.bind(program, getAttributeLocations(renderable.meshPart.mesh.getVertexAttributes()));
 		}
+		draw(renderable);
+	}
+
+	/** Draws the mesh part of the renderable, called by {@link #render(Renderable, Attributes)} once the uniforms are set and the
+	 * mesh is bound. */
+	protected void draw (final Renderable renderable) {
 		renderable.meshPart.render(program, false);
 	}
 
@@ -40,6 +40,8 @@ import com.erlei.gdx.graphics.g3d.environment.AmbientCubemap;
 import com.erlei.gdx.graphics.g3d.environment.DirectionalLight;
 import com.erlei.gdx.graphics.g3d.environment.PointLight;
 import com.erlei.gdx.graphics.g3d.environment.SpotLight;
+import com.erlei.gdx.graphics.g3d.utils.BonePalettes;
+import com.erlei.gdx.graphics.g3d.utils.BonePalettes.Palette;
 import com.erlei.gdx.graphics.g3d.utils.RenderContext;
 import com.erlei.gdx.graphics.glutils.ShaderProgram;
 import com.erlei.gdx.math.Matrix3;
@@ -62,6 +64,9 @@ public class DefaultShader extends BaseShader {
 		public int numSpotLights = 0;
 		/** The number of bones to use */
 		public int numBones = 12;
+		/** The palettes shared by the shaders drawing skinned models, null to copy the bones of every renderable into the
+		 * uniforms. They also decide whether dual quaternions and float textures are used. */
+		public BonePalettes bonePalettes = null;
 		/** */
 		public boolean ignoreUnimplemented = true;
 		/** Set to 0 to disable culling, -1 to inherit from {@link DefaultShader#defaultCullFace} */
@@ -92,6 +97,8 @@ public class DefaultShader extends BaseShader {
 		public final static Uniform projViewWorldTrans = new Uniform("u_projViewWorldTrans");
 		public final static Uniform normalMatrix = new Uniform("u_normalMatrix");
 		public final static Uniform bones = new Uniform("u_bones");
+		public final static Uniform boneTexture = new Uniform("u_boneTexture");
+		public final static Uniform boneTexelSize = new Uniform("u_boneTexelSize");
 
 		public final static Uniform shininess = new Uniform("u_shininess", FloatAttribute.Shininess);
 		public final static Uniform opacity = new Uniform("u_opacity", BlendingAttribute.Type);
@@ -121,6 +128,14 @@ public class DefaultShader extends BaseShader {
 	}
 
 	public static class Setters {
+		/** The skeleton of renderables without bones, a single identity bone like the uniforms without palettes */
+		private final static Matrix4[] noBones = {new Matrix4()};
+
+		/** @return the palette of the bones of the renderable, or of a single identity bone if it has none */
+		private static Palette getPalette (final BonePalettes palettes, final Renderable renderable) {
+			return palettes.get(renderable.bones == null ? noBones : renderable.bones);
+		}
+
 		public final static Setter projTrans = new GlobalSetter() {
 			@Override
 			public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
@@ -198,19 +213,70 @@ public class DefaultShader extends BaseShader {
 		public static class Bones extends LocalSetter {
 			private final static Matrix4 idtMatrix = new Matrix4();
 			public final float bones[];
+			public final BonePalettes palettes;
+			private final int numBones;
 
 			public Bones (final int numBones) {
-				this.bones = new float[numBones * 16];
+				this(numBones, null);
+			}
+
+			/** @param palettes the palettes to upload, null to copy the bones of every renderable */
+			public Bones (final int numBones, final BonePalettes palettes) {
+				this.bones = palettes == null ? new float[numBones * 16] : null;
+				this.palettes = palettes;
+				this.numBones = numBones;
 			}
 
 			@Override
 			public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
-				for (int i = 0; i < bones.length; i++) {
-					final int idx = i / 16;
-					bones[i] = (renderable.bones == null || idx >= renderable.bones.length || renderable.bones[idx] == null) ? idtMatrix.val[i % 16]
-						: renderable.bones[idx].val[i % 16];
+				if (palettes != null) {
+					final Palette palette = getPalette(palettes, renderable);
+					final int count = Math.min(palette.size, numBones) * palettes.getFloatsPerBone();
+					if (palettes.isDualQuaternion())
+						shader.program.setUniform4fv(shader.loc(inputID), palette.values, 0, count);
+					else
+						shader.program.setUniformMatrix4fv(shader.loc(inputID), palette.values, 0, count);
+					return;
+				}
+				final int count = renderable.bones == null ? 0 : Math.min(renderable.bones.length, numBones);
+				for (int i = 0; i < count; i++) {
+					final Matrix4 bone = renderable.bones[i];
+					System.arraycopy(bone == null ? idtMatrix.val : bone.val, 0, bones, i * 16, 16);
 				}
-				shader.program.setUniformMatrix4fv(shader.loc(inputID), bones, 0, bones.length);
+				if (count == 0) System.arraycopy(idtMatrix.val, 0, bones, 0, 16);
+				// bones past the skeleton are not referenced by its vertices, only the skeleton is uploaded
+				shader.program.setUniformMatrix4fv(shader.loc(inputID), bones, 0, Math.max(count, 1) * 16);
+			}
+		}
+
+		/** Binds the float texture of the {@link BonePalettes.Palette} of the renderable, streaming it if it changed. */
+		public static class BoneTexture extends LocalSetter {
+			public final BonePalettes palettes;
+
+			public BoneTexture (final BonePalettes palettes) {
+				this.palettes = palettes;
+			}
+
+			@Override
+			public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+				final Palette palette = getPalette(palettes, renderable);
+				shader.set(inputID, palettes.bind(palette, shader.context.textureBinder));
+			}
+		}
+
+		/** Sets the size of a texel of the bone texture, the inverse of its width. Registered after {@link BoneTexture}, which
+		 * creates the texture. */
+		public static class BoneTexelSize extends LocalSetter {
+			public final BonePalettes palettes;
+
+			public BoneTexelSize (final BonePalettes palettes) {
+				this.palettes = palettes;
+			}
+
+			@Override
+			public void set (BaseShader shader, int inputID, Renderable renderable, Attributes combinedAttributes) {
+				final Palette palette = getPalette(palettes, renderable);
+				shader.set(inputID, palette.texture == null ? 0f : 1f / palette.texture.getWidth());
 			}
 		}
 
@@ -425,6 +491,8 @@ public class DefaultShader extends BaseShader {
 	public final int u_projViewWorldTrans;
 	public final int u_normalMatrix;
 	public final int u_bones;
+	public final int u_boneTexture;
+	public final int u_boneTexelSize;
 	// Material uniforms
 	public final int u_shininess;
 	public final int u_opacity;
@@ -560,8 +628,12 @@ public class DefaultShader extends BaseShader {
 		u_viewWorldTrans = register(Inputs.viewWorldTrans, Setters.viewWorldTrans);
 		u_projViewWorldTrans = register(Inputs.projViewWorldTrans, Setters.projViewWorldTrans);
 		u_normalMatrix = register(Inputs.normalMatrix, Setters.normalMatrix);
-		u_bones = (renderable.bones != null && config.numBones > 0) ? register(Inputs.bones, new Setters.Bones(config.numBones))
-			: -1;
+		final boolean skinned = renderable.bones != null && config.numBones > 0;
+		final BonePalettes palettes = config.bonePalettes;
+		final boolean boneTexture = skinned && palettes != null && palettes.isTextured();
+		u_bones = skinned && !boneTexture ? register(Inputs.bones, new Setters.Bones(config.numBones, palettes)) : -1;
+		u_boneTexture = boneTexture ? register(Inputs.boneTexture, new Setters.BoneTexture(palettes)) : -1;
+		u_boneTexelSize = boneTexture ? register(Inputs.boneTexelSize, new Setters.BoneTexelSize(palettes)) : -1;
 
 		u_shininess = register(Inputs.shininess, Setters.shininess);
 		u_opacity = register(Inputs.opacity);
@@ -713,7 +785,11 @@ public class DefaultShader extends BaseShader {
 			prefix += "#define " + FloatAttribute.ShininessAlias + "Flag\n";
 		if ((attributesMask & FloatAttribute.AlphaTest) == FloatAttribute.AlphaTest)
 			prefix += "#define " + FloatAttribute.AlphaTestAlias + "Flag\n";
-		if (renderable.bones != null && config.numBones > 0) prefix += "#define numBones " + config.numBones + "\n";
+		if (renderable.bones != null && config.numBones > 0) {
+			prefix += "#define numBones " + config.numBones + "\n";
+			if (config.bonePalettes != null && config.bonePalettes.isDualQuaternion()) prefix += "#define dualQuaternionFlag\n";
+			if (config.bonePalettes != null && config.bonePalettes.isTextured()) prefix += "#define boneTextureFlag\n";
+		}
 		return prefix;
 	}
 
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g3d.shaders;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.graphics.GL30;
+import com.erlei.gdx.graphics.Mesh;
+import com.erlei.gdx.graphics.Mesh.VertexDataType;
+import com.erlei.gdx.graphics.VertexAttribute;
+import com.erlei.gdx.graphics.VertexAttributes;
+import com.erlei.gdx.graphics.VertexAttributes.Usage;
+import com.erlei.gdx.graphics.g3d.Attributes;
+import com.erlei.gdx.graphics.g3d.InstancedShader;
+import com.erlei.gdx.graphics.g3d.Renderable;
+import com.erlei.gdx.graphics.g3d.attributes.BlendingAttribute;
+import com.erlei.gdx.graphics.g3d.model.MeshPart;
+import com.erlei.gdx.math.Matrix3;
+import com.erlei.gdx.utils.Array;
+
+/** A {@link DefaultShader} which reads the world transform and normal matrix from per instance vertex attributes instead of
+ * uniforms, so renderables sharing a mesh part and material are drawn with one instanced draw call. The transforms are streamed
+ * into an instance buffer before each draw. Requires OpenGL ES 3.0 and meshes using buffer objects, skinned renderables are not
+ * supported.
+ * <p>
+ * The vertex shader is compiled with <code>instancedFlag</code>, a custom uber shader has to declare the
+ * <code>a_worldTrans0</code> to <code>a_worldTrans3</code> and <code>a_normalMatrix0</code> to <code>a_normalMatrix2</code>
+ * column attributes for it, see <code>default.vertex.glsl</code>. */
+public class InstancedDefaultShader extends DefaultShader implements InstancedShader {
+	/** The max number of instances drawn with one draw call, larger groups are split. */
+	public final int maxInstances;
+
+	private Mesh instanceData;
+	private int instanceLocations[];
+	private float instanceVertices[];
+	private Array<Renderable> instances;
+	private final Array<Renderable> single = new Array<Renderable>(false, 1, Renderable.class);
+	private final Attributes combinedAttributes = new Attributes();
+	private final Matrix3 normalMatrix = new Matrix3();
+
+	public InstancedDefaultShader (final Renderable renderable) {
+		this(renderable, new Config());
+	}
+
+	public InstancedDefaultShader (final Renderable renderable, final Config config) {
+		this(renderable, config, 512);
+	}
+
+	public InstancedDefaultShader (final Renderable renderable, final Config config, final int maxInstances) {
+		this(renderable, config, createPrefix(renderable, config) + "#define instancedFlag\n", maxInstances);
+	}
+
+	public InstancedDefaultShader (final Renderable renderable, final Config config, final String prefix, final int maxInstances) {
+		super(renderable, config, prefix);
+		this.maxInstances = maxInstances;
+	}
+
+	@Override
+	public void init () {
+		super.init();
+		final boolean normals = program.getAttributeLocation("a_normalMatrix0") >= 0;
+		final VertexAttribute attributes[] = new VertexAttribute[normals ? 7 : 4];
+		for (int i = 0; i < 4; i++)
+			attributes[i] = new VertexAttribute(Usage.Generic, 4, "a_worldTrans" + i);
+		for (int i = 4; i < attributes.length; i++)
+			attributes[i] = new VertexAttribute(Usage.Generic, 3, "a_normalMatrix" + (i - 4));
+		instanceData = new Mesh(VertexDataType.VertexBufferObject, false, maxInstances, 0, new VertexAttributes(attributes));
+		instanceVertices = new float[maxInstances * instanceData.getVertexSize() / 4];
+		instanceLocations = new int[attributes.length];
+		for (int i = 0; i < attributes.length; i++)
+			instanceLocations[i] = program.getAttributeLocation(attributes[i].alias);
+	}
+
+	@Override
+	public boolean canRender (final Renderable renderable) {
+		return renderable.bones == null && !renderable.meshPart.mesh.isVertexArray() && super.canRender(renderable);
+	}
+
+	@Override
+	public boolean canInstance (final Renderable renderable) {
+		final BlendingAttribute blending = (BlendingAttribute)renderable.material.get(BlendingAttribute.Type);
+		return (blending == null || !blending.blended) && renderable.worldTransform.det3x3() != 0;
+	}
+
+	@Override
+	public void render (final Array<Renderable> instances) {
+		if (instances.size == 0) return;
+		final Renderable renderable = instances.first();
+		combinedAttributes.clear();
+		if (renderable.environment != null) combinedAttributes.set(renderable.environment);
+		if (renderable.material != null) combinedAttributes.set(renderable.material);
+		this.instances = instances;
+		render(renderable, combinedAttributes);
+		this.instances = null;
+	}
+
+	@Override
+	protected void draw (final Renderable renderable) {
+		if (instances != null) {
+			draw(renderable.meshPart, instances);
+		} else {
+			// the program has no world transform uniform, a single renderable is an instanced draw as well
+			single.add(renderable);
+			draw(renderable.meshPart, single);
+			single.clear();
+		}
+	}
+
+	private void draw (final MeshPart meshPart, final Array<Renderable> instances) {
+		final GL30 gl = Gdx.gl30;
+		final int locations[] = instanceLocations;
+		final float vertices[] = instanceVertices;
+		final int stride = instanceData.getVertexSize() / 4;
+		final boolean normals = stride > 16;
+		for (int offset = 0; offset < instances.size; offset += maxInstances) {
+			final int count = Math.min(maxInstances, instances.size - offset);
+			for (int i = 0; i < count; i++) {
+				final Renderable renderable = instances.get(offset + i);
+				System.arraycopy(renderable.worldTransform.val, 0, vertices, i * stride, 16);
+				if (normals) {
+					normalMatrix.set(renderable.worldTransform).inv().transpose();
+					System.arraycopy(normalMatrix.val, 0, vertices, i * stride + 16, 9);
+				}
+			}
+			instanceData.setVertices(vertices, 0, count * stride);
+			instanceData.bind(program, locations);
+			for (int i = 0; i < locations.length; i++)
+				if (locations[i] >= 0) gl.glVertexAttribDivisor(locations[i], 1);
+			meshPart.renderInstanced(program, count, false);
+			// the divisors are part of the vertex array state of the mesh, reset them for its next user
+			for (int i = 0; i < locations.length; i++)
+				if (locations[i] >= 0) gl.glVertexAttribDivisor(locations[i], 0);
+			instanceData.unbind(program, locations);
+		}
+	}
+
+	@Override
+	public void dispose () {
+		if (instanceData != null) instanceData.dispose();
+		instanceData = null;
+		super.dispose();
+	}
+}
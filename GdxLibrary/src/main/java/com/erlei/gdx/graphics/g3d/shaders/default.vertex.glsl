@@ -20,7 +20,14 @@ attribute vec4 a_color;
 
 #ifdef normalFlag
 attribute vec3 a_normal;
+#ifdef instancedFlag
+attribute vec3 a_normalMatrix0;
+attribute vec3 a_normalMatrix1;
+attribute vec3 a_normalMatrix2;
+#define u_normalMatrix mat3(a_normalMatrix0, a_normalMatrix1, a_normalMatrix2)
+#else
 uniform mat3 u_normalMatrix;
+#endif // instancedFlag
 varying vec3 v_normal;
 #endif // normalFlag
 
@@ -103,13 +110,65 @@ attribute vec2 a_boneWeight7;
 #endif
 #endif
 
+#ifdef instancedFlag
+attribute vec4 a_worldTrans0;
+attribute vec4 a_worldTrans1;
+attribute vec4 a_worldTrans2;
+attribute vec4 a_worldTrans3;
+#define u_worldTrans mat4(a_worldTrans0, a_worldTrans1, a_worldTrans2, a_worldTrans3)
+#else
 uniform mat4 u_worldTrans;
+#endif // instancedFlag
 
-#if defined(numBones)
-#if numBones > 0
+#ifdef skinningFlag
+#ifdef boneTextureFlag
+uniform sampler2D u_boneTexture;
+uniform float u_boneTexelSize;
+
+vec4 getBoneTexel(int index) {
+	return texture2D(u_boneTexture, vec2((float(index) + 0.5) * u_boneTexelSize, 0.5));
+}
+#elif defined(dualQuaternionFlag)
+uniform vec4 u_bones[numBones * 2];
+#else
 uniform mat4 u_bones[numBones];
-#endif //numBones
-#endif
+#endif //boneTextureFlag
+
+#ifdef dualQuaternionFlag
+#ifdef boneTextureFlag
+#define getBoneReal(index) getBoneTexel((index) * 2)
+#define getBoneDual(index) getBoneTexel((index) * 2 + 1)
+#else
+#define getBoneReal(index) u_bones[(index) * 2]
+#define getBoneDual(index) u_bones[(index) * 2 + 1]
+#endif //boneTextureFlag
+
+// Adds the weighted bone to the blended dual quaternion, negated if its rotation is in the other hemisphere than the ones added
+// before, so the blend takes the shortest way.
+void addBone(inout vec4 real, inout vec4 dual, int index, float weight) {
+	vec4 boneReal = getBoneReal(index);
+	float w = dot(real, boneReal) < 0.0 ? -weight : weight;
+	real += w * boneReal;
+	dual += w * getBoneDual(index);
+}
+
+mat4 toMatrix(vec4 real, vec4 dual) {
+	float len = max(length(real), 0.00001);
+	real /= len;
+	dual /= len;
+	vec3 t = 2.0 * (real.w * dual.xyz - dual.w * real.xyz + cross(real.xyz, dual.xyz));
+	float x = real.x, y = real.y, z = real.z, w = real.w;
+	return mat4(1.0 - 2.0 * (y * y + z * z), 2.0 * (x * y + w * z), 2.0 * (x * z - w * y), 0.0,
+		2.0 * (x * y - w * z), 1.0 - 2.0 * (x * x + z * z), 2.0 * (y * z + w * x), 0.0,
+		2.0 * (x * z + w * y), 2.0 * (y * z - w * x), 1.0 - 2.0 * (x * x + y * y), 0.0,
+		t, 1.0);
+}
+#elif defined(boneTextureFlag)
+#define getBone(index) mat4(getBoneTexel((index) * 4), getBoneTexel((index) * 4 + 1), getBoneTexel((index) * 4 + 2), getBoneTexel((index) * 4 + 3))
+#else
+#define getBone(index) u_bones[index]
+#endif //dualQuaternionFlag
+#endif //skinningFlag
 
 #ifdef shininessFlag
 uniform float u_shininess;
@@ -214,31 +273,61 @@ void main() {
 	#endif // blendedFlag
 	
 	#ifdef skinningFlag
-		mat4 skinning = mat4(0.0);
-		#ifdef boneWeight0Flag
-			skinning += (a_boneWeight0.y) * u_bones[int(a_boneWeight0.x)];
-		#endif //boneWeight0Flag
-		#ifdef boneWeight1Flag				
-			skinning += (a_boneWeight1.y) * u_bones[int(a_boneWeight1.x)];
-		#endif //boneWeight1Flag
-		#ifdef boneWeight2Flag		
-			skinning += (a_boneWeight2.y) * u_bones[int(a_boneWeight2.x)];
-		#endif //boneWeight2Flag
-		#ifdef boneWeight3Flag
-			skinning += (a_boneWeight3.y) * u_bones[int(a_boneWeight3.x)];
-		#endif //boneWeight3Flag
-		#ifdef boneWeight4Flag
-			skinning += (a_boneWeight4.y) * u_bones[int(a_boneWeight4.x)];
-		#endif //boneWeight4Flag
-		#ifdef boneWeight5Flag
-			skinning += (a_boneWeight5.y) * u_bones[int(a_boneWeight5.x)];
-		#endif //boneWeight5Flag
-		#ifdef boneWeight6Flag
-			skinning += (a_boneWeight6.y) * u_bones[int(a_boneWeight6.x)];
-		#endif //boneWeight6Flag
-		#ifdef boneWeight7Flag
-			skinning += (a_boneWeight7.y) * u_bones[int(a_boneWeight7.x)];
-		#endif //boneWeight7Flag
+		#ifdef dualQuaternionFlag
+			vec4 real = vec4(0.0);
+			vec4 dual = vec4(0.0);
+			#ifdef boneWeight0Flag
+				addBone(real, dual, int(a_boneWeight0.x), a_boneWeight0.y);
+			#endif //boneWeight0Flag
+			#ifdef boneWeight1Flag
+				addBone(real, dual, int(a_boneWeight1.x), a_boneWeight1.y);
+			#endif //boneWeight1Flag
+			#ifdef boneWeight2Flag
+				addBone(real, dual, int(a_boneWeight2.x), a_boneWeight2.y);
+			#endif //boneWeight2Flag
+			#ifdef boneWeight3Flag
+				addBone(real, dual, int(a_boneWeight3.x), a_boneWeight3.y);
+			#endif //boneWeight3Flag
+			#ifdef boneWeight4Flag
+				addBone(real, dual, int(a_boneWeight4.x), a_boneWeight4.y);
+			#endif //boneWeight4Flag
+			#ifdef boneWeight5Flag
+				addBone(real, dual, int(a_boneWeight5.x), a_boneWeight5.y);
+			#endif //boneWeight5Flag
+			#ifdef boneWeight6Flag
+				addBone(real, dual, int(a_boneWeight6.x), a_boneWeight6.y);
+			#endif //boneWeight6Flag
+			#ifdef boneWeight7Flag
+				addBone(real, dual, int(a_boneWeight7.x), a_boneWeight7.y);
+			#endif //boneWeight7Flag
+			mat4 skinning = toMatrix(real, dual);
+		#else
+			mat4 skinning = mat4(0.0);
+			#ifdef boneWeight0Flag
+				skinning += (a_boneWeight0.y) * getBone(int(a_boneWeight0.x));
+			#endif //boneWeight0Flag
+			#ifdef boneWeight1Flag
+				skinning += (a_boneWeight1.y) * getBone(int(a_boneWeight1.x));
+			#endif //boneWeight1Flag
+			#ifdef boneWeight2Flag
+				skinning += (a_boneWeight2.y) * getBone(int(a_boneWeight2.x));
+			#endif //boneWeight2Flag
+			#ifdef boneWeight3Flag
+				skinning += (a_boneWeight3.y) * getBone(int(a_boneWeight3.x));
+			#endif //boneWeight3Flag
+			#ifdef boneWeight4Flag
+				skinning += (a_boneWeight4.y) * getBone(int(a_boneWeight4.x));
+			#endif //boneWeight4Flag
+			#ifdef boneWeight5Flag
+				skinning += (a_boneWeight5.y) * getBone(int(a_boneWeight5.x));
+			#endif //boneWeight5Flag
+			#ifdef boneWeight6Flag
+				skinning += (a_boneWeight6.y) * getBone(int(a_boneWeight6.x));
+			#endif //boneWeight6Flag
+			#ifdef boneWeight7Flag
+				skinning += (a_boneWeight7.y) * getBone(int(a_boneWeight7.x));
+			#endif //boneWeight7Flag
+		#endif //dualQuaternionFlag
 	#endif //skinningFlag
 
 	#ifdef skinningFlag
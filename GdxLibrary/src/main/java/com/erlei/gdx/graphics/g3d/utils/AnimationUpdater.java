@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g3d.utils;
+
+import com.erlei.gdx.graphics.g3d.ModelInstance;
+import com.erlei.gdx.graphics.g3d.utils.AnimationController.AnimationListener;
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.TimeUtils;
+import com.erlei.gdx.utils.async.AsyncExecutor;
+import com.erlei.gdx.utils.async.AsyncResult;
+import com.erlei.gdx.utils.async.AsyncTask;
+
+/** Updates the {@link AnimationController}s of many {@link ModelInstance}s once per frame, split among the threads of an
+ * {@link AsyncExecutor}. Every controller evaluates its keyframes, writes the local transforms of the animated nodes and
+ * calculates the transforms of its instance on the thread it is updated on, so all instances are ready to render once
+ * {@link #update(float)} returns.
+ * <p>
+ * Each instance must be animated by at most one of the controllers, the instances must not be changed during the update and
+ * {@link AnimationListener}s are notified on the updating threads. The controllers are updated in bands of consecutive
+ * controllers, the calling thread takes the last band. */
+public class AnimationUpdater {
+	private final AsyncExecutor executor;
+	private final Array<AnimationController> controllers = new Array<AnimationController>();
+	private final Array<AsyncResult<Void>> results = new Array<AsyncResult<Void>>();
+	private int minControllersPerTask = 8;
+	private long updateTime;
+
+	/** @param executor executor to split the controllers among, updates them on the calling thread if null. Must not be an
+	 *           executor the calling thread belongs to. */
+	public AnimationUpdater (AsyncExecutor executor) {
+		this.executor = executor;
+	}
+
+	public void add (AnimationController controller) {
+		if (controller == null) throw new IllegalArgumentException("controller cannot be null.");
+		controllers.add(controller);
+	}
+
+	public boolean remove (AnimationController controller) {
+		return controllers.removeValue(controller, true);
+	}
+
+	public void clear () {
+		controllers.clear();
+	}
+
+	/** @return the updated controllers, may be changed between updates */
+	public Array<AnimationController> getControllers () {
+		return controllers;
+	}
+
+	/** @param minControllersPerTask the controllers a task updates at least, so cheap animations don't cost more to dispatch than
+	 *           to evaluate, 8 by default */
+	public void setMinControllersPerTask (int minControllersPerTask) {
+		if (minControllersPerTask < 1)
+			throw new IllegalArgumentException("minControllersPerTask must be > 0: " + minControllersPerTask);
+		this.minControllersPerTask = minControllersPerTask;
+	}
+
+	public int getMinControllersPerTask () {
+		return minControllersPerTask;
+	}
+
+	/** Updates all controllers by the delta and waits for them. */
+	public void update (final float delta) {
+		long start = TimeUtils.nanoTime();
+		final Object[] items = controllers.items;
+		int count = controllers.size;
+		int bands = executor == null ? 1
+			: Math.min(Runtime.getRuntime().availableProcessors(), count / minControllersPerTask);
+		if (bands <= 1)
+			update(items, 0, count, delta);
+		else {
+			results.clear();
+			for (int i = 0; i < bands - 1; i++) {
+				final int first = count * i / bands, end = count * (i + 1) / bands;
+				results.add(executor.submit(new AsyncTask<Void>() {
+					public Void call () throws Exception {
+						update(items, first, end, delta);
+						return null;
+					}
+				}));
+			}
+			try {
+				update(items, count * (bands - 1) / bands, count, delta);
+			} finally {
+				for (int i = 0; i < results.size; i++)
+					results.get(i).get();
+				results.clear();
+			}
+		}
+		updateTime = TimeUtils.nanoTime() - start;
+	}
+
+	static private void update (Object[] controllers, int first, int end, float delta) {
+		for (int i = first; i < end; i++)
+			((AnimationController)controllers[i]).update(delta);
+	}
+
+	/** @return the duration of the last {@link #update(float)} in nanoseconds */
+	public long getUpdateTime () {
+		return updateTime;
+	}
+}
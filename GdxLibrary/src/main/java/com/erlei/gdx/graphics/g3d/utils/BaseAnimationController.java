@@ -18,6 +18,7 @@ package com.erlei.gdx.graphics.g3d.utils;
 
 import com.erlei.gdx.graphics.g3d.ModelInstance;
 import com.erlei.gdx.graphics.g3d.model.Animation;
+import com.erlei.gdx.graphics.g3d.model.AnimationTrack;
 import com.erlei.gdx.graphics.g3d.model.Node;
 import com.erlei.gdx.graphics.g3d.model.NodeAnimation;
 import com.erlei.gdx.graphics.g3d.model.NodeKeyframe;
@@ -34,6 +35,9 @@ import com.erlei.gdx.utils.Pool.Poolable;
 /** Base class for applying one or more {@link Animation}s to a {@link ModelInstance}. This class only applies the actual
  * {@link Node} transformations, it does not manage animations or keep track of animation states. See {@link AnimationController}
  * for an implementation of this class which does manage animations.
+ * <p>
+ * Controllers keep their blend state per instance, so controllers of different {@link ModelInstance}s can be updated
+ * concurrently, see {@link AnimationUpdater}.
  * 
  * @author Xoppa */
 public class BaseAnimationController {
@@ -95,7 +99,9 @@ public class BaseAnimationController {
 			return new Transform();
 		}
 	};
-	private final static ObjectMap<Node, Transform> transforms = new ObjectMap<Node, Transform>();
+	private final ObjectMap<Node, Transform> transforms = new ObjectMap<Node, Transform>();
+	/** The transform of the node animation being applied. */
+	private final Transform tmpT = new Transform();
 	private boolean applying = false;
 	/** The {@link ModelInstance} on which the animations are being performed. */
 	public final ModelInstance target;
@@ -117,7 +123,7 @@ public class BaseAnimationController {
 	 * @param weight The blend weight of this animation relative to the previous applied animations. */
 	protected void apply (final Animation animation, final float time, final float weight) {
 		if (!applying) throw new GdxRuntimeException("You must call begin() before adding an animation");
-		applyAnimation(transforms, transformPool, weight, animation, time);
+		applyAnimation(transforms, transformPool, weight, animation, time, tmpT);
 	}
 
 	/** End applying multiple animations to the instance and update it to reflect the changes. */
@@ -135,7 +141,7 @@ public class BaseAnimationController {
 	/** Apply a single animation to the {@link ModelInstance} and update the it to reflect the changes. */
 	protected void applyAnimation (final Animation animation, final float time) {
 		if (applying) throw new GdxRuntimeException("Call end() first");
-		applyAnimation(null, null, 1.f, animation, time);
+		applyAnimation(null, null, 1.f, animation, time, tmpT);
 		target.calculateTransforms();
 	}
 
@@ -156,19 +162,38 @@ public class BaseAnimationController {
 		}
 	}
 
-	private final static Transform tmpT = new Transform();
-
-	private final static <T> int getFirstKeyframeIndexAtTime (final Array<NodeKeyframe<T>> arr, final float time) {
-		final int n = arr.size - 1;
-		for (int i = 0; i < n; i++) {
-			if (time >= arr.get(i).keytime && time <= arr.get(i + 1).keytime) {
-				return i;
-			}
+	/** The transform used by {@link #applyAnimation(ObjectMap, Pool, float, Animation, float)}, which is therefore not thread
+	 * safe. */
+	private final static Transform staticTmpT = new Transform();
+
+	/** @return the index of the first keyframe whose next keyframe is at or after the time, 0 if the time is outside of the
+	 *         keyframes */
+	final static <T> int getFirstKeyframeIndexAtTime (final Array<NodeKeyframe<T>> arr, final float time) {
+		final int last = arr.size - 1;
+		if (last <= 0 || time < arr.get(0).keytime || time > arr.get(last).keytime) return 0;
+		int low = 0, high = last - 1;
+		while (low < high) {
+			final int i = (low + high) >>> 1;
+			if (time > arr.get(i + 1).keytime)
+				low = i + 1;
+			else
+				high = i;
 		}
-		return 0;
+		return low;
+	}
+
+	/** @return the position of the time between the keyframes, 0 if they are at the same time */
+	private final static float getAlpha (final NodeKeyframe firstKeyframe, final NodeKeyframe secondKeyframe, final float time) {
+		final float duration = secondKeyframe.keytime - firstKeyframe.keytime;
+		return duration > 0 ? (time - firstKeyframe.keytime) / duration : 0;
 	}
 
 	private final static Vector3 getTranslationAtTime (final NodeAnimation nodeAnim, final float time, final Vector3 out) {
+		final AnimationTrack track = nodeAnim.translationTrack;
+		if (track != null) {
+			final int index = nodeAnim.translationCursor = track.indexOf(time, nodeAnim.translationCursor);
+			return track.getVector(time, index, out);
+		}
 		if (nodeAnim.translation == null) return out.set(nodeAnim.node.translation);
 		if (nodeAnim.translation.size == 1) return out.set(nodeAnim.translation.get(0).value);
 
@@ -178,13 +203,18 @@ public class BaseAnimationController {
 
 		if (++index < nodeAnim.translation.size) {
 			final NodeKeyframe<Vector3> secondKeyframe = nodeAnim.translation.get(index);
-			final float t = (time - firstKeyframe.keytime) / (secondKeyframe.keytime - firstKeyframe.keytime);
+			final float t = getAlpha(firstKeyframe, secondKeyframe, time);
 			out.lerp(secondKeyframe.value, t);
 		}
 		return out;
 	}
 
 	private final static Quaternion getRotationAtTime (final NodeAnimation nodeAnim, final float time, final Quaternion out) {
+		final AnimationTrack track = nodeAnim.rotationTrack;
+		if (track != null) {
+			final int index = nodeAnim.rotationCursor = track.indexOf(time, nodeAnim.rotationCursor);
+			return track.getQuaternion(time, index, out);
+		}
 		if (nodeAnim.rotation == null) return out.set(nodeAnim.node.rotation);
 		if (nodeAnim.rotation.size == 1) return out.set(nodeAnim.rotation.get(0).value);
 
@@ -194,13 +224,18 @@ public class BaseAnimationController {
 
 		if (++index < nodeAnim.rotation.size) {
 			final NodeKeyframe<Quaternion> secondKeyframe = nodeAnim.rotation.get(index);
-			final float t = (time - firstKeyframe.keytime) / (secondKeyframe.keytime - firstKeyframe.keytime);
+			final float t = getAlpha(firstKeyframe, secondKeyframe, time);
 			out.slerp(secondKeyframe.value, t);
 		}
 		return out;
 	}
 
 	private final static Vector3 getScalingAtTime (final NodeAnimation nodeAnim, final float time, final Vector3 out) {
+		final AnimationTrack track = nodeAnim.scalingTrack;
+		if (track != null) {
+			final int index = nodeAnim.scalingCursor = track.indexOf(time, nodeAnim.scalingCursor);
+			return track.getVector(time, index, out);
+		}
 		if (nodeAnim.scaling == null) return out.set(nodeAnim.node.scale);
 		if (nodeAnim.scaling.size == 1) return out.set(nodeAnim.scaling.get(0).value);
 
@@ -210,33 +245,33 @@ public class BaseAnimationController {
 
 		if (++index < nodeAnim.scaling.size) {
 			final NodeKeyframe<Vector3> secondKeyframe = nodeAnim.scaling.get(index);
-			final float t = (time - firstKeyframe.keytime) / (secondKeyframe.keytime - firstKeyframe.keytime);
+			final float t = getAlpha(firstKeyframe, secondKeyframe, time);
 			out.lerp(secondKeyframe.value, t);
 		}
 		return out;
 	}
 
-	private final static Transform getNodeAnimationTransform (final NodeAnimation nodeAnim, final float time) {
-		final Transform transform = tmpT;
+	private final static Transform getNodeAnimationTransform (final NodeAnimation nodeAnim, final float time,
+		final Transform transform) {
 		getTranslationAtTime(nodeAnim, time, transform.translation);
 		getRotationAtTime(nodeAnim, time, transform.rotation);
 		getScalingAtTime(nodeAnim, time, transform.scale);
 		return transform;
 	}
 
-	private final static void applyNodeAnimationDirectly (final NodeAnimation nodeAnim, final float time) {
+	private final static void applyNodeAnimationDirectly (final NodeAnimation nodeAnim, final float time, final Transform tmp) {
 		final Node node = nodeAnim.node;
 		node.isAnimated = true;
-		final Transform transform = getNodeAnimationTransform(nodeAnim, time);
+		final Transform transform = getNodeAnimationTransform(nodeAnim, time, tmp);
 		transform.toMatrix4(node.localTransform);
 	}
 
 	private final static void applyNodeAnimationBlending (final NodeAnimation nodeAnim, final ObjectMap<Node, Transform> out,
-		final Pool<Transform> pool, final float alpha, final float time) {
+		final Pool<Transform> pool, final float alpha, final float time, final Transform tmp) {
 
 		final Node node = nodeAnim.node;
 		node.isAnimated = true;
-		final Transform transform = getNodeAnimationTransform(nodeAnim, time);
+		final Transform transform = getNodeAnimationTransform(nodeAnim, time, tmp);
 
 		Transform t = out.get(node, null);
 		if (t != null) {
@@ -252,18 +287,26 @@ public class BaseAnimationController {
 		}
 	}
 
-	/** Helper method to apply one animation to either an objectmap for blending or directly to the bones. */
+	/** Helper method to apply one animation to either an objectmap for blending or directly to the bones. Not thread safe, see
+	 * {@link #applyAnimation(ObjectMap, Pool, float, Animation, float, Transform)}. */
 	protected static void applyAnimation (final ObjectMap<Node, Transform> out, final Pool<Transform> pool, final float alpha,
 		final Animation animation, final float time) {
+		applyAnimation(out, pool, alpha, animation, time, staticTmpT);
+	}
+
+	/** Helper method to apply one animation to either an objectmap for blending or directly to the bones.
+	 * @param tmp the transform to evaluate the node animations into, one per thread */
+	protected static void applyAnimation (final ObjectMap<Node, Transform> out, final Pool<Transform> pool, final float alpha,
+		final Animation animation, final float time, final Transform tmp) {
 
 		if (out == null) {
 			for (final NodeAnimation nodeAnim : animation.nodeAnimations)
-				applyNodeAnimationDirectly(nodeAnim, time);
+				applyNodeAnimationDirectly(nodeAnim, time, tmp);
 		} else {
 			for (final Node node : out.keys())
 				node.isAnimated = false;
 			for (final NodeAnimation nodeAnim : animation.nodeAnimations)
-				applyNodeAnimationBlending(nodeAnim, out, pool, alpha, time);
+				applyNodeAnimationBlending(nodeAnim, out, pool, alpha, time, tmp);
 			for (final ObjectMap.Entry<Node, Transform> e : out.entries()) {
 				if (!e.key.isAnimated) {
 					e.key.isAnimated = true;
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g3d.utils;
+
+import java.nio.FloatBuffer;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.GL30;
+import com.erlei.gdx.graphics.Texture;
+import com.erlei.gdx.graphics.g3d.Renderable;
+import com.erlei.gdx.graphics.g3d.shaders.DefaultShader;
+import com.erlei.gdx.graphics.glutils.FloatTextureData;
+import com.erlei.gdx.math.Matrix4;
+import com.erlei.gdx.math.Quaternion;
+import com.erlei.gdx.math.Vector3;
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.BufferUtils;
+import com.erlei.gdx.utils.Disposable;
+import com.erlei.gdx.utils.ObjectMap;
+import com.erlei.gdx.utils.ObjectMap.Entry;
+
+/** Packs the bone transforms of skinned {@link Renderable}s into palettes of floats, once per frame for every bones array. All
+ * renderables of a node part share its bones array, so the parts of every pass, like the shadow and the color pass, are drawn
+ * with the same palette and the shaders upload it with a single call instead of copying the bones per renderable. Set it as
+ * {@link DefaultShader.Config#bonePalettes} of every shader that draws the skinned models.
+ * <p>
+ * The palettes hold a matrix per bone, or a dual quaternion per bone, which is half the size and blends rotations without the
+ * volume loss of linear blending, but only represents rotations and translations. Scaled bones need matrices. On GL30 the
+ * palettes can be streamed to a float texture per bones array instead of uniforms, so skeletons beyond the uniform limits of the
+ * device can be drawn, {@link DefaultShader.Config#numBones} then only limits the bone indices.
+ * <p>
+ * A palette is recomputed when it is first used in a frame of {@link Gdx#getFrameScheduler()}, or after {@link #invalidate()},
+ * which has to be called when the bones change within a frame or no application is running. Palettes not used in the previous
+ * frame are dropped. Not thread safe. */
+public class BonePalettes implements Disposable {
+	/** The packed transforms of a bones array. */
+	public static class Palette {
+		/** the bones, 16 floats per matrix or 8 floats per dual quaternion, the rotation followed by the dual part **/
+		public float[] values;
+		/** the amount of bones **/
+		public int size;
+		/** the float texture with the values as RGBA texels, in the first row, null without texture **/
+		public Texture texture;
+		private long stamp = -1;
+		private boolean uploaded;
+	}
+
+	private final boolean dualQuaternion;
+	private final boolean textured;
+	private final ObjectMap<Matrix4[], Palette> palettes = new ObjectMap<Matrix4[], Palette>();
+	private final Array<Palette> free = new Array<Palette>(false, 16);
+	private final Quaternion rotation = new Quaternion();
+	private final Vector3 translation = new Vector3();
+	private FloatBuffer buffer;
+	private long stamp = -1;
+	private long invalidations;
+
+	/** Creates palettes of matrices uploaded as uniforms. */
+	public BonePalettes () {
+		this(false, false);
+	}
+
+	/** @param dualQuaternion whether to pack dual quaternions instead of matrices
+	 * @param textured whether to stream the palettes to float textures, ignored without GL30 */
+	public BonePalettes (boolean dualQuaternion, boolean textured) {
+		this.dualQuaternion = dualQuaternion;
+		this.textured = textured && Gdx.isGL30Available();
+	}
+
+	public boolean isDualQuaternion () {
+		return dualQuaternion;
+	}
+
+	/** @return whether the palettes are streamed to float textures */
+	public boolean isTextured () {
+		return textured;
+	}
+
+	/** @return the floats of the palette per bone */
+	public int getFloatsPerBone () {
+		return dualQuaternion ? 8 : 16;
+	}
+
+	/** @return the palette of the bones, packed if it was not used since the last frame or {@link #invalidate()} */
+	public Palette get (Matrix4[] bones) {
+		long stamp = (Gdx.app != null ? Gdx.app.getFrameScheduler().getFrameId() : 0) + invalidations;
+		if (stamp != this.stamp) {
+			evict(this.stamp);
+			this.stamp = stamp;
+		}
+		Palette palette = palettes.get(bones);
+		if (palette == null) {
+			palette = free.size > 0 ? free.pop() : new Palette();
+			palettes.put(bones, palette);
+		}
+		if (palette.stamp != stamp) {
+			pack(bones, palette);
+			palette.stamp = stamp;
+			palette.uploaded = false;
+		}
+		return palette;
+	}
+
+	/** Binds the texture of the palette with the binder and uploads the palette to it if it changed since the last upload.
+	 * @return the texture unit */
+	public int bind (Palette palette, TextureBinder binder) {
+		if (!textured) throw new IllegalStateException("The palettes are not textured.");
+		int width = palette.size * getFloatsPerBone() / 4;
+		if (palette.texture != null && palette.texture.getWidth() < width) {
+			palette.texture.dispose();
+			palette.texture = null;
+		}
+		if (palette.texture == null) {
+			palette.texture = new Texture(new FloatTextureData(Math.max(width, 1), 1, GL30.GL_RGBA32F, GL20.GL_RGBA,
+				GL20.GL_FLOAT, true));
+			palette.uploaded = false;
+		}
+		final int unit = binder.bind(palette.texture);
+		if (!palette.uploaded && width > 0) {
+			int floats = width * 4;
+			if (buffer == null || buffer.capacity() < floats) buffer = BufferUtils.newFloatBuffer(floats);
+			BufferUtils.copy(palette.values, buffer, floats, 0);
+			// the binder left the texture bound to the active unit
+			Gdx.gl.glTexSubImage2D(GL20.GL_TEXTURE_2D, 0, 0, 0, width, 1, GL20.GL_RGBA, GL20.GL_FLOAT, buffer);
+			palette.uploaded = true;
+		}
+		return unit;
+	}
+
+	private void pack (Matrix4[] bones, Palette palette) {
+		final int floatsPerBone = getFloatsPerBone();
+		if (palette.values == null || palette.values.length < bones.length * floatsPerBone)
+			palette.values = new float[bones.length * floatsPerBone];
+		final float[] values = palette.values;
+		palette.size = bones.length;
+		for (int i = 0, v = 0; i < bones.length; i++, v += floatsPerBone) {
+			final Matrix4 bone = bones[i];
+			if (!dualQuaternion) {
+				System.arraycopy(bone == null ? IDENTITY : bone.val, 0, values, v, 16);
+				continue;
+			}
+			if (bone == null) {
+				System.arraycopy(IDENTITY_DUAL_QUATERNION, 0, values, v, 8);
+				continue;
+			}
+			final Quaternion q = bone.getRotation(rotation, true);
+			final Vector3 t = bone.getTranslation(translation);
+			values[v] = q.x;
+			values[v + 1] = q.y;
+			values[v + 2] = q.z;
+			values[v + 3] = q.w;
+			// the dual part is half the translation times the rotation
+			values[v + 4] = 0.5f * (t.x * q.w + t.y * q.z - t.z * q.y);
+			values[v + 5] = 0.5f * (t.y * q.w + t.z * q.x - t.x * q.z);
+			values[v + 6] = 0.5f * (t.z * q.w + t.x * q.y - t.y * q.x);
+			values[v + 7] = -0.5f * (t.x * q.x + t.y * q.y + t.z * q.z);
+		}
+	}
+
+	/** Drops the palettes not used since the stamp. */
+	private void evict (long stamp) {
+		for (ObjectMap.Entries<Matrix4[], Palette> entries = palettes.entries(); entries.hasNext();) {
+			Entry<Matrix4[], Palette> entry = entries.next();
+			if (entry.value.stamp < stamp) {
+				entries.remove();
+				free.add(entry.value);
+			}
+		}
+	}
+
+	/** Repacks every palette when it is used next, needed when the bones change within a frame. */
+	public void invalidate () {
+		invalidations++;
+	}
+
+	/** @return the amount of palettes in use */
+	public int getSize () {
+		return palettes.size;
+	}
+
+	/** Drops all palettes. */
+	public void clear () {
+		for (Palette palette : palettes.values())
+			free.add(palette);
+		palettes.clear();
+	}
+
+	@Override
+	public void dispose () {
+		clear();
+		for (Palette palette : free) {
+			if (palette.texture != null) palette.texture.dispose();
+			palette.texture = null;
+		}
+		free.clear();
+	}
+
+	static private final float[] IDENTITY = new Matrix4().val;
+	static private final float[] IDENTITY_DUAL_QUATERNION = {0, 0, 0, 1, 0, 0, 0, 0};
+}
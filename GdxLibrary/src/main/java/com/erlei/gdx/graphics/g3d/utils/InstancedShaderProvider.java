@@ -0,0 +1,52 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g3d.utils;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.graphics.g3d.ModelBatch;
+import com.erlei.gdx.graphics.g3d.Renderable;
+import com.erlei.gdx.graphics.g3d.Shader;
+import com.erlei.gdx.graphics.g3d.shaders.DefaultShader;
+import com.erlei.gdx.graphics.g3d.shaders.InstancedDefaultShader;
+
+/** A {@link DefaultShaderProvider} which creates {@link InstancedDefaultShader}s when OpenGL ES 3.0 is available, so a
+ * {@link ModelBatch} using it draws renderables sharing a mesh part and material with one draw call. Skinned renderables, meshes
+ * using vertex arrays and OpenGL ES 2.0 fall back to the {@link DefaultShader}. */
+public class InstancedShaderProvider extends DefaultShaderProvider {
+	/** The max number of instances drawn with one draw call. */
+	public final int maxInstances;
+
+	public InstancedShaderProvider (final DefaultShader.Config config, final int maxInstances) {
+		super(config);
+		this.maxInstances = maxInstances;
+	}
+
+	public InstancedShaderProvider (final DefaultShader.Config config) {
+		this(config, 512);
+	}
+
+	public InstancedShaderProvider () {
+		this(null);
+	}
+
+	@Override
+	protected Shader createShader (final Renderable renderable) {
+		if (Gdx.gl30 != null && renderable.bones == null && !renderable.meshPart.mesh.isVertexArray())
+			return new InstancedDefaultShader(renderable, config, maxInstances);
+		return super.createShader(renderable);
+	}
+}
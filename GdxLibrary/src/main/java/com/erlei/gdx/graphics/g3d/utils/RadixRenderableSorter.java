@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.g3d.utils;
+
+import java.util.Arrays;
+
+import com.erlei.gdx.graphics.Camera;
+import com.erlei.gdx.graphics.GLTexture;
+import com.erlei.gdx.graphics.g3d.Material;
+import com.erlei.gdx.graphics.g3d.Renderable;
+import com.erlei.gdx.graphics.g3d.Shader;
+import com.erlei.gdx.graphics.g3d.attributes.BlendingAttribute;
+import com.erlei.gdx.graphics.g3d.attributes.TextureAttribute;
+import com.erlei.gdx.math.Matrix4;
+import com.erlei.gdx.math.Vector3;
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.ObjectIntMap;
+
+/** A {@link RenderableSorter} which packs the render state of each {@link Renderable} into a 64-bit key and sorts the keys with a
+ * radix sort, which takes linear time and does not allocate once its buffers have grown to the number of renderables.
+ * <p>
+ * From the most significant bit the key holds the pass (2 bits, see {@link #getPass(Renderable)}), whether the renderable is
+ * blended (1 bit) and then for opaque renderables the shader (10 bits), material (12 bits), diffuse texture (12 bits) and the
+ * distance to the camera (24 bits), so they are grouped by state and drawn front to back within the same state. For blended
+ * renderables the inverted distance comes first, so they are drawn back to front like with the {@link DefaultRenderableSorter}.
+ * <p>
+ * Shaders are numbered in order of appearance and renumbered from the next sort on once their ids don't fit anymore,
+ * materials are identified by {@link Material#id} so copies of a material share a group, textures by their GL handle. Ids which
+ * don't fit into their bits wrap around, which only makes the grouping less strict. Renderables with equal keys keep their
+ * order. */
+public class RadixRenderableSorter implements RenderableSorter {
+	public static final int PASS_SHIFT = 62;
+	public static final int BLENDED_SHIFT = 61;
+	public static final int SHADER_BITS = 10, MATERIAL_BITS = 12, TEXTURE_BITS = 12, DEPTH_BITS = 24;
+
+	private static final long SHADER_MASK = (1L << SHADER_BITS) - 1;
+	private static final long MATERIAL_MASK = (1L << MATERIAL_BITS) - 1;
+	private static final long TEXTURE_MASK = (1L << TEXTURE_BITS) - 1;
+	private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+	private static final int STATE_BITS = SHADER_BITS + MATERIAL_BITS + TEXTURE_BITS;
+
+	private Camera camera;
+	private final Vector3 tmpV1 = new Vector3();
+	private final ObjectIntMap<Shader> shaderIds = new ObjectIntMap<Shader>();
+	private long keys[] = new long[0], tmpKeys[] = new long[0];
+	private int indices[] = new int[0], tmpIndices[] = new int[0];
+	private Object sorted[] = new Object[0];
+	private final int counts[] = new int[8 * 256];
+
+	@Override
+	public void sort (final Camera camera, final Array<Renderable> renderables) {
+		this.camera = camera;
+		// shader ids are only renumbered between sorts, so a shader keeps its id within one sort
+		if (shaderIds.size > SHADER_MASK) shaderIds.clear();
+		final int n = renderables.size;
+		if (keys.length < n) {
+			keys = new long[n];
+			tmpKeys = new long[n];
+			indices = new int[n];
+			tmpIndices = new int[n];
+			sorted = new Object[n];
+		}
+
+		// the items of an array created without a type are an Object[]
+		final Object items[] = renderables.items;
+		final long keys[] = this.keys;
+		final int indices[] = this.indices;
+		for (int i = 0; i < n; i++) {
+			keys[i] = computeKey((Renderable)items[i]);
+			indices[i] = i;
+		}
+		radixSort(n);
+
+		final Object sorted[] = this.sorted;
+		System.arraycopy(items, 0, sorted, 0, n);
+		final int order[] = this.indices;
+		for (int i = 0; i < n; i++) {
+			items[i] = sorted[order[i]];
+			sorted[order[i]] = null;
+		}
+	}
+
+	/** Packs the render state of the renderable into its sort key, see {@link RadixRenderableSorter}. Overwrite to change the
+	 * order, keys are compared as unsigned values. */
+	protected long computeKey (final Renderable renderable) {
+		final Material material = renderable.material;
+		final BlendingAttribute blending = material == null ? null : (BlendingAttribute)material.get(BlendingAttribute.Type);
+		final boolean blended = blending != null && blending.blended;
+
+		final long state = (getShaderId(renderable.shader) & SHADER_MASK) << (MATERIAL_BITS + TEXTURE_BITS)
+			| (getMaterialId(material) & MATERIAL_MASK) << TEXTURE_BITS | (getTextureId(material) & TEXTURE_MASK);
+
+		float distance = (float)Math.sqrt(camera.position.dst2(getTranslation(renderable.worldTransform,
+			renderable.meshPart.center, tmpV1))) / camera.far;
+		if (distance > 1f) distance = 1f;
+		long depth = (long)(distance * DEPTH_MASK);
+		if (blended) depth = DEPTH_MASK - depth;
+
+		final long key = (long)(getPass(renderable) & 3) << PASS_SHIFT;
+		if (blended)
+			return key | 1L << BLENDED_SHIFT | depth << (BLENDED_SHIFT - DEPTH_BITS) | state << (BLENDED_SHIFT - DEPTH_BITS - STATE_BITS);
+		return key | state << (BLENDED_SHIFT - STATE_BITS) | depth << (BLENDED_SHIFT - STATE_BITS - DEPTH_BITS);
+	}
+
+	/** @return the pass of the renderable from 0 to 3, lower passes are rendered first. Defaults to 0 for all renderables. */
+	protected int getPass (final Renderable renderable) {
+		return 0;
+	}
+
+	private int getShaderId (final Shader shader) {
+		if (shader == null) return 0;
+		int id = shaderIds.get(shader, -1);
+		if (id == -1) shaderIds.put(shader, id = shaderIds.size + 1);
+		return id;
+	}
+
+	private static int getMaterialId (final Material material) {
+		if (material == null) return 0;
+		final int hash = material.id.hashCode();
+		return hash ^ (hash >>> MATERIAL_BITS) ^ (hash >>> (2 * MATERIAL_BITS));
+	}
+
+	private static int getTextureId (final Material material) {
+		if (material == null) return 0;
+		final TextureAttribute diffuse = (TextureAttribute)material.get(TextureAttribute.Diffuse);
+		if (diffuse == null) return 0;
+		final GLTexture texture = diffuse.textureDescription.texture;
+		return texture == null ? 0 : texture.getTextureObjectHandle();
+	}
+
+	private Vector3 getTranslation (Matrix4 worldTransform, Vector3 center, Vector3 output) {
+		if (center.isZero())
+			worldTransform.getTranslation(output);
+		else if (!worldTransform.hasRotationOrScaling())
+			worldTransform.getTranslation(output).add(center);
+		else
+			output.set(center).mul(worldTransform);
+		return output;
+	}
+
+	/** Sorts the first n keys along with their indices, least significant byte first. Bytes which are the same for all keys are
+	 * skipped. */
+	private void radixSort (final int n) {
+		final int counts[] = this.counts;
+		Arrays.fill(counts, 0);
+		long keys[] = this.keys;
+		for (int i = 0; i < n; i++) {
+			final long key = keys[i];
+			for (int b = 0; b < 8; b++)
+				counts[b << 8 | (int)(key >>> (b << 3)) & 0xFF]++;
+		}
+
+		long tmpKeys[] = this.tmpKeys;
+		int indices[] = this.indices, tmpIndices[] = this.tmpIndices;
+		for (int b = 0; b < 8; b++) {
+			final int offset = b << 8, shift = b << 3;
+			if (n == 0 || counts[offset | (int)(keys[0] >>> shift) & 0xFF] == n) continue;
+
+			for (int i = 0, sum = 0; i < 256; i++) {
+				final int count = counts[offset | i];
+				counts[offset | i] = sum;
+				sum += count;
+			}
+			for (int i = 0; i < n; i++) {
+				final long key = keys[i];
+				final int dst = counts[offset | (int)(key >>> shift) & 0xFF]++;
+				tmpKeys[dst] = key;
+				tmpIndices[dst] = indices[i];
+			}
+
+			final long swapKeys[] = keys;
+			keys = tmpKeys;
+			tmpKeys = swapKeys;
+			final int swapIndices[] = indices;
+			indices = tmpIndices;
+			tmpIndices = swapIndices;
+		}
+		this.keys = keys;
+		this.tmpKeys = tmpKeys;
+		this.indices = indices;
+		this.tmpIndices = tmpIndices;
+	}
+}
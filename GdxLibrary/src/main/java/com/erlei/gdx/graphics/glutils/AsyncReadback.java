@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.glutils;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.GL30;
+import com.erlei.gdx.utils.BufferUtils;
+import com.erlei.gdx.utils.Disposable;
+import com.erlei.gdx.utils.GdxRuntimeException;
+
+/** <p>
+ * Reads pixels of the bound read framebuffer without waiting for the GPU, for screenshots and frame capture.
+ * {@link #read(int, int, int, int, ReadbackListener)} only queues a glReadPixels into one of a ring of pixel pack buffers and a
+ * fence. {@link #update()}, called once per frame, hands the pixels of every completed read to its listener, usually one or two
+ * frames later. The pixels are RGBA8888 with the bottom row first, like {@link GL20#glReadPixels(int, int, int, int, int, int,
+ * Buffer)} returns them.
+ * </p>
+ *
+ * <p>
+ * When all buffers of the ring are in flight, the next read waits for the oldest one, so use as many buffers as frames may pass
+ * between a read and its completion, three by default. Without OpenGL ES 3.0 the pixels are read synchronously into client
+ * memory and still handed out by the next {@link #update()}, so the listeners see the same order and timing either way.
+ * </p>
+ *
+ * <p>
+ * All methods must be called on the rendering thread. The buffers are not managed, after a context loss the instance has to be
+ * disposed and created again.
+ * </p> */
+public class AsyncReadback implements Disposable {
+	/** Receives the pixels of a completed read on the rendering thread. */
+	public interface ReadbackListener {
+		/** @param pixels the RGBA8888 pixels from the position to the limit, bottom row first. Only valid during the call, copy
+		 *           or encode them before returning.
+		 * @param width the width of the read rectangle
+		 * @param height the height of the read rectangle */
+		public void pixelsRead (ByteBuffer pixels, int width, int height);
+	}
+
+	/** How long a blocking wait for a fence waits per glClientWaitSync call, in nanoseconds. */
+	private static final long WAIT_NANOS = 100 * 1000 * 1000;
+
+	private final Slot[] slots;
+	private final boolean pixelBuffers;
+	private int first, count;
+
+	/** Creates a reader with a ring of three buffers. */
+	public AsyncReadback () {
+		this(3);
+	}
+
+	/** @param buffers the amount of reads that can be in flight at the same time */
+	public AsyncReadback (int buffers) {
+		if (buffers < 1) throw new IllegalArgumentException("buffers must be > 0: " + buffers);
+		slots = new Slot[buffers];
+		pixelBuffers = Gdx.gl30 != null;
+		IntBuffer handles = null;
+		if (pixelBuffers) {
+			handles = BufferUtils.newIntBuffer(buffers);
+			Gdx.gl30.glGenBuffers(buffers, handles);
+		}
+		for (int i = 0; i < buffers; i++) {
+			slots[i] = new Slot();
+			if (handles != null) slots[i].buffer = handles.get(i);
+		}
+	}
+
+	/** @return whether reads are asynchronous, which needs OpenGL ES 3.0 */
+	public boolean isAsynchronous () {
+		return pixelBuffers;
+	}
+
+	/** Queues reading a rectangle of the bound read framebuffer. If all buffers are in flight, waits for the oldest read and
+	 * notifies its listener first. */
+	public void read (int x, int y, int width, int height, ReadbackListener listener) {
+		if (listener == null) throw new IllegalArgumentException("listener cannot be null.");
+		if (count == slots.length) complete(true);
+
+		Slot slot = slots[(first + count) % slots.length];
+		int size = width * height * 4;
+		slot.width = width;
+		slot.height = height;
+		slot.listener = listener;
+
+		GL20 gl = Gdx.gl;
+		gl.glPixelStorei(GL20.GL_PACK_ALIGNMENT, 1);
+		if (pixelBuffers) {
+			GL30 gl30 = Gdx.gl30;
+			gl30.glBindBuffer(GL30.GL_PIXEL_PACK_BUFFER, slot.buffer);
+			if (slot.capacity < size) {
+				gl30.glBufferData(GL30.GL_PIXEL_PACK_BUFFER, size, null, GL30.GL_STREAM_READ);
+				slot.capacity = size;
+			}
+			gl30.glReadPixels(x, y, width, height, GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, 0);
+			gl30.glBindBuffer(GL30.GL_PIXEL_PACK_BUFFER, 0);
+			slot.sync = gl30.glFenceSync(GL30.GL_SYNC_GPU_COMMANDS_COMPLETE, 0);
+		} else {
+			if (slot.pixels == null || slot.pixels.capacity() < size) {
+				if (slot.pixels != null) BufferUtils.disposeUnsafeByteBuffer(slot.pixels);
+				slot.pixels = BufferUtils.newUnsafeByteBuffer(size);
+			}
+			slot.pixels.clear();
+			slot.pixels.limit(size);
+			gl.glReadPixels(x, y, width, height, GL20.GL_RGBA, GL20.GL_UNSIGNED_BYTE, slot.pixels);
+		}
+		count++;
+	}
+
+	/** Notifies the listeners of all reads the GPU has completed, in the order of the reads. Call once per frame.
+	 * @return whether no reads are in flight anymore */
+	public boolean update () {
+		while (count > 0 && complete(false))
+			;
+		return count == 0;
+	}
+
+	/** Waits for all reads and notifies their listeners. */
+	public void finish () {
+		while (count > 0)
+			complete(true);
+	}
+
+	/** @return the amount of reads whose listeners were not notified yet */
+	public int getPending () {
+		return count;
+	}
+
+	/** Notifies the listener of the oldest read if it is complete.
+	 * @param wait whether to wait for the GPU
+	 * @return whether the read was complete */
+	private boolean complete (boolean wait) {
+		Slot slot = slots[first];
+		if (pixelBuffers) {
+			GL30 gl30 = Gdx.gl30;
+			if (slot.sync != 0) {
+				int result;
+				do {
+					result = gl30.glClientWaitSync(slot.sync, GL30.GL_SYNC_FLUSH_COMMANDS_BIT, wait ? WAIT_NANOS : 0);
+				} while (wait && result == GL30.GL_TIMEOUT_EXPIRED);
+				if (result == GL30.GL_TIMEOUT_EXPIRED) return false;
+				// GL_WAIT_FAILED means the fence is unusable, mapping waits for the read instead
+				gl30.glDeleteSync(slot.sync);
+				slot.sync = 0;
+			}
+			int size = slot.width * slot.height * 4;
+			gl30.glBindBuffer(GL30.GL_PIXEL_PACK_BUFFER, slot.buffer);
+			ByteBuffer pixels = (ByteBuffer)gl30.glMapBufferRange(GL30.GL_PIXEL_PACK_BUFFER, 0, size, GL30.GL_MAP_READ_BIT);
+			if (pixels == null) {
+				gl30.glBindBuffer(GL30.GL_PIXEL_PACK_BUFFER, 0);
+				throw new GdxRuntimeException("Couldn't map pixel pack buffer, error: " + gl30.glGetError());
+			}
+			try {
+				notify(slot, pixels);
+			} finally {
+				gl30.glUnmapBuffer(GL30.GL_PIXEL_PACK_BUFFER);
+				gl30.glBindBuffer(GL30.GL_PIXEL_PACK_BUFFER, 0);
+			}
+		} else {
+			notify(slot, slot.pixels);
+		}
+		return true;
+	}
+
+	private void notify (Slot slot, ByteBuffer pixels) {
+		ReadbackListener listener = slot.listener;
+		slot.listener = null;
+		first = (first + 1) % slots.length;
+		count--;
+		listener.pixelsRead(pixels, slot.width, slot.height);
+	}
+
+	/** Deletes the buffers and fences. Reads in flight are dropped without notifying their listeners. */
+	@Override
+	public void dispose () {
+		GL30 gl30 = Gdx.gl30;
+		for (Slot slot : slots) {
+			if (pixelBuffers) {
+				if (slot.sync != 0) gl30.glDeleteSync(slot.sync);
+				gl30.glDeleteBuffer(slot.buffer);
+			}
+			if (slot.pixels != null) BufferUtils.disposeUnsafeByteBuffer(slot.pixels);
+			slot.sync = 0;
+			slot.pixels = null;
+			slot.listener = null;
+		}
+		count = 0;
+	}
+
+	private static class Slot {
+		int buffer;
+		int capacity;
+		long sync;
+		ByteBuffer pixels;
+		int width, height;
+		ReadbackListener listener;
+	}
+}
@@ -74,6 +74,11 @@ public class FloatTextureData implements TextureData {
 
     @Override
     public void consumeCustomData(int target) {
+        if (Gdx.isGL30Available()) {
+            // GLES 3.0 supports sized float formats like GL_RGBA32F without extensions
+            Gdx.gl30.glTexImage2D(target, 0, internalFormat, width, height, 0, format, type, buffer);
+            return;
+        }
         if (!Gdx.app.supportsExtension("OES_texture_float"))
             throw new GdxRuntimeException("Extension OES_texture_float not supported!");
 
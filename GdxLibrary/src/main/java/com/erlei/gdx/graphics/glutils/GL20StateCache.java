@@ -0,0 +1,1358 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.glutils;
+
+import java.nio.Buffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.GL30;
+import com.erlei.gdx.utils.IntIntMap;
+
+/** A {@link GL20} that shadows the bindable OpenGL state and drops calls which would not change it. Covers the program,
+ * the array and element array buffers, enabled vertex attributes, the active texture unit and the textures bound to each unit,
+ * frame and render buffers, viewport, scissor, enabled capabilities, blend function and equation, depth function, mask and
+ * range, cull and front face, color mask, clear color, line width and pack/unpack alignment. Every other call is passed on
+ * unchanged.
+ * <p>
+ * The shadow only knows about state changed through this instance. Call {@link #invalidate()} whenever the context is
+ * changed behind its back (native code, third party libraries, a recreated context), all state is treated as unknown
+ * afterwards and the next call for each of it is issued again. Use {@link GLStateCache} to install it.
+ * @see GL30StateCache */
+public class GL20StateCache implements GL20 {
+	/** The GL_TEXTURE_EXTERNAL_OES target of OES_EGL_image_external, used for camera and video textures. */
+	public static final int GL_TEXTURE_EXTERNAL_OES = 0x8D65;
+
+	protected static final int UNKNOWN = -1;
+	protected static final int MAX_UNITS = 32;
+	protected static final int MAX_ATTRIBUTES = 16;
+	protected static final int TEXTURE_TARGETS = 5;
+
+	protected final GL20 gl20;
+
+	protected int issued;
+	protected int elided;
+
+	protected int program;
+	protected int arrayBuffer;
+	protected int elementArrayBuffer;
+	protected final int[] attributes = new int[MAX_ATTRIBUTES];
+	protected int activeUnit;
+	protected final int[] textures = new int[MAX_UNITS * TEXTURE_TARGETS];
+	protected int drawFramebuffer;
+	protected int readFramebuffer;
+	protected int renderbuffer;
+	protected final int[] viewport = new int[4];
+	protected final int[] scissor = new int[4];
+	protected final IntIntMap capabilities = new IntIntMap();
+	protected final int[] blendFunc = new int[4];
+	protected final int[] blendEquation = new int[2];
+	protected int depthFunc;
+	protected int depthMask;
+	protected final float[] depthRange = new float[2];
+	protected int cullFace;
+	protected int frontFace;
+	protected int colorMask;
+	protected final float[] clearColor = new float[4];
+	protected float lineWidth;
+	protected int packAlignment;
+	protected int unpackAlignment;
+
+	public GL20StateCache (GL20 gl20) {
+		this.gl20 = gl20;
+		invalidate();
+	}
+
+	/** @return the wrapped {@link GL20} */
+	public GL20 getWrapped () {
+		return gl20;
+	}
+
+	/** Forgets all shadowed state, the next call changing any of it is issued to the driver again. */
+	public void invalidate () {
+		program = arrayBuffer = elementArrayBuffer = UNKNOWN;
+		activeUnit = UNKNOWN;
+		drawFramebuffer = readFramebuffer = renderbuffer = UNKNOWN;
+		depthFunc = depthMask = cullFace = frontFace = colorMask = UNKNOWN;
+		packAlignment = unpackAlignment = UNKNOWN;
+		lineWidth = Float.NaN;
+		Arrays.fill(attributes, UNKNOWN);
+		Arrays.fill(textures, UNKNOWN);
+		Arrays.fill(viewport, UNKNOWN);
+		Arrays.fill(scissor, UNKNOWN);
+		Arrays.fill(blendFunc, UNKNOWN);
+		Arrays.fill(blendEquation, UNKNOWN);
+		Arrays.fill(depthRange, Float.NaN);
+		Arrays.fill(clearColor, Float.NaN);
+		capabilities.clear();
+	}
+
+	/** @return the calls passed on to the wrapped {@link GL20} since the last {@link #reset()} */
+	public int getIssued () {
+		return issued;
+	}
+
+	/** @return the calls dropped because they would not have changed the state since the last {@link #reset()} */
+	public int getElided () {
+		return elided;
+	}
+
+	/** Resets the counters, should be called after every frame. The shadowed state is kept. */
+	public void reset () {
+		issued = 0;
+		elided = 0;
+	}
+
+	/** @return the index into {@link #textures} for the target on the active unit, or -1 if it is not shadowed */
+	protected int textureSlot (int target) {
+		if (activeUnit < 0) return -1;
+		final int base = activeUnit * TEXTURE_TARGETS;
+		switch (target) {
+		case GL_TEXTURE_2D:
+			return base;
+		case GL_TEXTURE_CUBE_MAP:
+			return base + 1;
+		case GL30.GL_TEXTURE_3D:
+			return base + 2;
+		case GL30.GL_TEXTURE_2D_ARRAY:
+			return base + 3;
+		case GL_TEXTURE_EXTERNAL_OES:
+			return base + 4;
+		default:
+			return -1;
+		}
+	}
+
+	/** Deleting a bound texture binds 0 to each unit and target it was bound to. */
+	protected void forgetTexture (int texture) {
+		if (texture == 0) return;
+		for (int i = 0; i < textures.length; i++)
+			if (textures[i] == texture) textures[i] = 0;
+	}
+
+	protected void forgetBuffer (int buffer) {
+		if (buffer == 0) return;
+		if (arrayBuffer == buffer) arrayBuffer = 0;
+		if (elementArrayBuffer == buffer) elementArrayBuffer = 0;
+	}
+
+	protected void forgetFramebuffer (int framebuffer) {
+		if (framebuffer == 0) return;
+		if (drawFramebuffer == framebuffer) drawFramebuffer = 0;
+		if (readFramebuffer == framebuffer) readFramebuffer = 0;
+	}
+
+	/** Called when a different vertex array object is bound, the element buffer and the enabled attributes are part of it. */
+	protected void forgetVertexArrayState () {
+		elementArrayBuffer = UNKNOWN;
+		Arrays.fill(attributes, UNKNOWN);
+	}
+
+	@Override
+	public void glActiveTexture (int texture) {
+		final int unit = texture - GL_TEXTURE0;
+		if (unit == activeUnit) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glActiveTexture(texture);
+		activeUnit = unit >= 0 && unit < MAX_UNITS ? unit : UNKNOWN;
+	}
+
+	@Override
+	public void glBindTexture (int target, int texture) {
+		final int slot = textureSlot(target);
+		if (slot >= 0) {
+			if (textures[slot] == texture) {
+				elided++;
+				return;
+			}
+			textures[slot] = texture;
+		}
+		issued++;
+		gl20.glBindTexture(target, texture);
+	}
+
+	@Override
+	public void glBlendFunc (int sfactor, int dfactor) {
+		if (sfactor == blendFunc[0] && dfactor == blendFunc[1] && sfactor == blendFunc[2] && dfactor == blendFunc[3]) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glBlendFunc(sfactor, dfactor);
+		blendFunc[0] = blendFunc[2] = sfactor;
+		blendFunc[1] = blendFunc[3] = dfactor;
+	}
+
+	@Override
+	public void glClear (int mask) {
+		issued++;
+		gl20.glClear(mask);
+	}
+
+	@Override
+	public void glClearColor (float red, float green, float blue, float alpha) {
+		if (red == clearColor[0] && green == clearColor[1] && blue == clearColor[2] && alpha == clearColor[3]) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glClearColor(red, green, blue, alpha);
+		clearColor[0] = red;
+		clearColor[1] = green;
+		clearColor[2] = blue;
+		clearColor[3] = alpha;
+	}
+
+	@Override
+	public void glClearDepthf (float depth) {
+		issued++;
+		gl20.glClearDepthf(depth);
+	}
+
+	@Override
+	public void glClearStencil (int s) {
+		issued++;
+		gl20.glClearStencil(s);
+	}
+
+	@Override
+	public void glColorMask (boolean red, boolean green, boolean blue, boolean alpha) {
+		final int mask = (red ? 1 : 0) | (green ? 2 : 0) | (blue ? 4 : 0) | (alpha ? 8 : 0);
+		if (mask == colorMask) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glColorMask(red, green, blue, alpha);
+		colorMask = mask;
+	}
+
+	@Override
+	public void glCompressedTexImage2D (int target, int level, int internalformat, int width, int height, int border,
+		int imageSize, Buffer data) {
+		issued++;
+		gl20.glCompressedTexImage2D(target, level, internalformat, width, height, border, imageSize, data);
+	}
+
+	@Override
+	public void glCompressedTexSubImage2D (int target, int level, int xoffset, int yoffset, int width, int height, int format,
+		int imageSize, Buffer data) {
+		issued++;
+		gl20.glCompressedTexSubImage2D(target, level, xoffset, yoffset, width, height, format, imageSize, data);
+	}
+
+	@Override
+	public void glCopyTexImage2D (int target, int level, int internalformat, int x, int y, int width, int height, int border) {
+		issued++;
+		gl20.glCopyTexImage2D(target, level, internalformat, x, y, width, height, border);
+	}
+
+	@Override
+	public void glCopyTexSubImage2D (int target, int level, int xoffset, int yoffset, int x, int y, int width, int height) {
+		issued++;
+		gl20.glCopyTexSubImage2D(target, level, xoffset, yoffset, x, y, width, height);
+	}
+
+	@Override
+	public void glCullFace (int mode) {
+		if (mode == cullFace) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glCullFace(mode);
+		cullFace = mode;
+	}
+
+	@Override
+	public void glDeleteTextures (int n, IntBuffer textures) {
+		issued++;
+		gl20.glDeleteTextures(n, textures);
+		for (int i = 0, p = textures.position(); i < n; i++)
+			forgetTexture(textures.get(p + i));
+	}
+
+	@Override
+	public void glDeleteTexture (int texture) {
+		issued++;
+		gl20.glDeleteTexture(texture);
+		forgetTexture(texture);
+	}
+
+	@Override
+	public void glDepthFunc (int func) {
+		if (func == depthFunc) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glDepthFunc(func);
+		depthFunc = func;
+	}
+
+	@Override
+	public void glDepthMask (boolean flag) {
+		final int mask = flag ? 1 : 0;
+		if (mask == depthMask) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glDepthMask(flag);
+		depthMask = mask;
+	}
+
+	@Override
+	public void glDepthRangef (float zNear, float zFar) {
+		if (zNear == depthRange[0] && zFar == depthRange[1]) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glDepthRangef(zNear, zFar);
+		depthRange[0] = zNear;
+		depthRange[1] = zFar;
+	}
+
+	@Override
+	public void glDisable (int cap) {
+		if (capabilities.get(cap, UNKNOWN) == 0) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glDisable(cap);
+		capabilities.put(cap, 0);
+	}
+
+	@Override
+	public void glDrawArrays (int mode, int first, int count) {
+		issued++;
+		gl20.glDrawArrays(mode, first, count);
+	}
+
+	@Override
+	public void glDrawElements (int mode, int count, int type, Buffer indices) {
+		issued++;
+		gl20.glDrawElements(mode, count, type, indices);
+	}
+
+	@Override
+	public void glEnable (int cap) {
+		if (capabilities.get(cap, UNKNOWN) == 1) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glEnable(cap);
+		capabilities.put(cap, 1);
+	}
+
+	@Override
+	public void glFinish () {
+		issued++;
+		gl20.glFinish();
+	}
+
+	@Override
+	public void glFlush () {
+		issued++;
+		gl20.glFlush();
+	}
+
+	@Override
+	public void glFrontFace (int mode) {
+		if (mode == frontFace) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glFrontFace(mode);
+		frontFace = mode;
+	}
+
+	@Override
+	public void glGenTextures (int n, IntBuffer textures) {
+		issued++;
+		gl20.glGenTextures(n, textures);
+	}
+
+	@Override
+	public int glGenTexture () {
+		issued++;
+		int result = gl20.glGenTexture();
+		return result;
+	}
+
+	@Override
+	public int glGetError () {
+		issued++;
+		//Errors by glGetError are undetectable
+		return gl20.glGetError();
+	}
+
+	@Override
+	public void glGetIntegerv (int pname, IntBuffer params) {
+		issued++;
+		gl20.glGetIntegerv(pname, params);
+	}
+
+	@Override
+	public String glGetString (int name) {
+		issued++;
+		String result = gl20.glGetString(name);
+		return result;
+	}
+
+	@Override
+	public void glHint (int target, int mode) {
+		issued++;
+		gl20.glHint(target, mode);
+	}
+
+	@Override
+	public void glLineWidth (float width) {
+		if (width == lineWidth) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glLineWidth(width);
+		lineWidth = width;
+	}
+
+	@Override
+	public void glPixelStorei (int pname, int param) {
+		if (pname == GL_PACK_ALIGNMENT) {
+			if (param == packAlignment) {
+				elided++;
+				return;
+			}
+			packAlignment = param;
+		} else if (pname == GL_UNPACK_ALIGNMENT) {
+			if (param == unpackAlignment) {
+				elided++;
+				return;
+			}
+			unpackAlignment = param;
+		}
+		issued++;
+		gl20.glPixelStorei(pname, param);
+	}
+
+	@Override
+	public void glPolygonOffset (float factor, float units) {
+		issued++;
+		gl20.glPolygonOffset(factor, units);
+	}
+
+	@Override
+	public void glReadPixels (int x, int y, int width, int height, int format, int type, Buffer pixels) {
+		issued++;
+		gl20.glReadPixels(x, y, width, height, format, type, pixels);
+	}
+
+	@Override
+	public void glScissor (int x, int y, int width, int height) {
+		if (x == scissor[0] && y == scissor[1] && width == scissor[2] && height == scissor[3]) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glScissor(x, y, width, height);
+		scissor[0] = x;
+		scissor[1] = y;
+		scissor[2] = width;
+		scissor[3] = height;
+	}
+
+	@Override
+	public void glStencilFunc (int func, int ref, int mask) {
+		issued++;
+		gl20.glStencilFunc(func, ref, mask);
+	}
+
+	@Override
+	public void glStencilMask (int mask) {
+		issued++;
+		gl20.glStencilMask(mask);
+	}
+
+	@Override
+	public void glStencilOp (int fail, int zfail, int zpass) {
+		issued++;
+		gl20.glStencilOp(fail, zfail, zpass);
+	}
+
+	@Override
+	public void glTexImage2D (int target, int level, int internalformat, int width, int height, int border, int format, int type,
+		Buffer pixels) {
+		issued++;
+		gl20.glTexImage2D(target, level, internalformat, width, height, border, format, type, pixels);
+	}
+
+	@Override
+	public void glTexParameterf (int target, int pname, float param) {
+		issued++;
+		gl20.glTexParameterf(target, pname, param);
+	}
+
+	@Override
+	public void glTexSubImage2D (int target, int level, int xoffset, int yoffset, int width, int height, int format, int type,
+		Buffer pixels) {
+		issued++;
+		gl20.glTexSubImage2D(target, level, xoffset, yoffset, width, height, format, type, pixels);
+	}
+
+	@Override
+	public void glViewport (int x, int y, int width, int height) {
+		if (x == viewport[0] && y == viewport[1] && width == viewport[2] && height == viewport[3]) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glViewport(x, y, width, height);
+		viewport[0] = x;
+		viewport[1] = y;
+		viewport[2] = width;
+		viewport[3] = height;
+	}
+
+	@Override
+	public void glAttachShader (int program, int shader) {
+		issued++;
+		gl20.glAttachShader(program, shader);
+	}
+
+	@Override
+	public void glBindAttribLocation (int program, int index, String name) {
+		issued++;
+		gl20.glBindAttribLocation(program, index, name);
+	}
+
+	@Override
+	public void glBindBuffer (int target, int buffer) {
+		if (target == GL_ARRAY_BUFFER) {
+			if (buffer == arrayBuffer) {
+				elided++;
+				return;
+			}
+			arrayBuffer = buffer;
+		} else if (target == GL_ELEMENT_ARRAY_BUFFER) {
+			if (buffer == elementArrayBuffer) {
+				elided++;
+				return;
+			}
+			elementArrayBuffer = buffer;
+		}
+		issued++;
+		gl20.glBindBuffer(target, buffer);
+	}
+
+	@Override
+	public void glBindFramebuffer (int target, int framebuffer) {
+		if (target == GL_FRAMEBUFFER) {
+			if (framebuffer == drawFramebuffer && framebuffer == readFramebuffer) {
+				elided++;
+				return;
+			}
+			drawFramebuffer = readFramebuffer = framebuffer;
+		} else if (target == GL30.GL_DRAW_FRAMEBUFFER) {
+			if (framebuffer == drawFramebuffer) {
+				elided++;
+				return;
+			}
+			drawFramebuffer = framebuffer;
+		} else if (target == GL30.GL_READ_FRAMEBUFFER) {
+			if (framebuffer == readFramebuffer) {
+				elided++;
+				return;
+			}
+			readFramebuffer = framebuffer;
+		}
+		issued++;
+		gl20.glBindFramebuffer(target, framebuffer);
+	}
+
+	@Override
+	public void glBindRenderbuffer (int target, int renderbuffer) {
+		if (target == GL_RENDERBUFFER) {
+			if (renderbuffer == this.renderbuffer) {
+				elided++;
+				return;
+			}
+			this.renderbuffer = renderbuffer;
+		}
+		issued++;
+		gl20.glBindRenderbuffer(target, renderbuffer);
+	}
+
+	@Override
+	public void glBlendColor (float red, float green, float blue, float alpha) {
+		issued++;
+		gl20.glBlendColor(red, green, blue, alpha);
+	}
+
+	@Override
+	public void glBlendEquation (int mode) {
+		if (mode == blendEquation[0] && mode == blendEquation[1]) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glBlendEquation(mode);
+		blendEquation[0] = blendEquation[1] = mode;
+	}
+
+	@Override
+	public void glBlendEquationSeparate (int modeRGB, int modeAlpha) {
+		if (modeRGB == blendEquation[0] && modeAlpha == blendEquation[1]) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glBlendEquationSeparate(modeRGB, modeAlpha);
+		blendEquation[0] = modeRGB;
+		blendEquation[1] = modeAlpha;
+	}
+
+	@Override
+	public void glBlendFuncSeparate (int srcRGB, int dstRGB, int srcAlpha, int dstAlpha) {
+		if (srcRGB == blendFunc[0] && dstRGB == blendFunc[1] && srcAlpha == blendFunc[2] && dstAlpha == blendFunc[3]) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glBlendFuncSeparate(srcRGB, dstRGB, srcAlpha, dstAlpha);
+		blendFunc[0] = srcRGB;
+		blendFunc[1] = dstRGB;
+		blendFunc[2] = srcAlpha;
+		blendFunc[3] = dstAlpha;
+	}
+
+	@Override
+	public void glBufferData (int target, int size, Buffer data, int usage) {
+		issued++;
+		gl20.glBufferData(target, size, data, usage);
+	}
+
+	@Override
+	public void glBufferSubData (int target, int offset, int size, Buffer data) {
+		issued++;
+		gl20.glBufferSubData(target, offset, size, data);
+	}
+
+	@Override
+	public int glCheckFramebufferStatus (int target) {
+		issued++;
+		int result = gl20.glCheckFramebufferStatus(target);
+		return result;
+	}
+
+	@Override
+	public void glCompileShader (int shader) {
+		issued++;
+		gl20.glCompileShader(shader);
+	}
+
+	@Override
+	public int glCreateProgram () {
+		issued++;
+		int result = gl20.glCreateProgram();
+		return result;
+	}
+
+	@Override
+	public int glCreateShader (int type) {
+		issued++;
+		int result = gl20.glCreateShader(type);
+		return result;
+	}
+
+	@Override
+	public void glDeleteBuffer (int buffer) {
+		issued++;
+		gl20.glDeleteBuffer(buffer);
+		forgetBuffer(buffer);
+	}
+
+	@Override
+	public void glDeleteBuffers (int n, IntBuffer buffers) {
+		issued++;
+		gl20.glDeleteBuffers(n, buffers);
+		for (int i = 0, p = buffers.position(); i < n; i++)
+			forgetBuffer(buffers.get(p + i));
+	}
+
+	@Override
+	public void glDeleteFramebuffer (int framebuffer) {
+		issued++;
+		gl20.glDeleteFramebuffer(framebuffer);
+		forgetFramebuffer(framebuffer);
+	}
+
+	@Override
+	public void glDeleteFramebuffers (int n, IntBuffer framebuffers) {
+		issued++;
+		gl20.glDeleteFramebuffers(n, framebuffers);
+		for (int i = 0, p = framebuffers.position(); i < n; i++)
+			forgetFramebuffer(framebuffers.get(p + i));
+	}
+
+	@Override
+	public void glDeleteProgram (int program) {
+		issued++;
+		gl20.glDeleteProgram(program);
+	}
+
+	@Override
+	public void glDeleteRenderbuffer (int renderbuffer) {
+		issued++;
+		gl20.glDeleteRenderbuffer(renderbuffer);
+		if (renderbuffer == this.renderbuffer) this.renderbuffer = 0;
+	}
+
+	@Override
+	public void glDeleteRenderbuffers (int n, IntBuffer renderbuffers) {
+		issued++;
+		gl20.glDeleteRenderbuffers(n, renderbuffers);
+		for (int i = 0, p = renderbuffers.position(); i < n; i++)
+			if (renderbuffers.get(p + i) == renderbuffer) renderbuffer = 0;
+	}
+
+	@Override
+	public void glDeleteShader (int shader) {
+		issued++;
+		gl20.glDeleteShader(shader);
+	}
+
+	@Override
+	public void glDetachShader (int program, int shader) {
+		issued++;
+		gl20.glDetachShader(program, shader);
+	}
+
+	@Override
+	public void glDisableVertexAttribArray (int index) {
+		if (index >= 0 && index < MAX_ATTRIBUTES) {
+			if (attributes[index] == 0) {
+				elided++;
+				return;
+			}
+			attributes[index] = 0;
+		}
+		issued++;
+		gl20.glDisableVertexAttribArray(index);
+	}
+
+	@Override
+	public void glDrawElements (int mode, int count, int type, int indices) {
+		issued++;
+		gl20.glDrawElements(mode, count, type, indices);
+	}
+
+	@Override
+	public void glEnableVertexAttribArray (int index) {
+		if (index >= 0 && index < MAX_ATTRIBUTES) {
+			if (attributes[index] == 1) {
+				elided++;
+				return;
+			}
+			attributes[index] = 1;
+		}
+		issued++;
+		gl20.glEnableVertexAttribArray(index);
+	}
+
+	@Override
+	public void glFramebufferRenderbuffer (int target, int attachment, int renderbuffertarget, int renderbuffer) {
+		issued++;
+		gl20.glFramebufferRenderbuffer(target, attachment, renderbuffertarget, renderbuffer);
+	}
+
+	@Override
+	public void glFramebufferTexture2D (int target, int attachment, int textarget, int texture, int level) {
+		issued++;
+		gl20.glFramebufferTexture2D(target, attachment, textarget, texture, level);
+	}
+
+	@Override
+	public int glGenBuffer () {
+		issued++;
+		int result = gl20.glGenBuffer();
+		return result;
+	}
+
+	@Override
+	public void glGenBuffers (int n, IntBuffer buffers) {
+		issued++;
+		gl20.glGenBuffers(n, buffers);
+	}
+
+	@Override
+	public void glGenerateMipmap (int target) {
+		issued++;
+		gl20.glGenerateMipmap(target);
+	}
+
+	@Override
+	public int glGenFramebuffer () {
+		issued++;
+		int result = gl20.glGenFramebuffer();
+		return result;
+	}
+
+	@Override
+	public void glGenFramebuffers (int n, IntBuffer framebuffers) {
+		issued++;
+		gl20.glGenFramebuffers(n, framebuffers);
+	}
+
+	@Override
+	public int glGenRenderbuffer () {
+		issued++;
+		int result = gl20.glGenRenderbuffer();
+		return result;
+	}
+
+	@Override
+	public void glGenRenderbuffers (int n, IntBuffer renderbuffers) {
+		issued++;
+		gl20.glGenRenderbuffers(n, renderbuffers);
+	}
+
+	@Override
+	public String glGetActiveAttrib (int program, int index, IntBuffer size, Buffer type) {
+		issued++;
+		String result = gl20.glGetActiveAttrib(program, index, size, type);
+		return result;
+	}
+
+	@Override
+	public String glGetActiveUniform (int program, int index, IntBuffer size, Buffer type) {
+		issued++;
+		String result = gl20.glGetActiveUniform(program, index, size, type);
+		return result;
+	}
+
+	@Override
+	public void glGetAttachedShaders (int program, int maxcount, Buffer count, IntBuffer shaders) {
+		issued++;
+		gl20.glGetAttachedShaders(program, maxcount, count, shaders);
+	}
+
+	@Override
+	public int glGetAttribLocation (int program, String name) {
+		issued++;
+		int result = gl20.glGetAttribLocation(program, name);
+		return result;
+	}
+
+	@Override
+	public void glGetBooleanv (int pname, Buffer params) {
+		issued++;
+		gl20.glGetBooleanv(pname, params);
+	}
+
+	@Override
+	public void glGetBufferParameteriv (int target, int pname, IntBuffer params) {
+		issued++;
+		gl20.glGetBufferParameteriv(target, pname, params);
+	}
+
+	@Override
+	public void glGetFloatv (int pname, FloatBuffer params) {
+		issued++;
+		gl20.glGetFloatv(pname, params);
+	}
+
+	@Override
+	public void glGetFramebufferAttachmentParameteriv (int target, int attachment, int pname, IntBuffer params) {
+		issued++;
+		gl20.glGetFramebufferAttachmentParameteriv(target, attachment, pname, params);
+	}
+
+	@Override
+	public void glGetProgramiv (int program, int pname, IntBuffer params) {
+		issued++;
+		gl20.glGetProgramiv(program, pname, params);
+	}
+
+	@Override
+	public String glGetProgramInfoLog (int program) {
+		issued++;
+		String result = gl20.glGetProgramInfoLog(program);
+		return result;
+	}
+
+	@Override
+	public void glGetRenderbufferParameteriv (int target, int pname, IntBuffer params) {
+		issued++;
+		gl20.glGetRenderbufferParameteriv(target, pname, params);
+	}
+
+	@Override
+	public void glGetShaderiv (int shader, int pname, IntBuffer params) {
+		issued++;
+		gl20.glGetShaderiv(shader, pname, params);
+	}
+
+	@Override
+	public String glGetShaderInfoLog (int shader) {
+		issued++;
+		String result = gl20.glGetShaderInfoLog(shader);
+		return result;
+	}
+
+	@Override
+	public void glGetShaderPrecisionFormat (int shadertype, int precisiontype, IntBuffer range, IntBuffer precision) {
+		issued++;
+		gl20.glGetShaderPrecisionFormat(shadertype, precisiontype, range, precision);
+	}
+
+	@Override
+	public void glGetTexParameterfv (int target, int pname, FloatBuffer params) {
+		issued++;
+		gl20.glGetTexParameterfv(target, pname, params);
+	}
+
+	@Override
+	public void glGetTexParameteriv (int target, int pname, IntBuffer params) {
+		issued++;
+		gl20.glGetTexParameteriv(target, pname, params);
+	}
+
+	@Override
+	public void glGetUniformfv (int program, int location, FloatBuffer params) {
+		issued++;
+		gl20.glGetUniformfv(program, location, params);
+	}
+
+	@Override
+	public void glGetUniformiv (int program, int location, IntBuffer params) {
+		issued++;
+		gl20.glGetUniformiv(program, location, params);
+	}
+
+	@Override
+	public int glGetUniformLocation (int program, String name) {
+		issued++;
+		int result = gl20.glGetUniformLocation(program, name);
+		return result;
+	}
+
+	@Override
+	public void glGetVertexAttribfv (int index, int pname, FloatBuffer params) {
+		issued++;
+		gl20.glGetVertexAttribfv(index, pname, params);
+	}
+
+	@Override
+	public void glGetVertexAttribiv (int index, int pname, IntBuffer params) {
+		issued++;
+		gl20.glGetVertexAttribiv(index, pname, params);
+	}
+
+	@Override
+	public void glGetVertexAttribPointerv (int index, int pname, Buffer pointer) {
+		issued++;
+		gl20.glGetVertexAttribPointerv(index, pname, pointer);
+	}
+
+	@Override
+	public boolean glIsBuffer (int buffer) {
+		issued++;
+		boolean result = gl20.glIsBuffer(buffer);
+		return result;
+	}
+
+	@Override
+	public boolean glIsEnabled (int cap) {
+		issued++;
+		boolean result = gl20.glIsEnabled(cap);
+		return result;
+	}
+
+	@Override
+	public boolean glIsFramebuffer (int framebuffer) {
+		issued++;
+		boolean result = gl20.glIsFramebuffer(framebuffer);
+		return result;
+	}
+
+	@Override
+	public boolean glIsProgram (int program) {
+		issued++;
+		boolean result = gl20.glIsProgram(program);
+		return result;
+	}
+
+	@Override
+	public boolean glIsRenderbuffer (int renderbuffer) {
+		issued++;
+		boolean result = gl20.glIsRenderbuffer(renderbuffer);
+		return result;
+	}
+
+	@Override
+	public boolean glIsShader (int shader) {
+		issued++;
+		boolean result = gl20.glIsShader(shader);
+		return result;
+	}
+
+	@Override
+	public boolean glIsTexture (int texture) {
+		issued++;
+		boolean result = gl20.glIsTexture(texture);
+		return result;
+	}
+
+	@Override
+	public void glLinkProgram (int program) {
+		issued++;
+		gl20.glLinkProgram(program);
+	}
+
+	@Override
+	public void glReleaseShaderCompiler () {
+		issued++;
+		gl20.glReleaseShaderCompiler();
+	}
+
+	@Override
+	public void glRenderbufferStorage (int target, int internalformat, int width, int height) {
+		issued++;
+		gl20.glRenderbufferStorage(target, internalformat, width, height);
+	}
+
+	@Override
+	public void glSampleCoverage (float value, boolean invert) {
+		issued++;
+		gl20.glSampleCoverage(value, invert);
+	}
+
+	@Override
+	public void glShaderBinary (int n, IntBuffer shaders, int binaryformat, Buffer binary, int length) {
+		issued++;
+		gl20.glShaderBinary(n, shaders, binaryformat, binary, length);
+	}
+
+	@Override
+	public void glShaderSource (int shader, String string) {
+		issued++;
+		gl20.glShaderSource(shader, string);
+	}
+
+	@Override
+	public void glStencilFuncSeparate (int face, int func, int ref, int mask) {
+		issued++;
+		gl20.glStencilFuncSeparate(face, func, ref, mask);
+	}
+
+	@Override
+	public void glStencilMaskSeparate (int face, int mask) {
+		issued++;
+		gl20.glStencilMaskSeparate(face, mask);
+	}
+
+	@Override
+	public void glStencilOpSeparate (int face, int fail, int zfail, int zpass) {
+		issued++;
+		gl20.glStencilOpSeparate(face, fail, zfail, zpass);
+	}
+
+	@Override
+	public void glTexParameterfv (int target, int pname, FloatBuffer params) {
+		issued++;
+		gl20.glTexParameterfv(target, pname, params);
+	}
+
+	@Override
+	public void glTexParameteri (int target, int pname, int param) {
+		issued++;
+		gl20.glTexParameteri(target, pname, param);
+	}
+
+	@Override
+	public void glTexParameteriv (int target, int pname, IntBuffer params) {
+		issued++;
+		gl20.glTexParameteriv(target, pname, params);
+	}
+
+	@Override
+	public void glUniform1f (int location, float x) {
+		issued++;
+		gl20.glUniform1f(location, x);
+	}
+
+	@Override
+	public void glUniform1fv (int location, int count, FloatBuffer v) {
+		issued++;
+		gl20.glUniform1fv(location, count, v);
+	}
+
+	@Override
+	public void glUniform1fv (int location, int count, float[] v, int offset) {
+		issued++;
+		gl20.glUniform1fv(location, count, v, offset);
+	}
+
+	@Override
+	public void glUniform1i (int location, int x) {
+		issued++;
+		gl20.glUniform1i(location, x);
+	}
+
+	@Override
+	public void glUniform1iv (int location, int count, IntBuffer v) {
+		issued++;
+		gl20.glUniform1iv(location, count, v);
+	}
+
+	@Override
+	public void glUniform1iv (int location, int count, int[] v, int offset) {
+		issued++;
+		gl20.glUniform1iv(location, count, v, offset);
+	}
+
+	@Override
+	public void glUniform2f (int location, float x, float y) {
+		issued++;
+		gl20.glUniform2f(location, x, y);
+	}
+
+	@Override
+	public void glUniform2fv (int location, int count, FloatBuffer v) {
+		issued++;
+		gl20.glUniform2fv(location, count, v);
+	}
+
+	@Override
+	public void glUniform2fv (int location, int count, float[] v, int offset) {
+		issued++;
+		gl20.glUniform2fv(location, count, v, offset);
+	}
+
+	@Override
+	public void glUniform2i (int location, int x, int y) {
+		issued++;
+		gl20.glUniform2i(location, x, y);
+	}
+
+	@Override
+	public void glUniform2iv (int location, int count, IntBuffer v) {
+		issued++;
+		gl20.glUniform2iv(location, count, v);
+	}
+
+	@Override
+	public void glUniform2iv (int location, int count, int[] v, int offset) {
+		issued++;
+		gl20.glUniform2iv(location, count, v, offset);
+	}
+
+	@Override
+	public void glUniform3f (int location, float x, float y, float z) {
+		issued++;
+		gl20.glUniform3f(location, x, y, z);
+	}
+
+	@Override
+	public void glUniform3fv (int location, int count, FloatBuffer v) {
+		issued++;
+		gl20.glUniform3fv(location, count, v);
+	}
+
+	@Override
+	public void glUniform3fv (int location, int count, float[] v, int offset) {
+		issued++;
+		gl20.glUniform3fv(location, count, v, offset);
+	}
+
+	@Override
+	public void glUniform3i (int location, int x, int y, int z) {
+		issued++;
+		gl20.glUniform3i(location, x, y, z);
+	}
+
+	@Override
+	public void glUniform3iv (int location, int count, IntBuffer v) {
+		issued++;
+		gl20.glUniform3iv(location, count, v);
+	}
+
+	@Override
+	public void glUniform3iv (int location, int count, int[] v, int offset) {
+		issued++;
+		gl20.glUniform3iv(location, count, v, offset);
+	}
+
+	@Override
+	public void glUniform4f (int location, float x, float y, float z, float w) {
+		issued++;
+		gl20.glUniform4f(location, x, y, z, w);
+	}
+
+	@Override
+	public void glUniform4fv (int location, int count, FloatBuffer v) {
+		issued++;
+		gl20.glUniform4fv(location, count, v);
+	}
+
+	@Override
+	public void glUniform4fv (int location, int count, float[] v, int offset) {
+		issued++;
+		gl20.glUniform4fv(location, count, v, offset);
+	}
+
+	@Override
+	public void glUniform4i (int location, int x, int y, int z, int w) {
+		issued++;
+		gl20.glUniform4i(location, x, y, z, w);
+	}
+
+	@Override
+	public void glUniform4iv (int location, int count, IntBuffer v) {
+		issued++;
+		gl20.glUniform4iv(location, count, v);
+	}
+
+	@Override
+	public void glUniform4iv (int location, int count, int[] v, int offset) {
+		issued++;
+		gl20.glUniform4iv(location, count, v, offset);
+	}
+
+	@Override
+	public void glUniformMatrix2fv (int location, int count, boolean transpose, FloatBuffer value) {
+		issued++;
+		gl20.glUniformMatrix2fv(location, count, transpose, value);
+	}
+
+	@Override
+	public void glUniformMatrix2fv (int location, int count, boolean transpose, float[] value, int offset) {
+		issued++;
+		gl20.glUniformMatrix2fv(location, count, transpose, value, offset);
+	}
+
+	@Override
+	public void glUniformMatrix3fv (int location, int count, boolean transpose, FloatBuffer value) {
+		issued++;
+		gl20.glUniformMatrix3fv(location, count, transpose, value);
+	}
+
+	@Override
+	public void glUniformMatrix3fv (int location, int count, boolean transpose, float[] value, int offset) {
+		issued++;
+		gl20.glUniformMatrix3fv(location, count, transpose, value, offset);
+	}
+
+	@Override
+	public void glUniformMatrix4fv (int location, int count, boolean transpose, FloatBuffer value) {
+		issued++;
+		gl20.glUniformMatrix4fv(location, count, transpose, value);
+	}
+
+	@Override
+	public void glUniformMatrix4fv (int location, int count, boolean transpose, float[] value, int offset) {
+		issued++;
+		gl20.glUniformMatrix4fv(location, count, transpose, value, offset);
+	}
+
+	@Override
+	public void glUseProgram (int program) {
+		if (program == this.program) {
+			elided++;
+			return;
+		}
+		issued++;
+		gl20.glUseProgram(program);
+		this.program = program;
+	}
+
+	@Override
+	public void glValidateProgram (int program) {
+		issued++;
+		gl20.glValidateProgram(program);
+	}
+
+	@Override
+	public void glVertexAttrib1f (int indx, float x) {
+		issued++;
+		gl20.glVertexAttrib1f(indx, x);
+	}
+
+	@Override
+	public void glVertexAttrib1fv (int indx, FloatBuffer values) {
+		issued++;
+		gl20.glVertexAttrib1fv(indx, values);
+	}
+
+	@Override
+	public void glVertexAttrib2f (int indx, float x, float y) {
+		issued++;
+		gl20.glVertexAttrib2f(indx, x, y);
+	}
+
+	@Override
+	public void glVertexAttrib2fv (int indx, FloatBuffer values) {
+		issued++;
+		gl20.glVertexAttrib2fv(indx, values);
+	}
+
+	@Override
+	public void glVertexAttrib3f (int indx, float x, float y, float z) {
+		issued++;
+		gl20.glVertexAttrib3f(indx, x, y, z);
+	}
+
+	@Override
+	public void glVertexAttrib3fv (int indx, FloatBuffer values) {
+		issued++;
+		gl20.glVertexAttrib3fv(indx, values);
+	}
+
+	@Override
+	public void glVertexAttrib4f (int indx, float x, float y, float z, float w) {
+		issued++;
+		gl20.glVertexAttrib4f(indx, x, y, z, w);
+	}
+
+	@Override
+	public void glVertexAttrib4fv (int indx, FloatBuffer values) {
+		issued++;
+		gl20.glVertexAttrib4fv(indx, values);
+	}
+
+	@Override
+	public void glVertexAttribPointer (int indx, int size, int type, boolean normalized, int stride, Buffer ptr) {
+		issued++;
+		gl20.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+	}
+
+	@Override
+	public void glVertexAttribPointer (int indx, int size, int type, boolean normalized, int stride, int ptr) {
+		issued++;
+		gl20.glVertexAttribPointer(indx, size, type, normalized, stride, ptr);
+	}
+}
@@ -0,0 +1,128 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.glutils;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.GL30;
+import com.erlei.gdx.utils.GdxRuntimeException;
+
+/**
+ * When enabled, drops GL calls which would not change the current OpenGL state. Enabling will wrap Gdx.gl* instances with
+ * a {@link GL20StateCache} or {@link GL30StateCache} which shadows the bindable state and routes all other calls to the
+ * actual GL instances.
+ * <p>
+ * It can be used together with a {@link com.erlei.gdx.graphics.profiling.GLProfiler}: enable the profiler first and this
+ * cache second so the profiler only sees the calls which reach the driver, and disable them in reverse order.
+ * <p>
+ * A new context replaces the Gdx.gl* instances, enable the cache again afterwards. Call {@link #invalidate()} whenever the
+ * context state is changed without going through Gdx.gl*.
+ *
+ * @see GL20StateCache
+ * @see GL30StateCache
+ */
+public class GLStateCache {
+
+    private Gdx mGdx;
+    private GL20StateCache stateCache;
+    private boolean enabled = false;
+
+    /**
+     * Create a new instance of GLStateCache to wrap a {@link com.erlei.gdx.Gdx} instance's gl calls
+     *
+     * @param gdx instance whose gl calls are filtered by this instance
+     */
+    public GLStateCache(Gdx gdx) {
+        this.mGdx = gdx;
+        GL30 gl30 = gdx.getGL30();
+        if (gl30 != null) {
+            stateCache = new GL30StateCache(gl30);
+        } else {
+            stateCache = new GL20StateCache(gdx.getGL20());
+        }
+    }
+
+    /**
+     * Enables the cache by replacing the {@code GL20} and {@code GL30} instances with caching ones. All state is unknown
+     * right after enabling.
+     */
+    public void enable() {
+        if (enabled) return;
+
+        stateCache.invalidate();
+        if (stateCache instanceof GL30StateCache) {
+            mGdx.setGL30((GL30StateCache) stateCache);
+        } else {
+            mGdx.setGL20(stateCache);
+        }
+
+        enabled = true;
+    }
+
+    /**
+     * Disables the cache by resetting the {@code GL20} and {@code GL30} instances with the original ones.
+     */
+    public void disable() {
+        if (!enabled) return;
+
+        GL20 current = mGdx.getGL20();
+        if (current != stateCache) {
+            throw new GdxRuntimeException("Gdx.gl was wrapped after the state cache, disable the wrappers in reverse order");
+        }
+        if (stateCache instanceof GL30StateCache) mGdx.setGL30(((GL30StateCache) stateCache).gl30);
+        else mGdx.setGL20(stateCache.gl20);
+
+        enabled = false;
+    }
+
+    /**
+     * @return true if the GLStateCache currently filters gl calls
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Forgets the shadowed state, must be called after the OpenGL state was changed without going through Gdx.gl*.
+     */
+    public void invalidate() {
+        stateCache.invalidate();
+    }
+
+    /**
+     * @return the gl calls passed on to the driver since the last reset
+     */
+    public int getIssuedCalls() {
+        return stateCache.getIssued();
+    }
+
+    /**
+     * @return the redundant gl calls dropped since the last reset
+     */
+    public int getElidedCalls() {
+        return stateCache.getElided();
+    }
+
+    /**
+     * Will reset the statistical information which has been collected so far. This should be called after every frame.
+     * The shadowed state is kept.
+     */
+    public void reset() {
+        stateCache.reset();
+    }
+
+}
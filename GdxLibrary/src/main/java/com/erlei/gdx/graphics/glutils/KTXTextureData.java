@@ -50,6 +50,8 @@ public class KTXTextureData implements TextureData, CubemapData {
 
 	// KTX image data (only available after preparing and before consuming)
 	private ByteBuffer compressedData;
+	/** whether {@link #compressedData} was allocated with {@link BufferUtils#newUnsafeByteBuffer(int)}, it is mapped otherwise **/
+	private boolean compressedDataUnsafe;
 
 	// Whether to generate mipmaps if they are not included in the file
 	private boolean useMipMaps;
@@ -81,6 +83,7 @@ public class KTXTextureData implements TextureData, CubemapData {
 				in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(file.read())));
 				int fileSize = in.readInt();
 				compressedData = BufferUtils.newUnsafeByteBuffer(fileSize);
+				compressedDataUnsafe = true;
 				int readBytes = 0;
 				while ((readBytes = in.read(buffer)) != -1)
 					compressedData.put(buffer, 0, readBytes);
@@ -92,7 +95,9 @@ public class KTXTextureData implements TextureData, CubemapData {
 				StreamUtils.closeQuietly(in);
 			}
 		} else {
-			compressedData = ByteBuffer.wrap(file.readBytes());
+			// memory mapped if possible, which is direct and needs no further copy
+			compressedData = file.readByteBuffer();
+			compressedDataUnsafe = false;
 		}
 		if (compressedData.get() != (byte)0x0AB) throw new GdxRuntimeException("Invalid KTX Header");
 		if (compressedData.get() != (byte)0x04B) throw new GdxRuntimeException("Invalid KTX Header");
@@ -140,6 +145,7 @@ public class KTXTextureData implements TextureData, CubemapData {
 			directBuffer.order(compressedData.order());
 			directBuffer.put(compressedData);
 			compressedData = directBuffer;
+			compressedDataUnsafe = true;
 		}
 	}
 
@@ -282,7 +288,7 @@ public class KTXTextureData implements TextureData, CubemapData {
 	}
 
 	public void disposePreparedData () {
-		if (compressedData != null) BufferUtils.disposeUnsafeByteBuffer(compressedData);
+		if (compressedData != null && compressedDataUnsafe) BufferUtils.disposeUnsafeByteBuffer(compressedData);
 		compressedData = null;
 	}
 
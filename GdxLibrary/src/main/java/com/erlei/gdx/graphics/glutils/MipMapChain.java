@@ -0,0 +1,374 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.glutils;
+
+import java.nio.ByteBuffer;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.Pixmap.Format;
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.BufferUtils;
+import com.erlei.gdx.utils.Disposable;
+import com.erlei.gdx.utils.GdxRuntimeException;
+import com.erlei.gdx.utils.async.AsyncExecutor;
+import com.erlei.gdx.utils.async.AsyncResult;
+import com.erlei.gdx.utils.async.AsyncTask;
+
+/**
+ * A complete mipmap chain of an image with 8 bit channels, computed on the CPU. All levels live in one native buffer, level 0
+ * first, rows tightly packed. Each level is down sampled from the previous one, the rows of a level are split among the
+ * threads of an {@link AsyncExecutor}.
+ * <p>
+ * {@link #generate(Filter, boolean, AsyncExecutor)} does not touch OpenGL and can run on any thread, only
+ * {@link #upload(int, int, int, int)} has to run on the rendering thread. The chain goes down to 1x1, halving width and height
+ * (rounded down) per level, the last column or row of an odd sized level is dropped.
+ * <p>
+ * Only the formats with 8 bit channels are supported, see {@link #isSupported(Format)}. With gamma correction the color
+ * channels are treated as sRGB and filtered in linear space, alpha is always filtered as is.
+ */
+public class MipMapChain implements Disposable {
+    public enum Filter {
+        /** 2x2 average, fast and slightly blurry */
+        Box,
+        /** 8 tap windowed sinc (Kaiser window), keeps more detail but can ring on hard edges */
+        Kaiser
+    }
+
+    /** rows per task below which a level is not split any further */
+    private static final int MIN_ROWS_PER_TASK = 16;
+    private static final int KAISER_TAPS = 8;
+    private static final float[] KAISER_WEIGHTS = kaiserWeights(4f, 2f);
+    private static final float[] BYTE_TO_FLOAT = new float[256];
+    private static final float[] SRGB_TO_LINEAR = new float[256];
+    private static final int LINEAR_TO_SRGB_SIZE = 4096;
+    private static final byte[] LINEAR_TO_SRGB = new byte[LINEAR_TO_SRGB_SIZE + 1];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            float value = i / 255f;
+            BYTE_TO_FLOAT[i] = value;
+            SRGB_TO_LINEAR[i] = value <= 0.04045f ? value / 12.92f : (float) Math.pow((value + 0.055f) / 1.055f, 2.4f);
+        }
+        for (int i = 0; i <= LINEAR_TO_SRGB_SIZE; i++) {
+            float value = i / (float) LINEAR_TO_SRGB_SIZE;
+            value = value <= 0.0031308f ? value * 12.92f : 1.055f * (float) Math.pow(value, 1 / 2.4f) - 0.055f;
+            LINEAR_TO_SRGB[i] = (byte) (int) (value * 255 + 0.5f);
+        }
+    }
+
+    private final int width;
+    private final int height;
+    private final int channels;
+    private final int alphaChannel;
+    private final int levels;
+    private final int[] offsets;
+    private final ByteBuffer pixels;
+    private final Array<AsyncResult<Void>> results = new Array<AsyncResult<Void>>();
+    private float[] rows;
+    private boolean disposed;
+
+    /**
+     * @param format one of the formats for which {@link #isSupported(Format)} returns true
+     */
+    public MipMapChain(int width, int height, Format format) {
+        this(width, height, getChannels(format), getAlphaChannel(format));
+    }
+
+    /**
+     * @param channels     the bytes per pixel
+     * @param alphaChannel the channel holding alpha, never gamma corrected, or -1
+     */
+    public MipMapChain(int width, int height, int channels, int alphaChannel) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("width and height must be > 0");
+        if (channels < 1 || channels > 4) throw new IllegalArgumentException("channels must be 1 to 4: " + channels);
+        this.width = width;
+        this.height = height;
+        this.channels = channels;
+        this.alphaChannel = alphaChannel;
+        this.levels = getLevelCount(width, height);
+        this.offsets = new int[levels + 1];
+        for (int level = 0; level < levels; level++)
+            offsets[level + 1] = offsets[level] + getWidth(level) * getHeight(level) * channels;
+        this.pixels = BufferUtils.newUnsafeByteBuffer(offsets[levels]);
+    }
+
+    /**
+     * @return whether the format has 8 bit channels and can be used for a chain
+     */
+    public static boolean isSupported(Format format) {
+        return format == Format.Alpha || format == Format.Intensity || format == Format.LuminanceAlpha
+                || format == Format.RGB888 || format == Format.RGBA8888;
+    }
+
+    /**
+     * @return the number of levels of a complete chain, including level 0
+     */
+    public static int getLevelCount(int width, int height) {
+        return 32 - Integer.numberOfLeadingZeros(Math.max(width, height));
+    }
+
+    private static int getChannels(Format format) {
+        switch (format) {
+            case Alpha:
+            case Intensity:
+                return 1;
+            case LuminanceAlpha:
+                return 2;
+            case RGB888:
+                return 3;
+            case RGBA8888:
+                return 4;
+            default:
+                throw new GdxRuntimeException("Unsupported format for a mipmap chain: " + format);
+        }
+    }
+
+    private static int getAlphaChannel(Format format) {
+        switch (format) {
+            case Alpha:
+                return 0;
+            case LuminanceAlpha:
+                return 1;
+            case RGBA8888:
+                return 3;
+            default:
+                return -1;
+        }
+    }
+
+    public int getLevels() {
+        return levels;
+    }
+
+    public int getWidth(int level) {
+        return Math.max(1, width >> level);
+    }
+
+    public int getHeight(int level) {
+        return Math.max(1, height >> level);
+    }
+
+    /**
+     * @return the pixels of the level, a view of the shared buffer with position and limit set to the level
+     */
+    public ByteBuffer getLevel(int level) {
+        ByteBuffer buffer = pixels.duplicate();
+        buffer.limit(offsets[level + 1]);
+        buffer.position(offsets[level]);
+        return buffer;
+    }
+
+    /**
+     * Copies level 0 from the given pixels, starting at their position. The position of the source is not changed.
+     */
+    public void setPixels(ByteBuffer source) {
+        ByteBuffer src = source.duplicate();
+        src.limit(src.position() + offsets[1]);
+        ByteBuffer dst = getLevel(0);
+        dst.put(src);
+    }
+
+    /**
+     * Computes levels 1 to {@link #getLevels()} - 1 from level 0.
+     *
+     * @param gammaCorrect whether to filter the color channels in linear space
+     * @param executor     executor to split each level among, computes everything on the calling thread if null. Must not be
+     *                     an executor the calling thread belongs to.
+     */
+    public void generate(Filter filter, boolean gammaCorrect, AsyncExecutor executor) {
+        if (disposed) throw new GdxRuntimeException("MipMapChain is disposed");
+        final float[][] decode = new float[channels][];
+        final boolean[] encodeGamma = new boolean[channels];
+        for (int c = 0; c < channels; c++) {
+            encodeGamma[c] = gammaCorrect && c != alphaChannel;
+            decode[c] = encodeGamma[c] ? SRGB_TO_LINEAR : BYTE_TO_FLOAT;
+        }
+        for (int level = 1; level < levels; level++) {
+            if (filter == Filter.Kaiser)
+                kaiser(level, decode, encodeGamma, executor);
+            else
+                box(level, decode, encodeGamma, executor);
+        }
+    }
+
+    /**
+     * Uploads all levels to the bound texture with glTexImage2D. Must be called on the rendering thread.
+     */
+    public void upload(int target, int glInternalFormat, int glFormat, int glType) {
+        Gdx.gl.glPixelStorei(GL20.GL_UNPACK_ALIGNMENT, 1);
+        for (int level = 0; level < levels; level++) {
+            Gdx.gl.glTexImage2D(target, level, glInternalFormat, getWidth(level), getHeight(level), 0, glFormat, glType,
+                    getLevel(level));
+        }
+    }
+
+    @Override
+    public void dispose() {
+        if (disposed) return;
+        BufferUtils.disposeUnsafeByteBuffer(pixels);
+        rows = null;
+        disposed = true;
+    }
+
+    private void box(int level, final float[][] decode, final boolean[] encodeGamma, AsyncExecutor executor) {
+        final int srcWidth = getWidth(level - 1), srcHeight = getHeight(level - 1);
+        final int dstWidth = getWidth(level);
+        final int src = offsets[level - 1], dst = offsets[level];
+        final int channels = this.channels;
+        final ByteBuffer pixels = this.pixels;
+        parallel(getHeight(level), executor, new Rows() {
+            @Override
+            public void run(int y0, int y1) {
+                for (int y = y0; y < y1; y++) {
+                    final int row0 = src + Math.min(2 * y, srcHeight - 1) * srcWidth * channels;
+                    final int row1 = src + Math.min(2 * y + 1, srcHeight - 1) * srcWidth * channels;
+                    int out = dst + y * dstWidth * channels;
+                    for (int x = 0; x < dstWidth; x++) {
+                        final int col0 = Math.min(2 * x, srcWidth - 1) * channels;
+                        final int col1 = Math.min(2 * x + 1, srcWidth - 1) * channels;
+                        for (int c = 0; c < channels; c++) {
+                            final float[] table = decode[c];
+                            float sum = table[pixels.get(row0 + col0 + c) & 0xff] + table[pixels.get(row0 + col1 + c) & 0xff]
+                                    + table[pixels.get(row1 + col0 + c) & 0xff] + table[pixels.get(row1 + col1 + c) & 0xff];
+                            pixels.put(out++, encode(sum * 0.25f, encodeGamma[c]));
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Separable, first filters the rows horizontally into {@link #rows}, then the columns of that into the level.
+     */
+    private void kaiser(int level, final float[][] decode, final boolean[] encodeGamma, AsyncExecutor executor) {
+        final int srcWidth = getWidth(level - 1), srcHeight = getHeight(level - 1);
+        final int dstWidth = getWidth(level);
+        final int src = offsets[level - 1], dst = offsets[level];
+        final int channels = this.channels;
+        final ByteBuffer pixels = this.pixels;
+        final int rowSize = dstWidth * channels;
+        if (rows == null || rows.length < rowSize * srcHeight) rows = new float[rowSize * srcHeight];
+        final float[] rows = this.rows;
+        final float[] weights = KAISER_WEIGHTS;
+        final int first = KAISER_TAPS / 2 - 1;
+
+        parallel(srcHeight, executor, new Rows() {
+            @Override
+            public void run(int y0, int y1) {
+                for (int y = y0; y < y1; y++) {
+                    final int in = src + y * srcWidth * channels;
+                    int out = y * rowSize;
+                    for (int x = 0; x < dstWidth; x++) {
+                        for (int c = 0; c < channels; c++) {
+                            final float[] table = decode[c];
+                            float sum = 0;
+                            for (int k = 0, sx = 2 * x - first; k < KAISER_TAPS; k++, sx++) {
+                                final int clamped = sx < 0 ? 0 : sx >= srcWidth ? srcWidth - 1 : sx;
+                                sum += weights[k] * table[pixels.get(in + clamped * channels + c) & 0xff];
+                            }
+                            rows[out++] = sum;
+                        }
+                    }
+                }
+            }
+        });
+        parallel(getHeight(level), executor, new Rows() {
+            @Override
+            public void run(int y0, int y1) {
+                for (int y = y0; y < y1; y++) {
+                    int out = dst + y * rowSize;
+                    for (int i = 0; i < rowSize; i++) {
+                        float sum = 0;
+                        for (int k = 0, sy = 2 * y - first; k < KAISER_TAPS; k++, sy++) {
+                            final int clamped = sy < 0 ? 0 : sy >= srcHeight ? srcHeight - 1 : sy;
+                            sum += weights[k] * rows[clamped * rowSize + i];
+                        }
+                        pixels.put(out++, encode(sum, encodeGamma[i % channels]));
+                    }
+                }
+            }
+        });
+    }
+
+    private static byte encode(float value, boolean gamma) {
+        if (value <= 0) return 0;
+        if (value >= 1) return (byte) 255;
+        return gamma ? LINEAR_TO_SRGB[(int) (value * LINEAR_TO_SRGB_SIZE + 0.5f)] : (byte) (int) (value * 255 + 0.5f);
+    }
+
+    /**
+     * Runs the rows in bands on the executor, the calling thread takes the last band, and waits for all of them.
+     */
+    private void parallel(int rows, AsyncExecutor executor, final Rows task) {
+        int bands = executor == null ? 1 : Math.min(Runtime.getRuntime().availableProcessors(), rows / MIN_ROWS_PER_TASK);
+        if (bands <= 1) {
+            task.run(0, rows);
+            return;
+        }
+        results.clear();
+        for (int i = 0; i < bands - 1; i++) {
+            final int y0 = rows * i / bands, y1 = rows * (i + 1) / bands;
+            results.add(executor.submit(new AsyncTask<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    task.run(y0, y1);
+                    return null;
+                }
+            }));
+        }
+        task.run(rows * (bands - 1) / bands, rows);
+        for (int i = 0; i < results.size; i++)
+            results.get(i).get();
+        results.clear();
+    }
+
+    /**
+     * Weights of the source pixels -3 to +4 around twice the destination coordinate: a sinc windowed with a Kaiser window of
+     * the given alpha and radius (in destination pixels), normalized.
+     */
+    private static float[] kaiserWeights(float alpha, float radius) {
+        float[] weights = new float[KAISER_TAPS];
+        float total = 0;
+        for (int k = 0; k < KAISER_TAPS; k++) {
+            // distance of the source pixel center to the destination pixel center, in destination pixels
+            double x = (k - (KAISER_TAPS - 1) / 2.0) / 2.0;
+            double sinc = x == 0 ? 1 : Math.sin(Math.PI * x) / (Math.PI * x);
+            double t = x / radius;
+            double window = t * t >= 1 ? 0 : besselI0(alpha * Math.sqrt(1 - t * t)) / besselI0(alpha);
+            weights[k] = (float) (sinc * window);
+            total += weights[k];
+        }
+        for (int k = 0; k < KAISER_TAPS; k++)
+            weights[k] /= total;
+        return weights;
+    }
+
+    private static double besselI0(double x) {
+        double sum = 1, term = 1;
+        for (int k = 1; k < 32; k++) {
+            term *= (x / (2 * k)) * (x / (2 * k));
+            sum += term;
+        }
+        return sum;
+    }
+
+    private interface Rows {
+        void run(int y0, int y1);
+    }
+}
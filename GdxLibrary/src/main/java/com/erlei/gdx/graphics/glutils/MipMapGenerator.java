@@ -22,6 +22,7 @@ import com.erlei.gdx.graphics.Pixmap;
 import com.erlei.gdx.graphics.Pixmap.Blending;
 import com.erlei.gdx.graphics.Texture;
 import com.erlei.gdx.utils.GdxRuntimeException;
+import com.erlei.gdx.utils.async.AsyncExecutor;
 
 public class MipMapGenerator {
 
@@ -35,6 +36,47 @@ public class MipMapGenerator {
         MipMapGenerator.useHWMipMap = useHWMipMap;
     }
 
+    private static MipMapChain.Filter cpuFilter = MipMapChain.Filter.Box;
+    private static boolean cpuGammaCorrect = true;
+    private static AsyncExecutor cpuExecutor;
+
+    /**
+     * Sets how the levels are computed when hardware mipmapping is not used.
+     *
+     * @param gammaCorrect whether the color channels are filtered in linear space
+     */
+    static public void setCPUMipMapFilter(MipMapChain.Filter filter, boolean gammaCorrect) {
+        cpuFilter = filter;
+        cpuGammaCorrect = gammaCorrect;
+    }
+
+    /**
+     * @return the filter the levels are computed with when hardware mipmapping is not used
+     */
+    static public MipMapChain.Filter getCPUMipMapFilter() {
+        return cpuFilter;
+    }
+
+    /**
+     * @return whether the color channels are filtered in linear space when hardware mipmapping is not used
+     */
+    static public boolean isCPUMipMapGammaCorrect() {
+        return cpuGammaCorrect;
+    }
+
+    /**
+     * Sets the executor the levels are computed on when hardware mipmapping is not used. By default one with a thread per
+     * processor is created on first use.
+     */
+    static public void setCPUMipMapExecutor(AsyncExecutor executor) {
+        cpuExecutor = executor;
+    }
+
+    private static AsyncExecutor getCPUMipMapExecutor() {
+        if (cpuExecutor == null) cpuExecutor = new AsyncExecutor(Runtime.getRuntime().availableProcessors());
+        return cpuExecutor;
+    }
+
     /**
      * Sets the image data of the {@link Texture} based on the {@link Pixmap}. The texture must be bound for this to work. If
      * <code>disposePixmap</code> is true, the pixmap will be disposed at the end of the method.
@@ -65,6 +107,18 @@ public class MipMapGenerator {
 
 
     private static void generateMipMapCPU(int target, Pixmap pixmap, int textureWidth, int textureHeight) {
+        if (MipMapChain.isSupported(pixmap.getFormat())) {
+            MipMapChain chain = new MipMapChain(pixmap.getWidth(), pixmap.getHeight(), pixmap.getFormat());
+            try {
+                chain.setPixels(pixmap.getPixels());
+                chain.generate(cpuFilter, cpuGammaCorrect, getCPUMipMapExecutor());
+                chain.upload(target, pixmap.getGLInternalFormat(), pixmap.getGLFormat(), pixmap.getGLType());
+            } finally {
+                chain.dispose();
+            }
+            return;
+        }
+
         Gdx.gl.glTexImage2D(target, 0, pixmap.getGLInternalFormat(), pixmap.getWidth(), pixmap.getHeight(), 0,
                 pixmap.getGLFormat(), pixmap.getGLType(), pixmap.getPixels());
         if ((Gdx.gl20 == null) && textureWidth != textureHeight)
@@ -0,0 +1,317 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.glutils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.files.FileHandle;
+import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.GL30;
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.BufferUtils;
+import com.erlei.gdx.utils.Disposable;
+import com.erlei.gdx.utils.GdxRuntimeException;
+import com.erlei.gdx.utils.ObjectMap;
+import com.erlei.gdx.utils.StreamUtils;
+import com.erlei.gdx.utils.async.AsyncExecutor;
+import com.erlei.gdx.utils.async.AsyncResult;
+import com.erlei.gdx.utils.async.AsyncTask;
+
+/** <p>
+ * Persistent cache of linked program binaries, used by {@link ShaderProgram} when set as {@link ShaderProgram#binaryCache}.
+ * A program whose sources are found in the cache is created with glProgramBinary() instead of compiling and linking the
+ * sources, which makes creating the {@link com.erlei.gdx.graphics.g3d.shaders.DefaultShader} permutations at startup and
+ * reloading all managed programs after a context loss a lot cheaper.
+ * </p>
+ *
+ * <p>
+ * Each program is stored in its own file in the cache directory, named after a hash of the vertex and fragment source. The
+ * file also records GL_RENDERER and GL_VERSION, a binary written by another driver is discarded and the program is compiled
+ * from source again. So is a binary the driver rejects. Binaries are only available with OpenGL ES 3.0 and if the driver
+ * supports at least one binary format, otherwise the cache does nothing.
+ * </p>
+ *
+ * <p>
+ * Reading and writing the files happens on a background thread. Add the sources of the shaders that are known to be needed
+ * with {@link #addWarmUp(String, String)} and call {@link #warmUp()} early, the binaries are then read while the application
+ * does other work and are ready in memory when the programs get created.
+ * </p> */
+public class ShaderBinaryCache implements Disposable {
+	private static final int MAGIC = 0x47445842;
+	private static final String SUFFIX = ".bin";
+
+	private final FileHandle directory;
+	private final AsyncExecutor executor = new AsyncExecutor(1);
+	private final Array<String> warmUp = new Array<String>();
+	/** binaries read by {@link #warmUp()} which were not used yet, guarded by itself **/
+	private final ObjectMap<String, Entry> preloaded = new ObjectMap<String, Entry>();
+
+	private final IntBuffer intbuf = BufferUtils.newIntBuffer(1);
+	private final IntBuffer lengthbuf = BufferUtils.newIntBuffer(1);
+	private final IntBuffer formatbuf = BufferUtils.newIntBuffer(1);
+	private ByteBuffer buffer;
+	private int supported = -1;
+	private String environment;
+
+	private int hits;
+	private int misses;
+
+	/** Creates a cache storing its files in "shadercache/" of the local storage. */
+	public ShaderBinaryCache () {
+		this(Gdx.files.local("shadercache/"));
+	}
+
+	/** @param directory the directory the binaries are stored in, created if needed */
+	public ShaderBinaryCache (FileHandle directory) {
+		this.directory = directory;
+	}
+
+	/** @return whether the current context can retrieve and load program binaries */
+	public boolean isSupported () {
+		if (supported == -1) {
+			GL30 gl = Gdx.gl30;
+			if (gl == null) return false;
+			gl.glGetIntegerv(GL30.GL_NUM_PROGRAM_BINARY_FORMATS, intbuf);
+			supported = intbuf.get(0) > 0 ? 1 : 0;
+		}
+		return supported == 1;
+	}
+
+	/** Tries to load the binary of the given sources into the program.
+	 * @param program a newly created program
+	 * @return whether the program is linked and ready for use */
+	public boolean load (int program, String vertexShader, String fragmentShader) {
+		if (!isSupported()) return false;
+		final String key = key(vertexShader, fragmentShader);
+		Entry entry;
+		synchronized (preloaded) {
+			entry = preloaded.remove(key);
+		}
+		if (entry == null) entry = read(directory.child(key + SUFFIX));
+		if (entry == null || !entry.environment.equals(getEnvironment())) {
+			if (entry != null) delete(key);
+			misses++;
+			return false;
+		}
+
+		GL30 gl = Gdx.gl30;
+		ByteBuffer binary = ensureBuffer(entry.binary.length);
+		binary.put(entry.binary);
+		binary.flip();
+		gl.glProgramBinary(program, entry.format, binary, entry.binary.length);
+		gl.glGetProgramiv(program, GL20.GL_LINK_STATUS, intbuf);
+		if (intbuf.get(0) == 0) {
+			delete(key);
+			misses++;
+			return false;
+		}
+		hits++;
+		return true;
+	}
+
+	/** Retrieves the binary of a linked program and writes it to the cache in the background. The program should have been
+	 * linked with {@link GL30#GL_PROGRAM_BINARY_RETRIEVABLE_HINT} set. */
+	public void save (int program, String vertexShader, String fragmentShader) {
+		if (!isSupported()) return;
+		GL30 gl = Gdx.gl30;
+		gl.glGetProgramiv(program, GL30.GL_PROGRAM_BINARY_LENGTH, intbuf);
+		final int length = intbuf.get(0);
+		if (length <= 0) return;
+
+		ByteBuffer binary = ensureBuffer(length);
+		gl.glGetProgramBinary(program, length, lengthbuf, formatbuf, binary);
+		final byte[] bytes = new byte[Math.min(lengthbuf.get(0), length)];
+		if (bytes.length == 0) return;
+		binary.get(bytes);
+
+		final Entry entry = new Entry(getEnvironment(), formatbuf.get(0), bytes);
+		final FileHandle file = directory.child(key(vertexShader, fragmentShader) + SUFFIX);
+		executor.submit(new AsyncTask<Void>() {
+			@Override
+			public Void call () throws Exception {
+				write(file, entry);
+				return null;
+			}
+		});
+	}
+
+	/** Adds a shader that is known to be needed to the warm-up list. The sources are the ones passed to the
+	 * {@link ShaderProgram} constructor, {@link ShaderProgram#prependVertexCode} and {@link ShaderProgram#prependFragmentCode}
+	 * are applied the same way. */
+	public void addWarmUp (String vertexShader, String fragmentShader) {
+		String prependVertex = ShaderProgram.prependVertexCode, prependFragment = ShaderProgram.prependFragmentCode;
+		if (prependVertex != null && prependVertex.length() > 0) vertexShader = prependVertex + vertexShader;
+		if (prependFragment != null && prependFragment.length() > 0) fragmentShader = prependFragment + fragmentShader;
+		warmUp.add(key(vertexShader, fragmentShader));
+	}
+
+	/** Reads the binaries of the warm-up list on a background thread and keeps them in memory until their programs are
+	 * created. Without a warm-up list every binary in the cache directory is read.
+	 * @return the result, done once all binaries are read */
+	public AsyncResult<Void> warmUp () {
+		final String[] keys = warmUp.toArray(String.class);
+		return executor.submit(new AsyncTask<Void>() {
+			@Override
+			public Void call () throws Exception {
+				FileHandle[] files;
+				if (keys.length > 0) {
+					files = new FileHandle[keys.length];
+					for (int i = 0; i < keys.length; i++)
+						files[i] = directory.child(keys[i] + SUFFIX);
+				} else
+					files = directory.list(SUFFIX);
+				for (FileHandle file : files) {
+					Entry entry = read(file);
+					if (entry == null) continue;
+					synchronized (preloaded) {
+						preloaded.put(file.nameWithoutExtension(), entry);
+					}
+				}
+				return null;
+			}
+		});
+	}
+
+	/** Deletes all cached binaries. */
+	public void clear () {
+		synchronized (preloaded) {
+			preloaded.clear();
+		}
+		executor.submit(new AsyncTask<Void>() {
+			@Override
+			public Void call () throws Exception {
+				directory.deleteDirectory();
+				return null;
+			}
+		});
+	}
+
+	/** @return the number of programs loaded from a binary */
+	public int getHits () {
+		return hits;
+	}
+
+	/** @return the number of programs that had to be compiled from source */
+	public int getMisses () {
+		return misses;
+	}
+
+	@Override
+	public void dispose () {
+		executor.dispose();
+	}
+
+	private String getEnvironment () {
+		if (environment == null) {
+			GL20 gl = Gdx.gl20;
+			environment = gl.glGetString(GL20.GL_RENDERER) + "\n" + gl.glGetString(GL20.GL_VERSION);
+		}
+		return environment;
+	}
+
+	private ByteBuffer ensureBuffer (int length) {
+		if (buffer == null || buffer.capacity() < length) buffer = BufferUtils.newByteBuffer(Math.max(length, 16 * 1024));
+		buffer.clear();
+		buffer.limit(length);
+		return buffer;
+	}
+
+	private void delete (final String key) {
+		executor.submit(new AsyncTask<Void>() {
+			@Override
+			public Void call () throws Exception {
+				directory.child(key + SUFFIX).delete();
+				return null;
+			}
+		});
+	}
+
+	private static Entry read (FileHandle file) {
+		if (!file.exists()) return null;
+		DataInputStream input = null;
+		try {
+			input = new DataInputStream(file.read(8192));
+			if (input.readInt() != MAGIC) return null;
+			String environment = input.readUTF();
+			int format = input.readInt();
+			byte[] binary = new byte[input.readInt()];
+			input.readFully(binary);
+			return new Entry(environment, format, binary);
+		} catch (IOException ex) {
+			return null;
+		} catch (GdxRuntimeException ex) {
+			return null;
+		} finally {
+			StreamUtils.closeQuietly(input);
+		}
+	}
+
+	private static void write (FileHandle file, Entry entry) throws IOException {
+		DataOutputStream output = null;
+		try {
+			output = new DataOutputStream(file.write(false, 8192));
+			output.writeInt(MAGIC);
+			output.writeUTF(entry.environment);
+			output.writeInt(entry.format);
+			output.writeInt(entry.binary.length);
+			output.write(entry.binary);
+		} finally {
+			StreamUtils.closeQuietly(output);
+		}
+	}
+
+	/** @return the hex encoded SHA-1 of both sources */
+	static String key (String vertexShader, String fragmentShader) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-1");
+			digest.update(vertexShader.getBytes("UTF-8"));
+			digest.update((byte)0);
+			digest.update(fragmentShader.getBytes("UTF-8"));
+			byte[] hash = digest.digest();
+			StringBuilder builder = new StringBuilder(hash.length * 2);
+			for (byte b : hash) {
+				builder.append(Character.forDigit((b >> 4) & 0xf, 16));
+				builder.append(Character.forDigit(b & 0xf, 16));
+			}
+			return builder.toString();
+		} catch (NoSuchAlgorithmException ex) {
+			throw new GdxRuntimeException(ex);
+		} catch (UnsupportedEncodingException ex) {
+			throw new GdxRuntimeException(ex);
+		}
+	}
+
+	private static class Entry {
+		final String environment;
+		final int format;
+		final byte[] binary;
+
+		Entry (String environment, int format, byte[] binary) {
+			this.environment = environment;
+			this.format = format;
+			this.binary = binary;
+		}
+	}
+}
@@ -27,6 +27,7 @@ import com.erlei.gdx.Gdx;
 import com.erlei.gdx.files.FileHandle;
 import com.erlei.gdx.graphics.Color;
 import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.GL30;
 import com.erlei.gdx.graphics.Mesh;
 import com.erlei.gdx.math.Matrix3;
 import com.erlei.gdx.math.Matrix4;
@@ -93,6 +94,10 @@ public class ShaderProgram implements Disposable {
 	 * as-is, you should include a newline (`\n`) if needed. */
 	public static String prependFragmentCode = "";
 
+	/** cache of linked program binaries, programs are compiled from source every time if null. Set it before creating the first
+	 * ShaderProgram. */
+	public static ShaderBinaryCache binaryCache;
+
 	/** the list of currently available shaders **/
 	private final static ObjectMap<Application, Array<ShaderProgram>> shaders = new ObjectMap<Application, Array<ShaderProgram>>();
 
@@ -185,6 +190,21 @@ public class ShaderProgram implements Disposable {
 	 * @param vertexShader
 	 * @param fragmentShader */
 	private void compileShaders (String vertexShader, String fragmentShader) {
+		final ShaderBinaryCache cache = binaryCache;
+		if (cache != null && cache.isSupported()) {
+			int program = createProgram();
+			if (program != -1) {
+				if (cache.load(program, vertexShader, fragmentShader)) {
+					this.program = program;
+					vertexShaderHandle = 0;
+					fragmentShaderHandle = 0;
+					isCompiled = true;
+					return;
+				}
+				Gdx.gl20.glDeleteProgram(program);
+			}
+		}
+
 		vertexShaderHandle = loadShader(GL20.GL_VERTEX_SHADER, vertexShader);
 		fragmentShaderHandle = loadShader(GL20.GL_FRAGMENT_SHADER, fragmentShader);
 
@@ -200,6 +220,7 @@ public class ShaderProgram implements Disposable {
 		}
 
 		isCompiled = true;
+		if (cache != null) cache.save(program, vertexShader, fragmentShader);
 	}
 
 	private int loadShader (int type, String source) {
@@ -240,6 +261,8 @@ public class ShaderProgram implements Disposable {
 
 		gl.glAttachShader(program, vertexShaderHandle);
 		gl.glAttachShader(program, fragmentShaderHandle);
+		if (binaryCache != null && binaryCache.isSupported())
+			Gdx.gl30.glProgramParameteri(program, GL30.GL_PROGRAM_BINARY_RETRIEVABLE_HINT, GL20.GL_TRUE);
 		gl.glLinkProgram(program);
 
 		ByteBuffer tmp = ByteBuffer.allocateDirect(4);
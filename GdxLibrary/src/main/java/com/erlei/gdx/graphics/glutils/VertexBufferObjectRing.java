@@ -0,0 +1,329 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.glutils;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
+import com.erlei.gdx.Gdx;
+import com.erlei.gdx.graphics.GL20;
+import com.erlei.gdx.graphics.GL30;
+import com.erlei.gdx.graphics.VertexAttribute;
+import com.erlei.gdx.graphics.VertexAttributes;
+import com.erlei.gdx.utils.BufferUtils;
+import com.erlei.gdx.utils.IntArray;
+
+/** <p>
+ * A {@link VertexData} implementation for vertices that are replaced every draw, like the ones of a
+ * {@link com.erlei.gdx.graphics.g2d.SpriteBatch}. The vertex buffer object holds several segments of
+ * {@link #getNumMaxVertices()} vertices. Each {@link #setVertices(float[], int, int)} writes behind the previously written
+ * vertices instead of replacing them, so the upload never has to wait for a draw that still reads the earlier vertices. When
+ * the end of the buffer is reached, the whole buffer is orphaned and writing starts at the front again.
+ * <p>
+ * With OpenGL ES 3.0 the vertices are written through glMapBufferRange() with {@link GL30#GL_MAP_UNSYNCHRONIZED_BIT}, orphaning
+ * with {@link GL30#GL_MAP_INVALIDATE_BUFFER_BIT}. With OpenGL ES 2.0 they are written with glBufferSubData() and orphaning
+ * reallocates the buffer with glBufferData(). With OpenGL ES 3.0 the enabled attributes are kept in a vertex array object, only
+ * the attribute offsets are set for every draw.
+ * <p>
+ * If the OpenGL ES context was lost you can call {@link #invalidate()} to recreate a new OpenGL vertex buffer object.
+ * <p>
+ * VertexBufferObjectRings must be disposed via the {@link #dispose()} method when no longer needed */
+public class VertexBufferObjectRing implements VertexData {
+	final static IntBuffer tmpHandle = BufferUtils.newIntBuffer(1);
+
+	final VertexAttributes attributes;
+	final FloatBuffer buffer;
+	final ByteBuffer byteBuffer;
+	final int segments;
+	final int capacity;
+	int bufferHandle;
+	boolean isDirty = false;
+	boolean useMapping;
+	int vaoHandle = -1;
+	final IntArray cachedLocations = new IntArray();
+
+	/** The byte offset of the vertices of the next draw and of the next write */
+	int drawOffset, writeOffset;
+	int numVertices;
+
+	/** The amount of bytes written to the buffer object */
+	public long bytesUploaded;
+	/** The amount of writes to the buffer object */
+	public int uploads;
+	/** The amount of times the buffer object was orphaned because the end of the buffer was reached */
+	public int orphans;
+
+	/** Constructs a new interleaved VertexBufferObjectRing.
+	 *
+	 * @param numVertices the maximum number of vertices of a single draw
+	 * @param segments the amount of draws the buffer object can hold before it is orphaned
+	 * @param attributes the {@link VertexAttribute}s. */
+	public VertexBufferObjectRing (int numVertices, int segments, VertexAttribute... attributes) {
+		this(numVertices, segments, new VertexAttributes(attributes));
+	}
+
+	/** Constructs a new interleaved VertexBufferObjectRing.
+	 *
+	 * @param numVertices the maximum number of vertices of a single draw
+	 * @param segments the amount of draws the buffer object can hold before it is orphaned
+	 * @param attributes the {@link VertexAttributes}. */
+	public VertexBufferObjectRing (int numVertices, int segments, VertexAttributes attributes) {
+		if (segments < 1) throw new IllegalArgumentException("segments must be >= 1: " + segments);
+		this.attributes = attributes;
+		this.segments = segments;
+		byteBuffer = BufferUtils.newUnsafeByteBuffer(attributes.vertexSize * numVertices);
+		buffer = byteBuffer.asFloatBuffer();
+		buffer.flip();
+		byteBuffer.flip();
+		capacity = byteBuffer.capacity() * segments;
+		bufferHandle = createBufferObject();
+	}
+
+	private int createBufferObject () {
+		GL20 gl = Gdx.gl20;
+		int result = gl.glGenBuffer();
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, result);
+		gl.glBufferData(GL20.GL_ARRAY_BUFFER, capacity, null, GL20.GL_STREAM_DRAW);
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+		useMapping = Gdx.gl30 != null;
+		if (Gdx.gl30 != null) {
+			tmpHandle.clear();
+			Gdx.gl30.glGenVertexArrays(1, tmpHandle);
+			vaoHandle = tmpHandle.get();
+			cachedLocations.clear();
+		}
+		drawOffset = 0;
+		writeOffset = 0;
+		return result;
+	}
+
+	@Override
+	public VertexAttributes getAttributes () {
+		return attributes;
+	}
+
+	@Override
+	public int getNumVertices () {
+		return numVertices;
+	}
+
+	@Override
+	public int getNumMaxVertices () {
+		return byteBuffer.capacity() / attributes.vertexSize;
+	}
+
+	/** @return the amount of draws the buffer object can hold before it is orphaned */
+	public int getSegments () {
+		return segments;
+	}
+
+	/** @return whether the vertices are written with glMapBufferRange() */
+	public boolean isMapping () {
+		return useMapping;
+	}
+
+	/** Returns a buffer holding up to {@link #getNumMaxVertices()} vertices. Its contents are written behind the previous
+	 * vertices on the next call to bind. */
+	@Override
+	public FloatBuffer getBuffer () {
+		isDirty = true;
+		return buffer;
+	}
+
+	@Override
+	public void setVertices (float[] vertices, int offset, int count) {
+		int bytes = count * 4;
+		if (bytes > byteBuffer.capacity())
+			throw new IllegalArgumentException("Too many vertices: " + count / (attributes.vertexSize / 4));
+		BufferUtils.copy(vertices, byteBuffer, count, offset);
+		buffer.position(0);
+		buffer.limit(count);
+		upload(Gdx.gl20, bytes);
+	}
+
+	/** Writes the first bytes of the {@link #byteBuffer} behind the previously written vertices. */
+	private void upload (GL20 gl, int bytes) {
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
+		int start = allocate(gl, bytes);
+		byteBuffer.position(0);
+		byteBuffer.limit(bytes);
+		if (useMapping) {
+			Buffer mapped = map(start, bytes);
+			if (mapped != null) {
+				mapped.position(0);
+				BufferUtils.copy(byteBuffer, mapped, bytes);
+				Gdx.gl30.glUnmapBuffer(GL20.GL_ARRAY_BUFFER);
+			} else {
+				// the driver does not map the buffer, stay with glBufferSubData
+				useMapping = false;
+			}
+		}
+		if (!useMapping) gl.glBufferSubData(GL20.GL_ARRAY_BUFFER, start, bytes, byteBuffer);
+		numVertices = bytes / attributes.vertexSize;
+		isDirty = false;
+	}
+
+	/** Reserves room for the given amount of bytes behind the previously written vertices, orphaning the buffer object if they
+	 * do not fit anymore. With glBufferSubData the orphaning happens here, with glMapBufferRange it happens in {@link #map}.
+	 * @return the byte offset to write to */
+	private int allocate (GL20 gl, int bytes) {
+		if (writeOffset + bytes > capacity) {
+			writeOffset = 0;
+			orphans++;
+			if (!useMapping) gl.glBufferData(GL20.GL_ARRAY_BUFFER, capacity, null, GL20.GL_STREAM_DRAW);
+		}
+		int start = writeOffset;
+		drawOffset = start;
+		writeOffset = start + bytes;
+		bytesUploaded += bytes;
+		uploads++;
+		return start;
+	}
+
+	private Buffer map (int start, int bytes) {
+		int access = GL30.GL_MAP_WRITE_BIT | GL30.GL_MAP_UNSYNCHRONIZED_BIT;
+		access |= start == 0 ? GL30.GL_MAP_INVALIDATE_BUFFER_BIT : GL30.GL_MAP_INVALIDATE_RANGE_BIT;
+		return Gdx.gl30.glMapBufferRange(GL20.GL_ARRAY_BUFFER, start, bytes, access);
+	}
+
+	/** Updates a portion of the vertices of the last {@link #setVertices(float[], int, int)}. These vertices may still be read by
+	 * a draw, so the update is not unsynchronized. */
+	@Override
+	public void updateVertices (int targetOffset, float[] vertices, int sourceOffset, int count) {
+		final int pos = byteBuffer.position();
+		byteBuffer.position(targetOffset * 4);
+		BufferUtils.copy(vertices, sourceOffset, count, byteBuffer);
+		byteBuffer.position(pos);
+
+		GL20 gl = Gdx.gl20;
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
+		byteBuffer.position(targetOffset * 4);
+		gl.glBufferSubData(GL20.GL_ARRAY_BUFFER, drawOffset + targetOffset * 4, count * 4, byteBuffer);
+		byteBuffer.position(pos);
+		bytesUploaded += count * 4;
+		uploads++;
+	}
+
+	/** Binds this VertexBufferObjectRing for rendering via glDrawArrays or glDrawElements. The vertex attributes point at the
+	 * vertices of the last write, so indices start at 0 for every draw.
+	 *
+	 * @param shader the shader */
+	@Override
+	public void bind (final ShaderProgram shader) {
+		bind(shader, null);
+	}
+
+	@Override
+	public void bind (final ShaderProgram shader, final int[] locations) {
+		final GL20 gl = Gdx.gl20;
+
+		if (isDirty)
+			upload(gl, buffer.limit() * 4);
+		else
+			gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, bufferHandle);
+
+		final int numAttributes = attributes.size();
+		boolean enable = true;
+		if (vaoHandle != -1) {
+			Gdx.gl30.glBindVertexArray(vaoHandle);
+			// the vertex array object keeps the attributes enabled as long as the locations stay the same
+			enable = !cacheLocations(shader, locations);
+		}
+		for (int i = 0; i < numAttributes; i++) {
+			final VertexAttribute attribute = attributes.get(i);
+			final int location = locations == null ? shader.getAttributeLocation(attribute.alias) : locations[i];
+			if (location < 0) continue;
+			if (enable) shader.enableVertexAttribute(location);
+
+			shader.setVertexAttribute(location, attribute.numComponents, attribute.type, attribute.normalized, attributes.vertexSize,
+				drawOffset + attribute.offset);
+		}
+	}
+
+	/** @return whether the locations are the same as the ones enabled in the vertex array object */
+	private boolean cacheLocations (ShaderProgram shader, int[] locations) {
+		final int numAttributes = attributes.size();
+		boolean stillValid = cachedLocations.size == numAttributes;
+		for (int i = 0; stillValid && i < numAttributes; i++) {
+			int location = locations == null ? shader.getAttributeLocation(attributes.get(i).alias) : locations[i];
+			stillValid = location == cachedLocations.get(i);
+		}
+		if (stillValid) return true;
+
+		for (int i = 0; i < cachedLocations.size; i++)
+			if (cachedLocations.get(i) >= 0) shader.disableVertexAttribute(cachedLocations.get(i));
+		cachedLocations.clear();
+		for (int i = 0; i < numAttributes; i++)
+			cachedLocations.add(locations == null ? shader.getAttributeLocation(attributes.get(i).alias) : locations[i]);
+		return false;
+	}
+
+	/** Unbinds this VertexBufferObjectRing.
+	 *
+	 * @param shader the shader */
+	@Override
+	public void unbind (final ShaderProgram shader) {
+		unbind(shader, null);
+	}
+
+	@Override
+	public void unbind (final ShaderProgram shader, final int[] locations) {
+		final GL20 gl = Gdx.gl20;
+		if (vaoHandle != -1) {
+			Gdx.gl30.glBindVertexArray(0);
+			return;
+		}
+		final int numAttributes = attributes.size();
+		if (locations == null) {
+			for (int i = 0; i < numAttributes; i++) {
+				shader.disableVertexAttribute(attributes.get(i).alias);
+			}
+		} else {
+			for (int i = 0; i < numAttributes; i++) {
+				final int location = locations[i];
+				if (location >= 0) shader.disableVertexAttribute(location);
+			}
+		}
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+	}
+
+	/** Invalidates the VertexBufferObjectRing so a new OpenGL buffer handle is created. Use this in case of a context loss. */
+	@Override
+	public void invalidate () {
+		bufferHandle = createBufferObject();
+		isDirty = true;
+	}
+
+	/** Disposes of all resources this VertexBufferObjectRing uses. */
+	@Override
+	public void dispose () {
+		GL20 gl = Gdx.gl20;
+		gl.glBindBuffer(GL20.GL_ARRAY_BUFFER, 0);
+		gl.glDeleteBuffer(bufferHandle);
+		bufferHandle = 0;
+		BufferUtils.disposeUnsafeByteBuffer(byteBuffer);
+		if (vaoHandle != -1) {
+			tmpHandle.clear();
+			tmpHandle.put(vaoHandle);
+			tmpHandle.flip();
+			Gdx.gl30.glDeleteVertexArrays(1, tmpHandle);
+			vaoHandle = -1;
+		}
+	}
+}
@@ -1219,6 +1219,13 @@ public class GL30Interceptor extends GLInterceptor implements GL30 {
 		check();
 	}
 
+	@Override
+	public void glReadPixels (int x, int y, int width, int height, int format, int type, int offset) {
+		calls++;
+		gl30.glReadPixels(x, y, width, height, format, type, offset);
+		check();
+	}
+
 	@Override
 	public void glDrawRangeElements (int mode, int start, int end, int count, int type, Buffer indices) {
 		vertexCount.put(count);
@@ -1429,6 +1436,14 @@ public class GL30Interceptor extends GLInterceptor implements GL30 {
 		check();
 	}
 
+	@Override
+	public Buffer glMapBufferRange (int target, int offset, int length, int access) {
+		calls++;
+		final Buffer result = gl30.glMapBufferRange(target, offset, length, access);
+		check();
+		return result;
+	}
+
 	@Override
 	public void glFlushMappedBufferRange (int target, int offset, int length) {
 		calls++;
@@ -1697,6 +1712,29 @@ public class GL30Interceptor extends GLInterceptor implements GL30 {
 		check();
 	}
 
+	@Override
+	public long glFenceSync (int condition, int flags) {
+		calls++;
+		long result = gl30.glFenceSync(condition, flags);
+		check();
+		return result;
+	}
+
+	@Override
+	public void glDeleteSync (long sync) {
+		calls++;
+		gl30.glDeleteSync(sync);
+		check();
+	}
+
+	@Override
+	public int glClientWaitSync (long sync, int flags, long timeout) {
+		calls++;
+		int result = gl30.glClientWaitSync(sync, flags, timeout);
+		check();
+		return result;
+	}
+
 	@Override
 	public void glGetInteger64v (int pname, LongBuffer params) {
 		calls++;
@@ -1860,6 +1898,20 @@ public class GL30Interceptor extends GLInterceptor implements GL30 {
 		check();
 	}
 
+	@Override
+	public void glGetProgramBinary (int program, int bufSize, IntBuffer length, IntBuffer binaryFormat, Buffer binary) {
+		calls++;
+		gl30.glGetProgramBinary(program, bufSize, length, binaryFormat, binary);
+		check();
+	}
+
+	@Override
+	public void glProgramBinary (int program, int binaryFormat, Buffer binary, int length) {
+		calls++;
+		gl30.glProgramBinary(program, binaryFormat, binary, length);
+		check();
+	}
+
 	@Override
 	public void glProgramParameteri (int program, int pname, int value) {
 		calls++;
@@ -0,0 +1,411 @@
+package com.erlei.gdx.utils;
+
+import com.erlei.gdx.math.WindowedMean;
+
+/**
+ * Paces the render loop to a target frame rate and keeps track of the frame delta time.
+ * <p>
+ * Call {@link #beginFrame()} at the start of every frame and {@link #endFrame()} once the frame has been submitted.
+ * {@link #beginFrame()} sleeps until the next frame slot when pacing is enabled, so devices that can render faster than
+ * the target rate stop over-rendering. The delta time is available raw, as an exponential moving average and as a
+ * windowed mean, and the frame times are recorded in a {@link FrameTimeHistogram}.
+ * <p>
+ * Work that does not need to happen in a particular frame can be handed to {@link #defer(Runnable)} or
+ * {@link #runIfBudgetAllows(Runnable, long)}, it is then executed at the end of a frame that still has budget left.
+ * <p>
+ * All methods must be called on the render thread. The time source is a {@link Clock}, so the scheduler can be driven
+ * by a fake clock on the JVM.
+ */
+public class FrameScheduler {
+
+    private static final float nano2seconds = 1f / 1000000000.0f;
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    /**
+     * Time source of a {@link FrameScheduler}
+     */
+    public interface Clock {
+        /**
+         * @return the current time in nanoseconds
+         */
+        long nanoTime();
+
+        /**
+         * Blocks the calling thread for the given amount of nanoseconds.
+         */
+        void sleep(long nanos) throws InterruptedException;
+    }
+
+    /**
+     * {@link Clock} backed by {@link TimeUtils#nanoTime()} and {@link Thread#sleep(long, int)}
+     */
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return TimeUtils.nanoTime();
+        }
+
+        @Override
+        public void sleep(long nanos) throws InterruptedException {
+            Thread.sleep(nanos / 1000000L, (int) (nanos % 1000000L));
+        }
+    };
+
+    private final Clock mClock;
+    private final FrameTimeHistogram mFrameTimes;
+    private final FrameTimeHistogram mWorkTimes;
+    private final WindowedMean mWindowedDelta;
+    private final Queue<Runnable> mDeferred = new Queue<>(16);
+
+    private long mFrameBudget;
+    private boolean mPacingEnabled;
+    private float mSmoothing = 0.1f;
+    private float mMaxDeltaTime = 0.25f;
+
+    private long mFrameStart = -1;
+    private long mLastFrameStart = -1;
+    private long mFrameId;
+    private float mDeltaTime;
+    private float mSmoothedDeltaTime;
+    private int mDeferredRunCount;
+    private int mDeferredCount;
+
+    public FrameScheduler() {
+        this(SYSTEM_CLOCK);
+    }
+
+    public FrameScheduler(Clock clock) {
+        this(clock, 60, 30);
+    }
+
+    /**
+     * @param clock           the time source
+     * @param targetFrameRate the frame rate used to compute the frame budget, see {@link #setTargetFrameRate(int)}
+     * @param windowSize      the amount of frames used for {@link #getWindowedDeltaTime()}
+     */
+    public FrameScheduler(Clock clock, int targetFrameRate, int windowSize) {
+        if (clock == null) throw new IllegalArgumentException("clock cannot be null.");
+        mClock = clock;
+        mWindowedDelta = new WindowedMean(windowSize);
+        mFrameTimes = new FrameTimeHistogram(64);
+        mWorkTimes = new FrameTimeHistogram(64);
+        setTargetFrameRate(targetFrameRate);
+    }
+
+    /**
+     * Sets the frame rate the budget is computed from. When pacing is enabled, {@link #beginFrame()} will not start
+     * frames more often than this.
+     *
+     * @param fps frames per second, must be greater than zero
+     */
+    public void setTargetFrameRate(int fps) {
+        if (fps <= 0) throw new IllegalArgumentException("fps must be > 0: " + fps);
+        mFrameBudget = NANOS_PER_SECOND / fps;
+    }
+
+    public int getTargetFrameRate() {
+        return (int) (NANOS_PER_SECOND / mFrameBudget);
+    }
+
+    /**
+     * @return the time available for a single frame in nanoseconds
+     */
+    public long getFrameBudgetNanos() {
+        return mFrameBudget;
+    }
+
+    /**
+     * @param pacingEnabled whether {@link #beginFrame()} should sleep until the next frame slot, defaults to false
+     */
+    public void setPacingEnabled(boolean pacingEnabled) {
+        mPacingEnabled = pacingEnabled;
+    }
+
+    public boolean isPacingEnabled() {
+        return mPacingEnabled;
+    }
+
+    /**
+     * @param smoothing the weight of the newest delta in {@link #getSmoothedDeltaTime()}, in the range (0, 1]
+     */
+    public void setSmoothing(float smoothing) {
+        if (smoothing <= 0f || smoothing > 1f)
+            throw new IllegalArgumentException("smoothing must be in the range (0, 1]: " + smoothing);
+        mSmoothing = smoothing;
+    }
+
+    /**
+     * @param maxDeltaTime the upper bound in seconds of the reported delta time, so a long stall (e.g. a debugger
+     *                     break or a slow resume) does not make animations jump
+     */
+    public void setMaxDeltaTime(float maxDeltaTime) {
+        mMaxDeltaTime = maxDeltaTime;
+    }
+
+    /**
+     * Starts a new frame. Sleeps until the next frame slot first if pacing is enabled.
+     *
+     * @return the raw delta time in seconds
+     */
+    public float beginFrame() {
+        long now = mClock.nanoTime();
+        if (mPacingEnabled && mLastFrameStart >= 0) {
+            long wait = mLastFrameStart + mFrameBudget - now;
+            if (wait > 0) {
+                try {
+                    mClock.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                now = mClock.nanoTime();
+            }
+        }
+
+        if (mLastFrameStart >= 0) {
+            long frameTime = now - mLastFrameStart;
+            mFrameTimes.put(frameTime);
+            mDeltaTime = Math.min(frameTime * nano2seconds, mMaxDeltaTime);
+            mSmoothedDeltaTime = mFrameId <= 1 ? mDeltaTime : mSmoothedDeltaTime + mSmoothing * (mDeltaTime - mSmoothedDeltaTime);
+        } else {
+            mDeltaTime = mSmoothedDeltaTime = mFrameBudget * nano2seconds;
+        }
+        mWindowedDelta.addValue(mDeltaTime);
+
+        mLastFrameStart = now;
+        mFrameStart = now;
+        mFrameId++;
+        return mDeltaTime;
+    }
+
+    /**
+     * Ends the current frame, records the time spent in it and runs deferred work while the frame budget allows. At least
+     * one deferred runnable is executed per frame so deferred work cannot starve.
+     */
+    public void endFrame() {
+        if (mFrameStart < 0) return;
+        mDeferredRunCount = 0;
+        while (mDeferred.size > 0 && (mDeferredRunCount == 0 || !isOverBudget())) {
+            Runnable runnable = mDeferred.removeFirst();
+            runnable.run();
+            mDeferredRunCount++;
+        }
+        mWorkTimes.put(mClock.nanoTime() - mFrameStart);
+        mFrameStart = -1;
+    }
+
+    /**
+     * Forgets the last frame start so the first frame after a pause does not report the whole pause as delta time.
+     */
+    public void reset() {
+        mLastFrameStart = -1;
+        mFrameStart = -1;
+        mWindowedDelta.clear();
+    }
+
+    /**
+     * @return the time spent in the current frame so far in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return mFrameStart < 0 ? 0 : mClock.nanoTime() - mFrameStart;
+    }
+
+    /**
+     * @return the time left in the current frame in nanoseconds, negative if the frame is over budget
+     */
+    public long getRemainingBudgetNanos() {
+        return mFrameBudget - getElapsedNanos();
+    }
+
+    public boolean isOverBudget() {
+        return getRemainingBudgetNanos() <= 0;
+    }
+
+    /**
+     * Runs the runnable immediately if the current frame has at least the estimated time left, defers it to the end of a
+     * later frame otherwise.
+     *
+     * @param runnable       the work to do
+     * @param estimatedNanos the expected duration of the work
+     * @return true if the runnable was executed immediately
+     */
+    public boolean runIfBudgetAllows(Runnable runnable, long estimatedNanos) {
+        if (getRemainingBudgetNanos() >= estimatedNanos) {
+            runnable.run();
+            return true;
+        }
+        defer(runnable);
+        return false;
+    }
+
+    /**
+     * Queues the runnable to be executed in {@link #endFrame()} of a frame that has budget left. Deferred runnables are
+     * executed in the order they were deferred.
+     */
+    public void defer(Runnable runnable) {
+        if (runnable == null) throw new IllegalArgumentException("runnable cannot be null.");
+        mDeferred.addLast(runnable);
+        mDeferredCount++;
+    }
+
+    /**
+     * @return the amount of deferred runnables that have not been executed yet
+     */
+    public int getPendingDeferredCount() {
+        return mDeferred.size;
+    }
+
+    /**
+     * @return the amount of deferred runnables executed in the last {@link #endFrame()}
+     */
+    public int getDeferredRunCount() {
+        return mDeferredRunCount;
+    }
+
+    /**
+     * @return the total amount of runnables that were deferred
+     */
+    public int getDeferredCount() {
+        return mDeferredCount;
+    }
+
+    /**
+     * @return the time between the start of the last two frames in seconds, capped by {@link #setMaxDeltaTime(float)}
+     */
+    public float getDeltaTime() {
+        return mDeltaTime;
+    }
+
+    /**
+     * @return the exponential moving average of the delta time in seconds
+     */
+    public float getSmoothedDeltaTime() {
+        return mSmoothedDeltaTime;
+    }
+
+    /**
+     * @return the mean of the delta time over the window in seconds, or the smoothed delta time while the window is not
+     * filled yet
+     */
+    public float getWindowedDeltaTime() {
+        return mWindowedDelta.hasEnoughData() ? mWindowedDelta.getMean() : mSmoothedDeltaTime;
+    }
+
+    /**
+     * @return the frames per second derived from {@link #getSmoothedDeltaTime()}
+     */
+    public float getFramesPerSecond() {
+        return mSmoothedDeltaTime == 0 ? 0 : 1f / mSmoothedDeltaTime;
+    }
+
+    /**
+     * @return the amount of frames started since this scheduler was created
+     */
+    public long getFrameId() {
+        return mFrameId;
+    }
+
+    /**
+     * @return the histogram of the time between frame starts, including the time slept for pacing
+     */
+    public FrameTimeHistogram getFrameTimes() {
+        return mFrameTimes;
+    }
+
+    /**
+     * @return the histogram of the time spent between {@link #beginFrame()} and {@link #endFrame()}
+     */
+    public FrameTimeHistogram getWorkTimes() {
+        return mWorkTimes;
+    }
+
+    /**
+     * Histogram of frame times with one bucket per millisecond. Times larger than the last bucket are counted in the last
+     * bucket.
+     */
+    public static class FrameTimeHistogram {
+        private final int[] mBuckets;
+        private int mCount;
+        private long mTotal;
+        private long mMin = Long.MAX_VALUE;
+        private long mMax;
+
+        public FrameTimeHistogram(int buckets) {
+            if (buckets <= 0) throw new IllegalArgumentException("buckets must be > 0: " + buckets);
+            mBuckets = new int[buckets];
+        }
+
+        public void put(long nanos) {
+            int bucket = (int) Math.min(TimeUtils.nanosToMillis(Math.max(0, nanos)), mBuckets.length - 1);
+            mBuckets[bucket]++;
+            mCount++;
+            mTotal += nanos;
+            if (nanos < mMin) mMin = nanos;
+            if (nanos > mMax) mMax = nanos;
+        }
+
+        /**
+         * @param percentile in the range [0, 1]
+         * @return the upper bound in milliseconds of the bucket containing the given percentile
+         */
+        public int getPercentileMillis(float percentile) {
+            if (mCount == 0) return 0;
+            int target = (int) Math.ceil(percentile * mCount);
+            int sum = 0;
+            for (int i = 0; i < mBuckets.length; i++) {
+                sum += mBuckets[i];
+                if (sum >= target && sum > 0) return i + 1;
+            }
+            return mBuckets.length;
+        }
+
+        /**
+         * @return the amount of frames that took at least the given time
+         */
+        public int countSlowerThan(long nanos) {
+            int from = (int) Math.min(TimeUtils.nanosToMillis(nanos), mBuckets.length - 1);
+            int sum = 0;
+            for (int i = from; i < mBuckets.length; i++)
+                sum += mBuckets[i];
+            return sum;
+        }
+
+        public int getBucket(int millis) {
+            return mBuckets[millis];
+        }
+
+        public int getBucketCount() {
+            return mBuckets.length;
+        }
+
+        public int getCount() {
+            return mCount;
+        }
+
+        public long getMinNanos() {
+            return mCount == 0 ? 0 : mMin;
+        }
+
+        public long getMaxNanos() {
+            return mMax;
+        }
+
+        public float getAverageMillis() {
+            return mCount == 0 ? 0 : mTotal / (float) mCount / 1000000f;
+        }
+
+        public void clear() {
+            for (int i = 0; i < mBuckets.length; i++)
+                mBuckets[i] = 0;
+            mCount = 0;
+            mTotal = 0;
+            mMin = Long.MAX_VALUE;
+            mMax = 0;
+        }
+
+        @Override
+        public String toString() {
+            return "frames: " + mCount + ", avg: " + getAverageMillis() + "ms, p50: " + getPercentileMillis(0.5f)
+                    + "ms, p95: " + getPercentileMillis(0.95f) + "ms, p99: " + getPercentileMillis(0.99f) + "ms";
+        }
+    }
+}
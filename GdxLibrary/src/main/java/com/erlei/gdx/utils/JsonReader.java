@@ -25,6 +25,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.lang.StringBuilder;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
 
 import com.erlei.gdx.files.FileHandle;
 import com.erlei.gdx.utils.JsonValue.ValueType;
@@ -74,7 +77,10 @@ public class JsonReader implements BaseJsonReader {
 
 	public JsonValue parse (FileHandle file) {
 		try {
-			return parse(file.reader("UTF-8"));
+			// decodes straight from the (possibly memory mapped) file into a single char array of the right size
+			CharBuffer chars = Charset.forName("UTF-8").newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE).decode(file.readByteBuffer());
+			return parse(chars.array(), chars.arrayOffset() + chars.position(), chars.arrayOffset() + chars.limit());
 		} catch (Exception ex) {
 			throw new SerializationException("Error parsing file: " + file, ex);
 		}
@@ -0,0 +1,363 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.utils;
+
+import com.erlei.gdx.math.MathUtils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/** A bounded lock-free queue of runnables that any number of threads can {@link #post(Runnable)} to and one thread
+ * {@link #drain(int)}s. Unlike {@link AtomicQueue}, producers claim slots with a compare-and-set on a per-slot sequence number,
+ * so multiple producers never take a lock.
+ * <p>
+ * Runnables posted with a key are coalesced: while a runnable for a key is pending, posting another one for the same key
+ * replaces it instead of queuing a second one.
+ * <p>
+ * When the queue is full the {@link OverflowPolicy} decides whether the oldest runnable is dropped, the producer blocks until
+ * the consumer made room, or the new runnable is rejected. */
+public class RunnableQueue {
+	static private final Runnable DONE = new Runnable() {
+		public void run () {
+		}
+	};
+
+	public enum OverflowPolicy {
+		/** Discards the oldest queued runnable to make room. */
+		DROP_OLDEST,
+		/** Waits until the consumer drained a runnable. Posting from the consumer thread rejects instead, since it would never
+		 * return. */
+		BLOCK,
+		/** Does not queue the runnable, {@link #post(Runnable)} returns false. */
+		REJECT
+	}
+
+	private final AtomicReferenceArray<Runnable> buffer;
+	private final AtomicLongArray sequences;
+	private final long[] postTimes;
+	private final int mask;
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private final ConcurrentHashMap<Object, Coalesced> pending = new ConcurrentHashMap<Object, Coalesced>();
+	private final OverflowPolicy policy;
+	private volatile Thread consumer;
+
+	private final AtomicLong posted = new AtomicLong();
+	private final AtomicLong coalesced = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final AtomicInteger maxDepth = new AtomicInteger();
+
+	private long drained;
+	private int lastDrainCount;
+	private long lastDrainNanos;
+	private long lastMaxLatencyNanos;
+	private long maxLatencyNanos;
+
+	/** @param capacity rounded up to the next power of two */
+	public RunnableQueue (int capacity, OverflowPolicy policy) {
+		if (capacity < 2) throw new IllegalArgumentException("capacity must be >= 2: " + capacity);
+		if (policy == null) throw new IllegalArgumentException("policy cannot be null.");
+		capacity = MathUtils.nextPowerOfTwo(capacity);
+		this.policy = policy;
+		mask = capacity - 1;
+		buffer = new AtomicReferenceArray<Runnable>(capacity);
+		sequences = new AtomicLongArray(capacity);
+		postTimes = new long[capacity];
+		for (int i = 0; i < capacity; i++)
+			sequences.set(i, i);
+	}
+
+	/** Queues the runnable, applying the {@link OverflowPolicy} if the queue is full.
+	 * @return false if the runnable was rejected */
+	public boolean post (Runnable runnable) {
+		if (runnable == null) throw new IllegalArgumentException("runnable cannot be null.");
+		posted.incrementAndGet();
+		return enqueue(runnable);
+	}
+
+	/** Queues the runnable unless a runnable for the same key is still pending, in which case the pending one is replaced and
+	 * only the newest runnable runs. A key is only pending once it is queued, so other posts never coalesce into a runnable
+	 * that is rejected afterwards.
+	 * @return false if the runnable was rejected */
+	public boolean post (Object key, Runnable runnable) {
+		if (key == null) throw new IllegalArgumentException("key cannot be null.");
+		if (runnable == null) throw new IllegalArgumentException("runnable cannot be null.");
+		posted.incrementAndGet();
+		Coalesced task = pending.get(key);
+		if (task != null && task.replace(runnable)) {
+			coalesced.incrementAndGet();
+			return true;
+		}
+		task = new Coalesced(key, runnable);
+		if (!enqueue(task)) return false;
+		// Posts for the key coalesce into the queued task from now on. If other posts queued tasks for the key meanwhile, they
+		// all stay queued and the one queued last is pending.
+		while (true) {
+			Coalesced other = pending.get(key);
+			if (other != null && !other.isDone() && other.position > task.position) break;
+			if (other == null ? pending.putIfAbsent(key, task) == null : pending.replace(key, other, task)) {
+				// the task may have run or been dropped before it was pending
+				if (task.isDone()) pending.remove(key, task);
+				break;
+			}
+		}
+		return true;
+	}
+
+	private boolean enqueue (Runnable runnable) {
+		while (!offer(runnable)) {
+			switch (policy) {
+			case DROP_OLDEST:
+				Runnable oldest = poll(0);
+				if (oldest == null) break;
+				// a dropped key is not pending anymore, later posts for it queue a new task
+				if (oldest instanceof Coalesced && !((Coalesced)oldest).drop()) break;
+				dropped.incrementAndGet();
+				break;
+			case BLOCK:
+				if (Thread.currentThread() == consumer) {
+					rejected.incrementAndGet();
+					return false;
+				}
+				LockSupport.parkNanos(50000);
+				break;
+			default:
+				rejected.incrementAndGet();
+				return false;
+			}
+		}
+		int depth = size();
+		while (true) {
+			int max = maxDepth.get();
+			if (depth <= max || maxDepth.compareAndSet(max, depth)) break;
+		}
+		return true;
+	}
+
+	private boolean offer (Runnable runnable) {
+		long pos = tail.get();
+		int index;
+		while (true) {
+			index = (int)(pos & mask);
+			long diff = sequences.get(index) - pos;
+			if (diff == 0) {
+				if (tail.compareAndSet(pos, pos + 1)) break;
+				pos = tail.get();
+			} else if (diff < 0)
+				return false;
+			else
+				pos = tail.get();
+		}
+		if (runnable instanceof Coalesced) ((Coalesced)runnable).position = pos;
+		buffer.set(index, runnable);
+		postTimes[index] = TimeUtils.nanoTime();
+		sequences.set(index, pos + 1);
+		return true;
+	}
+
+	/** @param now the drain start time used to track the queue latency, 0 to not track it */
+	private Runnable poll (long now) {
+		long pos = head.get();
+		int index;
+		while (true) {
+			index = (int)(pos & mask);
+			long diff = sequences.get(index) - (pos + 1);
+			if (diff == 0) {
+				if (head.compareAndSet(pos, pos + 1)) break;
+				pos = head.get();
+			} else if (diff < 0)
+				return null;
+			else
+				pos = head.get();
+		}
+		Runnable runnable = buffer.get(index);
+		long latency = now - postTimes[index];
+		buffer.set(index, null);
+		sequences.set(index, pos + mask + 1);
+		if (now != 0 && latency > lastMaxLatencyNanos) lastMaxLatencyNanos = latency;
+		return runnable;
+	}
+
+	/** Runs at most max queued runnables on the calling thread. Must always be called from the same thread. Runnables posted
+	 * while draining are only run if max has not been reached.
+	 * @return the amount of runnables run */
+	public int drain (int max) {
+		consumer = Thread.currentThread();
+		long start = TimeUtils.nanoTime();
+		lastMaxLatencyNanos = 0;
+		int count = 0;
+		while (count < max) {
+			Runnable runnable = poll(start);
+			if (runnable == null) break;
+			count++;
+			runnable.run();
+		}
+		drained += count;
+		lastDrainCount = count;
+		lastDrainNanos = TimeUtils.nanoTime() - start;
+		if (lastMaxLatencyNanos > maxLatencyNanos) maxLatencyNanos = lastMaxLatencyNanos;
+		return count;
+	}
+
+	/** Runs all runnables that are queued when this method is called. */
+	public int drain () {
+		return drain(size());
+	}
+
+	/** Removes all queued runnables without running them. Must be called from the draining thread. */
+	public void clear () {
+		Runnable runnable;
+		while ((runnable = poll(0)) != null)
+			if (runnable instanceof Coalesced) ((Coalesced)runnable).drop();
+	}
+
+	public boolean isEmpty () {
+		return head.get() >= tail.get();
+	}
+
+	/** @return the amount of queued runnables, may be outdated as soon as it returns */
+	public int size () {
+		long size = tail.get() - head.get();
+		return size < 0 ? 0 : (int)Math.min(size, mask + 1);
+	}
+
+	public int getCapacity () {
+		return mask + 1;
+	}
+
+	public OverflowPolicy getPolicy () {
+		return policy;
+	}
+
+	/** @return the total amount of posted runnables, including coalesced ones */
+	public long getPostedCount () {
+		return posted.get();
+	}
+
+	/** @return the total amount of runnables run by {@link #drain(int)} */
+	public long getDrainedCount () {
+		return drained;
+	}
+
+	/** @return the amount of runnables that replaced a pending runnable with the same key */
+	public long getCoalescedCount () {
+		return coalesced.get();
+	}
+
+	/** @return the amount of runnables discarded by {@link OverflowPolicy#DROP_OLDEST} */
+	public long getDroppedCount () {
+		return dropped.get();
+	}
+
+	/** @return the amount of runnables that were not queued because the queue was full */
+	public long getRejectedCount () {
+		return rejected.get();
+	}
+
+	/** @return the highest queue depth observed after a post */
+	public int getMaxDepth () {
+		return maxDepth.get();
+	}
+
+	/** @return the amount of runnables run by the last {@link #drain(int)} */
+	public int getLastDrainCount () {
+		return lastDrainCount;
+	}
+
+	/** @return the time the last {@link #drain(int)} took, in nanoseconds */
+	public long getLastDrainNanos () {
+		return lastDrainNanos;
+	}
+
+	/** @return the longest time a runnable drained by the last {@link #drain(int)} spent in the queue, in nanoseconds */
+	public long getLastMaxLatencyNanos () {
+		return lastMaxLatencyNanos;
+	}
+
+	/** @return the longest time any runnable spent in the queue, in nanoseconds */
+	public long getMaxLatencyNanos () {
+		return maxLatencyNanos;
+	}
+
+	/** Resets the counters, queued runnables are kept. Must be called from the draining thread. */
+	public void resetCounters () {
+		posted.set(0);
+		coalesced.set(0);
+		dropped.set(0);
+		rejected.set(0);
+		maxDepth.set(0);
+		drained = 0;
+		lastDrainCount = 0;
+		lastDrainNanos = 0;
+		lastMaxLatencyNanos = 0;
+		maxLatencyNanos = 0;
+	}
+
+	public String toString () {
+		return "RunnableQueue [size: " + size() + "/" + getCapacity() + ", posted: " + posted.get() + ", drained: " + drained
+			+ ", coalesced: " + coalesced.get() + ", dropped: " + dropped.get() + ", rejected: " + rejected.get() + ", maxDepth: "
+			+ maxDepth.get() + ", maxLatency: " + TimeUtils.nanosToMillis(maxLatencyNanos) + "ms]";
+	}
+
+	/** The queued task of a key, holding the newest runnable posted for it until it is run or dropped. */
+	private class Coalesced implements Runnable {
+		private final Object key;
+		private final AtomicReference<Runnable> runnable;
+		/** The position in the queue, set when the task is queued */
+		long position;
+
+		Coalesced (Object key, Runnable runnable) {
+			this.key = key;
+			this.runnable = new AtomicReference<Runnable>(runnable);
+		}
+
+		/** @return false if the task was already run or dropped */
+		boolean replace (Runnable newRunnable) {
+			while (true) {
+				Runnable old = runnable.get();
+				if (old == DONE) return false;
+				if (runnable.compareAndSet(old, newRunnable)) return true;
+			}
+		}
+
+		/** @return false if the task was already run or dropped */
+		boolean drop () {
+			return take() != DONE;
+		}
+
+		boolean isDone () {
+			return runnable.get() == DONE;
+		}
+
+		private Runnable take () {
+			Runnable old = runnable.getAndSet(DONE);
+			pending.remove(key, this);
+			return old;
+		}
+
+		public void run () {
+			Runnable old = take();
+			if (old != DONE) old.run();
+		}
+	}
+}
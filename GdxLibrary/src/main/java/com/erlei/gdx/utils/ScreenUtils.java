@@ -24,10 +24,12 @@ import com.erlei.gdx.graphics.Pixmap;
 import com.erlei.gdx.graphics.Pixmap.Format;
 import com.erlei.gdx.graphics.Texture;
 import com.erlei.gdx.graphics.g2d.TextureRegion;
+import com.erlei.gdx.graphics.glutils.AsyncReadback;
 import com.erlei.gdx.math.MathUtils;
 
 /** Class with static helper methods that provide access to the default OpenGL FrameBuffer. These methods can be used to get the
- * entire screen content or a portion thereof.
+ * entire screen content or a portion thereof. They read the pixels synchronously, which waits until the GPU has finished
+ * rendering. To read every frame, for example to capture a video, use {@link AsyncReadback} instead.
  * 
  * @author espitz */
 public final class ScreenUtils {
@@ -0,0 +1,118 @@
+package com.erlei.gdx.assets;
+
+import com.erlei.gdx.assets.loaders.FileHandleResolver;
+import com.erlei.gdx.assets.loaders.SynchronousAssetLoader;
+import com.erlei.gdx.files.FileHandle;
+import com.erlei.gdx.utils.Array;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Loads fake assets with loaders that are not concurrent to check the order the {@link AssetManager} updates their tasks in.
+ */
+public class AssetManagerTest {
+
+    private AssetManager manager;
+
+    @Before
+    public void setUp() {
+        FileHandleResolver resolver = new FileHandleResolver() {
+            @Override
+            public FileHandle resolve(String fileName) {
+                return new FileHandle(new File(fileName));
+            }
+        };
+        manager = new AssetManager(resolver, false, 2);
+        manager.setLoader(Font.class, new FontLoader(resolver));
+        manager.setLoader(Atlas.class, new AtlasLoader(resolver));
+    }
+
+    @Test
+    public void sharedDependencyOfAnotherQueuedAssetLoads() {
+        FontParameter parameter = new FontParameter();
+        parameter.atlasName = "ui.atlas";
+        manager.load("font.fnt", Font.class, parameter);
+        manager.load("ui.atlas", Atlas.class);
+
+        // both are root tasks, the font is updated first and shares the task of the atlas created for the load queue
+        assertTrue(update(100));
+        assertTrue(manager.isLoaded("font.fnt"));
+        assertTrue(manager.isLoaded("ui.atlas"));
+        assertEquals(2, manager.getReferenceCount("ui.atlas"));
+    }
+
+    @Test
+    public void dependencyQueuedAfterItsRequesterLoads() {
+        FontParameter parameter = new FontParameter();
+        parameter.atlasName = "ui.atlas";
+        manager.load("ui.atlas", Atlas.class);
+        manager.load("font.fnt", Font.class, parameter);
+
+        assertTrue(update(100));
+        assertTrue(manager.isLoaded("font.fnt"));
+        assertEquals(2, manager.getReferenceCount("ui.atlas"));
+    }
+
+    private boolean update(int times) {
+        for (int i = 0; i < times; i++)
+            if (manager.update()) return true;
+        return false;
+    }
+
+    static class Font {
+    }
+
+    static class Atlas {
+    }
+
+    static class FontParameter extends AssetLoaderParameters<Font> {
+        String atlasName;
+    }
+
+    static class AtlasParameter extends AssetLoaderParameters<Atlas> {
+    }
+
+    static class FontLoader extends SynchronousAssetLoader<Font, FontParameter> {
+
+        FontLoader(FileHandleResolver resolver) {
+            super(resolver);
+        }
+
+        @Override
+        public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, FontParameter parameter) {
+            if (parameter == null || parameter.atlasName == null) return null;
+            Array<AssetDescriptor> dependencies = new Array<AssetDescriptor>();
+            dependencies.add(new AssetDescriptor<Atlas>(parameter.atlasName, Atlas.class));
+            return dependencies;
+        }
+
+        @Override
+        public Font load(AssetManager assetManager, String fileName, FileHandle file, FontParameter parameter) {
+            if (parameter != null && parameter.atlasName != null) assetManager.get(parameter.atlasName, Atlas.class);
+            return new Font();
+        }
+    }
+
+    static class AtlasLoader extends SynchronousAssetLoader<Atlas, AtlasParameter> {
+
+        AtlasLoader(FileHandleResolver resolver) {
+            super(resolver);
+        }
+
+        @Override
+        public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, AtlasParameter parameter) {
+            return null;
+        }
+
+        @Override
+        public Atlas load(AssetManager assetManager, String fileName, FileHandle file, AtlasParameter parameter) {
+            return new Atlas();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.erlei.gdx.graphics;
+
+import com.erlei.gdx.utils.async.AsyncExecutor;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the parts of {@link PixmapIO.ParallelPNG} that need no natives: the combined Adler-32 and PNGs deflated in chunks,
+ * written from a buffer of RGBA8888 pixels.
+ */
+public class PixmapIOTest {
+
+    private static final int IDAT = 0x49444154;
+
+    @Test
+    public void adler32CombineMatchesTheConcatenation() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100; i++) {
+            byte[] bytes = new byte[random.nextInt(200000)];
+            random.nextBytes(bytes);
+            // include empty parts and parts longer than the Adler-32 modulus
+            int split = i % 10 == 0 ? 0 : i % 10 == 1 ? bytes.length : random.nextInt(bytes.length + 1);
+            int length2 = bytes.length - split;
+            int combined = PixmapIO.ParallelPNG.adler32Combine(adler(bytes, 0, split), adler(bytes, split, length2), length2);
+            assertEquals(adler(bytes, 0, bytes.length), combined);
+        }
+    }
+
+    @Test
+    public void serialChunksInflateToTheImage() throws IOException, DataFormatException {
+        PixmapIO.ParallelPNG png = new PixmapIO.ParallelPNG(null);
+        try {
+            checkEncoder(png);
+        } finally {
+            png.dispose();
+        }
+    }
+
+    @Test
+    public void parallelChunksInflateToTheImage() throws IOException, DataFormatException {
+        AsyncExecutor executor = new AsyncExecutor(4);
+        PixmapIO.ParallelPNG png = new PixmapIO.ParallelPNG(executor);
+        try {
+            checkEncoder(png);
+        } finally {
+            png.dispose();
+            executor.dispose();
+        }
+    }
+
+    /**
+     * Encodes a noisy and a smooth image, large enough for several chunks, with and without adaptive filtering and flipping.
+     */
+    private void checkEncoder(PixmapIO.ParallelPNG png) throws IOException, DataFormatException {
+        png.setChunkSize(32 * 1024);
+        int width = 173, height = 211;
+        ByteBuffer noise = ByteBuffer.allocate(width * height * 4);
+        ByteBuffer gradient = ByteBuffer.allocate(width * height * 4);
+        Random random = new Random(1);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                noise.putInt(random.nextInt());
+                gradient.put((byte) x).put((byte) y).put((byte) (x + y)).put((byte) 255);
+            }
+        }
+        noise.flip();
+        gradient.flip();
+        for (ByteBuffer pixels : new ByteBuffer[]{noise, gradient}) {
+            for (int i = 0; i < 4; i++) {
+                boolean adaptive = i % 2 == 0, flipY = i >= 2;
+                png.setAdaptiveFilter(adaptive);
+                png.setFlipY(flipY);
+                ByteArrayOutputStream output = new ByteArrayOutputStream();
+                png.write(output, pixels, width, height);
+                assertEquals(0, pixels.position());
+                byte[] bytes = output.toByteArray();
+
+                assertEquals((width * 4 + 1) * height, inflate(bytes));
+                BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+                assertEquals(width, image.getWidth());
+                assertEquals(height, image.getHeight());
+                for (int y = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) {
+                        int rgba = pixels.getInt(((flipY ? height - y - 1 : y) * width + x) * 4);
+                        assertEquals(rgba >>> 8 | rgba << 24, image.getRGB(x, y));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks the CRC of every chunk and inflates the IDAT chunks as one zlib stream, which checks its Adler-32.
+     *
+     * @return the amount of inflated bytes
+     */
+    private static int inflate(byte[] png) throws IOException, DataFormatException {
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(png));
+        input.skipBytes(8);
+        ByteArrayOutputStream idat = new ByteArrayOutputStream();
+        int chunks = 0;
+        while (input.available() > 0) {
+            byte[] chunk = new byte[input.readInt() + 4];
+            input.readFully(chunk);
+            CRC32 crc = new CRC32();
+            crc.update(chunk);
+            assertEquals((int) crc.getValue(), input.readInt());
+            int type = (chunk[0] & 0xff) << 24 | (chunk[1] & 0xff) << 16 | (chunk[2] & 0xff) << 8 | chunk[3] & 0xff;
+            if (type == IDAT) {
+                idat.write(chunk, 4, chunk.length - 4);
+                chunks++;
+            }
+        }
+        assertTrue(chunks > 3);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(idat.toByteArray());
+            byte[] buffer = new byte[64 * 1024];
+            int total = 0;
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(buffer);
+                assertTrue(inflated > 0 || !inflater.needsInput());
+                total += inflated;
+            }
+            assertEquals(0, inflater.getRemaining());
+            return total;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static int adler(byte[] bytes, int offset, int length) {
+        Adler32 adler = new Adler32();
+        adler.update(bytes, offset, length);
+        return (int) adler.getValue();
+    }
+}
@@ -0,0 +1,109 @@
+package com.erlei.gdx.graphics.g3d.utils;
+
+import com.erlei.gdx.graphics.g3d.model.AnimationTrack;
+import com.erlei.gdx.graphics.g3d.model.NodeKeyframe;
+import com.erlei.gdx.math.Vector3;
+import com.erlei.gdx.utils.Array;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Compares the binary search for the keyframe at a time, of the keyframes and of the baked {@link AnimationTrack}, with the
+ * linear scan it replaced.
+ */
+public class BaseAnimationControllerTest {
+
+    private Random random;
+
+    @Before
+    public void setUp() {
+        random = new Random(1);
+    }
+
+    @Test
+    public void keyframeLookupMatchesLinearScan() {
+        for (int n = 1; n < 40; n++) {
+            Array<NodeKeyframe<Vector3>> keyframes = createKeyframes(n);
+            for (float time : times(keyframes))
+                assertEquals(linearScan(keyframes, time), BaseAnimationController.getFirstKeyframeIndexAtTime(keyframes, time));
+        }
+    }
+
+    @Test
+    public void trackLookupMatchesLinearScanFromAnyCursor() {
+        for (int n = 1; n < 40; n++) {
+            Array<NodeKeyframe<Vector3>> keyframes = createKeyframes(n);
+            AnimationTrack track = AnimationTrack.vectors(keyframes);
+            int cursor = 0;
+            for (float time : times(keyframes)) {
+                int expected = linearScan(keyframes, time);
+                // the cursor of the previous lookup, like during playback, and any other one
+                assertEquals(expected, cursor = track.indexOf(time, cursor));
+                assertEquals(expected, track.indexOf(time, random.nextInt(n + 2) - 1));
+            }
+        }
+    }
+
+    @Test
+    public void keyframesAtTheSameTimeDoNotInterpolate() {
+        Array<NodeKeyframe<Vector3>> keyframes = new Array<NodeKeyframe<Vector3>>();
+        keyframes.add(new NodeKeyframe<Vector3>(0, new Vector3(0, 0, 0)));
+        keyframes.add(new NodeKeyframe<Vector3>(1, new Vector3(1, 1, 1)));
+        keyframes.add(new NodeKeyframe<Vector3>(1, new Vector3(2, 2, 2)));
+        keyframes.add(new NodeKeyframe<Vector3>(2, new Vector3(3, 3, 3)));
+        AnimationTrack track = AnimationTrack.vectors(keyframes);
+
+        assertEquals(0, track.indexOf(1, 1));
+        assertEquals(new Vector3(1, 1, 1), track.getVector(1, 1, new Vector3()));
+        Vector3 after = track.getVector(1.5f, track.indexOf(1.5f, 0), new Vector3());
+        assertFalse(Float.isNaN(after.x));
+        assertEquals(new Vector3(2.5f, 2.5f, 2.5f), after);
+    }
+
+    /**
+     * The lookup of {@link BaseAnimationController} before the binary search.
+     */
+    private static int linearScan(Array<NodeKeyframe<Vector3>> keyframes, float time) {
+        final int n = keyframes.size - 1;
+        for (int i = 0; i < n; i++) {
+            if (time >= keyframes.get(i).keytime && time <= keyframes.get(i + 1).keytime) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return ascending keyframes, some of them at the same time
+     */
+    private Array<NodeKeyframe<Vector3>> createKeyframes(int count) {
+        Array<NodeKeyframe<Vector3>> keyframes = new Array<NodeKeyframe<Vector3>>(count);
+        float time = random.nextFloat();
+        for (int i = 0; i < count; i++) {
+            if (random.nextInt(4) != 0) time += random.nextFloat();
+            keyframes.add(new NodeKeyframe<Vector3>(time, new Vector3(random.nextFloat(), random.nextFloat(), random.nextFloat())));
+        }
+        return keyframes;
+    }
+
+    /**
+     * @return ascending times before, between, at and after the keyframes
+     */
+    private float[] times(Array<NodeKeyframe<Vector3>> keyframes) {
+        float first = keyframes.first().keytime, last = keyframes.peek().keytime;
+        float[] times = new float[200 + keyframes.size];
+        for (int i = 0; i < 200; i++)
+            times[i] = first - 0.5f + (last - first + 1) * i / 199f;
+        for (int i = 0; i < keyframes.size; i++)
+            times[200 + i] = keyframes.get(i).keytime;
+        Arrays.sort(times);
+        return times;
+    }
+}
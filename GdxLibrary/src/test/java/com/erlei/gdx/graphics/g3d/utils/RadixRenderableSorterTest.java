@@ -0,0 +1,160 @@
+package com.erlei.gdx.graphics.g3d.utils;
+
+import com.erlei.gdx.graphics.Camera;
+import com.erlei.gdx.graphics.PerspectiveCamera;
+import com.erlei.gdx.graphics.g3d.Material;
+import com.erlei.gdx.graphics.g3d.Renderable;
+import com.erlei.gdx.graphics.g3d.Shader;
+import com.erlei.gdx.graphics.g3d.attributes.BlendingAttribute;
+import com.erlei.gdx.graphics.profiling.RenderableSorterBenchmark;
+import com.erlei.gdx.math.Vector3;
+import com.erlei.gdx.utils.Array;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the order of the {@link RadixRenderableSorter} with the {@link DefaultRenderableSorter}. The renderables are at
+ * distinct distances, so the distance alone decides the order of the {@link DefaultRenderableSorter}.
+ */
+public class RadixRenderableSorterTest {
+
+    private Camera camera;
+    private Random random;
+    private Set<Float> used;
+
+    @Before
+    public void setUp() {
+        camera = new PerspectiveCamera();
+        camera.far = 1000;
+        random = new Random(1);
+        used = new HashSet<Float>();
+    }
+
+    @Test
+    public void opaqueWithSameStateOrdersLikeDefault() {
+        Shader shader = new RenderableSorterBenchmark.StubShader();
+        Material material = new Material("opaque");
+        Array<Renderable> renderables = new Array<Renderable>();
+        for (int i = 0; i < 500; i++)
+            renderables.add(create(shader, material));
+        assertSameOrder(renderables);
+    }
+
+    @Test
+    public void blendedOrdersLikeDefault() {
+        Shader[] shaders = shaders(4);
+        Array<Renderable> renderables = new Array<Renderable>();
+        for (int i = 0; i < 500; i++) {
+            Material material = new Material("blended" + random.nextInt(8), new BlendingAttribute(0.5f));
+            renderables.add(create(shaders[random.nextInt(shaders.length)], material));
+        }
+        assertSameOrder(renderables);
+    }
+
+    @Test
+    public void mixedStatesGroupOpaqueAndOrderBlendedLikeDefault() {
+        Shader[] shaders = shaders(4);
+        Array<Renderable> renderables = new Array<Renderable>();
+        for (int i = 0; i < 1000; i++) {
+            Material material = new Material("material" + random.nextInt(8));
+            if (i % 4 == 0) material.set(new BlendingAttribute(0.5f));
+            renderables.add(create(shaders[random.nextInt(shaders.length)], material));
+        }
+        Array<Renderable> expected = new Array<Renderable>(renderables);
+        new DefaultRenderableSorter().sort(camera, expected);
+        new RadixRenderableSorter().sort(camera, renderables);
+
+        // the opaque renderables come first, grouped by shader, the blended ones in the same order
+        int opaque = 750, shaderSwitches = 0;
+        for (int i = 0; i < renderables.size; i++) {
+            assertEquals(i >= opaque, isBlended(renderables.get(i)));
+            if (i >= opaque)
+                assertSame(expected.get(i), renderables.get(i));
+            else if (i > 0 && renderables.get(i).shader != renderables.get(i - 1).shader)
+                shaderSwitches++;
+        }
+        assertEquals(shaders.length - 1, shaderSwitches);
+    }
+
+    @Test
+    public void shaderIdsStayTheSameWithinASort() {
+        // more shaders than fit into the key, the ids of the first ones are reused by the last ones
+        Shader[] shaders = shaders(1100);
+        Material material = new Material("opaque");
+        Array<Renderable> renderables = new Array<Renderable>();
+        for (int pass = 0; pass < 2; pass++)
+            for (Shader shader : shaders)
+                renderables.add(create(shader, material));
+        new RadixRenderableSorter().sort(camera, renderables);
+
+        // the shaders with ids nothing else wraps around to keep their renderables together
+        for (int i = 0; i < renderables.size - 1; i++) {
+            int index = indexOf(shaders, renderables.get(i).shader);
+            if (index < 100 || index >= 1000) continue;
+            boolean together = renderables.get(i + 1).shader == shaders[index]
+                    || i > 0 && renderables.get(i - 1).shader == shaders[index];
+            assertTrue("shader " + index + " split", together);
+        }
+    }
+
+    @Test
+    public void benchmarkAgainstDefaultSorter() {
+        RenderableSorterBenchmark.Result[] results = RenderableSorterBenchmark.run(camera, 2000, 8, 32, 20);
+        for (RenderableSorterBenchmark.Result result : results)
+            System.out.println(result);
+        RenderableSorterBenchmark.Result defaultResult = results[0], radixResult = results[1];
+        assertTrue(radixResult.shaderSwitches < defaultResult.shaderSwitches);
+        assertTrue(radixResult.materialSwitches < defaultResult.materialSwitches);
+    }
+
+    private void assertSameOrder(Array<Renderable> renderables) {
+        Array<Renderable> expected = new Array<Renderable>(renderables);
+        new DefaultRenderableSorter().sort(camera, expected);
+        new RadixRenderableSorter().sort(camera, renderables);
+        for (int i = 0; i < renderables.size; i++)
+            assertSame(expected.get(i), renderables.get(i));
+    }
+
+    /**
+     * @return a renderable at a distance from the camera no other renderable has, in steps far enough apart for both sorters
+     */
+    private Renderable create(Shader shader, Material material) {
+        Renderable renderable = new Renderable();
+        renderable.shader = shader;
+        renderable.material = material;
+        float distance;
+        do {
+            distance = (random.nextInt(9000) + 1) * 0.1f;
+        } while (!used.add(distance));
+        Vector3 direction = new Vector3(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f, random.nextFloat() - 0.5f).nor();
+        renderable.worldTransform.setToTranslation(direction.scl(distance));
+        return renderable;
+    }
+
+    private static Shader[] shaders(int count) {
+        Shader[] shaders = new Shader[count];
+        for (int i = 0; i < count; i++)
+            shaders[i] = new RenderableSorterBenchmark.StubShader();
+        return shaders;
+    }
+
+    private static int indexOf(Shader[] shaders, Shader shader) {
+        for (int i = 0; i < shaders.length; i++)
+            if (shaders[i] == shader) return i;
+        return -1;
+    }
+
+    private static boolean isBlended(Renderable renderable) {
+        BlendingAttribute blending = (BlendingAttribute) renderable.material.get(BlendingAttribute.Type);
+        return blending != null && blending.blended;
+    }
+}
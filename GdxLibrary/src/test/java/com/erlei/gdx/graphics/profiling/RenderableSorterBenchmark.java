@@ -0,0 +1,149 @@
+/*******************************************************************************
+ * Copyright 2011 See AUTHORS file.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ ******************************************************************************/
+
+package com.erlei.gdx.graphics.profiling;
+
+import com.erlei.gdx.graphics.Camera;
+import com.erlei.gdx.graphics.Color;
+import com.erlei.gdx.graphics.g3d.Material;
+import com.erlei.gdx.graphics.g3d.Renderable;
+import com.erlei.gdx.graphics.g3d.Shader;
+import com.erlei.gdx.graphics.g3d.attributes.BlendingAttribute;
+import com.erlei.gdx.graphics.g3d.attributes.ColorAttribute;
+import com.erlei.gdx.graphics.g3d.utils.DefaultRenderableSorter;
+import com.erlei.gdx.graphics.g3d.utils.RadixRenderableSorter;
+import com.erlei.gdx.graphics.g3d.utils.RenderContext;
+import com.erlei.gdx.graphics.g3d.utils.RenderableSorter;
+import com.erlei.gdx.utils.Array;
+import com.erlei.gdx.utils.TimeUtils;
+
+import java.util.Random;
+
+/**
+ * Sorts the same randomly placed {@link Renderable}s with the {@link DefaultRenderableSorter} and the
+ * {@link RadixRenderableSorter} and reports the time per sort and the state changes in the sorted order. Nothing is rendered,
+ * the shaders are stand-ins, so it runs on the JVM, see
+ * {@link com.erlei.gdx.graphics.g3d.utils.RadixRenderableSorterTest#benchmarkAgainstDefaultSorter()}.
+ */
+public class RenderableSorterBenchmark {
+    /**
+     * The results of one sorter, all values per sort.
+     */
+    public static class Result {
+        /** The simple class name of the sorter */
+        public final String sorter;
+        public float micros;
+        /** Consecutive renderables with a different shader */
+        public float shaderSwitches;
+        /** Consecutive renderables with a different material */
+        public float materialSwitches;
+
+        public Result(String sorter) {
+            this.sorter = sorter;
+        }
+
+        @Override
+        public String toString() {
+            return sorter + ": " + micros + "us, shader switches: " + shaderSwitches + ", material switches: " + materialSwitches;
+        }
+    }
+
+    /**
+     * @param camera      the camera to sort for, the renderables are placed within its far distance around the origin
+     * @param renderables the renderables per sort
+     * @param shaders     the amount of shaders the renderables use
+     * @param materials   the amount of materials the renderables use, every eighth of them is blended
+     * @param iterations  the measured sorts per sorter, each one starts from the same shuffled order
+     * @return the results for the {@link DefaultRenderableSorter} and the {@link RadixRenderableSorter}
+     */
+    public static Result[] run(Camera camera, int renderables, int shaders, int materials, int iterations) {
+        Random random = new Random(1);
+        Shader[] shaderArray = new Shader[shaders];
+        for (int i = 0; i < shaders; i++)
+            shaderArray[i] = new StubShader();
+        Material[] materialArray = new Material[materials];
+        for (int i = 0; i < materials; i++) {
+            materialArray[i] = new Material("material" + i, ColorAttribute.createDiffuse(new Color(random.nextInt())));
+            if (i % 8 == 7) materialArray[i].set(new BlendingAttribute(0.5f));
+        }
+
+        Renderable[] shuffled = new Renderable[renderables];
+        float range = camera.far / 2;
+        for (int i = 0; i < renderables; i++) {
+            Renderable renderable = shuffled[i] = new Renderable();
+            renderable.shader = shaderArray[random.nextInt(shaders)];
+            // instances copy their materials but keep the id
+            renderable.material = materialArray[random.nextInt(materials)].copy();
+            renderable.worldTransform.setToTranslation((random.nextFloat() * 2 - 1) * range, (random.nextFloat() * 2 - 1) * range,
+                    (random.nextFloat() * 2 - 1) * range);
+        }
+
+        RenderableSorter[] sorters = {new DefaultRenderableSorter(), new RadixRenderableSorter()};
+        Result[] results = new Result[sorters.length];
+        Array<Renderable> array = new Array<Renderable>(renderables);
+        for (int s = 0; s < sorters.length; s++) {
+            RenderableSorter sorter = sorters[s];
+            Result result = results[s] = new Result(sorter.getClass().getSimpleName());
+            long nanos = 0;
+            // the first quarter of the iterations warms up
+            for (int i = -(iterations / 4 + 1); i < iterations; i++) {
+                array.clear();
+                array.addAll(shuffled);
+                long start = TimeUtils.nanoTime();
+                sorter.sort(camera, array);
+                if (i >= 0) nanos += TimeUtils.nanoTime() - start;
+            }
+            result.micros = nanos / 1000f / iterations;
+            for (int i = 1; i < array.size; i++) {
+                if (array.get(i).shader != array.get(i - 1).shader) result.shaderSwitches++;
+                if (!array.get(i).material.id.equals(array.get(i - 1).material.id)) result.materialSwitches++;
+            }
+        }
+        return results;
+    }
+
+    public static class StubShader implements Shader {
+        @Override
+        public void init() {
+        }
+
+        @Override
+        public int compareTo(Shader other) {
+            return 0;
+        }
+
+        @Override
+        public boolean canRender(Renderable instance) {
+            return true;
+        }
+
+        @Override
+        public void begin(Camera camera, RenderContext context) {
+        }
+
+        @Override
+        public void render(Renderable renderable) {
+        }
+
+        @Override
+        public void end() {
+        }
+
+        @Override
+        public void dispose() {
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.erlei.gdx.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Drives a {@link FrameScheduler} with a fake clock to check the frame budget and the deferred work.
+ */
+public class FrameSchedulerTest {
+
+    private static final long MILLIS = 1000000L;
+
+    private FakeClock clock;
+    private FrameScheduler scheduler;
+    private List<Integer> runs;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        scheduler = new FrameScheduler(clock, 100, 4);
+        runs = new ArrayList<>();
+    }
+
+    @Test
+    public void budgetFollowsTargetFrameRate() {
+        assertEquals(10 * MILLIS, scheduler.getFrameBudgetNanos());
+        scheduler.beginFrame();
+        clock.time += 4 * MILLIS;
+        assertEquals(6 * MILLIS, scheduler.getRemainingBudgetNanos());
+        assertFalse(scheduler.isOverBudget());
+        clock.time += 6 * MILLIS;
+        assertTrue(scheduler.isOverBudget());
+    }
+
+    @Test
+    public void runIfBudgetAllowsRunsOrDefers() {
+        scheduler.beginFrame();
+        clock.time += 7 * MILLIS;
+        assertTrue(scheduler.runIfBudgetAllows(record(0, 0), 3 * MILLIS));
+        assertFalse(scheduler.runIfBudgetAllows(record(1, 0), 4 * MILLIS));
+        assertEquals(1, scheduler.getPendingDeferredCount());
+        assertEquals(1, scheduler.getDeferredCount());
+    }
+
+    @Test
+    public void deferredWorkRunsInOrderWithinBudget() {
+        for (int i = 0; i < 5; i++)
+            scheduler.defer(record(i, 3 * MILLIS));
+
+        // 4ms of the 10ms budget are used, the second runnable uses up the rest
+        scheduler.beginFrame();
+        clock.time += 4 * MILLIS;
+        scheduler.endFrame();
+        assertEquals(2, scheduler.getDeferredRunCount());
+        assertEquals(3, scheduler.getPendingDeferredCount());
+
+        scheduler.beginFrame();
+        scheduler.endFrame();
+        assertEquals(3, scheduler.getDeferredRunCount());
+        assertEquals(0, scheduler.getPendingDeferredCount());
+        assertEquals("[0, 1, 2, 3, 4]", runs.toString());
+    }
+
+    @Test
+    public void overBudgetFrameStillRunsOneDeferred() {
+        scheduler.defer(record(0, 0));
+        scheduler.defer(record(1, 0));
+        scheduler.beginFrame();
+        clock.time += 20 * MILLIS;
+        scheduler.endFrame();
+        assertEquals(1, scheduler.getDeferredRunCount());
+        assertEquals("[0]", runs.toString());
+    }
+
+    @Test
+    public void deltaTimeIsCappedAndResetForgetsPause() {
+        scheduler.setMaxDeltaTime(0.05f);
+        scheduler.beginFrame();
+        scheduler.endFrame();
+        clock.time += 20 * MILLIS;
+        assertEquals(0.02f, scheduler.beginFrame(), 0.0001f);
+        scheduler.endFrame();
+        clock.time += 1000 * MILLIS;
+        assertEquals(0.05f, scheduler.beginFrame(), 0.0001f);
+        scheduler.endFrame();
+
+        scheduler.reset();
+        clock.time += 1000 * MILLIS;
+        assertEquals(0.01f, scheduler.beginFrame(), 0.0001f);
+    }
+
+    @Test
+    public void pacingSleepsUntilNextSlot() {
+        scheduler.setPacingEnabled(true);
+        scheduler.beginFrame();
+        clock.time += 4 * MILLIS;
+        scheduler.endFrame();
+        assertEquals(0.01f, scheduler.beginFrame(), 0.0001f);
+        assertEquals(6 * MILLIS, clock.slept);
+    }
+
+    private Runnable record(final int id, final long nanos) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                runs.add(id);
+                clock.time += nanos;
+            }
+        };
+    }
+
+    private static class FakeClock implements FrameScheduler.Clock {
+        long time = 1000 * MILLIS;
+        long slept;
+
+        @Override
+        public long nanoTime() {
+            return time;
+        }
+
+        @Override
+        public void sleep(long nanos) {
+            time += nanos;
+            slept += nanos;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.erlei.gdx.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the coalescing and the overflow policies of a {@link RunnableQueue}, with one thread and with several producers.
+ */
+public class RunnableQueueTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int KEYS_PER_PRODUCER = 3;
+    private static final int POSTS_PER_PRODUCER = 20000;
+
+    private final List<Integer> runs = new ArrayList<>();
+
+    @Test
+    public void keyedPostsCoalesceUntilRun() {
+        RunnableQueue queue = new RunnableQueue(4, RunnableQueue.OverflowPolicy.REJECT);
+        assertTrue(queue.post("a", record(0)));
+        assertTrue(queue.post("a", record(1)));
+        assertTrue(queue.post("b", record(2)));
+        assertTrue(queue.post("a", record(3)));
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.drain());
+        assertEquals("[3, 2]", runs.toString());
+
+        // the key is not pending anymore once its runnable ran
+        assertTrue(queue.post("a", record(4)));
+        assertEquals(1, queue.drain());
+        assertEquals(5, queue.getPostedCount());
+        assertEquals(2, queue.getCoalescedCount());
+    }
+
+    @Test
+    public void rejectReturnsFalseWithoutBlocking() {
+        RunnableQueue queue = new RunnableQueue(2, RunnableQueue.OverflowPolicy.REJECT);
+        assertTrue(queue.post("a", record(0)));
+        assertTrue(queue.post(record(1)));
+        assertFalse(queue.post(record(2)));
+        assertFalse(queue.post("b", record(3)));
+        // a pending key still coalesces into the full queue
+        assertTrue(queue.post("a", record(4)));
+        assertEquals(2, queue.getRejectedCount());
+
+        // the rejected key is not pending, so the next post queues it
+        queue.drain();
+        assertTrue(queue.post("b", record(5)));
+        queue.drain();
+        assertEquals("[4, 1, 5]", runs.toString());
+    }
+
+    @Test
+    public void dropOldestReleasesTheDroppedKey() {
+        RunnableQueue queue = new RunnableQueue(2, RunnableQueue.OverflowPolicy.DROP_OLDEST);
+        assertTrue(queue.post("a", record(0)));
+        assertTrue(queue.post(record(1)));
+        assertTrue(queue.post(record(2)));
+        assertEquals(1, queue.getDroppedCount());
+
+        // the key was dropped with its runnable, a new post for it is queued instead of coalescing into nothing
+        assertTrue(queue.post("a", record(3)));
+        assertEquals(0, queue.getCoalescedCount());
+        queue.drain();
+        assertEquals("[2, 3]", runs.toString());
+    }
+
+    @Test
+    public void blockRejectsOnTheConsumerThread() {
+        RunnableQueue queue = new RunnableQueue(2, RunnableQueue.OverflowPolicy.BLOCK);
+        queue.drain();
+        assertTrue(queue.post(record(0)));
+        assertTrue(queue.post(record(1)));
+        assertFalse(queue.post(record(2)));
+        assertEquals(1, queue.getRejectedCount());
+    }
+
+    @Test
+    public void clearReleasesPendingKeys() {
+        RunnableQueue queue = new RunnableQueue(4, RunnableQueue.OverflowPolicy.REJECT);
+        queue.post("a", record(0));
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertTrue(queue.post("a", record(1)));
+        queue.drain();
+        assertEquals("[1]", runs.toString());
+    }
+
+    @Test
+    public void concurrentRejectKeepsEveryAcceptedRunnable() throws InterruptedException {
+        runConcurrently(RunnableQueue.OverflowPolicy.REJECT);
+    }
+
+    @Test
+    public void concurrentDropOldestCountsEveryLostRunnable() throws InterruptedException {
+        runConcurrently(RunnableQueue.OverflowPolicy.DROP_OLDEST);
+    }
+
+    @Test
+    public void concurrentBlockRunsEveryRunnable() throws InterruptedException {
+        runConcurrently(RunnableQueue.OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Producers post to their own keys and unkeyed runnables while this thread drains. Every post is either run, replaced by
+     * a newer post for its key, dropped or rejected, and for every key the runnables run in the order they were posted and
+     * the last accepted one runs.
+     */
+    private void runConcurrently(RunnableQueue.OverflowPolicy policy) throws InterruptedException {
+        final RunnableQueue queue = new RunnableQueue(8, policy);
+        final int keys = PRODUCERS * KEYS_PER_PRODUCER;
+        final int[] lastRun = new int[keys];
+        final int[] lastAccepted = new int[keys];
+        final boolean[] outOfOrder = new boolean[1];
+        final AtomicInteger unkeyedRuns = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(PRODUCERS);
+        for (int i = 0; i < keys; i++)
+            lastRun[i] = lastAccepted[i] = -1;
+        // the consumer has to be known before the producers start, otherwise BLOCK does not know whom to wait for
+        queue.drain();
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            final int producer = p;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int i = 0; i < POSTS_PER_PRODUCER; i++) {
+                            if (i % 4 == 0) {
+                                queue.post(new Runnable() {
+                                    @Override
+                                    public void run() {
+                                        unkeyedRuns.incrementAndGet();
+                                    }
+                                });
+                                continue;
+                            }
+                            final int key = producer * KEYS_PER_PRODUCER + i % KEYS_PER_PRODUCER;
+                            final int value = i;
+                            boolean accepted = queue.post(Integer.valueOf(key), new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (value <= lastRun[key]) outOfOrder[0] = true;
+                                    lastRun[key] = value;
+                                }
+                            });
+                            if (accepted) lastAccepted[key] = value;
+                        }
+                    } catch (InterruptedException ignored) {
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        start.countDown();
+        while (done.getCount() > 0)
+            queue.drain(16);
+        done.await();
+        queue.drain();
+
+        assertTrue(queue.isEmpty());
+        assertFalse(outOfOrder[0]);
+        for (int i = 0; i < keys; i++)
+            if (policy != RunnableQueue.OverflowPolicy.DROP_OLDEST) assertEquals(lastAccepted[i], lastRun[i]);
+        long posted = queue.getPostedCount();
+        assertEquals(PRODUCERS * POSTS_PER_PRODUCER, posted);
+        assertEquals(posted, queue.getDrainedCount() + queue.getCoalescedCount() + queue.getDroppedCount()
+                + queue.getRejectedCount());
+        if (policy == RunnableQueue.OverflowPolicy.BLOCK) assertEquals(PRODUCERS * POSTS_PER_PRODUCER / 4, unkeyedRuns.get());
+    }
+
+    private Runnable record(final int id) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                runs.add(id);
+            }
+        };
+    }
+}